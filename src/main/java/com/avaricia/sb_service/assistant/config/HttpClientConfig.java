@@ -0,0 +1,32 @@
+package com.avaricia.sb_service.assistant.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * HTTP client configuration for outbound calls (Telegram, Core API, Whisper).
+ *
+ * Uses the JDK HttpClient instead of HttpURLConnection so blocking calls made from
+ * virtual threads park the virtual thread instead of pinning its carrier.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public RestTemplate restTemplate(
+            RestTemplateBuilder builder,
+            @Value("${assistant.http.connect-timeout:5s}") Duration connectTimeout,
+            @Value("${assistant.http.read-timeout:60s}") Duration readTimeout) {
+        return builder
+            .requestFactoryBuilder(ClientHttpRequestFactoryBuilder.jdk())
+            .connectTimeout(connectTimeout)
+            .readTimeout(readTimeout)
+            .build();
+    }
+}
@@ -0,0 +1,12 @@
+package com.avaricia.sb_service.assistant.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled maintenance tasks of the assistant (e.g. cleanup of processed update records).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,18 @@
+package com.avaricia.sb_service.assistant.config;
+
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Local token counting (JTokkit, no API call) used to measure and budget prompt segments.
+ */
+@Configuration
+public class TokenizerConfig {
+
+    @Bean
+    public TokenCountEstimator tokenCountEstimator() {
+        return new JTokkitTokenCountEstimator();
+    }
+}
@@ -7,6 +7,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -28,6 +30,8 @@ import com.avaricia.sb_service.assistant.service.UserMappingService;
 @Tag(name = "Notifications", description = "Endpoints for sending notifications to users via messaging platforms")
 public class NotificationController {
 
+    private static final Logger log = LoggerFactory.getLogger(NotificationController.class);
+
     private final TelegramService telegramService;
     private final UserMappingService userMappingService;
 
@@ -55,7 +59,7 @@ public class NotificationController {
     })
     @PostMapping("/telegram")
     public ResponseEntity<NotificationResponse> sendTelegramNotification(@RequestBody NotificationRequest request) {
-        System.out.println("📬 Notification request received for user: " + request.getUserId());
+        log.info("📬 Notification request received for user: {}", request.getUserId());
         
         // Validate request
         if (request.getUserId() == null || request.getUserId().isEmpty()) {
@@ -73,7 +77,7 @@ public class NotificationController {
             Long telegramId = userMappingService.getTelegramId(request.getUserId());
             
             if (telegramId == null) {
-                System.out.println("⚠️ User " + request.getUserId() + " has no linked Telegram account");
+                log.info("⚠️ User {} has no linked Telegram account", request.getUserId());
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new NotificationResponse(false, 
                         "User has no linked Telegram account or has not interacted with the bot yet"));
@@ -82,14 +86,13 @@ public class NotificationController {
             // Send message via Telegram
             telegramService.sendMessage(telegramId, request.getMessage());
             
-            System.out.println("✅ Notification sent to Telegram ID: " + telegramId);
+            log.info("✅ Notification sent to Telegram ID: {}", telegramId);
             return ResponseEntity.ok(
                 new NotificationResponse(true, "Notification sent successfully", telegramId.toString())
             );
             
         } catch (Exception e) {
-            System.err.println("❌ Error sending notification: " + e.getMessage());
-            e.printStackTrace();
+            log.error("❌ Error sending notification: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new NotificationResponse(false, "Error sending notification: " + e.getMessage()));
         }
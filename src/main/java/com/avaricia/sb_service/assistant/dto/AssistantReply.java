@@ -0,0 +1,17 @@
+package com.avaricia.sb_service.assistant.dto;
+
+/**
+ * Reply produced for a user message.
+ *
+ * @param text The final reply text (also stored in the conversation history)
+ * @param delivered true if the reply was already sent to the chat (e.g. streamed with message edits)
+ */
+public record AssistantReply(String text, boolean delivered) {
+
+    /**
+     * Creates a reply the caller still has to send.
+     */
+    public static AssistantReply pending(String text) {
+        return new AssistantReply(text, false);
+    }
+}
@@ -1,23 +1,41 @@
 package com.avaricia.sb_service.assistant.dto;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+/**
+ * Classification of a user message. The classifier answers in a compact schema with one-letter
+ * keys (i, a, c, d, t, p, f, q, r) and without null values; the aliases map it onto these fields.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class IntentResult {
     
+    @JsonAlias("i")
     private String intent;
     private Double amount;
+    @JsonAlias("c")
     private String category;
+    @JsonAlias("d")
     private String description;
+    @JsonAlias("t")
     private String type; // "Expense" or "Income"
+    @JsonAlias("p")
     private String period; // "Monthly", "Weekly", etc. - for rules
+    @JsonAlias("r")
     private String response; // Respuesta para el usuario cuando es una pregunta general
     
     // Fields for advanced queries
     private String startDate; // For date range queries (ISO format)
     private String endDate; // For date range queries (ISO format)
+    @JsonAlias("q")
     private String searchQuery; // For searching transactions by description
     
+    // Raw spans copied from the user's message, resolved by SpanishNormalizer
+    @JsonAlias("a")
+    private String amountText; // "50k", "2 millones", "un millón y medio"
+    @JsonAlias("f")
+    private String dateText; // "ayer", "del 1 al 15", "mes pasado"
+    
     // Constructors
     public IntentResult() {}
     
@@ -102,6 +120,42 @@ public class IntentResult {
         this.searchQuery = searchQuery;
     }
     
+    public String getAmountText() {
+        return amountText;
+    }
+    
+    public void setAmountText(String amountText) {
+        this.amountText = amountText;
+    }
+    
+    public String getDateText() {
+        return dateText;
+    }
+    
+    public void setDateText(String dateText) {
+        this.dateText = dateText;
+    }
+    
+    /**
+     * Creates an independent copy (used to hand out cached results safely).
+     */
+    public IntentResult copy() {
+        IntentResult copy = new IntentResult();
+        copy.intent = intent;
+        copy.amount = amount;
+        copy.category = category;
+        copy.description = description;
+        copy.type = type;
+        copy.period = period;
+        copy.response = response;
+        copy.startDate = startDate;
+        copy.endDate = endDate;
+        copy.searchQuery = searchQuery;
+        copy.amountText = amountText;
+        copy.dateText = dateText;
+        return copy;
+    }
+    
     @Override
     public String toString() {
         return "IntentResult{" +
@@ -115,6 +169,8 @@ public class IntentResult {
                 ", startDate='" + startDate + '\'' +
                 ", endDate='" + endDate + '\'' +
                 ", searchQuery='" + searchQuery + '\'' +
+                ", amountText='" + amountText + '\'' +
+                ", dateText='" + dateText + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,16 @@
+package com.avaricia.sb_service.assistant.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Response of the Telegram sendMessage and editMessageText methods.
+ *
+ * @see <a href="https://core.telegram.org/bots/api#sendmessage">sendMessage</a>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TelegramMessageResponse(
+    boolean ok,
+    TelegramUpdate.Message result,
+    String description
+) {
+}
@@ -0,0 +1,70 @@
+package com.avaricia.sb_service.assistant.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Telegram Bot API update, limited to the fields the assistant uses.
+ *
+ * Unknown fields (photos, entities, stickers, edited messages...) are skipped by the
+ * parser instead of being materialized, so binding a webhook call allocates only
+ * these records.
+ *
+ * @see <a href="https://core.telegram.org/bots/api#update">Update</a>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TelegramUpdate(
+    @JsonProperty("update_id") Long updateId,
+    Message message
+) {
+
+    /**
+     * Incoming message. At most one of text, voice, audio or videoNote is usually present.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Message(
+        @JsonProperty("message_id") Long messageId,
+        Chat chat,
+        User from,
+        String text,
+        Media voice,
+        Media audio,
+        @JsonProperty("video_note") Media videoNote
+    ) {
+        /**
+         * Gets the chat ID, or null if the message has no chat.
+         */
+        public Long chatId() {
+            return chat != null ? chat.id() : null;
+        }
+
+        /**
+         * Gets the sender's Telegram ID, or null if the message has no sender.
+         */
+        public Long telegramId() {
+            return from != null ? from.id() : null;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Chat(Long id) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record User(
+        Long id,
+        String username,
+        @JsonProperty("first_name") String firstName
+    ) {
+    }
+
+    /**
+     * Voice note, audio file or video note. Only the file reference and duration are needed for transcription.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Media(
+        @JsonProperty("file_id") String fileId,
+        Integer duration
+    ) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.avaricia.sb_service.assistant.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Response of the Telegram getUpdates method.
+ *
+ * @see <a href="https://core.telegram.org/bots/api#getupdates">getUpdates</a>
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TelegramUpdatesResponse(
+    boolean ok,
+    List<TelegramUpdate> result,
+    String description
+) {
+}
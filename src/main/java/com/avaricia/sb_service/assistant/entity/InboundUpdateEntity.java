@@ -0,0 +1,55 @@
+package com.avaricia.sb_service.assistant.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Entity representing a Telegram update accepted but not yet processed.
+ * Maps to the "InboundUpdates" table (durable journal shared by all replicas).
+ * Rows are deleted once processed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "\"InboundUpdates\"")
+public class InboundUpdateEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "\"Id\"")
+    private Long id;
+
+    @Column(name = "\"BotId\"", nullable = false)
+    private Long botId;
+
+    @Column(name = "\"UpdateId\"", nullable = false)
+    private Long updateId;
+
+    @Column(name = "\"ChatId\"", nullable = false)
+    private Long chatId;
+
+    @Column(name = "\"Payload\"", nullable = false, columnDefinition = "jsonb")
+    private String payload;  // JSON serialized TelegramUpdate
+
+    @Column(name = "\"Status\"", nullable = false, length = 20)
+    private String status;  // 'pending' or 'processing'
+
+    @Column(name = "\"ClaimedBy\"", length = 100)
+    private String claimedBy;
+
+    @Column(name = "\"ClaimedAt\"")
+    private OffsetDateTime claimedAt;
+
+    @Column(name = "\"Attempts\"", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "\"CreatedAt\"", nullable = false)
+    private OffsetDateTime createdAt;
+}
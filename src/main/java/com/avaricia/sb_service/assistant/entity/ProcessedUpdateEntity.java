@@ -0,0 +1,46 @@
+package com.avaricia.sb_service.assistant.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Entity representing a Telegram update that was already accepted for processing.
+ * Maps to the "ProcessedUpdates" table, shared by all replicas to drop redeliveries.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "\"ProcessedUpdates\"")
+@IdClass(ProcessedUpdateEntity.Key.class)
+public class ProcessedUpdateEntity {
+
+    @Id
+    @Column(name = "\"BotId\"", nullable = false)
+    private Long botId;
+
+    @Id
+    @Column(name = "\"UpdateId\"", nullable = false)
+    private Long updateId;
+
+    @Column(name = "\"ReceivedAt\"", nullable = false)
+    private OffsetDateTime receivedAt;
+
+    /**
+     * Composite primary key (bot, update_id).
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long botId;
+        private Long updateId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.avaricia.sb_service.assistant.exception;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when no model answered an LLM call within its deadline.
+ * Callers treat it like any other OpenAI failure and use their local fallback.
+ */
+public class LlmTimeoutException extends AssistantException {
+
+    private static final String DEFAULT_USER_MESSAGE =
+        "⏳ El servicio de IA está tardando más de lo normal. Por favor, intenta en unos momentos.";
+    private static final String ERROR_CODE = "LLM_TIMEOUT";
+
+    public LlmTimeoutException(String operation, Duration deadline) {
+        super("LLM " + operation + " call exceeded its deadline of " + deadline.toMillis() + " ms",
+            DEFAULT_USER_MESSAGE, ERROR_CODE);
+    }
+}
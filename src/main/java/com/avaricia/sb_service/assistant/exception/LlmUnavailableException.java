@@ -0,0 +1,16 @@
+package com.avaricia.sb_service.assistant.exception;
+
+/**
+ * Exception thrown when an LLM call is rejected because the OpenAI circuit breaker is open.
+ * No request was sent; callers switch to their local, degraded behaviour.
+ */
+public class LlmUnavailableException extends AssistantException {
+
+    private static final String DEFAULT_USER_MESSAGE =
+        "🤖 El servicio de IA no está disponible temporalmente. Por favor, intenta en unos momentos.";
+    private static final String ERROR_CODE = "LLM_UNAVAILABLE";
+
+    public LlmUnavailableException(String operation) {
+        super("LLM " + operation + " call rejected: circuit breaker open", DEFAULT_USER_MESSAGE, ERROR_CODE);
+    }
+}
@@ -0,0 +1,39 @@
+package com.avaricia.sb_service.assistant.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Redaction for user content (messages, transcriptions, AI responses) in logs.
+ *
+ * Content is replaced by its length unless the "assistant.content" logger is at DEBUG
+ * (logging.level.assistant.content=DEBUG), which is meant for local debugging only.
+ * The value is rendered lazily, so nothing is built when the log line is disabled.
+ */
+public final class LogContent {
+
+    private static final Logger CONTENT_LOG = LoggerFactory.getLogger("assistant.content");
+
+    private LogContent() {
+    }
+
+    /**
+     * Wraps user content for logging as a parameter or key/value.
+     */
+    public static Object of(String content) {
+        return new Redacted(content);
+    }
+
+    private record Redacted(String content) {
+        @Override
+        public String toString() {
+            if (content == null) {
+                return "null";
+            }
+            if (CONTENT_LOG.isDebugEnabled()) {
+                return content;
+            }
+            return "[" + content.length() + " chars]";
+        }
+    }
+}
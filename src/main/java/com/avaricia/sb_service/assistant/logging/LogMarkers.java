@@ -0,0 +1,19 @@
+package com.avaricia.sb_service.assistant.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+/**
+ * SLF4J markers understood by the logging configuration (logback-spring.xml).
+ */
+public final class LogMarkers {
+
+    /**
+     * Per-request INFO/DEBUG lines that are only written for a sample of requests
+     * (see SamplingFilter). WARN and ERROR are never sampled.
+     */
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private LogMarkers() {
+    }
+}
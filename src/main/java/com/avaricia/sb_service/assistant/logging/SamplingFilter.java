@@ -0,0 +1,37 @@
+package com.avaricia.sb_service.assistant.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback filter that keeps 1 out of every N events marked with {@link LogMarkers#SAMPLED}.
+ * Events without the marker, and WARN/ERROR events, always pass.
+ */
+public class SamplingFilter extends Filter<ILoggingEvent> {
+
+    private final AtomicLong counter = new AtomicLong();
+    private int rate = 1;
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (rate <= 1 || event.getLevel().isGreaterOrEqual(Level.WARN) || !isSampled(event)) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private static boolean isSampled(ILoggingEvent event) {
+        return event.getMarkerList() != null && event.getMarkerList().contains(LogMarkers.SAMPLED);
+    }
+
+    /**
+     * Sets N (configured in logback-spring.xml); 1 keeps every event.
+     */
+    public void setRate(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+}
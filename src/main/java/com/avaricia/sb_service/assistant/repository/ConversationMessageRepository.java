@@ -81,4 +81,25 @@ public interface ConversationMessageRepository extends JpaRepository<Conversatio
         )
         """, nativeQuery = true)
     void deleteOldestMessages(@Param("telegramId") Long telegramId, @Param("count") int count);
+
+    /**
+     * Replaces the content of the latest assistant message with the given content.
+     *
+     * @return Number of updated messages (0 or 1)
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE "ConversationMessages" SET "Content" = :replacement
+        WHERE "Id" = (
+            SELECT "Id" FROM "ConversationMessages"
+            WHERE "TelegramId" = :telegramId AND "Role" = 'assistant' AND "Content" = :original
+            ORDER BY "CreatedAt" DESC
+            LIMIT 1
+        )
+        """, nativeQuery = true)
+    int replaceLatestAssistantContent(
+        @Param("telegramId") Long telegramId,
+        @Param("original") String original,
+        @Param("replacement") String replacement
+    );
 }
@@ -0,0 +1,103 @@
+package com.avaricia.sb_service.assistant.repository;
+
+import com.avaricia.sb_service.assistant.entity.InboundUpdateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Repository for the inbound update journal.
+ * Each statement runs in its own short transaction; row locks are only held while claiming.
+ */
+@Repository
+public interface InboundUpdateRepository extends JpaRepository<InboundUpdateEntity, Long> {
+
+    /**
+     * Appends an update to the journal.
+     *
+     * @return 1 if stored, 0 if the same update was already journaled
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO "InboundUpdates" ("BotId", "UpdateId", "ChatId", "Payload", "Status", "Attempts", "CreatedAt")
+        VALUES (:botId, :updateId, :chatId, CAST(:payload AS jsonb), 'pending', 0, :now)
+        ON CONFLICT ("BotId", "UpdateId") DO NOTHING
+        """, nativeQuery = true)
+    int append(
+        @Param("botId") Long botId,
+        @Param("updateId") Long updateId,
+        @Param("chatId") Long chatId,
+        @Param("payload") String payload,
+        @Param("now") OffsetDateTime now
+    );
+
+    /**
+     * Claims up to :limit updates for a worker.
+     *
+     * Only the oldest update of each chat is eligible, so a chat never has two updates
+     * in progress, even across replicas. Rows locked by another worker are skipped instead
+     * of waited on. Claims older than :staleBefore (crashed worker) are taken over.
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE "InboundUpdates"
+        SET "Status" = 'processing', "ClaimedBy" = :owner, "ClaimedAt" = :now, "Attempts" = "Attempts" + 1
+        WHERE "Id" IN (
+            SELECT u."Id" FROM "InboundUpdates" u
+            WHERE (u."Status" = 'pending' OR u."ClaimedAt" < :staleBefore)
+              AND NOT EXISTS (
+                  SELECT 1 FROM "InboundUpdates" earlier
+                  WHERE earlier."BotId" = u."BotId" AND earlier."ChatId" = u."ChatId" AND earlier."Id" < u."Id"
+              )
+            ORDER BY u."Id"
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+        )
+        RETURNING *
+        """, nativeQuery = true)
+    List<InboundUpdateEntity> claim(
+        @Param("owner") String owner,
+        @Param("limit") int limit,
+        @Param("now") OffsetDateTime now,
+        @Param("staleBefore") OffsetDateTime staleBefore
+    );
+
+    /**
+     * Removes a processed update, making the next update of the chat eligible.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InboundUpdateEntity u WHERE u.id = :id")
+    int complete(@Param("id") Long id);
+
+    /**
+     * Returns a claimed update to the journal so any worker can take it again.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE InboundUpdateEntity u
+        SET u.status = 'pending', u.claimedBy = null, u.claimedAt = null
+        WHERE u.id = :id AND u.claimedBy = :owner
+        """)
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    /**
+     * Returns every update claimed by a worker (used on shutdown).
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE InboundUpdateEntity u
+        SET u.status = 'pending', u.claimedBy = null, u.claimedAt = null
+        WHERE u.claimedBy = :owner AND u.status = 'processing'
+        """)
+    int releaseAll(@Param("owner") String owner);
+}
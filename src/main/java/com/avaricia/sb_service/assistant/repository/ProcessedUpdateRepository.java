@@ -0,0 +1,53 @@
+package com.avaricia.sb_service.assistant.repository;
+
+import com.avaricia.sb_service.assistant.entity.ProcessedUpdateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Repository for the Telegram update deduplication store.
+ * Each statement runs in its own transaction so a failure never affects the caller.
+ */
+@Repository
+public interface ProcessedUpdateRepository extends JpaRepository<ProcessedUpdateEntity, ProcessedUpdateEntity.Key> {
+
+    /**
+     * Records an update ID if it was not recorded before.
+     *
+     * @return 1 if the update is new, 0 if another delivery already recorded it
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+        INSERT INTO "ProcessedUpdates" ("BotId", "UpdateId", "ReceivedAt")
+        VALUES (:botId, :updateId, :receivedAt)
+        ON CONFLICT DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(
+        @Param("botId") Long botId,
+        @Param("updateId") Long updateId,
+        @Param("receivedAt") OffsetDateTime receivedAt
+    );
+
+    /**
+     * Removes a recorded update so a later redelivery is accepted again.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessedUpdateEntity p WHERE p.botId = :botId AND p.updateId = :updateId")
+    int deleteByBotIdAndUpdateId(@Param("botId") Long botId, @Param("updateId") Long updateId);
+
+    /**
+     * Delete records older than a certain time.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ProcessedUpdateEntity p WHERE p.receivedAt < :before")
+    int deleteByReceivedAtBefore(@Param("before") OffsetDateTime before);
+}
@@ -0,0 +1,101 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limiter whose limit adapts to observed latency (AIMD).
+ *
+ * - Additive increase: each fast completion while the limit is actually being used
+ *   raises the limit by 1/limit (about +1 per limit's worth of completions).
+ * - Multiplicative decrease: a completion slower than the latency threshold, or a
+ *   failure, multiplies the limit by the backoff ratio.
+ *
+ * When OpenAI or Core slow down, completions get slower and the limit shrinks,
+ * so fewer requests wait on them instead of piling up in memory.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    /**
+     * @param initialLimit Starting limit
+     * @param minLimit The limit never drops below this
+     * @param maxLimit The limit never grows above this
+     * @param latencyThreshold Completions slower than this count as congestion
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+    }
+
+    /**
+     * Takes a slot if the current limit allows it.
+     *
+     * @return true if acquired; the caller must then call {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a slot and feeds the observed latency back into the limit.
+     *
+     * @param latency How long the work took, in the given unit
+     * @param unit Unit of the latency
+     * @param failed Whether the work failed (treated as congestion)
+     */
+    public void release(long latency, TimeUnit unit, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        onSample(unit.toNanos(latency), failed, current);
+    }
+
+    /**
+     * Returns a slot without a latency sample (the work never ran).
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long latencyNanos, boolean failed, int inFlightAtCompletion) {
+        double current = limit;
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            current = current * BACKOFF_RATIO;
+        } else if (inFlightAtCompletion * 2 >= current) {
+            // Only grow when the limit is being used, otherwise it would grow without evidence
+            current = current + 1.0 / current;
+        }
+        limit = Math.clamp(current, minLimit, maxLimit);
+    }
+
+    /**
+     * Gets the current limit (for monitoring).
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Gets the number of slots currently taken (for monitoring).
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 
 import com.avaricia.sb_service.assistant.exception.TranscriptionException;
+import com.avaricia.sb_service.assistant.logging.LogContent;
 
 import java.util.Map;
 
@@ -30,9 +31,10 @@ public class AudioTranscriptionService {
     private static final String WHISPER_API_URL = "https://api.openai.com/v1/audio/transcriptions";
 
     public AudioTranscriptionService(
+            RestTemplate restTemplate,
             @Value("${telegram.bot.token}") String botToken,
             @Value("${spring.ai.openai.api-key}") String openAiApiKey) {
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = restTemplate;
         this.telegramApiUrl = "https://api.telegram.org/bot" + botToken;
         this.telegramFileUrl = "https://api.telegram.org/file/bot" + botToken;
         this.openAiApiKey = openAiApiKey;
@@ -55,8 +57,7 @@ public class AudioTranscriptionService {
             log.debug("📥 Audio downloaded: {} bytes", audioData.length);
             
             String transcription = transcribeWithWhisper(audioData, filePath);
-            log.info("✅ Transcription successful: '{}...'", 
-                transcription.length() > 50 ? transcription.substring(0, 50) : transcription);
+            log.info("✅ Transcription successful: {}", LogContent.of(transcription));
             
             return transcription;
             
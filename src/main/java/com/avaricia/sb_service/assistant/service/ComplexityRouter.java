@@ -0,0 +1,202 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.avaricia.sb_service.assistant.service.SpanishNormalizer.DateRange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Chooses the OpenAI model for each classification from a local complexity score.
+ *
+ * Most messages are a single operation or query ("¿Qué gasté ayer?", "Gasté 30k en taxi") and
+ * a small, fast model classifies them as well as the large one. The score adds up what makes a
+ * message hard: several amounts (several operations), conjunctions that chain clauses, date
+ * expressions (more for multi-day ranges) and length. Messages below the threshold go to the
+ * small model, the rest to the large (primary) model. An answer of the small model that cannot
+ * be parsed is escalated to the large model.
+ *
+ * Disabled by default (assistant.model-routing.enabled): the small route has only been checked
+ * offline against the recorded conversations, not against live accuracy.
+ *
+ * Exposed metrics:
+ * - assistant.intent.route.duration{route=small|large}: classification latency per route
+ * - assistant.intent.route.tokens{route,direction=input|output}: estimated tokens per classification (cost)
+ * - assistant.intent.route.result{route,result=ok|invalid|failed}: answers per route that could be
+ *   used, could not be parsed (escalated when small) or failed (accuracy)
+ */
+@Service
+public class ComplexityRouter {
+
+    public static final String SMALL = "small";
+    public static final String LARGE = "large";
+
+    /** Amounts beyond the first almost always mean several operations */
+    private static final int EXTRA_AMOUNT_SCORE = 3;
+    private static final int MAX_CONJUNCTION_SCORE = 2;
+
+    private static final Pattern CONJUNCTION = Pattern.compile(
+        "\\b(?:y|e|pero|ademas|tambien|luego|despues|aparte|mas bien|sino)\\b|[;\\n]");
+
+    private final SpanishNormalizer normalizer;
+    private final TokenCountEstimator tokenizer;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final String smallModel;
+    private final String largeModel;
+    private final int threshold;
+
+    private volatile PromptTokens systemTokens = new PromptTokens("", 0);
+
+    public ComplexityRouter(
+            SpanishNormalizer normalizer,
+            TokenCountEstimator tokenizer,
+            MeterRegistry meterRegistry,
+            @Value("${assistant.model-routing.enabled:false}") boolean enabled,
+            @Value("${assistant.model-routing.small-model:gpt-4.1-nano}") String smallModel,
+            @Value("${spring.ai.openai.chat.options.model:gpt-4o-mini}") String largeModel,
+            @Value("${assistant.model-routing.threshold:2}") int threshold) {
+        this.normalizer = normalizer;
+        this.tokenizer = tokenizer;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled && !smallModel.isBlank() && !smallModel.equals(largeModel);
+        this.smallModel = smallModel;
+        this.largeModel = largeModel;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Picks the model for a message.
+     *
+     * @param message The user message, without conversation context
+     */
+    public Route route(String message) {
+        if (!enabled) {
+            // No need to score a message that goes to the large model anyway
+            return large(0);
+        }
+        int score = score(message);
+        return score < threshold ? new Route(SMALL, smallModel, score) : large(score);
+    }
+
+    /**
+     * The large-model route, for escalations.
+     */
+    public Route large(int score) {
+        return new Route(LARGE, largeModel, score);
+    }
+
+    /**
+     * Local complexity of a message: 0 for a short single-clause message without dates.
+     */
+    int score(String message) {
+        String folded = FastIntentParser.fold(message.strip());
+        int score = 0;
+
+        int amounts = FastIntentParser.amounts(folded).size();
+        if (amounts > 1) {
+            score += EXTRA_AMOUNT_SCORE * (amounts - 1);
+        }
+
+        Matcher conjunction = CONJUNCTION.matcher(folded);
+        int conjunctions = 0;
+        while (conjunctions < MAX_CONJUNCTION_SCORE && conjunction.find()) {
+            conjunctions++;
+        }
+        score += conjunctions;
+
+        Optional<DateRange> dates = normalizer.dates(message, LocalDate.now());
+        if (dates.isPresent()) {
+            score += dates.get().singleDay() ? 1 : 2;
+        }
+
+        if (folded.length() > 120) {
+            score += 2;
+        } else if (folded.length() > 60) {
+            score += 1;
+        }
+        return score;
+    }
+
+    /**
+     * Records a classification whose answer could be used.
+     */
+    public void completed(Route route, long startedAt, String systemPrompt, String user, String response) {
+        timer(route).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        tokens(route, "input").record(systemTokens(systemPrompt) + tokenizer.estimate(user));
+        tokens(route, "output").record(tokenizer.estimate(response));
+        result(route, "ok").increment();
+    }
+
+    /**
+     * Records a classification whose answer could not be parsed (invalid) or that failed.
+     */
+    public void failed(Route route, long startedAt, boolean invalid) {
+        timer(route).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        result(route, invalid ? "invalid" : "failed").increment();
+    }
+
+    /**
+     * The system prompt changes once a day, so its size is only estimated when it does.
+     */
+    private int systemTokens(String systemPrompt) {
+        PromptTokens last = systemTokens;
+        if (last.prompt() != systemPrompt) {
+            last = new PromptTokens(systemPrompt, tokenizer.estimate(systemPrompt));
+            systemTokens = last;
+        }
+        return last.tokens();
+    }
+
+    private record PromptTokens(String prompt, int tokens) {
+    }
+
+    private Timer timer(Route route) {
+        return Timer.builder("assistant.intent.route.duration")
+            .description("Classification latency per model route")
+            .tag("route", route.name())
+            .publishPercentiles(0.5, 0.95)
+            .register(meterRegistry);
+    }
+
+    private DistributionSummary tokens(Route route, String direction) {
+        return DistributionSummary.builder("assistant.intent.route.tokens")
+            .description("Estimated tokens per classification and model route")
+            .tag("route", route.name())
+            .tag("direction", direction)
+            .register(meterRegistry);
+    }
+
+    private Counter result(Route route, String result) {
+        return Counter.builder("assistant.intent.route.result")
+            .description("Classifications per model route whose answer was used, invalid or failed")
+            .tag("route", route.name())
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Where a classification goes.
+     *
+     * @param name small or large, the metrics tag
+     * @param model The OpenAI model
+     * @param score The complexity score of the message (0 when routing is disabled)
+     */
+    public record Route(String name, String model, int score) {
+
+        public boolean isSmall() {
+            return SMALL.equals(name);
+        }
+    }
+}
@@ -2,13 +2,13 @@ package com.avaricia.sb_service.assistant.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
 
 import com.avaricia.sb_service.assistant.dto.ConfirmationIntent;
 import com.avaricia.sb_service.assistant.dto.IntentResult;
 import com.avaricia.sb_service.assistant.dto.PendingAction;
 import com.avaricia.sb_service.assistant.dto.PendingBatchAction;
+import com.avaricia.sb_service.assistant.logging.LogContent;
 
 import java.util.List;
 import java.util.Map;
@@ -31,7 +31,8 @@ import java.util.regex.Pattern;
 @Service
 public class ConfirmationService {
 
-    private final ChatClient chatClient;
+    private final LlmGateway llmGateway;
+    private final LlmCircuitBreaker circuitBreaker;
 
     private static final Logger log = LoggerFactory.getLogger(ConfirmationService.class);
 
@@ -100,8 +101,9 @@ public class ConfirmationService {
 
     // ==================== CONSTRUCTOR ====================
 
-    public ConfirmationService(ChatClient.Builder chatClientBuilder) {
-        this.chatClient = chatClientBuilder.build();
+    public ConfirmationService(LlmGateway llmGateway, LlmCircuitBreaker circuitBreaker) {
+        this.llmGateway = llmGateway;
+        this.circuitBreaker = circuitBreaker;
     }
 
     /**
@@ -413,7 +415,7 @@ public class ConfirmationService {
      * Strategy:
      * 1. Fast path: Check exact word matches (O(1) with Set)
      * 2. Medium path: Check regex patterns (compiled for performance)
-     * 3. Slow path: Use AI to classify ambiguous messages
+     * 3. Slow path: Use AI to classify ambiguous messages (skipped while the OpenAI circuit is open)
      * 
      * This approach optimizes for speed in common cases while maintaining
      * flexibility for complex or ambiguous user responses.
@@ -430,26 +432,32 @@ public class ConfirmationService {
         
         // Fast path: exact word matches
         if (CONFIRMATION_WORDS.contains(normalized)) {
-            log.debug("✅ Fast path confirmation: '{}'", message);
+            log.debug("✅ Fast path confirmation: {}", LogContent.of(message));
             return ConfirmationIntent.CONFIRM;
         }
         if (CANCELLATION_WORDS.contains(normalized)) {
-            log.debug("❌ Fast path cancellation: '{}'", message);
+            log.debug("❌ Fast path cancellation: {}", LogContent.of(message));
             return ConfirmationIntent.CANCEL;
         }
         
         // Medium path: regex pattern matches
         if (CONFIRMATION_PATTERN.matcher(normalized).find()) {
-            log.debug("✅ Pattern confirmation: '{}'", message);
+            log.debug("✅ Pattern confirmation: {}", LogContent.of(message));
             return ConfirmationIntent.CONFIRM;
         }
         if (CANCELLATION_PATTERN.matcher(normalized).find()) {
-            log.debug("❌ Pattern cancellation: '{}'", message);
+            log.debug("❌ Pattern cancellation: {}", LogContent.of(message));
             return ConfirmationIntent.CANCEL;
         }
         
+        // While OpenAI is failing only the regex paths are used
+        if (circuitBreaker.isDegraded()) {
+            log.debug("🔌 Degraded mode, ambiguous confirmation left unclear: {}", LogContent.of(message));
+            return ConfirmationIntent.UNCLEAR;
+        }
+
         // Slow path: AI classification for ambiguous messages
-        log.debug("🤖 Using AI to classify ambiguous message: '{}'", message);
+        log.debug("🤖 Using AI to classify ambiguous message: {}", LogContent.of(message));
         return classifyWithAI(message);
     }
 
@@ -477,18 +485,15 @@ public class ConfirmationService {
                 Tu respuesta (solo una palabra):
                 """.formatted(message);
             
-            String response = chatClient.prompt()
-                    .user(prompt)
-                    .call()
-                    .content();
+            String response = llmGateway.call(LlmGateway.Operation.CONFIRM, null, prompt);
             
             if (response == null || response.isBlank()) {
-                log.warn("⚠️ AI returned empty response for message: '{}'", message);
+                log.warn("⚠️ AI returned empty response for message: {}", LogContent.of(message));
                 return ConfirmationIntent.UNCLEAR;
             }
             
             String aiDecision = response.trim().toUpperCase();
-            log.debug("🤖 AI classified '{}' as: {}", message, aiDecision);
+            log.debug("🤖 AI classified {} as: {}", LogContent.of(message), aiDecision);
             
             return switch (aiDecision) {
                 case "CONFIRM" -> ConfirmationIntent.CONFIRM;
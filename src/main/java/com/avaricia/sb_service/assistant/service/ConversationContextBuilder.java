@@ -0,0 +1,186 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.avaricia.sb_service.assistant.service.ConversationHistoryService.ConversationMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Service that builds the conversation context sent with each classification, within a token budget.
+ *
+ * The raw history holds up to 10 messages, and assistant replies are often long humanized
+ * texts with full transaction lists. The classifier only needs to resolve follow-ups
+ * ("¿qué días?", "el último gasto"), so:
+ * - the latest assistant reply is kept (trimmed to assistant.context.latest-reply-chars)
+ * - older data-heavy replies are reduced to their gist: title, number of items and totals
+ * - markdown markers are dropped and long user messages truncated
+ * - turns are added newest first until assistant.context.max-tokens is reached
+ *
+ * Exposed metrics:
+ * - assistant.context.tokens.saved: tokens removed compared to the raw history
+ */
+@Service
+public class ConversationContextBuilder {
+
+    static final String HEADER = "Historial reciente de la conversación:\n";
+
+    /** Lines worth keeping from a data-heavy reply */
+    private static final Pattern TOTAL_LINE = Pattern.compile("(?i).*(total|saldo|balance|ingresos|gastos).*\\$.*");
+    /** Lines that are list items (transactions, categories, rules) */
+    private static final Pattern ITEM_LINE = Pattern.compile("^\\s*(?:[•\\-]|\\d+\\.|\\S{1,2}\\s*\\$).*");
+
+    private final TokenCountEstimator tokenizer;
+    private final int maxTokens;
+    private final int turnChars;
+    private final int latestReplyChars;
+    private final Counter tokensSavedCounter;
+
+    public ConversationContextBuilder(
+            TokenCountEstimator tokenizer,
+            MeterRegistry meterRegistry,
+            @Value("${assistant.context.max-tokens:400}") int maxTokens,
+            @Value("${assistant.context.turn-chars:280}") int turnChars,
+            @Value("${assistant.context.latest-reply-chars:800}") int latestReplyChars) {
+        this.tokenizer = tokenizer;
+        this.maxTokens = maxTokens;
+        this.turnChars = turnChars;
+        this.latestReplyChars = latestReplyChars;
+        this.tokensSavedCounter = Counter.builder("assistant.context.tokens.saved")
+            .description("Context tokens removed by compaction compared to the raw conversation history")
+            .baseUnit("tokens")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Builds the compacted context for a conversation.
+     *
+     * @param history The conversation history, oldest first
+     * @return The context (empty text if there is no history)
+     */
+    public Context build(List<ConversationMessage> history) {
+        if (history.isEmpty()) {
+            return new Context("", 0, 0);
+        }
+
+        int budget = maxTokens - tokenizer.estimate(HEADER);
+        int latestAssistant = lastIndexOf(history, "assistant");
+        List<String> lines = new ArrayList<>();
+        int used = 0;
+
+        for (int i = history.size() - 1; i >= 0; i--) {
+            ConversationMessage msg = history.get(i);
+            String line = compact(msg, i == latestAssistant);
+            int tokens = tokenizer.estimate(line);
+            // The newest turn always goes in, everything else only if it fits
+            if (used + tokens > budget && !lines.isEmpty()) {
+                break;
+            }
+            lines.add(line);
+            used += tokens;
+        }
+        Collections.reverse(lines);
+
+        String text = HEADER + String.join("", lines);
+        int tokens = tokenizer.estimate(text);
+        int originalTokens = tokenizer.estimate(raw(history));
+        tokensSavedCounter.increment(Math.max(0, originalTokens - tokens));
+        return new Context(text, tokens, originalTokens);
+    }
+
+    private String compact(ConversationMessage msg, boolean latestReply) {
+        String content = msg.getContent() == null ? "" : msg.getContent().replaceAll("[*_`]", "").strip();
+        if ("user".equals(msg.getRole())) {
+            return "Usuario: " + truncate(content.replaceAll("\\s*\\n\\s*", " "), turnChars) + "\n";
+        }
+
+        String reply;
+        if (latestReply) {
+            reply = truncateLines(content, latestReplyChars);
+        } else if (content.length() <= turnChars) {
+            reply = content;
+        } else {
+            reply = gist(content);
+        }
+        return "Asistente: " + reply.replaceAll("\\s*\\n\\s*", " | ") + "\n";
+    }
+
+    /**
+     * Reduces a data-heavy reply to its first line, the number of listed items and its totals.
+     */
+    String gist(String content) {
+        String[] lines = content.split("\\n");
+        StringBuilder sb = new StringBuilder();
+        int items = 0;
+        for (String line : lines) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (sb.isEmpty()) {
+                sb.append(trimmed);
+            } else if (TOTAL_LINE.matcher(trimmed).matches()) {
+                sb.append("\n").append(trimmed);
+            } else if (ITEM_LINE.matcher(trimmed).matches()) {
+                items++;
+            }
+        }
+        if (items > 0) {
+            sb.append("\n[").append(items).append(" elementos listados]");
+        }
+        return truncate(sb.toString(), turnChars);
+    }
+
+    private static String truncateLines(String content, int maxChars) {
+        if (content.length() <= maxChars) {
+            return content;
+        }
+        int cut = content.lastIndexOf('\n', maxChars);
+        if (cut <= 0) {
+            return truncate(content, maxChars);
+        }
+        long remaining = content.substring(cut).lines().filter(line -> !line.isBlank()).count();
+        return content.substring(0, cut) + "\n[+" + remaining + " líneas]";
+    }
+
+    private static String truncate(String text, int maxChars) {
+        return text.length() <= maxChars ? text : text.substring(0, maxChars) + "…";
+    }
+
+    private static int lastIndexOf(List<ConversationMessage> history, String role) {
+        for (int i = history.size() - 1; i >= 0; i--) {
+            if (role.equals(history.get(i).getRole())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The uncompacted context: every message of the history, in full.
+     */
+    private static String raw(List<ConversationMessage> history) {
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (ConversationMessage msg : history) {
+            sb.append("user".equals(msg.getRole()) ? "Usuario" : "Asistente").append(": ").append(msg.getContent()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A compacted context.
+     *
+     * @param text The context to prepend to the user message (empty if there is none)
+     * @param tokens Estimated tokens of the text
+     * @param originalTokens Estimated tokens of the raw history it replaces
+     */
+    public record Context(String text, int tokens, int originalTokens) {
+    }
+}
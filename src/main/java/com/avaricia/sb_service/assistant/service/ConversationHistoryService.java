@@ -10,6 +10,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service for managing conversation history per user.
@@ -32,9 +34,9 @@ public class ConversationHistoryService {
 
     private final ConversationMessageRepository messageRepository;
     
-    // In-memory cache for fast access
-    private final Map<Long, List<ConversationMessage>> conversationCache = new HashMap<>();
-    private final Map<Long, LocalDateTime> lastActivity = new HashMap<>();
+    // In-memory cache for fast access (shared by concurrent dispatch workers)
+    private final Map<Long, List<ConversationMessage>> conversationCache = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> lastActivity = new ConcurrentHashMap<>();
 
     public ConversationHistoryService(ConversationMessageRepository messageRepository) {
         this.messageRepository = messageRepository;
@@ -50,6 +52,38 @@ public class ConversationHistoryService {
         addMessage(telegramId, "assistant", message);
     }
 
+    /**
+     * Replaces an assistant message already in the history, e.g. when the reply shown to the
+     * user was later edited into a different version. Does nothing if the message is gone.
+     *
+     * @param original The content that was recorded
+     * @param replacement The content finally shown
+     */
+    @Transactional
+    public void replaceAssistantMessage(Long telegramId, String original, String replacement) {
+        List<ConversationMessage> cache = conversationCache.get(telegramId);
+        if (cache != null) {
+            ConversationMessage target = null;
+            for (ConversationMessage msg : cache) {
+                if ("assistant".equals(msg.getRole()) && original.equals(msg.getContent())) {
+                    target = msg;
+                }
+            }
+            if (target != null) {
+                // Replace by identity: new messages may be added and trimmed concurrently
+                ConversationMessage found = target;
+                ConversationMessage updated = new ConversationMessage("assistant", replacement, found.getTimestamp());
+                cache.replaceAll(msg -> msg == found ? updated : msg);
+            }
+        }
+        
+        try {
+            messageRepository.replaceLatestAssistantContent(telegramId, original, replacement);
+        } catch (Exception e) {
+            log.error("❌ Error replacing message in DB: {}", e.getMessage());
+        }
+    }
+
     public List<ConversationMessage> getHistory(Long telegramId) {
         LocalDateTime lastTime = lastActivity.get(telegramId);
         if (lastTime != null && lastTime.plusMinutes(CONVERSATION_TIMEOUT_MINUTES).isBefore(LocalDateTime.now())) {
@@ -81,24 +115,6 @@ public class ConversationHistoryService {
         return result;
     }
 
-    public String getContextSummary(Long telegramId) {
-        List<ConversationMessage> history = getHistory(telegramId);
-        
-        if (history.isEmpty()) {
-            return "";
-        }
-        
-        StringBuilder sb = new StringBuilder();
-        sb.append("Historial reciente de la conversación:\n");
-        
-        for (ConversationMessage msg : history) {
-            String role = "user".equals(msg.getRole()) ? "Usuario" : "Asistente";
-            sb.append(role).append(": ").append(msg.getContent()).append("\n");
-        }
-        
-        return sb.toString();
-    }
-
     @Transactional
     public void clearHistory(Long telegramId) {
         conversationCache.remove(telegramId);
@@ -134,7 +150,7 @@ public class ConversationHistoryService {
         // Update cache
         List<ConversationMessage> cache = conversationCache.computeIfAbsent(
             telegramId, 
-            k -> new ArrayList<>()
+            k -> new CopyOnWriteArrayList<>()
         );
         
         cache.add(new ConversationMessage(role, content, LocalDateTime.now()));
@@ -171,7 +187,7 @@ public class ConversationHistoryService {
             }
             
             // Update cache
-            conversationCache.put(telegramId, messages);
+            conversationCache.put(telegramId, new CopyOnWriteArrayList<>(messages));
             if (!messages.isEmpty()) {
                 lastActivity.put(telegramId, LocalDateTime.now());
             }
@@ -33,9 +33,10 @@ public class CoreApiService {
     private final String apiKey;
 
     public CoreApiService(
+            RestTemplate restTemplate,
             @Value("${ms.core.base-url}") String baseUrl,
             @Value("${ms.core.api-key:riwi-internal-service-key-2024-secure}") String apiKey) {
-        this.restTemplate = new RestTemplate();
+        this.restTemplate = restTemplate;
         this.baseUrl = baseUrl;
         this.objectMapper = new ObjectMapper();
         this.apiKey = apiKey;
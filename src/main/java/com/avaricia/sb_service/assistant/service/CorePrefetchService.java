@@ -0,0 +1,282 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Service that speculatively reads Core data while the message is being classified.
+ *
+ * Classification takes hundreds of milliseconds and the handlers then call Core one read
+ * after the other (balance then summary for get_summary, transactions then rules for
+ * validate_expense). Cheap signals in the message text predict which reads will be needed;
+ * they are started on virtual threads before classification, and the handlers read through
+ * this service, which hands over the prefetched result when there is one.
+ *
+ * Prefetches only live for the request that started them. They are dropped as soon as the
+ * classification contains anything that is not a read (a new expense would make a prefetched
+ * balance stale), and whatever the handlers did not use is counted as wasted.
+ *
+ * Exposed metrics:
+ * - assistant.prefetch.calls{result=hit}: prefetched reads used by a handler
+ * - assistant.prefetch.calls{result=wasted}: prefetched reads nobody used
+ * - assistant.prefetch.calls{result=miss}: handler reads that had not been prefetched
+ */
+@Service
+public class CorePrefetchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CorePrefetchService.class);
+
+    /** Intents that only read Core data, so a prefetch stays valid while they run */
+    private static final Set<String> READ_ONLY_INTENTS = Set.of(
+        "get_balance",
+        "get_summary",
+        "list_transactions",
+        "list_transactions_by_date",
+        "list_transactions_by_range",
+        "search_transactions",
+        "list_rules",
+        "validate_expense",
+        "question"
+    );
+
+    private static final Pattern BALANCE = Pattern.compile(
+        "\\b(saldo|balance|disponible|cuanto (dinero |plata )?(tengo|me queda)|me queda)\\b");
+    private static final Pattern SUMMARY = Pattern.compile(
+        "\\b(resumen|desglose|categorias?|en que (gasto|se me va|se va)|donde (gasto|se me va|se va))\\b");
+    private static final Pattern VALIDATE = Pattern.compile(
+        "\\b(puedo (gastar|comprar)|deberia (gastar|comprar)|me alcanza|vale la pena)\\b");
+    private static final Pattern LIST = Pattern.compile(
+        "\\b(movimientos|transacciones|historial|mis (gastos|ingresos)|ultimos (gastos|ingresos)|muestrame|ensename)\\b");
+    private static final Pattern RULES = Pattern.compile("\\b(limites?|reglas?|presupuestos?)\\b");
+    /** Periods make the handlers use date-filtered endpoints, which are not prefetched */
+    private static final Pattern PERIOD = Pattern.compile(
+        "\\b(hoy|ayer|semana|mes|ano|dias?|desde|entre|del \\d|enero|febrero|marzo|abril|mayo|junio|julio"
+            + "|agosto|septiembre|octubre|noviembre|diciembre)\\b");
+
+    private final CoreApiService coreApi;
+    private final boolean enabled;
+    private final ExecutorService virtualThreads;
+    private final Map<String, Prefetch> active = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter wastedCounter;
+    private final Counter missCounter;
+
+    public CorePrefetchService(
+            CoreApiService coreApi,
+            MeterRegistry meterRegistry,
+            @Value("${assistant.prefetch.enabled:true}") boolean enabled,
+            @Value("${ms.core.use-mock:false}") boolean useMock) {
+        this.coreApi = coreApi;
+        // The mock backend is in memory, there is no latency to hide
+        this.enabled = enabled && !useMock;
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("core-prefetch-", 0).factory());
+
+        this.hitCounter = counter(meterRegistry, "hit");
+        this.wastedCounter = counter(meterRegistry, "wasted");
+        this.missCounter = counter(meterRegistry, "miss");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("assistant.prefetch.calls")
+            .tag("result", result)
+            .description("Speculative Core reads used by a handler (hit), unused (wasted), or not prefetched (miss)")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Predicts the Core reads a message will need from its text.
+     */
+    static Set<Read> predict(String message) {
+        String text = FastIntentParser.fold(message);
+        Set<Read> reads = EnumSet.noneOf(Read.class);
+        boolean validate = VALIDATE.matcher(text).find();
+        if (validate) {
+            reads.add(Read.TRANSACTIONS);
+            reads.add(Read.RULES);
+            return reads;
+        }
+        // Amounts without a question about them are operations (create expense/income/rule)
+        if (!FastIntentParser.amounts(text).isEmpty()) {
+            return reads;
+        }
+
+        boolean period = PERIOD.matcher(text).find();
+        if (SUMMARY.matcher(text).find()) {
+            reads.add(Read.BALANCE);
+            if (!period) {
+                reads.add(Read.SUMMARY);
+            }
+        } else if (BALANCE.matcher(text).find()) {
+            reads.add(Read.BALANCE);
+        }
+        if (!period && LIST.matcher(text).find()) {
+            boolean expenses = text.contains("gasto");
+            boolean incomes = text.contains("ingreso");
+            reads.add(expenses == incomes ? Read.TRANSACTIONS : expenses ? Read.EXPENSES : Read.INCOMES);
+        }
+        if (RULES.matcher(text).find()) {
+            reads.add(Read.RULES);
+        }
+        return reads;
+    }
+
+    /**
+     * Starts the reads predicted for a message. Must be paired with {@link #finish}.
+     *
+     * @param userId The system user ID (null if unknown)
+     * @param message The user message
+     * @return The started prefetch, or null if nothing was started
+     */
+    public Prefetch start(String userId, String message) {
+        if (!enabled || userId == null) {
+            return null;
+        }
+        Set<Read> reads = predict(message);
+        if (reads.isEmpty()) {
+            return null;
+        }
+
+        Prefetch prefetch = new Prefetch(userId);
+        if (active.putIfAbsent(userId, prefetch) != null) {
+            // Another request of the same user is running; let it keep its own prefetch
+            return null;
+        }
+        for (Read read : reads) {
+            prefetch.futures.put(read, CompletableFuture.supplyAsync(() -> fetch(userId, read), virtualThreads));
+        }
+        log.debug("🔮 Prefetching {} for user {}", reads, userId);
+        return prefetch;
+    }
+
+    /**
+     * Drops the prefetch unless every classified intent is a read.
+     */
+    public void retainIfReadOnly(Prefetch prefetch, List<IntentResult> intents) {
+        if (prefetch != null && !intents.stream().allMatch(intent -> READ_ONLY_INTENTS.contains(intent.getIntent()))) {
+            finish(prefetch);
+        }
+    }
+
+    /**
+     * Ends a prefetch, counting and cancelling the reads nobody used.
+     */
+    public void finish(Prefetch prefetch) {
+        if (prefetch == null || !active.remove(prefetch.userId, prefetch)) {
+            return;
+        }
+        synchronized (prefetch.futures) {
+            for (CompletableFuture<Map<String, Object>> unused : prefetch.futures.values()) {
+                wastedCounter.increment();
+                unused.cancel(false);
+            }
+            prefetch.futures.clear();
+        }
+    }
+
+    // ==================== READS USED BY THE HANDLERS ====================
+
+    public Map<String, Object> getUserBalance(String userId) {
+        return take(userId, Read.BALANCE, () -> coreApi.getUserBalance(userId));
+    }
+
+    public Map<String, Object> getTransactionSummaryByCategory(String userId) {
+        return take(userId, Read.SUMMARY, () -> coreApi.getTransactionSummaryByCategory(userId));
+    }
+
+    /**
+     * Gets transactions with an optional "Income" / "Expense" type filter.
+     */
+    public Map<String, Object> getTransactions(String userId, String type) {
+        Read read = "Expense".equals(type) ? Read.EXPENSES
+            : "Income".equals(type) ? Read.INCOMES
+            : Read.TRANSACTIONS;
+        return take(userId, read, () -> coreApi.getTransactions(userId, type));
+    }
+
+    public Map<String, Object> getRules(String userId) {
+        return take(userId, Read.RULES, () -> coreApi.getRules(userId));
+    }
+
+    private Map<String, Object> take(String userId, Read read, Supplier<Map<String, Object>> direct) {
+        Prefetch prefetch = enabled ? active.get(userId) : null;
+        CompletableFuture<Map<String, Object>> future = prefetch != null ? prefetch.futures.remove(read) : null;
+        if (future == null) {
+            if (enabled) {
+                missCounter.increment();
+            }
+            return direct.get();
+        }
+        try {
+            Map<String, Object> result = future.join();
+            hitCounter.increment();
+            return result;
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Prefetched {} failed, reading again: {}", read, e.getMessage());
+            missCounter.increment();
+            return direct.get();
+        }
+    }
+
+    private Map<String, Object> fetch(String userId, Read read) {
+        return switch (read) {
+            case BALANCE -> coreApi.getUserBalance(userId);
+            case SUMMARY -> coreApi.getTransactionSummaryByCategory(userId);
+            case TRANSACTIONS -> coreApi.getTransactions(userId, null);
+            case EXPENSES -> coreApi.getTransactions(userId, "Expense");
+            case INCOMES -> coreApi.getTransactions(userId, "Income");
+            case RULES -> coreApi.getRules(userId);
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+
+    /**
+     * Core reads that can be prefetched.
+     */
+    enum Read {
+        BALANCE,
+        SUMMARY,
+        TRANSACTIONS,
+        EXPENSES,
+        INCOMES,
+        RULES
+    }
+
+    /**
+     * Reads started for one request.
+     */
+    public static final class Prefetch {
+
+        private final String userId;
+        private final Map<Read, CompletableFuture<Map<String, Object>>> futures =
+            Collections.synchronizedMap(new EnumMap<>(Read.class));
+
+        private Prefetch(String userId) {
+            this.userId = userId;
+        }
+    }
+}
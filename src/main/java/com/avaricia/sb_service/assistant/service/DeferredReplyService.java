@@ -0,0 +1,128 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Service that shows the structured reply right away and swaps in the humanized version later.
+ *
+ * The structured reply is sent as soon as the handlers produce it, so the user only waits for
+ * classification and Core. The LLM rewrite runs on a virtual thread; if it arrives within
+ * assistant.humanizer.deferred.timeout the sent message is edited, and the conversation
+ * history entry is replaced so it holds the version the user finally sees. Late, failed or
+ * unchanged rewrites are dropped and the structured reply stays.
+ *
+ * Exposed metrics:
+ * - assistant.humanize.deferred{result=replaced|unchanged|timeout|failed}: outcome of each rewrite
+ */
+@Service
+public class DeferredReplyService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeferredReplyService.class);
+
+    /** Rewrites shorter than this are considered failed generations */
+    private static final int MIN_REPLY_LENGTH = 20;
+
+    private final TelegramService telegramService;
+    private final ConversationHistoryService conversationHistory;
+    private final Duration timeout;
+    private final ExecutorService virtualThreads;
+    private final Counter replacedCounter;
+    private final Counter unchangedCounter;
+    private final Counter timeoutCounter;
+    private final Counter failedCounter;
+
+    public DeferredReplyService(
+            TelegramService telegramService,
+            ConversationHistoryService conversationHistory,
+            MeterRegistry meterRegistry,
+            @Value("${assistant.humanizer.deferred.timeout:8s}") Duration timeout) {
+        this.telegramService = telegramService;
+        this.conversationHistory = conversationHistory;
+        this.timeout = timeout;
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("deferred-reply-", 0).factory());
+
+        this.replacedCounter = counter(meterRegistry, "replaced");
+        this.unchangedCounter = counter(meterRegistry, "unchanged");
+        this.timeoutCounter = counter(meterRegistry, "timeout");
+        this.failedCounter = counter(meterRegistry, "failed");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("assistant.humanize.deferred")
+            .tag("result", result)
+            .description("Deferred humanizations that replaced the structured reply, or were dropped")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Sends the structured reply and starts its rewrite in the background.
+     * The caller records the structured reply in the history; it is replaced if the rewrite is shown.
+     *
+     * @param chatId The chat to reply to
+     * @param telegramId The user whose history holds the reply
+     * @param structured The reply to show right away
+     * @param humanize Produces the rewritten reply (may block)
+     * @return The future of the text finally shown, completed once the rewrite settles
+     */
+    public CompletableFuture<String> deliver(Long chatId, Long telegramId, String structured, Supplier<String> humanize) {
+        Long messageId = telegramService.sendMessageForEditing(chatId, structured, true);
+        if (messageId == null) {
+            messageId = telegramService.sendMessageForEditing(chatId, structured, false);
+        }
+        if (messageId == null) {
+            // Nothing we could edit later: make sure the user at least gets the reply
+            telegramService.sendMessage(chatId, structured);
+            failedCounter.increment();
+            return CompletableFuture.completedFuture(structured);
+        }
+
+        Long sentId = messageId;
+        return CompletableFuture.supplyAsync(humanize, virtualThreads)
+            .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+            .handle((humanized, error) -> {
+                if (error != null) {
+                    boolean timedOut = error instanceof TimeoutException || error.getCause() instanceof TimeoutException;
+                    (timedOut ? timeoutCounter : failedCounter).increment();
+                    log.debug("⏭️ Keeping structured reply ({})", timedOut ? "timeout" : error.getMessage());
+                    return structured;
+                }
+                return replace(chatId, sentId, telegramId, structured, humanized);
+            });
+    }
+
+    private String replace(Long chatId, Long messageId, Long telegramId, String structured, String humanized) {
+        String text = humanized == null ? "" : humanized.strip();
+        if (text.length() <= MIN_REPLY_LENGTH || text.equals(structured.strip())) {
+            unchangedCounter.increment();
+            return structured;
+        }
+        if (!telegramService.editMessageText(chatId, messageId, text, true)
+                && !telegramService.editMessageText(chatId, messageId, text, false)) {
+            failedCounter.increment();
+            return structured;
+        }
+        conversationHistory.replaceAssistantMessage(telegramId, structured, text);
+        replacedCounter.increment();
+        return text;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+}
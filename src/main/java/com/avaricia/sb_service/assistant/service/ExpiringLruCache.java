@@ -0,0 +1,81 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache with least-recently-used eviction and a time-to-live per entry.
+ *
+ * Backed by an access-ordered LinkedHashMap under a single lock: lookups are a hash
+ * probe plus a relink, far cheaper than anything cached here, so a finer-grained
+ * structure is not worth it. Expired entries are dropped when looked up or when they
+ * reach the LRU end.
+ *
+ * @param <K> The key type
+ * @param <V> The value type (handed out as stored; callers must not mutate shared values)
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final Map<K, Entry<V>> entries;
+    private final LongSupplier clock;
+
+    /**
+     * @param maxEntries Maximum number of entries kept; the least recently used is evicted beyond it
+     */
+    public ExpiringLruCache(int maxEntries) {
+        this(maxEntries, System::nanoTime);
+    }
+
+    ExpiringLruCache(int maxEntries, LongSupplier clock) {
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries || eldest.getValue().expiresAt - clock.getAsLong() <= 0;
+            }
+        };
+    }
+
+    /**
+     * Gets a value that has not expired yet.
+     *
+     * @return The value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt - clock.getAsLong() <= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores a value for the given time.
+     */
+    public synchronized void put(K key, V value, long ttl, TimeUnit unit) {
+        entries.put(key, new Entry<>(value, clock.getAsLong() + unit.toNanos(ttl)));
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of entries in memory, including expired ones not yet dropped (for monitoring).
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,429 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+
+/**
+ * Deterministic, rule-based intent parser for the most common messages.
+ *
+ * Recognizes self-contained messages that do not need OpenAI: expenses and incomes
+ * with an explicit amount ("Gasté 30k en taxi", "Recibí mi sueldo de 2M"), spending
+ * checks ("¿Puedo gastar 50k?"), balance questions, transaction listings (by day,
+ * week, month or last N days), spending summaries and rule listings.
+ *
+ * Every match carries a confidence score. IntentClassifierService only uses matches
+ * above its threshold; anything else (follow-ups, multiple operations, rules, advice,
+ * unknown categories...) goes to the LLM as before.
+ */
+@Service
+public class FastIntentParser {
+
+    /** Whole-phrase match of a known query: no room for interpretation */
+    static final double PHRASE_CONFIDENCE = 0.95;
+    /** Operation verb + single amount + known category */
+    static final double OPERATION_CONFIDENCE = 0.9;
+    /** Operation without a recognizable category: the LLM picks it better */
+    static final double UNCATEGORIZED_CONFIDENCE = 0.6;
+    /** Amount like "1,5" without suffix: decimal or thousands separator? */
+    static final double AMBIGUOUS_AMOUNT_CONFIDENCE = 0.5;
+
+    private static final int MAX_LENGTH = 160;
+
+    private static final Pattern AMOUNT = Pattern.compile(
+        "(?<![\\w.,])\\$?\\s?(\\d{1,3}(?:[.,]\\d{3})+|\\d+(?:[.,]\\d{1,2})?)\\s?"
+        + "(millones|millon|mil|lucas|luca|palos|palo|mm|k|m)?(?:\\s+y\\s+(medio|cuarto))?(?!\\w)");
+    /** Number words right after an amount: the amount goes on in words ("2 millones doscientos") */
+    private static final Pattern TRAILING_NUMBER_WORDS = Pattern.compile(
+        "\\s*(?:y\\s+)?(?:medio|media|cuarto|uno|dos|tres|cuatro|cinco|seis|siete|ocho|nueve|diez|once|doce"
+        + "|trece|catorce|quince|dieci\\p{L}+|veinte|veinti\\p{L}+|treinta|cuarenta|cincuenta|sesenta|setenta"
+        + "|ochenta|noventa|cien|ciento|\\p{L}+cient[oa]s|quinient[oa]s|mil|millon|millones)(?!\\w)");
+    private static final Pattern GROUPED_NUMBER = Pattern.compile("\\d{1,3}(?:[.,]\\d{3})+");
+
+    private static final Pattern EXPENSE_VERB = Pattern.compile(
+        "\\b(?:me gaste|gaste|compre|pague|me cobraron|(?:registra|registrar|anota|agrega) un gasto)\\b");
+    private static final Pattern INCOME_VERB = Pattern.compile(
+        "\\b(?:recibi|me pagaron|gane|me transfirieron|me consignaron|me llego"
+        + "|(?:registra|registrar|anota|agrega) un ingreso)\\b");
+    private static final Pattern VALIDATE_VERB = Pattern.compile(
+        "\\b(?:puedo gastar|podria gastar|deberia gastar|puedo comprar|deberia comprar|me alcanza)\\b");
+
+    /** Words that turn an operation into a question, a rule, a correction or a follow-up */
+    private static final Pattern OPERATION_BLOCKERS = Pattern.compile(
+        "\\?|\\b(?:cuanto|cuanta|que|cual|cuando|donde|si|no|limite|presupuesto|maximo|ahorrar"
+        + "|borra|elimina|edita|cambia|tambien|ademas)\\b");
+
+    private static final Pattern POLITENESS = Pattern.compile(
+        "^(?:hola|oye|bueno)\\s+|\\s+(?:por favor|porfa|porfavor)$");
+
+    private static final Pattern BALANCE = Pattern.compile(
+        "(?:cuanto (?:dinero |plata )?(?:tengo|me queda)|cuanta plata (?:tengo|me queda)"
+        + "|cual es mi (?:saldo|balance)|que saldo tengo|(?:ver |dame |muestrame )?mi (?:saldo|balance)|saldo)"
+        + "(?: disponible| actual)?");
+
+    private static final Pattern SUMMARY = Pattern.compile(
+        "a donde se va mi (?:dinero|plata)|en (?:que|donde) (?:gasto|me gasto) mas(?: (?:dinero|plata))?"
+        + "|donde gasto mas|en que se me va (?:la plata|el dinero)"
+        + "|(?:(?:dame|quiero|muestrame) )?(?:un )?resumen(?: de (?:mis )?gastos)?"
+        + "|(?:cual es el )?desglose de (?:mis )?gastos");
+
+    private static final Pattern SUMMARY_BY_CATEGORY = Pattern.compile("cuanto gasto en (?:la |el )?(?<category>\\p{L}+)");
+
+    private static final Pattern LIST = Pattern.compile(
+        "(?:(?:muestrame|dame|ver|quiero ver|ensename|lista|listar) )?(?:todos )?(?:mis|los) "
+        + "(?<kind>gastos|ingresos|ganancias|transacciones|movimientos)"
+        + "|que (?<kind2>transacciones|movimientos|gastos|ingresos) tengo");
+
+    private static final Pattern RULES = Pattern.compile(
+        "(?:(?:cuales son|muestrame|dame|ver) )?(?:mis )?(?:limites|reglas|presupuestos)(?: de gasto)?"
+        + "|que (?:limites|reglas|presupuestos) tengo");
+
+    private static final String MONTHS =
+        "enero|febrero|marzo|abril|mayo|junio|julio|agosto|septiembre|octubre|noviembre|diciembre";
+
+    private static final Pattern PERIOD_QUERY = Pattern.compile(
+        "(?:(?:muestrame|dame|ver|quiero ver) )?"
+        + "(?<head>cuanto (?:he )?(?:gaste|gastado|gane|ganado)|que compre"
+        + "|(?:mis |los )?(?:gastos|ingresos|ganancias|transacciones|movimientos|compras)|resumen)"
+        + " (?:de |del |en |durante )?"
+        + "(?:(?<today>hoy)|(?<yesterday>ayer)|esta (?<week>semana)|este (?<month>mes)"
+        + "|(?:el )?(?<lastMonth>mes pasado)|(?:los )?ultimos (?<days>\\d{1,3}) dias"
+        + "|(?<monthName>" + MONTHS + "))");
+
+    private static final List<String> MONTH_NAMES = List.of(MONTHS.split("\\|"));
+
+    private static final Map<String, String> EXPENSE_KEYWORDS = keywords(
+        "Comida", "comida, comida rapida, almuerzo, desayuno, cena, restaurante, cafe, gaseosa, bebida, snack,"
+            + " pizza, hamburguesa, pan, postre, mercado, alimentacion, alimentos",
+        "Transporte", "transporte, taxi, uber, didi, bus, metro, gasolina, parqueadero, pasaje, vuelo, peaje,"
+            + " soat, cuota del carro",
+        "Entretenimiento", "entretenimiento, cine, netflix, spotify, prime video, disney, amazon prime, hbo,"
+            + " youtube premium, twitch, apple tv, crunchyroll, juego, videojuego, playstation, xbox, steam,"
+            + " concierto, viaje, vacaciones, bar, discoteca, fiesta, rumba",
+        "Vivienda", "vivienda, hipoteca, credito hipotecario, cuota de la casa",
+        "Servicios", "servicios, servicios publicos, internet, wifi, fibra, luz, gas, telefonia, plan de datos,"
+            + " recibo del agua, recibo de agua, seguro",
+        "Salud", "salud, medicina, medicamento, doctor, medico, farmacia, drogueria, hospital, dentista, psicologo",
+        "Educación", "educacion, curso, libro, universidad, escuela, colegio, clase, matricula",
+        "Hogar", "hogar, mueble, decoracion, reparacion, herramienta",
+        "Ropa", "ropa, zapato, zapatilla, camisa, camiseta, pantalon, vestido, chaqueta, bolso",
+        "Tecnología", "tecnologia, celular, computador, computadora, laptop, portatil, tablet, audifonos",
+        "Arriendo", "arriendo, alquiler"
+    );
+    private static final Map<String, String> INCOME_KEYWORDS = keywords(
+        "Salario", "salario, sueldo, quincena, nomina, prima",
+        "Freelance", "freelance, honorarios, consultoria, proyecto",
+        "Inversiones", "inversiones, intereses, rendimientos, dividendos, cdt, arriendo, pension",
+        "Regalos", "regalo, herencia, bono",
+        "Otros", "apuesta, loteria"
+    );
+    private static final Map<String, String> CATEGORY_NAMES = Map.ofEntries(
+        Map.entry("comida", "Comida"), Map.entry("transporte", "Transporte"),
+        Map.entry("entretenimiento", "Entretenimiento"), Map.entry("salud", "Salud"),
+        Map.entry("educacion", "Educación"), Map.entry("hogar", "Hogar"), Map.entry("ropa", "Ropa"),
+        Map.entry("tecnologia", "Tecnología"), Map.entry("servicios", "Servicios"),
+        Map.entry("arriendo", "Arriendo"), Map.entry("vivienda", "Vivienda"), Map.entry("otros", "Otros"));
+
+    private static final Pattern EXPENSE_CATEGORY = keywordPattern(EXPENSE_KEYWORDS);
+    private static final Pattern INCOME_CATEGORY = keywordPattern(INCOME_KEYWORDS);
+
+    /**
+     * Parses a message using today's date for relative periods.
+     *
+     * @param message The user message
+     * @return The recognized intent with its confidence, or empty if no rule applies
+     */
+    public Optional<Match> parse(String message) {
+        return parse(message, LocalDate.now());
+    }
+
+    /**
+     * Parses a message.
+     *
+     * @param message The user message
+     * @param today The date "hoy", "ayer", "este mes"... are relative to
+     * @return The recognized intent with its confidence, or empty if no rule applies
+     */
+    public Optional<Match> parse(String message, LocalDate today) {
+        if (message == null || message.isBlank() || message.length() > MAX_LENGTH || message.startsWith("/")) {
+            return Optional.empty();
+        }
+
+        // Same length as the original, so match positions map back to the user's text
+        String folded = fold(message);
+        String phrase = POLITENESS.matcher(
+            folded.replaceAll("[¿?¡!.,;:\"]", " ").trim().replaceAll("\\s+", " ")).replaceAll("");
+
+        Optional<Match> query = parseQuery(phrase, today);
+        if (query.isPresent()) {
+            return query;
+        }
+        return parseOperation(message, folded);
+    }
+
+    private Optional<Match> parseQuery(String phrase, LocalDate today) {
+        Matcher period = PERIOD_QUERY.matcher(phrase);
+        if (period.matches()) {
+            return Optional.of(periodQuery(period, today));
+        }
+        if (BALANCE.matcher(phrase).matches()) {
+            return Optional.of(phrase("get_balance"));
+        }
+        if (SUMMARY.matcher(phrase).matches()) {
+            return Optional.of(phrase("get_summary"));
+        }
+        Matcher byCategory = SUMMARY_BY_CATEGORY.matcher(phrase);
+        if (byCategory.matches() && CATEGORY_NAMES.containsKey(byCategory.group("category"))) {
+            Match match = phrase("get_summary");
+            match.intent().setCategory(CATEGORY_NAMES.get(byCategory.group("category")));
+            return Optional.of(match);
+        }
+        Matcher list = LIST.matcher(phrase);
+        if (list.matches()) {
+            String kind = list.group("kind") != null ? list.group("kind") : list.group("kind2");
+            Match match = phrase("list_transactions");
+            match.intent().setType(typeOf(kind));
+            return Optional.of(match);
+        }
+        if (RULES.matcher(phrase).matches()) {
+            return Optional.of(phrase("list_rules"));
+        }
+        return Optional.empty();
+    }
+
+    private Match periodQuery(Matcher period, LocalDate today) {
+        if (period.group("today") != null || period.group("yesterday") != null) {
+            // Single-day queries list everything for that day (the type is not used)
+            Match match = phrase("list_transactions_by_date");
+            LocalDate day = period.group("today") != null ? today : today.minusDays(1);
+            match.intent().setStartDate(day.toString());
+            return match;
+        }
+
+        LocalDate start;
+        LocalDate end;
+        if (period.group("week") != null) {
+            start = today.minusDays(7);
+            end = today;
+        } else if (period.group("days") != null) {
+            start = today.minusDays(Integer.parseInt(period.group("days")));
+            end = today;
+        } else {
+            YearMonth month = YearMonth.from(today);
+            if (period.group("lastMonth") != null) {
+                month = month.minusMonths(1);
+            } else if (period.group("monthName") != null) {
+                month = month.withMonth(MONTH_NAMES.indexOf(period.group("monthName")) + 1);
+                if (month.isAfter(YearMonth.from(today))) {
+                    month = month.minusYears(1);
+                }
+            }
+            start = month.atDay(1);
+            end = month.atEndOfMonth();
+        }
+
+        Match match = phrase("list_transactions_by_range");
+        match.intent().setType(typeOf(period.group("head")));
+        match.intent().setStartDate(start.toString());
+        match.intent().setEndDate(end.toString());
+        return match;
+    }
+
+    private Optional<Match> parseOperation(String message, String folded) {
+        boolean validate = VALIDATE_VERB.matcher(folded).find();
+        int expenseVerbs = count(EXPENSE_VERB, folded);
+        int incomeVerbs = count(INCOME_VERB, folded);
+
+        String intent;
+        if (validate) {
+            intent = "validate_expense";
+        } else if (expenseVerbs + incomeVerbs != 1 || OPERATION_BLOCKERS.matcher(folded).find()) {
+            // Questions, rules, corrections, follow-ups or several operations in one message
+            return Optional.empty();
+        } else {
+            intent = expenseVerbs == 1 ? "create_expense" : "create_income";
+        }
+
+        List<Amount> amounts = amounts(folded);
+        if (amounts.size() != 1) {
+            return Optional.empty();
+        }
+        Amount amount = amounts.get(0);
+
+        boolean income = "create_income".equals(intent);
+        List<Keyword> keywords = findKeywords(income ? INCOME_CATEGORY : EXPENSE_CATEGORY,
+            income ? INCOME_KEYWORDS : EXPENSE_KEYWORDS, message, folded);
+        Set<String> categories = keywords.stream().map(Keyword::category).collect(Collectors.toSet());
+
+        IntentResult result = new IntentResult();
+        result.setIntent(intent);
+        result.setAmount(amount.value());
+        if (!validate) {
+            result.setType(income ? "Income" : "Expense");
+        }
+
+        double confidence;
+        if (categories.size() == 1) {
+            Keyword keyword = keywords.get(0);
+            result.setCategory(keyword.category());
+            result.setDescription(keyword.text());
+            confidence = OPERATION_CONFIDENCE;
+        } else {
+            // Spending checks do not need a category; registrations do
+            confidence = validate && categories.isEmpty() ? OPERATION_CONFIDENCE : UNCATEGORIZED_CONFIDENCE;
+        }
+        if (amount.ambiguous()) {
+            confidence = Math.min(confidence, AMBIGUOUS_AMOUNT_CONFIDENCE);
+        }
+        return Optional.of(new Match(result, confidence));
+    }
+
+    /**
+     * Extracts the amounts of a folded message: "50k", "50 mil", "$50.000", "50,000",
+     * "2M", "1.5 millones", "2 millones y medio"... Dots and commas in groups of three are
+     * thousands separators. An amount followed by more number words is ambiguous.
+     */
+    static List<Amount> amounts(String folded) {
+        List<Amount> amounts = new ArrayList<>();
+        Matcher matcher = AMOUNT.matcher(folded);
+        while (matcher.find()) {
+            String number = matcher.group(1);
+            String suffix = matcher.group(2);
+            String fraction = matcher.group(3);
+
+            double multiplier = 1;
+            if (suffix != null) {
+                multiplier = switch (suffix) {
+                    case "k", "mil", "luca", "lucas" -> 1_000;
+                    default -> 1_000_000;
+                };
+            }
+
+            boolean ambiguous = false;
+            double value;
+            if (GROUPED_NUMBER.matcher(number).matches()) {
+                value = Double.parseDouble(number.replaceAll("[.,]", ""));
+            } else {
+                boolean decimal = number.indexOf('.') >= 0 || number.indexOf(',') >= 0;
+                ambiguous = decimal && suffix == null;
+                value = Double.parseDouble(number.replace(',', '.'));
+            }
+            if (fraction != null) {
+                // "y medio" is half a million; after "50 mil" or a bare number it is unclear
+                ambiguous |= multiplier < 1_000_000;
+                value += fraction.equals("medio") ? 0.5 : 0.25;
+            }
+            ambiguous |= TRAILING_NUMBER_WORDS.matcher(folded).region(matcher.end(), folded.length()).lookingAt();
+            amounts.add(new Amount(value * multiplier, ambiguous));
+        }
+        return amounts;
+    }
+
+    /**
+     * The folded text with every amount found by {@link #amounts} blanked out.
+     */
+    static String withoutAmounts(String folded) {
+        return AMOUNT.matcher(folded).replaceAll(" ");
+    }
+
+    private static List<Keyword> findKeywords(Pattern pattern, Map<String, String> categories,
+                                              String message, String folded) {
+        List<Keyword> found = new ArrayList<>();
+        Matcher matcher = pattern.matcher(folded);
+        while (matcher.find()) {
+            found.add(new Keyword(categories.get(matcher.group(1)), message.substring(matcher.start(1), matcher.end(1))));
+        }
+        return found;
+    }
+
+    private static Match phrase(String intent) {
+        IntentResult result = new IntentResult();
+        result.setIntent(intent);
+        return new Match(result, PHRASE_CONFIDENCE);
+    }
+
+    private static String typeOf(String words) {
+        if (words.contains("gast") || words.contains("compr")) {
+            return "Expense";
+        }
+        if (words.contains("ingreso") || words.contains("gan")) {
+            return "Income";
+        }
+        return null;
+    }
+
+    private static int count(Pattern pattern, String text) {
+        return (int) pattern.matcher(text).results().count();
+    }
+
+    /**
+     * Lowercases and removes Spanish accents, keeping the length of the text.
+     */
+    static String fold(String text) {
+        // One char at a time: String.toLowerCase can change the length ("İ"), and callers slice
+        // the original message with offsets found in the folded text
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char lower = Character.toLowerCase(chars[i]);
+            chars[i] = switch (lower) {
+                case 'á' -> 'a';
+                case 'é' -> 'e';
+                case 'í' -> 'i';
+                case 'ó' -> 'o';
+                case 'ú', 'ü' -> 'u';
+                default -> lower;
+            };
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Builds a keyword-to-category map from (category, comma-separated keywords) pairs.
+     */
+    private static Map<String, String> keywords(String... categoryAndWords) {
+        Map<String, String> keywords = new LinkedHashMap<>();
+        for (int i = 0; i < categoryAndWords.length; i += 2) {
+            for (String word : categoryAndWords[i + 1].split(",")) {
+                keywords.put(word.trim(), categoryAndWords[i]);
+            }
+        }
+        return keywords;
+    }
+
+    /**
+     * Builds a pattern matching any keyword as whole words, with an optional plural ending.
+     * Longer keywords come first so "comida rapida" wins over "comida".
+     */
+    private static Pattern keywordPattern(Map<String, String> keywords) {
+        String alternatives = keywords.keySet().stream()
+            .sorted(Comparator.comparingInt(String::length).reversed())
+            .map(Pattern::quote)
+            .collect(Collectors.joining("|"));
+        return Pattern.compile("(?<![\\p{L}\\d])(" + alternatives + ")(?:es|s)?(?![\\p{L}\\d])");
+    }
+
+    /**
+     * A parsed intent and how sure the parser is about it (0 to 1).
+     */
+    public record Match(IntentResult intent, double confidence) {
+    }
+
+    record Amount(double value, boolean ambiguous) {
+    }
+
+    private record Keyword(String category, String text) {
+    }
+}
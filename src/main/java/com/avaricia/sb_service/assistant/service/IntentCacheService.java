@@ -0,0 +1,145 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.ConversationHistoryService.ConversationMessage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service that caches OpenAI intent classifications of read-only queries.
+ *
+ * Users repeat the same questions ("¿cuánto tengo?", "mis gastos") all the time. Only the
+ * classification is cached, never the data: a cached get_balance still reads the current
+ * balance from Core. Operations (create, delete, validate, rules) and free-form answers are
+ * never cached.
+ *
+ * The key combines:
+ * - the message with case, accents, punctuation and whitespace folded
+ * - the current date, since the prompt resolves "ayer" or "este mes" against it
+ * - a hash of the last exchange of the conversation, which is what follow-ups refer to
+ *
+ * Exposed metrics:
+ * - assistant.intent.cache{result=hit|miss}: classifications served from the cache vs. OpenAI
+ * - assistant.intent.cache.size: entries in memory
+ */
+@Service
+public class IntentCacheService {
+
+    /** Read-only intents whose classification can be reused */
+    private static final Set<String> CACHEABLE_INTENTS = Set.of(
+        "get_balance",
+        "get_summary",
+        "list_transactions",
+        "list_transactions_by_date",
+        "list_transactions_by_range",
+        "search_transactions",
+        "list_rules"
+    );
+
+    /** Messages of the conversation that take part in the key (last user message + reply) */
+    private static final int RELEVANT_MESSAGES = 2;
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final ExpiringLruCache<String, List<IntentResult>> cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public IntentCacheService(
+            MeterRegistry meterRegistry,
+            @Value("${assistant.intent-cache.enabled:true}") boolean enabled,
+            @Value("${assistant.intent-cache.max-entries:10000}") int maxEntries,
+            @Value("${assistant.intent-cache.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.cache = new ExpiringLruCache<>(maxEntries);
+
+        this.hitCounter = Counter.builder("assistant.intent.cache")
+            .tag("result", "hit")
+            .description("Intent classifications served from the cache (hit) or requested to OpenAI (miss)")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder("assistant.intent.cache")
+            .tag("result", "miss")
+            .description("Intent classifications served from the cache (hit) or requested to OpenAI (miss)")
+            .register(meterRegistry);
+        Gauge.builder("assistant.intent.cache.size", cache, ExpiringLruCache::size)
+            .description("Intent classifications in the cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Builds the cache key of a message.
+     *
+     * @param message The user message
+     * @param history The conversation history sent to OpenAI with it (may be empty)
+     * @return The key
+     */
+    public String key(String message, List<ConversationMessage> history) {
+        long contextHash = 17;
+        for (ConversationMessage msg : history.subList(Math.max(0, history.size() - RELEVANT_MESSAGES), history.size())) {
+            contextHash = hash(hash(contextHash, msg.getRole()), msg.getContent());
+        }
+        return LocalDate.now() + "|" + Long.toHexString(contextHash) + "|" + normalize(message);
+    }
+
+    /**
+     * Gets a cached classification.
+     *
+     * @return Copies of the cached intents, or null on a miss
+     */
+    public List<IntentResult> get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        List<IntentResult> cached = cache.get(key);
+        if (cached == null) {
+            missCounter.increment();
+            return null;
+        }
+        hitCounter.increment();
+        return cached.stream().map(IntentResult::copy).toList();
+    }
+
+    /**
+     * Caches a classification if all its intents are read-only queries.
+     */
+    public void put(String key, List<IntentResult> intents) {
+        if (!enabled || intents.isEmpty()
+                || !intents.stream().allMatch(intent -> CACHEABLE_INTENTS.contains(intent.getIntent()))) {
+            return;
+        }
+        cache.put(key, intents.stream().map(IntentResult::copy).toList(), ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Folds case, accents, question/exclamation marks and whitespace.
+     * Dots and commas inside the text are kept (they may be part of an amount).
+     */
+    static String normalize(String message) {
+        return FastIntentParser.fold(message)
+            .replaceAll("[¿?¡!]", " ")
+            .replaceAll("[.\\s]+$", "")
+            .trim()
+            .replaceAll("\\s+", " ");
+    }
+
+    private static long hash(long hash, String value) {
+        long result = hash;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                result = 31 * result + value.charAt(i);
+            }
+        }
+        return 31 * result + 1;
+    }
+}
@@ -1,28 +1,85 @@
 package com.avaricia.sb_service.assistant.service;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-import org.springframework.ai.chat.client.ChatClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.exception.LlmUnavailableException;
+import com.avaricia.sb_service.assistant.logging.LogContent;
+import com.avaricia.sb_service.assistant.service.ConversationHistoryService.ConversationMessage;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+
 /**
  * Service responsible for classifying user intent using OpenAI.
  * Analyzes user messages and extracts structured data for financial operations.
+ *
+ * Common self-contained messages are first tried on FastIntentParser; when it is
+ * confident enough (assistant.fast-path.min-confidence) OpenAI is not called at all.
+ * Repeated read-only queries are then served from IntentCacheService.
+ *
+ * The system prompt is assembled once per day by SystemPromptAssembler: static instructions
+ * first and the date last, so OpenAI can serve the long prefix from its prompt cache.
+ * The conversation context goes in the user message, compacted by ConversationContextBuilder.
+ *
+ * OpenAI answers in a compact schema (one-letter keys, no nulls, raw amount and date spans
+ * resolved by SpanishNormalizer). The answer is streamed and parsed while it is generated, so
+ * callers can start on the first operation of a multi-operation message before the rest arrives.
+ * Each message goes to a small or a large model depending on its complexity (ComplexityRouter);
+ * an unusable answer of the small model is retried on the large one. With micro-batching enabled
+ * (IntentBatcher) concurrent messages share one call to the primary model instead, and the
+ * answer is parsed once it is complete.
+ *
+ * Exposed metrics:
+ * - assistant.intent.fast-path{result=hit|miss}: messages classified locally vs. sent to OpenAI
+ * - assistant.prompt.tokens{segment=static|date}: estimated size of the system prompt segments
+ * - assistant.prompt.context.tokens: estimated size of the (compacted) conversation context per request
+ * - assistant.intent.stream.first-intent: time until the first intent of a streamed classification is complete
  */
 @Service
 public class IntentClassifierService {
 
-    private final ChatClient chatClient;
+    private static final Logger log = LoggerFactory.getLogger(IntentClassifierService.class);
+
+    private final LlmGateway llmGateway;
+    private final LlmCircuitBreaker circuitBreaker;
     private final ObjectMapper objectMapper;
     private final ConversationHistoryService conversationHistory;
+    private final FastIntentParser fastParser;
+    private final IntentVectorIndex intentIndex;
+    private final SpanishNormalizer normalizer;
+    private final IntentCacheService intentCache;
+    private final ConversationContextBuilder contextBuilder;
+    private final IntentBatcher intentBatcher;
+    private final ComplexityRouter modelRouter;
+    private final boolean fastPathEnabled;
+    private final double fastPathMinConfidence;
+    private final Counter fastPathHits;
+    private final Counter fastPathMisses;
+    private final SystemPromptAssembler promptAssembler;
+    private final DistributionSummary contextTokens;
+    private final boolean streamEnabled;
+    private final Timer firstIntentTimer;
 
-    private static final String SYSTEM_PROMPT = """
+    static final String SYSTEM_PROMPT = """
             Eres un asistente financiero inteligente y amigable. Tu rol es ayudar al usuario con sus finanzas personales.
             Tienes acceso al historial reciente de la conversación para entender el contexto.
             
@@ -47,27 +104,26 @@ public class IntentClassifierService {
                Ejemplos: "Recibí mi sueldo de 2M", "Me pagaron 500k"
                
             4. "list_transactions" - Usuario quiere ver sus transacciones (puede filtrar por tipo)
-               - Si dice "ganancias", "ingresos", "lo que me han pagado" → type: "Income"
-               - Si dice "gastos", "lo que he gastado" → type: "Expense"
-               - Si no especifica → type: null (muestra todo)
+               - Si dice "ganancias", "ingresos", "lo que me han pagado" → t: "Income"
+               - Si dice "gastos", "lo que he gastado" → t: "Expense"
+               - Si no especifica → sin t (muestra todo)
                Ejemplos: "Muéstrame mis gastos", "Dame mis ingresos", "¿Qué transacciones tengo?"
                
             5. "list_transactions_by_date" - Usuario quiere ver transacciones de una fecha específica
                Ejemplos: "¿Cuánto gasté ayer?", "¿Qué compré el 15 de noviembre?", "Gastos de hoy"
                
             6. "list_transactions_by_range" - Usuario quiere ver transacciones en un período
-               - SIEMPRE usa "type" para filtrar según lo que pide:
-                 * Si menciona "gasté", "gastos", "compras", "pagos", "he gastado" → type: "Expense"
-                 * Si menciona "gané", "ingresos", "ganancias", "he ganado" → type: "Income"
-                 * Si solo dice "transacciones" o "movimientos" → type: null
-               - "últimos X días" también debe incluir type según contexto
-               - Cuando el usuario dice "del 1 al 15" SIN especificar mes → usar MES ACTUAL
+               - SIEMPRE usa "t" para filtrar según lo que pide:
+                 * Si menciona "gasté", "gastos", "compras", "pagos", "he gastado" → t: "Expense"
+                 * Si menciona "gané", "ingresos", "ganancias", "he ganado" → t: "Income"
+                 * Si solo dice "transacciones" o "movimientos" → sin t
+               - "últimos X días" también debe incluir t según contexto
                - "resumen del mes pasado" o "resumen de noviembre" → usar list_transactions_by_range (NO get_summary)
-               Ejemplos: "¿Cuánto gasté esta semana?" (type:Expense), "Gastos de los últimos 30 días" (type:Expense)
+               Ejemplos: "¿Cuánto gasté esta semana?" (t:Expense), "Gastos de los últimos 30 días" (t:Expense)
                
             7. "search_transactions" - Usuario busca transacciones por descripción O categoría
-               - Usa "searchQuery" para la descripción (ej: "Netflix", "PS4")
-               - Usa "category" para buscar por categoría (ej: "Otros", "Comida")
+               - Usa "q" para la descripción (ej: "Netflix", "PS4")
+               - Usa "c" para buscar por categoría (ej: "Otros", "Comida")
                Ejemplos: "¿Cuánto pago por Netflix?", "Busca mis gastos de Uber", "Dame los gastos de categoría Otros"
                
             8. "get_balance" - Usuario pregunta por su saldo/dinero disponible
@@ -149,10 +205,7 @@ public class IntentClassifierService {
             - Si el usuario pregunta si puede gastar, SOLO valida y da consejos, NO registres nada
             - Si el usuario pide recomendaciones, responde con consejos útiles (intent: "question")
             - Si el usuario dice "y también..." después de un gasto registrado, entonces sí registra
-            - Para fechas, calcula la fecha actual como: HOY = {{CURRENT_DATE}}
-            - "ayer" = {{YESTERDAY_DATE}}, "esta semana" = últimos 7 días, "este mes" = {{CURRENT_MONTH}}
-            - ⚠️ IMPORTANTE: Si el usuario dice "del 1 al 15" o "del 10 al 20" SIN especificar mes, usar el MES ACTUAL
-            - ⚠️ IMPORTANTE: "resumen del mes pasado" = list_transactions_by_range con fechas del mes anterior
+            - ⚠️ IMPORTANTE: "resumen del mes pasado" = list_transactions_by_range
             - Sé amigable y da respuestas útiles en español
             
             PREGUNTAS DE SEGUIMIENTO (usa el historial de conversación):
@@ -170,7 +223,7 @@ public class IntentClassifierService {
             
             CAPACIDADES DEL BOT:
             Si el usuario pregunta "qué puedes hacer", "ayuda", "capacidades", "help" o "qué sabes hacer":
-            Responde en el campo "response" con este mensaje exacto (manteniendo emojis y formato):
+            Responde en el campo "r" con este mensaje exacto (manteniendo emojis y formato):
             "¡Soy tu Asistente Financiero personal! 🤖💰\\n\\nPuedo ayudarte a organizar tus finanzas con todo esto:\\n\\n📝 *Registro de Movimientos:*\\n• Registrar gastos: 'Gasté 50k en comida'\\n• Registrar ingresos: 'Me pagaron 2M'\\n\\n🔎 *Consultas y Reportes:*\\n• Ver saldo: '¿Cuánto dinero tengo?'\\n• Ver movimientos: 'Gastos de esta semana'\\n• Buscar: '¿Cuánto gasto en Uber?'\\n• Resúmenes: '¿En qué gasto más?'\\n\\n⚙️ *Control y Alertas:*\\n• Presupuestos: 'Límite de 500k en comida'\\n• Consejos: '¿Debería comprar esto?'\\n\\n¡Solo escríbeme o mándame una nota de voz! 🎙️"
             
             ⚠️ LIMITACIONES DEL BOT - QUÉ NO PUEDO HACER:
@@ -191,19 +244,19 @@ public class IntentClassifierService {
             12. Dar asesoría legal, tributaria o contable profesional
             
             EJEMPLOS de cómo responder a limitaciones:
-            - "Transfiere 100k a Juan" → {\"intent\":\"question\",\"response\":\"🚫 Lo siento, no puedo realizar transferencias ni mover dinero real.\\n\\nSoy un *asistente de registro* - te ayudo a llevar el control de tus finanzas, pero no tengo acceso a tus cuentas bancarias.\\n\\n✅ Lo que sí puedo hacer:\\n• Registrar que hiciste una transferencia: 'Transferí 100k a Juan'\\n• Consultar tu historial de movimientos\\n• Ayudarte con presupuestos\\n\\n¿Te ayudo con algo de esto?\"}
+            - "Transfiere 100k a Juan" → {\"i\":\"question\",\"r\":\"🚫 Lo siento, no puedo realizar transferencias ni mover dinero real.\\n\\nSoy un *asistente de registro* - te ayudo a llevar el control de tus finanzas, pero no tengo acceso a tus cuentas bancarias.\\n\\n✅ Lo que sí puedo hacer:\\n• Registrar que hiciste una transferencia: 'Transferí 100k a Juan'\\n• Consultar tu historial de movimientos\\n• Ayudarte con presupuestos\\n\\n¿Te ayudo con algo de esto?\"}
             
-            - "Paga mi Netflix" → {\"intent\":\"question\",\"response\":\"🚫 No puedo realizar pagos ni acceder a servicios externos.\\n\\nSoy un asistente de *control financiero*, no una plataforma de pagos.\\n\\n✅ Lo que sí puedo hacer:\\n• Registrar tu pago: 'Pagué Netflix 30k'\\n• Recordarte cuánto gastas en Netflix\\n• Buscar tus pagos de Netflix\\n\\n¿Quieres que registre un pago de Netflix?\"}
+            - "Paga mi Netflix" → {\"i\":\"question\",\"r\":\"🚫 No puedo realizar pagos ni acceder a servicios externos.\\n\\nSoy un asistente de *control financiero*, no una plataforma de pagos.\\n\\n✅ Lo que sí puedo hacer:\\n• Registrar tu pago: 'Pagué Netflix 30k'\\n• Recordarte cuánto gastas en Netflix\\n• Buscar tus pagos de Netflix\\n\\n¿Quieres que registre un pago de Netflix?\"}
             
-            - "Cancela mi suscripción de Spotify" → {\"intent\":\"question\",\"response\":\"🚫 No puedo cancelar servicios ni suscripciones - eso debes hacerlo directamente en la app o sitio web del servicio.\\n\\n✅ Pero puedo ayudarte a:\\n• Ver cuánto has gastado en Spotify\\n• Registrar gastos relacionados\\n\\n¿Te muestro tu historial de pagos de Spotify?\"}
+            - "Cancela mi suscripción de Spotify" → {\"i\":\"question\",\"r\":\"🚫 No puedo cancelar servicios ni suscripciones - eso debes hacerlo directamente en la app o sitio web del servicio.\\n\\n✅ Pero puedo ayudarte a:\\n• Ver cuánto has gastado en Spotify\\n• Registrar gastos relacionados\\n\\n¿Te muestro tu historial de pagos de Spotify?\"}
             
-            - "Invierte 500k en Bitcoin" → {\"intent\":\"question\",\"response\":\"🚫 No puedo realizar inversiones ni comprar criptomonedas.\\n\\nSoy un asistente de *registro y control*, no una plataforma de inversión.\\n\\n✅ Pero puedo:\\n• Registrar inversiones que ya hayas hecho: 'Invertí 500k en Bitcoin'\\n• Llevar el control de tus inversiones como categoría\\n\\n¿Quieres que registre una inversión?\"}
+            - "Invierte 500k en Bitcoin" → {\"i\":\"question\",\"r\":\"🚫 No puedo realizar inversiones ni comprar criptomonedas.\\n\\nSoy un asistente de *registro y control*, no una plataforma de inversión.\\n\\n✅ Pero puedo:\\n• Registrar inversiones que ya hayas hecho: 'Invertí 500k en Bitcoin'\\n• Llevar el control de tus inversiones como categoría\\n\\n¿Quieres que registre una inversión?\"}
             
-            - "Dame dinero" o "Préstame 100k" → {\"intent\":\"question\",\"response\":\"😅 ¡Ojalá pudiera! Pero no tengo dinero para prestar ni puedo gestionar préstamos.\\n\\nSoy un asistente que te ayuda a *organizar y controlar* tus finanzas, no una entidad financiera.\\n\\n¿En qué más puedo ayudarte hoy?\"}
+            - "Dame dinero" o "Préstame 100k" → {\"i\":\"question\",\"r\":\"😅 ¡Ojalá pudiera! Pero no tengo dinero para prestar ni puedo gestionar préstamos.\\n\\nSoy un asistente que te ayuda a *organizar y controlar* tus finanzas, no una entidad financiera.\\n\\n¿En qué más puedo ayudarte hoy?\"}
             
-            - "Edita mi último gasto a 50k" o "Cambia el monto de la transacción" → {\"intent\":\"question\",\"response\":\"🚫 No puedo modificar transacciones ya registradas directamente.\\n\\n✅ Lo que sí puedo hacer:\\n• Eliminar la última transacción: 'Borra la última transacción'\\n• Luego registrarla de nuevo con el monto correcto\\n\\n¿Quieres que elimine la última transacción para volver a registrarla?\"}
+            - "Edita mi último gasto a 50k" o "Cambia el monto de la transacción" → {\"i\":\"question\",\"r\":\"🚫 No puedo modificar transacciones ya registradas directamente.\\n\\n✅ Lo que sí puedo hacer:\\n• Eliminar la última transacción: 'Borra la última transacción'\\n• Luego registrarla de nuevo con el monto correcto\\n\\n¿Quieres que elimine la última transacción para volver a registrarla?\"}
             
-            - "Cuánto dinero tiene mi esposa" o "Dime los gastos de Carlos" → {\"intent\":\"question\",\"response\":\"🔒 Solo tengo acceso a TU información financiera vinculada.\\n\\nNo puedo ver información de otras personas ni de cuentas no asociadas a ti.\\n\\n¿Te ayudo con algo de tus propias finanzas?\"}
+            - "Cuánto dinero tiene mi esposa" o "Dime los gastos de Carlos" → {\"i\":\"question\",\"r\":\"🔒 Solo tengo acceso a TU información financiera vinculada.\\n\\nNo puedo ver información de otras personas ni de cuentas no asociadas a ti.\\n\\n¿Te ayudo con algo de tus propias finanzas?\"}
             
             REGLA IMPORTANTE:
             - Si el usuario pide algo que NO está en mis capacidades, SIEMPRE debo explicar amablemente qué NO puedo hacer y qué SÍ puedo hacer como alternativa
@@ -213,99 +266,156 @@ public class IntentClassifierService {
             MÚLTIPLES OPERACIONES:
             - Si el usuario menciona MÁS DE UNA operación en el mismo mensaje, devuelve un JSON ARRAY con cada operación
             - Ejemplo: "Gasté 10k en gaseosa y gané 50k en una apuesta" → devuelve un array con 2 objetos
-            - El campo "response" del PRIMER objeto debe mencionar TODAS las operaciones que se van a realizar
-            
-            ⚠️ REGLA CRÍTICA - FORMATOS NUMÉRICOS (NO son múltiples operaciones):
-            - "50 mil", "50mil", "50.000", "50,000", "50000" = UNA SOLA operación de $50,000
-            - "2 millones", "2M", "2.000.000", "2,000,000" = UNA SOLA operación de $2,000,000
-            - El punto (.) y la coma (,) en números son SEPARADORES DE MILES, NO operaciones separadas
-            - "Gasté 50 mil" = 1 operación, "Gasté 50.000" = 1 operación, "Gasté 50,000" = 1 operación
-            - NUNCA interpretes un solo monto con separadores como múltiples operaciones
-            
-            Formato de respuesta JSON (operación única):
-            {
-                "intent": "nombre_de_intencion",
-                "amount": numero_o_null,
-                "category": "categoria_o_null",
-                "description": "descripcion_extraida_o_null",
-                "type": "Expense_o_Income_o_null",
-                "period": "Monthly_o_Weekly_o_null",
-                "startDate": "fecha_inicio_YYYY-MM-DD_o_null",
-                "endDate": "fecha_fin_YYYY-MM-DD_o_null",
-                "searchQuery": "texto_a_buscar_o_null",
-                "response": "respuesta_amigable_en_español"
-            }
+            - El campo "r" del PRIMER objeto debe mencionar TODAS las operaciones que se van a realizar
+            
+            ⚠️ REGLA CRÍTICA - MONTOS Y FECHAS (NO los conviertas, el sistema los calcula):
+            - "a": copia el monto EXACTO como lo escribió el usuario (ej: 50k, 50 mil, 50.000, 2 millones, un millón y medio)
+            - "f": copia el período EXACTO como lo escribió el usuario (ej: ayer, esta semana, del 1 al 15, noviembre, mes pasado)
+            - El punto (.) y la coma (,) en números son SEPARADORES DE MILES: "50.000" o "2,000,000" es UN SOLO monto, NO varias operaciones
+            
+            Formato de respuesta JSON compacto (claves cortas; OMITE las claves sin valor, NUNCA escribas null):
+            {"i":"intención","a":"monto_como_lo_escribió_el_usuario","c":"categoría","d":"descripción","t":"Expense_o_Income","p":"Monthly_o_Weekly","f":"período_como_lo_escribió_el_usuario","q":"texto_a_buscar","r":"respuesta_amigable_en_español"}
             
             Formato de respuesta JSON (múltiples operaciones):
             [
-                {"intent":"create_expense","amount":10000,"category":"Comida","description":"gaseosa","type":"Expense","response":"Registrando 2 operaciones:\\n1. Gasto de $10,000 en gaseosa\\n2. Ingreso de $50,000 por apuesta deportiva"},
-                {"intent":"create_income","amount":50000,"category":"Otros","description":"apuesta deportiva","type":"Income","response":""}
+                {"i":"create_expense","a":"10k","c":"Comida","d":"gaseosa","t":"Expense","r":"Registrando 2 operaciones:\\n1. Gasto de $10,000 en gaseosa\\n2. Ingreso de $50,000 por apuesta deportiva"},
+                {"i":"create_income","a":"50k","c":"Otros","d":"apuesta deportiva","t":"Income","r":""}
             ]
             
             EJEMPLOS IMPORTANTES:
             
             Pregunta (NO registrar):
-            - "¿Puedo gastar 100k en una fiesta?" -> {"intent":"validate_expense","amount":100000,"category":"Entretenimiento","description":"fiesta","type":null,"period":null,"startDate":null,"endDate":null,"searchQuery":null,"response":"Déjame verificar si puedes gastar $100,000 en entretenimiento..."}
+            - "¿Puedo gastar 100k en una fiesta?" -> {"i":"validate_expense","a":"100k","c":"Entretenimiento","d":"fiesta","r":"Déjame verificar si puedes gastar $100,000 en entretenimiento..."}
             
             Registro único:
-            - "Gasté 100k en una fiesta" -> {"intent":"create_expense","amount":100000,"category":"Entretenimiento","description":"fiesta","type":"Expense","period":null,"startDate":null,"endDate":null,"searchQuery":null,"response":"Registrando tu gasto de $100,000 en Entretenimiento"}
+            - "Gasté 100k en una fiesta" -> {"i":"create_expense","a":"100k","c":"Entretenimiento","d":"fiesta","t":"Expense","r":"Registrando tu gasto de $100,000 en Entretenimiento"}
             
             Consulta por fecha:
-            - "¿Cuánto gasté ayer?" -> {"intent":"list_transactions_by_date","amount":null,"category":null,"description":null,"type":null,"period":null,"startDate":"2025-11-26","endDate":null,"searchQuery":null,"response":"Consultando tus gastos del 26 de noviembre..."}
+            - "¿Cuánto gasté ayer?" -> {"i":"list_transactions_by_date","f":"ayer","r":"Consultando tus gastos de ayer..."}
             
-            Consulta por rango (IMPORTANTE: siempre incluir type según lo que pide el usuario):
-            - "¿Cuánto gasté esta semana?" -> {"intent":"list_transactions_by_range","amount":null,"category":null,"description":null,"type":"Expense","period":null,"startDate":"2025-11-20","endDate":"2025-11-27","searchQuery":null,"response":"Consultando tus gastos de los últimos 7 días..."}
-            - "Mis ingresos de noviembre" -> {"intent":"list_transactions_by_range","amount":null,"category":null,"description":null,"type":"Income","period":null,"startDate":"2025-11-01","endDate":"2025-11-30","searchQuery":null,"response":"Consultando tus ingresos de noviembre..."}
-            - "Transacciones de este mes" -> {"intent":"list_transactions_by_range","amount":null,"category":null,"description":null,"type":null,"period":null,"startDate":"2025-12-01","endDate":"2025-12-31","searchQuery":null,"response":"Consultando tus transacciones de este mes..."}
-            - "Gastos de los últimos 30 días" -> {"intent":"list_transactions_by_range","amount":null,"category":null,"description":null,"type":"Expense","period":null,"startDate":"2025-11-07","endDate":"2025-12-07","searchQuery":null,"response":"Consultando tus gastos de los últimos 30 días..."}
-            - "¿Cuánto gané del 1 al 15?" (sin mes) -> {"intent":"list_transactions_by_range","amount":null,"category":null,"description":null,"type":"Income","period":null,"startDate":"2025-12-01","endDate":"2025-12-15","searchQuery":null,"response":"Consultando tus ingresos del 1 al 15 de diciembre..."}
-            - "Resumen del mes pasado" -> {"intent":"list_transactions_by_range","amount":null,"category":null,"description":null,"type":null,"period":null,"startDate":"2025-11-01","endDate":"2025-11-30","searchQuery":null,"response":"Consultando tus transacciones de noviembre..."}
+            Consulta por rango (IMPORTANTE: siempre incluir t según lo que pide el usuario):
+            - "¿Cuánto gasté esta semana?" -> {"i":"list_transactions_by_range","t":"Expense","f":"esta semana","r":"Consultando tus gastos de los últimos 7 días..."}
+            - "Mis ingresos de noviembre" -> {"i":"list_transactions_by_range","t":"Income","f":"noviembre","r":"Consultando tus ingresos de noviembre..."}
+            - "Transacciones de este mes" -> {"i":"list_transactions_by_range","f":"este mes","r":"Consultando tus transacciones de este mes..."}
+            - "Gastos de los últimos 30 días" -> {"i":"list_transactions_by_range","t":"Expense","f":"últimos 30 días","r":"Consultando tus gastos de los últimos 30 días..."}
+            - "¿Cuánto gané del 1 al 15?" (sin mes) -> {"i":"list_transactions_by_range","t":"Income","f":"del 1 al 15","r":"Consultando tus ingresos del 1 al 15..."}
+            - "Resumen del mes pasado" -> {"i":"list_transactions_by_range","f":"mes pasado","r":"Consultando tus transacciones del mes pasado..."}
             
             Búsqueda por descripción:
-            - "¿Cuánto pago por Netflix?" -> {"intent":"search_transactions","amount":null,"category":null,"description":null,"type":null,"period":null,"startDate":null,"endDate":null,"searchQuery":"Netflix","response":"Buscando tus pagos de Netflix..."}
+            - "¿Cuánto pago por Netflix?" -> {"i":"search_transactions","q":"Netflix","r":"Buscando tus pagos de Netflix..."}
             
             Búsqueda por categoría:
-            - "Gastos de categoría Comida" -> {"intent":"search_transactions","amount":null,"category":"Comida","description":null,"type":null,"period":null,"startDate":null,"endDate":null,"searchQuery":null,"response":"Buscando tus gastos en la categoría Comida..."}
-            - "Dame los gastos de Transporte" -> {"intent":"search_transactions","amount":null,"category":"Transporte","description":null,"type":null,"period":null,"startDate":null,"endDate":null,"searchQuery":null,"response":"Buscando tus gastos en Transporte..."}
+            - "Gastos de categoría Comida" -> {"i":"search_transactions","c":"Comida","r":"Buscando tus gastos en la categoría Comida..."}
+            - "Dame los gastos de Transporte" -> {"i":"search_transactions","c":"Transporte","r":"Buscando tus gastos en Transporte..."}
             
             Balance:
-            - "¿Cuánto dinero tengo?" -> {"intent":"get_balance","amount":null,"category":null,"description":null,"type":null,"period":null,"startDate":null,"endDate":null,"searchQuery":null,"response":"Consultando tu saldo actual..."}
+            - "¿Cuánto dinero tengo?" -> {"i":"get_balance","r":"Consultando tu saldo actual..."}
             
             Crear reglas (IMPORTANTE: extraer la categoría del mensaje):
-            - "Pon un límite de 500k para comida" -> {"intent":"create_rule","amount":500000,"category":"Comida","description":null,"type":null,"period":"Monthly","startDate":null,"endDate":null,"searchQuery":null,"response":"Creando límite de $500,000 para Comida..."}
-            - "Quiero gastar máximo 200k en entretenimiento" -> {"intent":"create_rule","amount":200000,"category":"Entretenimiento","description":null,"type":null,"period":"Monthly","startDate":null,"endDate":null,"searchQuery":null,"response":"Creando límite de $200,000 para Entretenimiento..."}
-            - "Límite de 300k en transporte al mes" -> {"intent":"create_rule","amount":300000,"category":"Transporte","description":null,"type":null,"period":"Monthly","startDate":null,"endDate":null,"searchQuery":null,"response":"Creando límite de $300,000 para Transporte..."}
-            - "Presupuesto semanal de 100k para ropa" -> {"intent":"create_rule","amount":100000,"category":"Ropa","description":null,"type":null,"period":"Weekly","startDate":null,"endDate":null,"searchQuery":null,"response":"Creando límite semanal de $100,000 para Ropa..."}
-            - "Límite mensual de 1M en gastos" -> {"intent":"create_rule","amount":1000000,"category":"General","description":null,"type":null,"period":"Monthly","startDate":null,"endDate":null,"searchQuery":null,"response":"Creando límite general de $1,000,000..."}
+            - "Pon un límite de 500k para comida" -> {"i":"create_rule","a":"500k","c":"Comida","p":"Monthly","r":"Creando límite de $500,000 para Comida..."}
+            - "Quiero gastar máximo 200k en entretenimiento" -> {"i":"create_rule","a":"200k","c":"Entretenimiento","p":"Monthly","r":"Creando límite de $200,000 para Entretenimiento..."}
+            - "Límite de 300k en transporte al mes" -> {"i":"create_rule","a":"300k","c":"Transporte","p":"Monthly","r":"Creando límite de $300,000 para Transporte..."}
+            - "Presupuesto semanal de 100k para ropa" -> {"i":"create_rule","a":"100k","c":"Ropa","p":"Weekly","r":"Creando límite semanal de $100,000 para Ropa..."}
+            - "Límite mensual de 1M en gastos" -> {"i":"create_rule","a":"1M","c":"General","p":"Monthly","r":"Creando límite general de $1,000,000..."}
+            """;
+
+    private static final String HUMANIZE_PROMPT = """
+            Eres un asistente financiero amigable y empático. Tu tarea es tomar una respuesta estructurada 
+            con datos financieros y convertirla en una respuesta más natural, conversacional y útil.
+            
+            REGLAS CRÍTICAS:
+            1. MANTÉN TODOS los datos numéricos EXACTOS como aparecen (montos, fechas, porcentajes)
+            2. NUNCA inventes datos, valores o categorías que NO estén en la respuesta original
+            3. NO uses placeholders como "$X", "$XX", "[cantidad]" - usa SOLO los datos que tienes
+            4. Si solo tienes algunas categorías, menciona SOLO esas categorías
+            5. NO agregues categorías que no estén en los datos originales
+            
+            REGLAS DE ESTILO:
+            6. MANTÉN los emojis existentes y puedes agregar más si mejora la comunicación
+            7. Responde DIRECTAMENTE a la pregunta del usuario primero
+            8. Añade comentarios útiles o tips cuando sea apropiado
+            9. Sé empático y amigable, como un amigo que te ayuda con tus finanzas
+            10. NO uses frases genéricas como "Aquí tienes la información"
+            11. RESPONDE en español colombiano informal pero respetuoso
+            12. Si hay datos importantes (como el saldo), destácalos
+            13. Mantén la respuesta concisa pero completa
+            14. NO cambies la estructura de listas/tablas, solo mejora el texto introductorio
+            
+            EJEMPLOS DE TRANSFORMACIÓN:
+            
+            Antes: "📊 Resumen financiero completo: Ingresos: $13M, Gastos: $2.7M, Saldo: $10.8M"
+            Después: "¡Tu situación financiera se ve bien! 💪 Tienes un saldo de *$10.8M*, con ingresos de $13M y gastos de $2.7M."
+            
+            Antes: "💰 Tu situación financiera: Saldo actual: $10,801,500"
+            Después: "¡Tienes *$10,801,500* disponibles! 💰 Estás en verde."
+            
+            Antes: "📋 Tus transacciones: [lista de transacciones]"  
+            Después: "Aquí están tus movimientos recientes: [lista de transacciones]. ¿Te gustaría más detalles de alguna?"
+            
+            PREGUNTA DEL USUARIO: %s
+            TIPO DE CONSULTA: %s
+            
+            RESPUESTA ORIGINAL A HUMANIZAR:
+            %s
+            
+            RESPUESTA HUMANIZADA (responde SOLO con el texto humanizado, SIN inventar datos adicionales):
             """;
 
-    public IntentClassifierService(ChatClient.Builder chatClientBuilder, ConversationHistoryService conversationHistory) {
-        this.chatClient = chatClientBuilder.build();
+    public IntentClassifierService(
+            LlmGateway llmGateway,
+            LlmCircuitBreaker circuitBreaker,
+            ConversationHistoryService conversationHistory,
+            FastIntentParser fastParser,
+            IntentVectorIndex intentIndex,
+            SpanishNormalizer normalizer,
+            IntentCacheService intentCache,
+            ConversationContextBuilder contextBuilder,
+            IntentBatcher intentBatcher,
+            ComplexityRouter modelRouter,
+            TokenCountEstimator tokenizer,
+            MeterRegistry meterRegistry,
+            @Value("${assistant.fast-path.enabled:true}") boolean fastPathEnabled,
+            @Value("${assistant.fast-path.min-confidence:0.9}") double fastPathMinConfidence,
+            @Value("${assistant.intent-stream.enabled:true}") boolean streamEnabled) {
+        this.llmGateway = llmGateway;
+        this.circuitBreaker = circuitBreaker;
         this.objectMapper = new ObjectMapper();
         this.conversationHistory = conversationHistory;
-    }
+        this.fastParser = fastParser;
+        this.intentIndex = intentIndex;
+        this.normalizer = normalizer;
+        this.intentCache = intentCache;
+        this.contextBuilder = contextBuilder;
+        this.intentBatcher = intentBatcher;
+        this.modelRouter = modelRouter;
+        this.fastPathEnabled = fastPathEnabled;
+        this.fastPathMinConfidence = fastPathMinConfidence;
+        this.fastPathHits = Counter.builder("assistant.intent.fast-path")
+            .description("Messages classified by the local fast path (hit) or sent to OpenAI (miss)")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.fastPathMisses = Counter.builder("assistant.intent.fast-path")
+            .description("Messages classified by the local fast path (hit) or sent to OpenAI (miss)")
+            .tag("result", "miss")
+            .register(meterRegistry);
 
-    /**
-     * Builds the system prompt with current date information.
-     * This ensures the AI always knows the correct current date for date-related queries.
-     */
-    private String buildDynamicSystemPrompt() {
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = today.minusDays(1);
-        
-        // Format dates in Spanish using Locale.forLanguageTag (non-deprecated)
-        Locale spanishLocale = Locale.forLanguageTag("es-ES");
-        DateTimeFormatter dayMonthYear = DateTimeFormatter.ofPattern("d 'de' MMMM 'de' yyyy", spanishLocale);
-        DateTimeFormatter isoFormat = DateTimeFormatter.ISO_LOCAL_DATE;
-        
-        String currentDateFormatted = today.format(dayMonthYear);
-        String yesterdayFormatted = yesterday.format(isoFormat);
-        String currentMonth = today.format(DateTimeFormatter.ofPattern("MMMM yyyy", spanishLocale));
-        
-        return SYSTEM_PROMPT
-            .replace("{{CURRENT_DATE}}", currentDateFormatted)
-            .replace("{{YESTERDAY_DATE}}", yesterdayFormatted)
-            .replace("{{CURRENT_MONTH}}", currentMonth);
+        this.promptAssembler = new SystemPromptAssembler(SYSTEM_PROMPT, tokenizer);
+        Gauge.builder("assistant.prompt.tokens", promptAssembler, SystemPromptAssembler::getStaticTokens)
+            .tag("segment", "static")
+            .description("Estimated tokens of each segment of the classification system prompt")
+            .register(meterRegistry);
+        Gauge.builder("assistant.prompt.tokens", promptAssembler, SystemPromptAssembler::getDateTokens)
+            .tag("segment", "date")
+            .description("Estimated tokens of each segment of the classification system prompt")
+            .register(meterRegistry);
+        this.contextTokens = DistributionSummary.builder("assistant.prompt.context.tokens")
+            .description("Estimated tokens of the conversation context sent with each classification")
+            .register(meterRegistry);
+        this.streamEnabled = streamEnabled;
+        this.firstIntentTimer = Timer.builder("assistant.intent.stream.first-intent")
+            .description("Time until the first intent of a streamed classification is complete")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
     }
 
     public List<IntentResult> classifyIntent(String userMessage) {
@@ -313,52 +423,106 @@ public class IntentClassifierService {
     }
 
     public List<IntentResult> classifyIntent(String userMessage, Long telegramId) {
+        return classifyIntent(userMessage, telegramId, intent -> { });
+    }
+
+    /**
+     * Classifies a message, handing each intent to the listener as soon as it is known.
+     *
+     * With streaming enabled the OpenAI answer is parsed while it is generated, so the first
+     * operation of a multi-operation message is reported before the next ones are written.
+     * Local, cached and fallback classifications are reported all at once. Every returned
+     * intent is reported exactly once, in order.
+     *
+     * @param listener Receives each intent with its position and whether it is the last one
+     */
+    public List<IntentResult> classifyIntent(String userMessage, Long telegramId, Consumer<StreamedIntent> listener) {
+        List<IntentResult> reported = new ArrayList<>();
+        List<IntentResult> intents = classify(userMessage, telegramId, streamed -> {
+            reported.add(streamed.intent());
+            listener.accept(streamed);
+        });
+        for (int i = reported.size(); i < intents.size(); i++) {
+            listener.accept(new StreamedIntent(intents.get(i), i, i == intents.size() - 1));
+        }
+        return intents;
+    }
+
+    private List<IntentResult> classify(String userMessage, Long telegramId, Consumer<StreamedIntent> listener) {
+        if (fastPathEnabled) {
+            Optional<FastIntentParser.Match> match = fastParser.parse(userMessage);
+            if (isConfident(match)) {
+                fastPathHits.increment();
+                log.atDebug()
+                    .addKeyValue("telegramId", telegramId)
+                    .addKeyValue("intent", match.get().intent().getIntent())
+                    .addKeyValue("confidence", match.get().confidence())
+                    .log("⚡ Intent classified locally");
+                return List.of(match.get().intent());
+            }
+            fastPathMisses.increment();
+        }
+
+        List<ConversationMessage> history = telegramId != null
+            ? conversationHistory.getHistory(telegramId)
+            : List.of();
+        String cacheKey = intentCache.key(userMessage, history);
+        List<IntentResult> cached = intentCache.get(cacheKey);
+        if (cached != null) {
+            log.debug("💾 Intent classification served from cache for user {}", telegramId);
+            return cached;
+        }
+
+        // The examples carry no context: a follow-up ("¿y las de ayer?") needs the LLM
+        Optional<IntentResult> similar = history.isEmpty() ? intentIndex.classify(userMessage) : Optional.empty();
+        if (similar.isPresent()) {
+            log.atDebug()
+                .addKeyValue("telegramId", telegramId)
+                .addKeyValue("intent", similar.get().getIntent())
+                .log("🧭 Intent classified by nearest examples");
+            return List.of(similar.get());
+        }
+
         try {
             String messageWithContext = userMessage;
             
-            if (telegramId != null) {
-                String context = conversationHistory.getContextSummary(telegramId);
-                if (!context.isEmpty()) {
-                    messageWithContext = context + "\nMensaje actual del usuario: " + userMessage;
-                    System.out.println("📜 Including conversation context for user " + telegramId);
-                }
+            if (!history.isEmpty()) {
+                ConversationContextBuilder.Context context = contextBuilder.build(history);
+                contextTokens.record(context.tokens());
+                messageWithContext = context.text() + "\nMensaje actual del usuario: " + userMessage;
+                log.debug("📜 Including conversation context for user {} ({} tokens, {} before compaction)",
+                    telegramId, context.tokens(), context.originalTokens());
             }
             
-            // Build dynamic prompt with current date
-            String dynamicPrompt = buildDynamicSystemPrompt();
-            
-            String response = chatClient.prompt()
-                    .system(dynamicPrompt)
-                    .user(messageWithContext)
-                    .call()
-                    .content();
+            // Static instructions first, date section last (cacheable prefix)
+            String dynamicPrompt = promptAssembler.systemPrompt();
             
-            System.out.println("🤖 OpenAI Response: " + response);
-            
-            String cleanResponse = response.trim();
-            if (cleanResponse.startsWith("```json")) {
-                cleanResponse = cleanResponse.substring(7);
-            }
-            if (cleanResponse.startsWith("```")) {
-                cleanResponse = cleanResponse.substring(3);
-            }
-            if (cleanResponse.endsWith("```")) {
-                cleanResponse = cleanResponse.substring(0, cleanResponse.length() - 3);
+            if (intentBatcher.isEnabled() && history.isEmpty()) {
+                // Shares one call (and one system prompt) with concurrent messages of other users,
+                // so only messages without private conversation context
+                return parseResponse(intentBatcher.classify(dynamicPrompt, userMessage), telegramId, cacheKey);
             }
-            cleanResponse = cleanResponse.trim();
-            
-            if (cleanResponse.startsWith("[")) {
-                List<IntentResult> results = objectMapper.readValue(cleanResponse, 
-                    objectMapper.getTypeFactory().constructCollectionType(List.class, IntentResult.class));
-                System.out.println("🎯 Detected " + results.size() + " operations");
-                return results;
-            } else {
-                IntentResult result = objectMapper.readValue(cleanResponse, IntentResult.class);
-                return List.of(result);
+            
+            ComplexityRouter.Route route = modelRouter.route(userMessage);
+            try {
+                return classifyRouted(route, dynamicPrompt, messageWithContext, telegramId, cacheKey, listener);
+            } catch (IOException e) {
+                if (!route.isSmall()) {
+                    throw e;
+                }
+                log.atWarn()
+                    .addKeyValue("telegramId", telegramId)
+                    .log("⬆️ Unusable answer from the small model, escalating to the large one: {}", e.getMessage());
+                return classifyRouted(modelRouter.large(route.score()), dynamicPrompt, messageWithContext,
+                    telegramId, cacheKey, listener);
             }
             
+        } catch (LlmUnavailableException e) {
+            return classifyDegraded(userMessage, telegramId);
         } catch (Exception e) {
-            System.err.println("Error classifying intent: " + e.getMessage());
+            log.atError()
+                .addKeyValue("telegramId", telegramId)
+                .log("❌ Error classifying intent: {}", e.getMessage());
             
             IntentResult fallback = new IntentResult();
             fallback.setIntent("question");
@@ -367,6 +531,141 @@ public class IntentClassifierService {
         }
     }
     
+    /**
+     * Sends the classification to the model of the route, streamed or not, and records the
+     * outcome for that route.
+     */
+    private List<IntentResult> classifyRouted(ComplexityRouter.Route route, String systemPrompt, String message,
+                                              Long telegramId, String cacheKey, Consumer<StreamedIntent> listener)
+            throws IOException {
+        long startedAt = System.nanoTime();
+        try {
+            if (streamEnabled) {
+                return classifyStreaming(route, startedAt, systemPrompt, message, telegramId, cacheKey, listener);
+            }
+            String response = llmGateway.call(LlmGateway.Operation.CLASSIFY, route.model(), systemPrompt, message);
+            List<IntentResult> intents = parseResponse(response, telegramId, cacheKey);
+            modelRouter.completed(route, startedAt, systemPrompt, message, response);
+            return intents;
+        } catch (IOException e) {
+            modelRouter.failed(route, startedAt, true);
+            throw e;
+        } catch (RuntimeException e) {
+            modelRouter.failed(route, startedAt, false);
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a complete (not streamed) classification answer and caches it.
+     */
+    private List<IntentResult> parseResponse(String response, Long telegramId, String cacheKey) throws IOException {
+        log.atDebug()
+            .addKeyValue("telegramId", telegramId)
+            .addKeyValue("response", LogContent.of(response))
+            .log("🤖 OpenAI response");
+        
+        String cleanResponse = response.trim();
+        if (cleanResponse.startsWith("```json")) {
+            cleanResponse = cleanResponse.substring(7);
+        }
+        if (cleanResponse.startsWith("```")) {
+            cleanResponse = cleanResponse.substring(3);
+        }
+        if (cleanResponse.endsWith("```")) {
+            cleanResponse = cleanResponse.substring(0, cleanResponse.length() - 3);
+        }
+        cleanResponse = cleanResponse.trim();
+        
+        if (cleanResponse.startsWith("[")) {
+            List<IntentResult> results = objectMapper.readValue(cleanResponse, 
+                objectMapper.getTypeFactory().constructCollectionType(List.class, IntentResult.class));
+            results.forEach(normalizer::resolve);
+            log.debug("🎯 Detected {} operations", results.size());
+            intentCache.put(cacheKey, results);
+            return results;
+        } else {
+            IntentResult result = normalizer.resolve(objectMapper.readValue(cleanResponse, IntentResult.class));
+            intentCache.put(cacheKey, List.of(result));
+            return List.of(result);
+        }
+    }
+
+    /**
+     * Streams the classification and parses it as it arrives (see IntentStreamParser).
+     * If the stream breaks after some intents were already reported, those are kept, since
+     * the caller may have acted on them; they are not cached.
+     */
+    private List<IntentResult> classifyStreaming(ComplexityRouter.Route route, long startedAt, String systemPrompt,
+                                                 String message, Long telegramId, String cacheKey,
+                                                 Consumer<StreamedIntent> listener) throws IOException {
+        IntentStreamParser parser = new IntentStreamParser(objectMapper, streamed -> {
+            if (streamed.index() == 0) {
+                firstIntentTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+            normalizer.resolve(streamed.intent());
+            listener.accept(streamed);
+        });
+        StringBuilder response = new StringBuilder();
+        try (Stream<String> chunks = llmGateway.stream(LlmGateway.Operation.CLASSIFY, route.model(), systemPrompt, message).toStream()) {
+            Iterator<String> iterator = chunks.iterator();
+            while (iterator.hasNext()) {
+                String chunk = iterator.next();
+                response.append(chunk);
+                parser.feed(chunk);
+            }
+            List<IntentResult> intents = parser.finish();
+            log.atDebug()
+                .addKeyValue("telegramId", telegramId)
+                .addKeyValue("response", LogContent.of(response.toString()))
+                .log("🤖 OpenAI response");
+            if (intents.size() > 1) {
+                log.debug("🎯 Detected {} operations", intents.size());
+            }
+            modelRouter.completed(route, startedAt, systemPrompt, message, response.toString());
+            intentCache.put(cacheKey, intents);
+            return intents;
+        } catch (IOException | RuntimeException e) {
+            if (parser.intents().isEmpty()) {
+                throw e;
+            }
+            modelRouter.failed(route, startedAt, false);
+            log.atWarn()
+                .addKeyValue("telegramId", telegramId)
+                .log("⚠️ Classification stream failed after {} intent(s), keeping them: {}",
+                    parser.intents().size(), e.getMessage());
+            return List.copyOf(parser.intents());
+        }
+    }
+
+    private boolean isConfident(Optional<FastIntentParser.Match> match) {
+        return match.isPresent() && match.get().confidence() >= fastPathMinConfidence;
+    }
+
+    /**
+     * Classification while the OpenAI circuit is open: only what the local parser recognizes
+     * (even with the fast path disabled); anything else gets a reply explaining what still works.
+     * The intent index is not asked again here, it already passed on the message before the
+     * LLM call was attempted.
+     */
+    private List<IntentResult> classifyDegraded(String userMessage, Long telegramId) {
+        Optional<FastIntentParser.Match> match = fastParser.parse(userMessage);
+        if (isConfident(match)) {
+            log.atDebug()
+                .addKeyValue("telegramId", telegramId)
+                .addKeyValue("intent", match.get().intent().getIntent())
+                .log("🔌 Intent classified locally in degraded mode");
+            return List.of(match.get().intent());
+        }
+
+        IntentResult degraded = new IntentResult();
+        degraded.setIntent("question");
+        degraded.setResponse("🔌 Estoy funcionando en modo limitado por unos minutos. Puedo registrar gastos e "
+            + "ingresos simples (ej: \"Gasté 30k en taxi\") y mostrarte tu saldo, tus movimientos o "
+            + "en qué gastas más. Para lo demás, intenta de nuevo en un momento.");
+        return List.of(degraded);
+    }
+
     /**
      * Humanizes a structured response to make it more natural and conversational.
      * This method takes the data-rich response and transforms it into a friendly message.
@@ -381,60 +680,16 @@ public class IntentClassifierService {
             return structuredResponse;
         }
         
-        // Skip humanization for error messages or very short responses
-        if (structuredResponse.startsWith("❌") || structuredResponse.length() < 50) {
+        // Skip humanization for error messages, very short responses or while OpenAI is failing
+        if (structuredResponse.startsWith("❌") || structuredResponse.length() < 50 || circuitBreaker.isDegraded()) {
             return structuredResponse;
         }
         
         try {
-            String humanizePrompt = """
-                Eres un asistente financiero amigable y empático. Tu tarea es tomar una respuesta estructurada 
-                con datos financieros y convertirla en una respuesta más natural, conversacional y útil.
-                
-                REGLAS CRÍTICAS:
-                1. MANTÉN TODOS los datos numéricos EXACTOS como aparecen (montos, fechas, porcentajes)
-                2. NUNCA inventes datos, valores o categorías que NO estén en la respuesta original
-                3. NO uses placeholders como "$X", "$XX", "[cantidad]" - usa SOLO los datos que tienes
-                4. Si solo tienes algunas categorías, menciona SOLO esas categorías
-                5. NO agregues categorías que no estén en los datos originales
-                
-                REGLAS DE ESTILO:
-                6. MANTÉN los emojis existentes y puedes agregar más si mejora la comunicación
-                7. Responde DIRECTAMENTE a la pregunta del usuario primero
-                8. Añade comentarios útiles o tips cuando sea apropiado
-                9. Sé empático y amigable, como un amigo que te ayuda con tus finanzas
-                10. NO uses frases genéricas como "Aquí tienes la información"
-                11. RESPONDE en español colombiano informal pero respetuoso
-                12. Si hay datos importantes (como el saldo), destácalos
-                13. Mantén la respuesta concisa pero completa
-                14. NO cambies la estructura de listas/tablas, solo mejora el texto introductorio
-                
-                EJEMPLOS DE TRANSFORMACIÓN:
-                
-                Antes: "📊 Resumen financiero completo: Ingresos: $13M, Gastos: $2.7M, Saldo: $10.8M"
-                Después: "¡Tu situación financiera se ve bien! 💪 Tienes un saldo de *$10.8M*, con ingresos de $13M y gastos de $2.7M."
-                
-                Antes: "💰 Tu situación financiera: Saldo actual: $10,801,500"
-                Después: "¡Tienes *$10,801,500* disponibles! 💰 Estás en verde."
-                
-                Antes: "📋 Tus transacciones: [lista de transacciones]"  
-                Después: "Aquí están tus movimientos recientes: [lista de transacciones]. ¿Te gustaría más detalles de alguna?"
-                
-                PREGUNTA DEL USUARIO: %s
-                TIPO DE CONSULTA: %s
-                
-                RESPUESTA ORIGINAL A HUMANIZAR:
-                %s
-                
-                RESPUESTA HUMANIZADA (responde SOLO con el texto humanizado, SIN inventar datos adicionales):
-                """;
-            
-            String response = chatClient.prompt()
-                    .user(String.format(humanizePrompt, userQuery, intent, structuredResponse))
-                    .call()
-                    .content();
+            String response = llmGateway.call(LlmGateway.Operation.HUMANIZE, null,
+                    String.format(HUMANIZE_PROMPT, userQuery, intent, structuredResponse));
             
-            System.out.println("🎨 Humanized response generated");
+            log.debug("🎨 Humanized response generated");
             
             // If the humanized response is valid, return it; otherwise fallback to original
             if (response != null && !response.isEmpty() && response.length() > 20) {
@@ -443,9 +698,32 @@ public class IntentClassifierService {
             return structuredResponse;
             
         } catch (Exception e) {
-            System.err.println("Error humanizing response: " + e.getMessage());
+            log.warn("⚠️ Error humanizing response: {}", e.getMessage());
             // If humanization fails, return the original response
             return structuredResponse;
         }
     }
+
+    /**
+     * Streaming variant of {@link #humanizeResponse}: emits the humanized text as it is generated.
+     * The caller decides what to show if the stream fails or ends up too short.
+     *
+     * @param structuredResponse The original structured response with data
+     * @param userQuery The original user query for context
+     * @param intent The intent type for context
+     * @return The humanized text in chunks
+     */
+    public Flux<String> humanizeResponseStream(String structuredResponse, String userQuery, String intent) {
+        return llmGateway.stream(LlmGateway.Operation.HUMANIZE, null,
+            String.format(HUMANIZE_PROMPT, userQuery, intent, structuredResponse));
+    }
+
+    /**
+     * An intent reported while the classification is still being generated.
+     *
+     * @param index Position of the intent in the answer
+     * @param last Whether no other intent follows
+     */
+    public record StreamedIntent(IntentResult intent, int index, boolean last) {
+    }
 }
@@ -0,0 +1,156 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.IntentClassifierService.StreamedIntent;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Incremental parser for the classifier output as it is streamed by the LLM.
+ *
+ * The answer is either one intent object or, for several operations, an array of them. Chunks
+ * are fed to Jackson's non-blocking parser, and every intent is handed to the listener as soon
+ * as it is known to be complete. Each array element is held back until the next element starts
+ * or the array ends, so the listener always knows whether it was the last one and a one-element
+ * array is reported like a single object. Text around the JSON value (markdown fences) is ignored.
+ *
+ * Not thread-safe: one instance per response.
+ */
+final class IntentStreamParser {
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<StreamedIntent> listener;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final List<IntentResult> intents = new ArrayList<>();
+
+    private boolean started;
+    private boolean done;
+    private boolean array;
+    private int depth;
+    private TokenBuffer element;
+    private IntentResult held;
+
+    IntentStreamParser(ObjectMapper objectMapper, Consumer<StreamedIntent> listener) throws IOException {
+        this.objectMapper = objectMapper;
+        this.listener = listener;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parses the next chunk of the response, notifying the intents it completes.
+     */
+    void feed(String chunk) throws IOException {
+        if (done || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            // Skip "```json" and anything else before the JSON value
+            int start = firstJsonChar(chunk);
+            if (start < 0) {
+                return;
+            }
+            started = true;
+            chunk = chunk.substring(start);
+        }
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    /**
+     * Marks the end of the response and notifies the last intent.
+     *
+     * @return Every intent in the response, in order
+     * @throws IOException If the response held no intent object or ended in the middle of one
+     */
+    List<IntentResult> finish() throws IOException {
+        if (!done) {
+            feeder.endOfInput();
+            if (started) {
+                drain();
+            }
+            if (!done) {
+                throw new JsonParseException(parser, started ? "Incomplete intent JSON" : "No intent JSON in the response");
+            }
+        }
+        if (intents.isEmpty()) {
+            throw new JsonParseException(parser, "No intent object in the response");
+        }
+        return intents;
+    }
+
+    /**
+     * Intents completed so far.
+     */
+    List<IntentResult> intents() {
+        return intents;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!done && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+            if (depth == 0) {
+                array = token == JsonToken.START_ARRAY;
+                if (!array && token != JsonToken.START_OBJECT) {
+                    throw new JsonParseException(parser, "Expected an intent object or array, got " + token);
+                }
+            }
+
+            boolean elementStart = token == JsonToken.START_OBJECT && element == null && depth == (array ? 1 : 0);
+            if (elementStart) {
+                // The next element exists, so the held one was not the last
+                release(false);
+                element = new TokenBuffer(objectMapper, false);
+            }
+            if (element != null) {
+                element.copyCurrentEvent(parser);
+            }
+
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+                if (element != null && depth == (array ? 1 : 0)) {
+                    held = objectMapper.readValue(element.asParser(), IntentResult.class);
+                    element = null;
+                }
+                if (depth == 0) {
+                    done = true;
+                    release(true);
+                }
+            }
+        }
+    }
+
+    private void release(boolean last) {
+        if (held == null) {
+            return;
+        }
+        IntentResult intent = held;
+        held = null;
+        intents.add(intent);
+        listener.accept(new StreamedIntent(intent, intents.size() - 1, last));
+    }
+
+    private static int firstJsonChar(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '[') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,448 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline nearest-neighbour intent classifier, between FastIntentParser and the LLM.
+ *
+ * At startup the labelled examples of IntentClassifierService.SYSTEM_PROMPT and of the recorded
+ * test conversations (intent-examples.tsv) are turned into TF-IDF vectors of the words and
+ * their character n-grams, so inflections and small rewordings ("¿Cuánta plata tengo?") still
+ * land close to an example. Filler words ("muéstrame", "mis", "de"...) are left out so the
+ * words that carry the intent decide the similarity. A message is scored against every example
+ * through an inverted index and the top-k neighbours vote, weighted by cosine similarity; a
+ * near-duplicate of an example takes its label directly.
+ *
+ * Only parameterless intents (balance, summary, listing, rules) are accepted, and only when the
+ * best neighbour of the winning intent reaches the similarity threshold, the message has no
+ * digits or time words (amounts and dates need the LLM or the fast path to be extracted) and
+ * every word of the message that is not filler appears in the winning neighbours, unless the
+ * message is a near-duplicate of an example.
+ *
+ * Disabled by default (assistant.intent-index.enabled). The classifier only asks it about
+ * messages without conversation context.
+ *
+ * Exposed metrics:
+ * - assistant.intent.knn{result=hit|miss}: messages answered by the index or passed on
+ */
+@Service
+public class IntentVectorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(IntentVectorIndex.class);
+
+    static final String EXAMPLES_RESOURCE = "/intent-examples.tsv";
+
+    /** Intents executed from the label alone: none of them needs an amount, a date or a search term */
+    static final Set<String> SLOT_FREE_INTENTS = Set.of("get_balance", "get_summary", "list_transactions", "list_rules");
+
+    private static final int MIN_GRAM = 3;
+    private static final int MAX_GRAM = 5;
+
+    /** A neighbour this close is the same message with different punctuation or casing */
+    private static final double DUPLICATE_SIMILARITY = 0.9;
+
+    /** Words shared by every kind of request: they would make "muéstrame mis reglas" close to "muéstrame mis gastos" */
+    private static final Set<String> STOPWORDS = Set.of(
+        "a", "al", "de", "del", "el", "la", "las", "los", "lo", "un", "una", "y", "o", "en", "por", "para",
+        "con", "que", "cual", "cuales", "es", "son", "mi", "mis", "me", "se", "le", "su", "sus", "tu", "tus",
+        "dame", "muestrame", "quiero", "ver", "puedes", "favor", "porfa");
+
+    private static final Pattern PROMPT_INTENT = Pattern.compile("^\\s*\\d+\\.\\s*\"(\\w+)\"\\s*-");
+    private static final Pattern PROMPT_EXAMPLES = Pattern.compile("^\\s*Ejemplos:(.*)$");
+    private static final Pattern PROMPT_MAPPING = Pattern.compile(
+        "^\\s*-\\s*\"([^\"]+)\"(?:\\s*o\\s*\"([^\"]+)\")?[^→>=]*(?:->|→|=)\\s*(?:\\{\"(?:intent|i)\":\"(\\w+)\"|(\\w+))");
+    private static final Pattern QUOTED = Pattern.compile("\"([^\"]+)\"");
+    private static final Pattern DIGIT = Pattern.compile("\\d");
+    private static final Pattern TIME_WORDS = Pattern.compile("\\b(hoy|ayer|antier|manana|semana|mes|ano|año|dia|dias|"
+        + "quincena|pasad[oa]|lunes|martes|miercoles|jueves|viernes|sabado|domingo|enero|febrero|marzo|abril|mayo|"
+        + "junio|julio|agosto|septiembre|octubre|noviembre|diciembre)\\b");
+    private static final Pattern INCOME_WORDS = Pattern.compile("ingreso|ganancia|gane|pagado|pagaron");
+    private static final Pattern EXPENSE_WORDS = Pattern.compile("gast|compr");
+
+    public record Example(String text, String intent) {
+    }
+
+    public record Neighbour(Example example, double similarity) {
+    }
+
+    /**
+     * Winning intent of the neighbour vote and the similarity of its closest example.
+     */
+    public record Prediction(String intent, double similarity, List<Neighbour> neighbours) {
+
+        /**
+         * Whether the prediction explains the whole message: it is a near-duplicate of an example,
+         * or every word that is not filler appears in a neighbour with the winning intent. A word
+         * the neighbours lack ("borra" in "Borra mis reglas", "comida" in "¿Cuánto me queda para
+         * comida?") may change the intent or add a parameter, so the LLM decides.
+         */
+        public boolean covers(String message) {
+            if (similarity >= DUPLICATE_SIMILARITY) {
+                return true;
+            }
+            Set<String> vocabulary = new HashSet<>();
+            for (Neighbour neighbour : neighbours) {
+                if (neighbour.example().intent().equals(intent)) {
+                    vocabulary.addAll(contentWords(neighbour.example().text()));
+                }
+            }
+            return vocabulary.containsAll(contentWords(message));
+        }
+    }
+
+    private final Index index;
+    private final boolean enabled;
+    private final double threshold;
+    private final int topK;
+    private final Counter hits;
+    private final Counter misses;
+
+    public IntentVectorIndex(
+            MeterRegistry meterRegistry,
+            @Value("${assistant.intent-index.enabled:false}") boolean enabled,
+            @Value("${assistant.intent-index.threshold:0.65}") double threshold,
+            @Value("${assistant.intent-index.top-k:5}") int topK) {
+        List<Example> examples = new ArrayList<>(promptExamples(IntentClassifierService.SYSTEM_PROMPT));
+        examples.addAll(resourceExamples());
+        this.index = new Index(examples);
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.topK = topK;
+        this.hits = Counter.builder("assistant.intent.knn")
+            .description("Messages classified by the n-gram index (hit) or passed on (miss)")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.misses = Counter.builder("assistant.intent.knn")
+            .description("Messages classified by the n-gram index (hit) or passed on (miss)")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        log.info("🧭 Intent index built with {} examples and {} n-grams", index.size(), index.vocabularySize());
+    }
+
+    /**
+     * Classifies a message when its nearest examples agree on a parameterless intent.
+     *
+     * @param message The user message
+     * @return The intent to execute, or empty if the LLM should decide
+     */
+    public Optional<IntentResult> classify(String message) {
+        if (!enabled || message == null || message.isBlank() || !isSlotFree(message)) {
+            return Optional.empty();
+        }
+        Prediction prediction = predict(message);
+        if (prediction == null || prediction.similarity() < threshold
+                || !SLOT_FREE_INTENTS.contains(prediction.intent()) || !prediction.covers(message)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+
+        IntentResult result = new IntentResult();
+        result.setIntent(prediction.intent());
+        if ("list_transactions".equals(prediction.intent())) {
+            result.setType(typeOf(normalize(message)));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Whether the message carries no amount or date that would have to be extracted.
+     */
+    static boolean isSlotFree(String message) {
+        return !DIGIT.matcher(message).find() && !TIME_WORDS.matcher(normalize(message)).find();
+    }
+
+    /**
+     * Top-k vote over the whole index, whatever the intent and similarity.
+     */
+    public Prediction predict(String message) {
+        return index.predict(message, topK);
+    }
+
+    private static String typeOf(String normalized) {
+        if (INCOME_WORDS.matcher(normalized).find()) {
+            return "Income";
+        }
+        if (EXPENSE_WORDS.matcher(normalized).find()) {
+            return "Expense";
+        }
+        return null;
+    }
+
+    /**
+     * Labelled examples written in the classification prompt: the "Ejemplos:" line of each
+     * numbered intent and the "- "message" -> intent" mappings.
+     */
+    static List<Example> promptExamples(String prompt) {
+        Set<String> intents = new LinkedHashSet<>();
+        List<Example> examples = new ArrayList<>();
+        String current = null;
+        for (String line : prompt.split("\n")) {
+            Matcher header = PROMPT_INTENT.matcher(line);
+            if (header.find()) {
+                current = header.group(1);
+                intents.add(current);
+                continue;
+            }
+            Matcher list = PROMPT_EXAMPLES.matcher(line);
+            if (list.find() && current != null) {
+                Matcher quoted = QUOTED.matcher(list.group(1));
+                while (quoted.find()) {
+                    examples.add(new Example(quoted.group(1), current));
+                }
+                continue;
+            }
+            Matcher mapping = PROMPT_MAPPING.matcher(line);
+            if (mapping.find()) {
+                String intent = mapping.group(3) != null ? mapping.group(3) : mapping.group(4);
+                if (!intents.contains(intent)) {
+                    continue;
+                }
+                examples.add(new Example(mapping.group(1), intent));
+                if (mapping.group(2) != null) {
+                    examples.add(new Example(mapping.group(2), intent));
+                }
+            }
+        }
+        return examples;
+    }
+
+    static List<Example> resourceExamples() {
+        InputStream in = IntentVectorIndex.class.getResourceAsStream(EXAMPLES_RESOURCE);
+        if (in == null) {
+            log.warn("⚠️ {} not found, intent index built from the prompt examples only", EXAMPLES_RESOURCE);
+            return List.of();
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines()
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .map(line -> line.split("\t"))
+                .filter(parts -> parts.length == 2)
+                .map(parts -> new Example(parts[0].strip(), parts[1].strip()))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + EXAMPLES_RESOURCE, e);
+        }
+    }
+
+    /**
+     * Folded text with punctuation removed and digits collapsed to 0.
+     */
+    static String normalize(String text) {
+        String folded = FastIntentParser.fold(text);
+        StringBuilder sb = new StringBuilder(folded.length());
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            sb.append(Character.isDigit(c) ? '0' : Character.isLetter(c) ? c : ' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Words of a message that are not filler.
+     */
+    static Set<String> contentWords(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : normalize(text).split(" +")) {
+            if (!word.isEmpty() && !STOPWORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Features of a message: each word that is not filler, plus the character n-grams of the
+     * word padded with boundary markers ("<gasto>" gives "<ga", "gas", ..., "to>").
+     */
+    private static Map<String, Integer> grams(String text) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : normalize(text).split(" +")) {
+            if (word.isEmpty() || STOPWORDS.contains(word)) {
+                continue;
+            }
+            counts.merge(word, 1, Integer::sum);
+            String padded = "<" + word + ">";
+            for (int n = MIN_GRAM; n <= MAX_GRAM; n++) {
+                for (int i = 0; i + n <= padded.length(); i++) {
+                    counts.merge(padded.substring(i, i + n), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Immutable inverted index of L2-normalized TF-IDF vectors (sublinear tf, smoothed idf).
+     */
+    static final class Index {
+
+        private final List<Example> examples;
+        private final Map<String, Integer> vocabulary = new HashMap<>();
+        private final double[] idf;
+        private final int[][] postingDocs;
+        private final float[][] postingWeights;
+        private final double unseenIdf;
+
+        Index(List<Example> examples) {
+            this.examples = List.copyOf(examples);
+            List<Map<String, Integer>> docs = this.examples.stream().map(example -> grams(example.text())).toList();
+
+            List<Integer> df = new ArrayList<>();
+            for (Map<String, Integer> doc : docs) {
+                for (String gram : doc.keySet()) {
+                    int id = vocabulary.computeIfAbsent(gram, g -> {
+                        df.add(0);
+                        return df.size() - 1;
+                    });
+                    df.set(id, df.get(id) + 1);
+                }
+            }
+
+            int n = docs.size();
+            this.unseenIdf = Math.log((n + 1.0) / 1.0) + 1;
+            this.idf = new double[df.size()];
+            for (int id = 0; id < idf.length; id++) {
+                idf[id] = Math.log((n + 1.0) / (df.get(id) + 1.0)) + 1;
+            }
+
+            int[] sizes = new int[idf.length];
+            List<Map<Integer, Double>> vectors = new ArrayList<>(n);
+            for (Map<String, Integer> doc : docs) {
+                Map<Integer, Double> vector = new HashMap<>();
+                double norm = 0;
+                for (Map.Entry<String, Integer> gram : doc.entrySet()) {
+                    int id = vocabulary.get(gram.getKey());
+                    double weight = (1 + Math.log(gram.getValue())) * idf[id];
+                    vector.put(id, weight);
+                    norm += weight * weight;
+                    sizes[id]++;
+                }
+                double length = Math.sqrt(norm);
+                vector.replaceAll((id, weight) -> weight / length);
+                vectors.add(vector);
+            }
+
+            this.postingDocs = new int[idf.length][];
+            this.postingWeights = new float[idf.length][];
+            for (int id = 0; id < idf.length; id++) {
+                postingDocs[id] = new int[sizes[id]];
+                postingWeights[id] = new float[sizes[id]];
+            }
+            int[] filled = new int[idf.length];
+            for (int doc = 0; doc < n; doc++) {
+                for (Map.Entry<Integer, Double> entry : vectors.get(doc).entrySet()) {
+                    int id = entry.getKey();
+                    postingDocs[id][filled[id]] = doc;
+                    postingWeights[id][filled[id]++] = entry.getValue().floatValue();
+                }
+            }
+        }
+
+        int size() {
+            return examples.size();
+        }
+
+        int vocabularySize() {
+            return vocabulary.size();
+        }
+
+        /**
+         * Cosine similarity of the message to every example, highest first, limited to k.
+         */
+        List<Neighbour> nearest(String message, int k) {
+            double[] scores = new double[examples.size()];
+            double norm = 0;
+            for (Map.Entry<String, Integer> gram : grams(message).entrySet()) {
+                Integer id = vocabulary.get(gram.getKey());
+                double tf = 1 + Math.log(gram.getValue());
+                if (id == null) {
+                    norm += (tf * unseenIdf) * (tf * unseenIdf);
+                    continue;
+                }
+                double weight = tf * idf[id];
+                norm += weight * weight;
+                int[] docs = postingDocs[id];
+                float[] weights = postingWeights[id];
+                for (int i = 0; i < docs.length; i++) {
+                    scores[docs[i]] += weight * weights[i];
+                }
+            }
+            if (norm == 0) {
+                return List.of();
+            }
+            double length = Math.sqrt(norm);
+
+            // Partial selection: k is small, the index a few hundred examples
+            int[] best = new int[Math.min(k, scores.length)];
+            Arrays.fill(best, -1);
+            for (int doc = 0; doc < scores.length; doc++) {
+                if (scores[doc] <= 0) {
+                    continue;
+                }
+                for (int slot = 0; slot < best.length; slot++) {
+                    if (best[slot] == -1 || scores[doc] > scores[best[slot]]) {
+                        System.arraycopy(best, slot, best, slot + 1, best.length - slot - 1);
+                        best[slot] = doc;
+                        break;
+                    }
+                }
+            }
+            List<Neighbour> neighbours = new ArrayList<>(best.length);
+            for (int doc : best) {
+                if (doc != -1) {
+                    neighbours.add(new Neighbour(examples.get(doc), scores[doc] / length));
+                }
+            }
+            return neighbours;
+        }
+
+        /**
+         * Similarity-weighted vote of the k nearest examples, or null if nothing is similar.
+         */
+        Prediction predict(String message, int k) {
+            List<Neighbour> neighbours = nearest(message, k);
+            if (neighbours.isEmpty()) {
+                return null;
+            }
+            Neighbour closest = neighbours.get(0);
+            if (closest.similarity() >= DUPLICATE_SIMILARITY) {
+                return new Prediction(closest.example().intent(), closest.similarity(), neighbours);
+            }
+            Map<String, Double> votes = new HashMap<>();
+            for (Neighbour neighbour : neighbours) {
+                votes.merge(neighbour.example().intent(), neighbour.similarity(), Double::sum);
+            }
+            String winner = votes.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow().getKey();
+            // Neighbours are sorted: the first one with the winning label is the closest
+            double similarity = neighbours.stream()
+                .filter(neighbour -> neighbour.example().intent().equals(winner))
+                .findFirst().orElseThrow().similarity();
+            return new Prediction(winner, similarity, neighbours);
+        }
+    }
+}
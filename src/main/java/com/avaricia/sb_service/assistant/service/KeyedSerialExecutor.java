@@ -0,0 +1,57 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that runs tasks with the same key strictly in submission order,
+ * while tasks with different keys run in parallel on the delegate executor.
+ *
+ * Each key keeps only a reference to the tail of its chain; the entry is removed
+ * as soon as the last task for that key completes, so idle keys cost nothing.
+ * A failing task does not break the chain for the following ones.
+ *
+ * @param <K> The key type (e.g. Telegram chat ID)
+ */
+public class KeyedSerialExecutor<K> {
+
+    private final Executor delegate;
+    private final Map<K, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    public KeyedSerialExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Submits a task that will run after every previously submitted task with the same key.
+     *
+     * @param key The ordering key
+     * @param task The work to run
+     * @return A future completed when the task finishes
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Void> submit(K key, Runnable task) {
+        CompletableFuture<Void>[] created = new CompletableFuture[1];
+
+        tails.compute(key, (k, tail) -> {
+            CompletableFuture<Void> previous = tail != null
+                ? tail.handle((result, error) -> null)
+                : CompletableFuture.completedFuture(null);
+            created[0] = previous.thenRunAsync(task, delegate);
+            return created[0];
+        });
+
+        CompletableFuture<Void> future = created[0];
+        future.whenComplete((result, error) -> tails.remove(key, future));
+        return future;
+    }
+
+    /**
+     * Gets the number of keys that currently have queued or running work (for monitoring).
+     */
+    public int getActiveKeys() {
+        return tails.size();
+    }
+}
@@ -0,0 +1,92 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by a long (e.g. Telegram ID), one AtomicLong per key.
+ *
+ * Each bucket is stored as its "theoretical arrival time" (GCRA), which behaves exactly
+ * like a token bucket refilled at a constant rate with a maximum burst, but needs a single
+ * long and a lock-free compare-and-set per request instead of (tokens, timestamp) pairs.
+ * A bucket whose arrival time is in the past is full, so idle buckets can be evicted
+ * without changing behaviour.
+ */
+public class KeyedTokenBuckets {
+
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier clock;
+
+    /**
+     * @param ratePerMinute Sustained rate (tokens added per minute)
+     * @param burst Bucket capacity (requests allowed at once when the bucket is full)
+     */
+    public KeyedTokenBuckets(int ratePerMinute, int burst) {
+        this(ratePerMinute, burst, System::nanoTime);
+    }
+
+    KeyedTokenBuckets(int ratePerMinute, int burst, LongSupplier clock) {
+        this.emissionIntervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, ratePerMinute);
+        this.burstToleranceNanos = emissionIntervalNanos * (Math.max(1, burst) - 1);
+        this.clock = clock;
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     *
+     * @return true if a token was available
+     */
+    public boolean tryAcquire(long key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+
+        while (true) {
+            long arrival = bucket.get();
+            long base = arrival - now > 0 ? arrival : now;
+            if (base - now > burstToleranceNanos) {
+                return false;
+            }
+            if (bucket.compareAndSet(arrival, base + emissionIntervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryAcquire} whose request did not go through after
+     * all. Never fills the bucket beyond its burst.
+     */
+    public void refund(long key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            // Evicted, so already full
+            return;
+        }
+        long now = clock.getAsLong();
+        bucket.updateAndGet(arrival -> Math.max(Math.min(arrival, now), arrival - emissionIntervalNanos));
+    }
+
+    /**
+     * Removes buckets that are full again (no recent requests).
+     *
+     * @return Number of buckets removed
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return before - buckets.size();
+    }
+
+    /**
+     * Gets the number of keys with a bucket in memory (for monitoring).
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,197 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker shared by every OpenAI chat call.
+ *
+ * The outcome of the last window-size calls is kept in a ring buffer. When at least min-calls
+ * were seen and the failure rate reaches the threshold the breaker opens: calls are rejected
+ * without reaching OpenAI and the assistant runs in degraded mode (local parsing only, no
+ * humanization, regex-only confirmation). After open-duration the breaker goes half-open and
+ * lets half-open-probes calls through; if they all succeed it closes, if any fails it opens again.
+ *
+ * Exposed metrics:
+ * - assistant.llm.breaker.state: 0 closed, 1 half-open, 2 open
+ * - assistant.llm.breaker.transitions{state=closed|half_open|open}: state changes
+ */
+@Service
+public class LlmCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final boolean enabled;
+    private final boolean[] failures;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final Map<State, Counter> transitions = new EnumMap<>(State.class);
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failed;
+    private long openedAt;
+    private int probesLeft;
+    private int probesSucceeded;
+
+    public LlmCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${assistant.llm.breaker.enabled:true}") boolean enabled,
+            @Value("${assistant.llm.breaker.window-size:20}") int windowSize,
+            @Value("${assistant.llm.breaker.min-calls:5}") int minCalls,
+            @Value("${assistant.llm.breaker.failure-rate:0.5}") double failureRateThreshold,
+            @Value("${assistant.llm.breaker.open-duration:30s}") Duration openDuration,
+            @Value("${assistant.llm.breaker.half-open-probes:3}") int halfOpenProbes) {
+        this.enabled = enabled;
+        this.failures = new boolean[windowSize];
+        this.minCalls = Math.min(minCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+
+        Gauge.builder("assistant.llm.breaker.state", this, breaker -> breaker.getState().ordinal())
+            .description("State of the OpenAI circuit breaker: 0 closed, 1 half-open, 2 open")
+            .register(meterRegistry);
+        for (State target : State.values()) {
+            transitions.put(target, Counter.builder("assistant.llm.breaker.transitions")
+                .description("Transitions of the OpenAI circuit breaker to each state")
+                .tag("state", target.name().toLowerCase())
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Current state. An open breaker whose open-duration has passed reports HALF_OPEN.
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+            probesLeft = halfOpenProbes;
+            probesSucceeded = 0;
+        }
+        return state;
+    }
+
+    /**
+     * Whether the assistant should avoid optional OpenAI calls (humanization, AI confirmation).
+     * True while the breaker is open or probing.
+     */
+    public boolean isDegraded() {
+        return enabled && getState() != State.CLOSED;
+    }
+
+    /**
+     * Asks permission for one call. Every granted call must be followed by
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onCancel()}.
+     *
+     * @return false if the call must not reach OpenAI
+     */
+    public synchronized boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        return switch (getState()) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (probesLeft == 0) {
+                    yield false;
+                }
+                probesLeft--;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                reset();
+                transition(State.CLOSED);
+                log.info("✅ OpenAI circuit closed after {} successful probes", probesSucceeded);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            log.warn("🔌 OpenAI probe failed, circuit open again");
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minCalls && (double) failed / recorded >= failureRateThreshold) {
+            open();
+            log.warn("🔌 OpenAI circuit open: {} of the last {} calls failed, running in degraded mode", failed, recorded);
+        }
+    }
+
+    /**
+     * Releases a granted call that its caller gave up on before it had an outcome. It counts as
+     * neither success nor failure, and a half-open probe is given back.
+     */
+    public synchronized void onCancel() {
+        if (enabled && state == State.HALF_OPEN && probesLeft < halfOpenProbes) {
+            probesLeft++;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (state != State.CLOSED) {
+            // Late outcomes of calls started before the breaker opened
+            return;
+        }
+        if (recorded == failures.length) {
+            if (failures[next]) {
+                failed--;
+            }
+        } else {
+            recorded++;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failed++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void reset() {
+        recorded = 0;
+        next = 0;
+        failed = 0;
+    }
+
+    private void transition(State target) {
+        state = target;
+        transitions.get(target).increment();
+    }
+}
@@ -0,0 +1,462 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.exception.AssistantException;
+import com.avaricia.sb_service.assistant.exception.LlmTimeoutException;
+import com.avaricia.sb_service.assistant.exception.LlmUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Gateway for the blocking OpenAI chat calls, with a deadline per operation and hedged requests.
+ *
+ * Each call goes to the primary model on a virtual thread. If it has not answered once the
+ * hedge delay has passed (the configured percentile of the recent primary latency for that
+ * operation), the same prompt is also sent to the hedge model, usually a smaller and faster
+ * one; the first answer wins. A failed primary call starts the hedge right away, so the hedge
+ * model also acts as fallback. When nothing answers within the deadline of the operation the
+ * attempts are interrupted and LlmTimeoutException is thrown, which callers handle like any
+ * other OpenAI error.
+ *
+ * An attempt that loses the race is not cancelled: the request is already paid for, and
+ * letting it finish keeps the latency histograms of slow models honest.
+ *
+ * Callers may pick another model than the primary one (model routing). The hedge delay then
+ * follows the latency of that model, and a call that already goes to the hedge model hedges to
+ * the primary model instead.
+ *
+ * Streamed calls (stream) are hedged the same way until their first chunk: whichever model
+ * sends a chunk first wins and the other attempt is cancelled, since a hedge cannot take over
+ * a response that is already being consumed. The operation deadline bounds the whole stream.
+ *
+ * Calls are rejected with LlmUnavailableException while the LlmCircuitBreaker is open; the
+ * outcome of every admitted call (answer, timeout or failure) is reported to it. A call its
+ * caller gives up on (a cancelled stream, an interrupted thread) is released as neutral.
+ *
+ * Exposed metrics:
+ * - assistant.llm.duration{operation,model}: latency of every attempt, with percentile histogram
+ * - assistant.llm.calls{operation,result=primary|hedge|timeout|failed|rejected|cancelled}: which model answered, if any
+ * - assistant.llm.hedges{operation}: hedged requests started
+ */
+@Service
+public class LlmGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmGateway.class);
+
+    /**
+     * Kinds of LLM calls, each with its own deadline and latency history.
+     */
+    public enum Operation {
+        CLASSIFY, HUMANIZE, CONFIRM, CHAT;
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final ChatClient chatClient;
+    private final LlmCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final String primaryModel;
+    private final String hedgeModel;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final long hedgeMinSamples;
+    private final Duration hedgeInitialDelay;
+    private final Duration hedgeMinDelay;
+    private final Map<Operation, Duration> deadlines = new EnumMap<>(Operation.class);
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final ExecutorService virtualThreads;
+
+    public LlmGateway(
+            ChatClient.Builder chatClientBuilder,
+            LlmCircuitBreaker circuitBreaker,
+            MeterRegistry meterRegistry,
+            @Value("${spring.ai.openai.chat.options.model:gpt-4o-mini}") String primaryModel,
+            @Value("${assistant.llm.timeout.classify:10s}") Duration classifyTimeout,
+            @Value("${assistant.llm.timeout.humanize:8s}") Duration humanizeTimeout,
+            @Value("${assistant.llm.timeout.confirm:4s}") Duration confirmTimeout,
+            @Value("${assistant.llm.timeout.chat:30s}") Duration chatTimeout,
+            @Value("${assistant.llm.hedge.enabled:true}") boolean hedgeEnabled,
+            @Value("${assistant.llm.hedge.model:gpt-4.1-nano}") String hedgeModel,
+            @Value("${assistant.llm.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${assistant.llm.hedge.min-samples:20}") long hedgeMinSamples,
+            @Value("${assistant.llm.hedge.initial-delay:3s}") Duration hedgeInitialDelay,
+            @Value("${assistant.llm.hedge.min-delay:500ms}") Duration hedgeMinDelay) {
+        this.chatClient = chatClientBuilder.build();
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
+        this.primaryModel = primaryModel;
+        this.hedgeModel = hedgeModel;
+        // Hedging to the same model only doubles the cost
+        this.hedgeEnabled = hedgeEnabled && !hedgeModel.isBlank() && !hedgeModel.equals(primaryModel);
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinSamples = hedgeMinSamples;
+        this.hedgeInitialDelay = hedgeInitialDelay;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.deadlines.put(Operation.CLASSIFY, classifyTimeout);
+        this.deadlines.put(Operation.HUMANIZE, humanizeTimeout);
+        this.deadlines.put(Operation.CONFIRM, confirmTimeout);
+        this.deadlines.put(Operation.CHAT, chatTimeout);
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("llm-call-", 0).factory());
+    }
+
+    /**
+     * Sends a prompt and returns the content of the first answer within the operation deadline.
+     *
+     * @param operation The kind of call, which selects the deadline and the latency history
+     * @param system The system prompt, or null
+     * @param user The user message
+     * @return The answer of the primary or the hedge model
+     * @throws LlmTimeoutException If no model answered in time
+     * @throws LlmUnavailableException If the circuit breaker is open
+     */
+    public String call(Operation operation, String system, String user) {
+        return call(operation, primaryModel, system, user);
+    }
+
+    /**
+     * Same as {@link #call(Operation, String, String)} with another model in place of the
+     * primary one. A call to the hedge model hedges to the primary model instead.
+     *
+     * @param model The model to send the prompt to first
+     */
+    public String call(Operation operation, String model, String system, String user) {
+        return execute(operation, model, selected -> {
+            ChatClient.ChatClientRequestSpec request = chatClient.prompt()
+                .options(ChatOptions.builder().model(selected).build());
+            if (system != null) {
+                request = request.system(system);
+            }
+            return request.user(user).call().content();
+        });
+    }
+
+    /**
+     * Streams the answer of the primary model, or of the hedge model if that one sends its first
+     * chunk earlier, failing with LlmTimeoutException if it has not finished within the
+     * operation deadline.
+     *
+     * @param operation The kind of call, which selects the deadline and the latency history
+     * @param system The system prompt, or null
+     * @param user The user message
+     * @return The content chunks; errors with LlmUnavailableException if the circuit breaker is open
+     */
+    public Flux<String> stream(Operation operation, String system, String user) {
+        return stream(operation, primaryModel, system, user);
+    }
+
+    /**
+     * Same as {@link #stream(Operation, String, String)} with another model in place of the primary one.
+     *
+     * @param model The model to stream the answer from
+     */
+    public Flux<String> stream(Operation operation, String model, String system, String user) {
+        return stream(operation, model, selected -> {
+            ChatClient.ChatClientRequestSpec request = chatClient.prompt()
+                .options(ChatOptions.builder().model(selected).build());
+            if (system != null) {
+                request = request.system(system);
+            }
+            return request.user(user).stream().content();
+        });
+    }
+
+    /**
+     * Hedges and bounds a streamed request to the primary model as described above.
+     *
+     * @param request Sends the prompt to the given model and returns its content chunks
+     */
+    Flux<String> stream(Operation operation, Function<String, Flux<String>> request) {
+        return stream(operation, primaryModel, request);
+    }
+
+    private Flux<String> stream(Operation operation, String model, Function<String, Flux<String>> request) {
+        return Flux.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                calls(operation, "rejected").increment();
+                return Flux.error(new LlmUnavailableException(operation.tag()));
+            }
+            Duration deadline = deadlines.get(operation);
+            long deadlineAt = System.nanoTime() + deadline.toNanos();
+            AtomicReference<String> answeredBy = new AtomicReference<>();
+            AtomicReference<Throwable> lastError = new AtomicReference<>();
+            Flux<String> answer = attempt(operation, model, request, answeredBy, lastError);
+
+            // A call that already goes to the hedge model hedges to the primary one
+            String hedgeTo = model.equals(hedgeModel) ? primaryModel : hedgeModel;
+            Duration delay = hedgeEnabled && !hedgeTo.equals(model) ? hedgeDelay(operation, model) : deadline;
+            if (delay.compareTo(deadline) < 0) {
+                // The hedge model doubles as fallback when the primary fails or sends nothing
+                Sinks.Empty<Void> primaryGaveUp = Sinks.empty();
+                Flux<String> primary = answer
+                    .doOnError(e -> primaryGaveUp.tryEmitEmpty())
+                    .doOnComplete(primaryGaveUp::tryEmitEmpty);
+                Flux<String> hedge = Flux.defer(() -> {
+                        hedges(operation).increment();
+                        return attempt(operation, hedgeTo, request, answeredBy, lastError);
+                    })
+                    .delaySubscription(Mono.firstWithSignal(Mono.delay(delay).then(), primaryGaveUp.asMono()));
+                // The first attempt to send a chunk wins, the other one is cancelled
+                answer = Flux.firstWithValue(primary, hedge)
+                    .onErrorMap(NoSuchElementException.class, e -> lastError.get() != null ? lastError.get() : e);
+            }
+
+            return answer
+                // Each chunk only gets the time left until the deadline of the whole stream
+                .timeout(Mono.delay(deadline),
+                    chunk -> Mono.delay(Duration.ofNanos(Math.max(0, deadlineAt - System.nanoTime()))))
+                .onErrorMap(TimeoutException.class, e -> new LlmTimeoutException(operation.tag(), deadline))
+                .doOnComplete(() -> {
+                    circuitBreaker.onSuccess();
+                    String winner = answeredBy.get();
+                    boolean primary = winner == null || winner.equals(model);
+                    calls(operation, primary ? "primary" : "hedge").increment();
+                    if (!primary) {
+                        log.debug("🏁 {} stream answered by hedge model {}", operation.tag(), winner);
+                    }
+                })
+                .doOnError(e -> {
+                    circuitBreaker.onFailure();
+                    boolean timedOut = e instanceof LlmTimeoutException;
+                    calls(operation, timedOut ? "timeout" : "failed").increment();
+                    if (timedOut) {
+                        log.warn("⏱️ LLM {} stream exceeded its {} ms deadline", operation.tag(), deadline.toMillis());
+                    }
+                })
+                .doOnCancel(() -> {
+                    // The consumer gave up on the stream, which says nothing about OpenAI
+                    circuitBreaker.onCancel();
+                    calls(operation, "cancelled").increment();
+                });
+        });
+    }
+
+    /**
+     * One streamed attempt: records its latency once it completes and claims the answer for
+     * its model on the first chunk.
+     */
+    private Flux<String> attempt(Operation operation, String model, Function<String, Flux<String>> request,
+                                 AtomicReference<String> answeredBy, AtomicReference<Throwable> lastError) {
+        return Flux.defer(() -> {
+            Timer timer = timer(operation, model);
+            long startedAt = System.nanoTime();
+            return request.apply(model)
+                .doOnNext(chunk -> answeredBy.compareAndSet(null, model))
+                .doOnError(lastError::set)
+                .doOnComplete(() -> timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    /**
+     * Runs the request against the primary model, hedging and bounding it as described above.
+     *
+     * @param request Sends the prompt to the given model and returns its answer (blocking)
+     */
+    String execute(Operation operation, Function<String, String> request) {
+        return execute(operation, primaryModel, request);
+    }
+
+    /**
+     * Same as {@link #execute(Operation, Function)} starting with the given model.
+     */
+    String execute(Operation operation, String model, Function<String, String> request) {
+        if (!circuitBreaker.tryAcquire()) {
+            calls(operation, "rejected").increment();
+            throw new LlmUnavailableException(operation.tag());
+        }
+        Duration deadline = deadlines.get(operation);
+        // A call that already goes to the hedge model hedges to the primary one
+        String hedgeTo = model.equals(hedgeModel) ? primaryModel : hedgeModel;
+        Race race = new Race(operation, request, hedgeEnabled && !hedgeTo.equals(model) ? hedgeTo : null);
+        race.start(model);
+
+        if (race.hedgeModel != null) {
+            Duration delay = hedgeDelay(operation, model);
+            if (delay.compareTo(deadline) < 0) {
+                CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS, virtualThreads)
+                    .execute(race::hedge);
+            }
+        }
+
+        try {
+            Answer answer = race.winner.get(deadline.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            boolean primary = answer.model().equals(model);
+            calls(operation, primary ? "primary" : "hedge").increment();
+            if (!primary) {
+                log.debug("🏁 {} answered by hedge model {}", operation.tag(), answer.model());
+            }
+            return answer.text();
+        } catch (TimeoutException e) {
+            race.cancel();
+            circuitBreaker.onFailure();
+            calls(operation, "timeout").increment();
+            log.warn("⏱️ LLM {} call exceeded its {} ms deadline", operation.tag(), deadline.toMillis());
+            throw new LlmTimeoutException(operation.tag(), deadline);
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            calls(operation, "failed").increment();
+            throw e.getCause() instanceof RuntimeException runtime
+                ? runtime
+                : new AssistantException("LLM " + operation.tag() + " call failed", e.getCause());
+        } catch (InterruptedException e) {
+            race.cancel();
+            circuitBreaker.onCancel();
+            calls(operation, "cancelled").increment();
+            Thread.currentThread().interrupt();
+            throw new AssistantException("LLM " + operation.tag() + " call interrupted", e);
+        }
+    }
+
+    /**
+     * Time to wait for the primary model before hedging: the configured percentile of its recent
+     * latency, or the initial delay until enough calls have been observed.
+     */
+    Duration hedgeDelay(Operation operation) {
+        return hedgeDelay(operation, primaryModel);
+    }
+
+    private Duration hedgeDelay(Operation operation, String model) {
+        Timer timer = timer(operation, model);
+        if (timer.count() < hedgeMinSamples) {
+            return hedgeInitialDelay;
+        }
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == hedgePercentile && value.value() > 0) {
+                long millis = (long) value.value(TimeUnit.MILLISECONDS);
+                return millis < hedgeMinDelay.toMillis() ? hedgeMinDelay : Duration.ofMillis(millis);
+            }
+        }
+        return hedgeInitialDelay;
+    }
+
+    private Timer timer(Operation operation, String model) {
+        return timers.computeIfAbsent(operation.tag() + "|" + model, key -> Timer.builder("assistant.llm.duration")
+            .description("Latency of each LLM attempt per operation and model")
+            .tag("operation", operation.tag())
+            .tag("model", model)
+            .publishPercentiles(hedgePercentile)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
+    }
+
+    private Counter calls(Operation operation, String result) {
+        return Counter.builder("assistant.llm.calls")
+            .description("LLM calls answered by the primary or hedge model, timed out or failed")
+            .tag("operation", operation.tag())
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    private Counter hedges(Operation operation) {
+        return Counter.builder("assistant.llm.hedges")
+            .description("Hedged requests sent to the hedge model")
+            .tag("operation", operation.tag())
+            .register(meterRegistry);
+    }
+
+    private record Answer(String model, String text) {
+    }
+
+    /**
+     * The attempts of one call. The winner is the first attempt that returns an answer;
+     * it fails only once every attempt that can be started has failed.
+     */
+    private final class Race {
+
+        private final Operation operation;
+        private final Function<String, String> request;
+        /** Model to hedge to, or null if this call is not hedged */
+        private final String hedgeModel;
+        private final CompletableFuture<Answer> winner = new CompletableFuture<>();
+        private final List<Future<?>> attempts = new ArrayList<>();
+        private boolean hedged;
+        private int failures;
+
+        Race(Operation operation, Function<String, String> request, String hedgeModel) {
+            this.operation = operation;
+            this.request = request;
+            this.hedgeModel = hedgeModel;
+        }
+
+        synchronized void start(String model) {
+            Timer timer = timer(operation, model);
+            long startedAt = System.nanoTime();
+            attempts.add(virtualThreads.submit(() -> {
+                String text = null;
+                Throwable error = null;
+                try {
+                    text = request.apply(model);
+                } catch (Throwable t) {
+                    error = t;
+                }
+                timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                settle(model, text, error);
+            }));
+        }
+
+        synchronized void hedge() {
+            if (hedged || winner.isDone()) {
+                return;
+            }
+            hedged = true;
+            hedges(operation).increment();
+            start(hedgeModel);
+        }
+
+        private synchronized void settle(String model, String text, Throwable error) {
+            if (error == null && text != null) {
+                winner.complete(new Answer(model, text));
+                return;
+            }
+            failures++;
+            if (hedgeModel != null && !hedged && !winner.isDone()) {
+                // The hedge model doubles as fallback when the primary fails
+                hedge();
+            } else if (failures == attempts.size()) {
+                winner.completeExceptionally(error != null ? error : new IllegalStateException(model + " returned no content"));
+            }
+        }
+
+        synchronized void cancel() {
+            // Interrupted attempts must not start the hedge afterwards
+            winner.cancel(false);
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+}
@@ -0,0 +1,219 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+
+/**
+ * Service that phrases data-rich responses conversationally without calling the LLM.
+ *
+ * The handlers pass the figures they already computed (totals, counts, top category) and get
+ * back an intro line and, when it applies, a tip, which they put around the structured data.
+ * Each situation has several phrasings; the one used is picked from the figures themselves,
+ * so the same data always reads the same and different data reads differently.
+ *
+ * Tone rules:
+ * - balance below zero or expenses above 80% of income: cautious intro plus a tip
+ * - healthy balance: positive intro, plus a savings tip when 30% or more is saved
+ * - one category above 50% of the spending: warning tip about that category
+ * - listings where more went out than came in: a short heads-up
+ */
+@Service
+public class LocalHumanizerService {
+
+    /** Share of income spent above which a positive balance is considered tight */
+    private static final double TIGHT_SPENDING_RATIO = 0.8;
+    /** Share of income saved from which the user is congratulated */
+    private static final double GOOD_SAVINGS_RATIO = 0.3;
+
+    private static final String[] BALANCE_HEALTHY = {
+        "¡Tienes *%1$s* disponibles! 💰 Estás en verde.",
+        "Vas bien 💪 Tu saldo es de *%1$s*.",
+        "¡Buenas noticias! Cuentas con *%1$s* en tu saldo. 🙌",
+        "Tu saldo está en *%1$s*, nada mal. 😎"
+    };
+    private static final String[] BALANCE_TIGHT = {
+        "Tu saldo es de *%1$s*, pero ya gastaste el %2$d%% de lo que has recibido. 👀",
+        "Tienes *%1$s* disponibles; vas algo justo, con el %2$d%% de tus ingresos ya gastado. ⚠️",
+        "Cuentas con *%1$s*, aunque tus gastos ya van en el %2$d%% de tus ingresos. 🤏"
+    };
+    private static final String[] BALANCE_NEGATIVE = {
+        "Ojo 😬 estás en rojo: tu saldo es de *%1$s*.",
+        "Tu saldo está en negativo (*%1$s*). 🚨 Tus gastos superan tus ingresos.",
+        "Uy, vas en *%1$s*. Estás gastando más de lo que entra. 📉"
+    };
+    private static final String[] CAUTION_TIPS = {
+        "💡 *Tip:* Mira en qué categoría se te va más (\"¿en qué gasto más?\") y ponle un límite.",
+        "💡 *Tip:* Un límite por categoría te avisa antes de pasarte. Prueba: \"Pon un límite de 300k para comida\".",
+        "💡 *Tip:* Registrar cada gasto, hasta los pequeños, ayuda a ver dónde recortar."
+    };
+    private static final String[] SAVINGS_TIPS = {
+        "💡 Estás ahorrando el %1$d%% de tus ingresos, ¡sigue así!",
+        "💡 Guardas el %1$d%% de lo que recibes. ¡Muy bien! 👏"
+    };
+
+    private static final String[] SUMMARY_DOMINANT = {
+        "¡Tu mayor gasto está en *%1$s*! %2$s Con %3$s (%4$.0f%%), representa la mayor parte de tus gastos.",
+        "Más de la mitad de tu plata se va en *%1$s* %2$s: %3$s, el %4$.0f%% del total.",
+        "*%1$s* %2$s se lleva la mayor tajada: %3$s (%4$.0f%%) de todo lo que gastas."
+    };
+    private static final String[] SUMMARY_LEADING = {
+        "*%1$s* %2$s es donde más gastas, con %3$s (%4$.0f%%) de tus gastos totales.",
+        "Tu categoría principal es *%1$s* %2$s, con %3$s (%4$.0f%%).",
+        "Donde más se te va la plata es en *%1$s* %2$s: %3$s, el %4$.0f%% de tus gastos."
+    };
+    private static final String[] SUMMARY_SPREAD = {
+        "Tus gastos están bastante distribuidos. *%1$s* %2$s lidera con %3$s (%4$.0f%%).",
+        "Repartes bien tus gastos 👌 La categoría que más pesa es *%1$s* %2$s, con %3$s (%4$.0f%%).",
+        "No hay una categoría que domine; *%1$s* %2$s va adelante con %3$s (%4$.0f%%)."
+    };
+    private static final String[] SUMMARY_TIPS = {
+        "💡 *Tip:* Considera revisar tus gastos en %1$s, ya que representan más de la mitad de tu presupuesto.",
+        "💡 *Tip:* Un límite para %1$s te ayudaría a equilibrar tu presupuesto.",
+        "💡 *Tip:* Si recortas un poco en %1$s, notarás la diferencia rápido."
+    };
+
+    private static final String[] LIST_EXPENSES = {
+        "Llevas *%1$s* en gastos (%2$s). 💸",
+        "En total gastaste *%1$s* en %2$s.",
+        "Estos son tus gastos: suman *%1$s* entre %2$s."
+    };
+    private static final String[] LIST_INCOMES = {
+        "¡Has recibido *%1$s* (%2$s)! 💰",
+        "Tus ingresos suman *%1$s* en %2$s. 🙌",
+        "Entraron *%1$s* en %2$s. 💵"
+    };
+    private static final String[] LIST_ALL = {
+        "Tienes %3$s: entraron *%1$s* y salieron *%2$s*.",
+        "En %3$s recibiste *%1$s* y gastaste *%2$s*.",
+        "Resumen rápido: %3$s, con *%1$s* de ingresos y *%2$s* de gastos."
+    };
+    private static final String OVERSPENT_NOTE = " Ojo, salió más de lo que entró. 👀";
+
+    private static final String[] DAY = {
+        "Ese día moviste *%1$s* en %2$s.",
+        "Ese día registraste %2$s por *%1$s*.",
+        "Esto fue lo de ese día: %2$s por *%1$s*."
+    };
+    private static final String[] SEARCH = {
+        "Llevas *%1$s* en \"%2$s\" (%3$s).",
+        "En \"%2$s\" se te han ido *%1$s* en %3$s.",
+        "Encontré %3$s de \"%2$s\" por *%1$s* en total."
+    };
+    private static final String[] RULES = {
+        "Tienes %1$s para cuidar tu presupuesto. 📏",
+        "Estos son tus %1$s. 📏",
+        "Así van tus %1$s. 📏"
+    };
+
+    /**
+     * Intro and tip for the balance.
+     */
+    public Phrasing balance(double income, double expenses, double balance) {
+        String amount = money(balance);
+        if (balance < 0) {
+            return new Phrasing(format(BALANCE_NEGATIVE, seed(balance, expenses), amount),
+                pick(CAUTION_TIPS, seed(balance, income)));
+        }
+        if (income > 0 && expenses > income * TIGHT_SPENDING_RATIO) {
+            int spentPercent = (int) Math.round(expenses * 100 / income);
+            return new Phrasing(format(BALANCE_TIGHT, seed(balance, expenses), amount, spentPercent),
+                pick(CAUTION_TIPS, seed(balance, income)));
+        }
+        String tip = null;
+        if (income > 0 && balance >= income * GOOD_SAVINGS_RATIO) {
+            int savedPercent = (int) Math.round(Math.min(balance, income) * 100 / income);
+            tip = format(SAVINGS_TIPS, seed(balance, income), savedPercent);
+        }
+        return new Phrasing(format(BALANCE_HEALTHY, seed(balance, expenses), amount), tip);
+    }
+
+    /**
+     * Intro and tip for the expense summary by category, based on the top category.
+     */
+    public Phrasing summary(String topCategory, String emoji, double topAmount, double topPercentage) {
+        long seed = seed(topAmount, topPercentage, topCategory);
+        if (topPercentage > 50) {
+            return new Phrasing(format(SUMMARY_DOMINANT, seed, topCategory, emoji, money(topAmount), topPercentage),
+                format(SUMMARY_TIPS, seed, topCategory));
+        }
+        String[] templates = topPercentage > 30 ? SUMMARY_LEADING : SUMMARY_SPREAD;
+        return new Phrasing(format(templates, seed, topCategory, emoji, money(topAmount), topPercentage), null);
+    }
+
+    /**
+     * Intro for a transaction listing.
+     *
+     * @param type "Expense", "Income" or null for both
+     */
+    public String transactions(String type, int count, double totalIncome, double totalExpense) {
+        long seed = seed(totalIncome, totalExpense, count);
+        String movements = count(count, "movimiento", "movimientos");
+        if ("Expense".equals(type)) {
+            return format(LIST_EXPENSES, seed, money(totalExpense), movements);
+        }
+        if ("Income".equals(type)) {
+            return format(LIST_INCOMES, seed, money(totalIncome), count(count, "ingreso", "ingresos"));
+        }
+        String intro = format(LIST_ALL, seed, money(totalIncome), money(totalExpense), movements);
+        return totalExpense > totalIncome ? intro + OVERSPENT_NOTE : intro;
+    }
+
+    /**
+     * Intro for the transactions of a single day.
+     */
+    public String day(int count, double total) {
+        return format(DAY, seed(total, count), money(total), count(count, "movimiento", "movimientos"));
+    }
+
+    /**
+     * Intro for search results.
+     */
+    public String search(String term, int count, double total) {
+        return format(SEARCH, seed(total, count, term), money(total), term, count(count, "movimiento", "movimientos"));
+    }
+
+    /**
+     * Intro for the list of financial rules.
+     */
+    public String rules(int count) {
+        return format(RULES, seed(count), count(count, "límite activo", "límites activos"));
+    }
+
+    private static String format(String[] templates, long seed, Object... args) {
+        return String.format(pick(templates, seed), args);
+    }
+
+    private static String pick(String[] templates, long seed) {
+        return templates[(int) Math.floorMod(seed, (long) templates.length)];
+    }
+
+    private static long seed(Object... values) {
+        return Arrays.hashCode(values);
+    }
+
+    private static String money(double amount) {
+        return String.format("$%,.0f", amount);
+    }
+
+    private static String count(int count, String singular, String plural) {
+        return count == 1 ? "1 " + singular : count + " " + plural;
+    }
+
+    /**
+     * Conversational text to put around a structured response.
+     *
+     * @param intro Line that answers the question, shown before the data
+     * @param tip Advice shown after the data, or null
+     */
+    public record Phrasing(String intro, String tip) {
+
+        /**
+         * Puts the intro before and the tip after the structured response.
+         */
+        public String around(String structured) {
+            String text = intro + "\n\n" + structured;
+            return tip == null ? text : text + "\n\n" + tip;
+        }
+    }
+}
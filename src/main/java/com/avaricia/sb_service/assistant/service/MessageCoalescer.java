@@ -0,0 +1,176 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges rapid-fire text messages from the same chat into a single request.
+ *
+ * Users often split one thought across messages ("gasté 20k" ... "en comida"). Each queued
+ * text message opens a batch that stays open until its turn in the chat queue comes; messages
+ * arriving within the window while it waits are appended instead of being queued on their
+ * own, so they cost one classification instead of several. When the chat queue is idle the
+ * batch is taken immediately, so single messages never wait for the window, unless a debounce
+ * is configured: then processing of a batch waits until the chat has been quiet for the
+ * debounce, so a message split in two also merges when it is the only one of its chat.
+ *
+ * Only plain text from the same sender is merged; commands and voice/audio messages are not.
+ *
+ * Exposed metrics:
+ * - telegram.coalesce.merged: messages merged into an earlier message of the same chat
+ */
+@Service
+public class MessageCoalescer {
+
+    private final long windowNanos;
+    private final long debounceNanos;
+    private final int maxMessages;
+    private final Map<Long, Batch> openBatches = new ConcurrentHashMap<>();
+    private final Counter mergedCounter;
+
+    public MessageCoalescer(
+            MeterRegistry meterRegistry,
+            @Value("${telegram.coalesce.window:2s}") Duration window,
+            @Value("${telegram.coalesce.max-messages:5}") int maxMessages,
+            @Value("${telegram.coalesce.debounce:0ms}") Duration debounce) {
+        this.windowNanos = window.toNanos();
+        this.debounceNanos = Math.min(debounce.toNanos(), windowNanos);
+        this.maxMessages = maxMessages;
+        this.mergedCounter = Counter.builder("telegram.coalesce.merged")
+            .description("Messages merged into an earlier message of the same chat")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Appends a message to the open batch of its chat if possible.
+     *
+     * @param message The incoming message (already validated)
+     * @return null if the message was merged into a batch still waiting its turn,
+     *         otherwise a new batch to dispatch (then call {@link #open} once it is accepted)
+     */
+    public Batch add(TelegramUpdate.Message message) {
+        long now = System.nanoTime();
+        if (windowNanos <= 0 || !isMergeable(message)) {
+            return new Batch(message, now);
+        }
+
+        boolean[] merged = new boolean[1];
+        openBatches.computeIfPresent(message.chatId(), (chatId, open) -> {
+            if (open.accepts(message, now)) {
+                open.append(message, now);
+                merged[0] = true;
+            }
+            return open;
+        });
+
+        if (merged[0]) {
+            mergedCounter.increment();
+            return null;
+        }
+        return new Batch(message, now);
+    }
+
+    /**
+     * Lets later messages of the chat merge into a batch that was accepted for processing.
+     * Does nothing if processing of the batch already started.
+     */
+    public void open(Batch batch) {
+        if (windowNanos <= 0 || !isMergeable(batch.first())) {
+            return;
+        }
+        openBatches.compute(batch.first().chatId(), (chatId, open) -> batch.closed ? open : batch);
+    }
+
+    /**
+     * Closes a batch when its processing starts and returns the message to process
+     * (the merged text of every message in the batch). With a debounce, first blocks the
+     * calling (chat) thread until no message of the batch arrived for the debounce.
+     */
+    public TelegramUpdate.Message take(Batch batch) {
+        awaitQuiet(batch);
+        // Same map lock as add() and open(), so nothing is appended after this
+        openBatches.compute(batch.first().chatId(), (chatId, open) -> {
+            batch.closed = true;
+            return open == batch ? null : open;
+        });
+        return batch.merged();
+    }
+
+    private void awaitQuiet(Batch batch) {
+        if (debounceNanos <= 0 || !isMergeable(batch.first())) {
+            return;
+        }
+        long quietNanos;
+        while ((quietNanos = System.nanoTime() - batch.lastArrival) < debounceNanos) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(debounceNanos - quietNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static boolean isMergeable(TelegramUpdate.Message message) {
+        String text = message.text();
+        return text != null && !text.isBlank() && !text.startsWith("/");
+    }
+
+    /**
+     * Messages of one chat waiting to be processed together.
+     */
+    public final class Batch {
+        private final List<TelegramUpdate.Message> messages = new ArrayList<>();
+        private volatile long lastArrival;
+        private boolean closed;
+
+        private Batch(TelegramUpdate.Message first, long arrival) {
+            messages.add(first);
+            lastArrival = arrival;
+        }
+
+        private TelegramUpdate.Message first() {
+            return messages.get(0);
+        }
+
+        private boolean accepts(TelegramUpdate.Message message, long now) {
+            return !closed
+                && isMergeable(message)
+                && messages.size() < maxMessages
+                && now - lastArrival <= windowNanos
+                && message.telegramId().equals(first().telegramId());
+        }
+
+        private void append(TelegramUpdate.Message message, long now) {
+            messages.add(message);
+            lastArrival = now;
+        }
+
+        /**
+         * Gets the number of messages in the batch.
+         */
+        public int size() {
+            return messages.size();
+        }
+
+        private TelegramUpdate.Message merged() {
+            TelegramUpdate.Message first = first();
+            if (messages.size() == 1) {
+                return first;
+            }
+            List<String> texts = messages.stream().map(TelegramUpdate.Message::text).toList();
+            return new TelegramUpdate.Message(
+                first.messageId(), first.chat(), first.from(), String.join("\n", texts), null, null, null);
+        }
+    }
+}
@@ -1,18 +1,33 @@
 package com.avaricia.sb_service.assistant.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.avaricia.sb_service.assistant.dto.AssistantReply;
 import com.avaricia.sb_service.assistant.dto.ConfirmationIntent;
 import com.avaricia.sb_service.assistant.dto.IntentResult;
 import com.avaricia.sb_service.assistant.dto.PendingAction;
 import com.avaricia.sb_service.assistant.dto.PendingBatchAction;
+import com.avaricia.sb_service.assistant.logging.LogMarkers;
+import com.avaricia.sb_service.assistant.service.CorePrefetchService.Prefetch;
+import com.avaricia.sb_service.assistant.service.IntentClassifierService.StreamedIntent;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service that processes user messages and coordinates actions.
@@ -24,6 +39,21 @@ import java.util.Optional;
  * - QueryHandlerService: Handles balance and summary queries
  * - ResponseFormatterService: Handles response formatting utilities
  * - ConfirmationService: Handles confirmation for high-value transactions
+ * - DeferredReplyService: Shows structured replies first and swaps in the humanized version
+ * - StreamingReplyService: Streams humanized replies into the chat as they are generated
+ * - CorePrefetchService: Reads the likely Core data while the message is classified
+ *
+ * In multi-operation messages, expenses and incomes below the confirmation threshold are
+ * registered as soon as the classifier has streamed them, while the next operations are still
+ * being generated (assistant.early-execution.enabled). If a later operation needs confirmation,
+ * only the operations not yet registered go into the pending batch.
+ *
+ * How an AI-humanized reply reaches a chat is one setting, assistant.humanizer.delivery:
+ * deferred (default), streaming or blocking; see ReplyDelivery.
+ *
+ * Exposed metrics:
+ * - assistant.humanize.llm.duration: time spent rewriting data-rich responses with the LLM
+ * - assistant.intent.early-executions: operations registered before the classification finished
  */
 @Service
 public class MessageProcessorService {
@@ -40,11 +70,21 @@ public class MessageProcessorService {
     private final QueryHandlerService queryHandler;
     private final ResponseFormatterService formatter;
     private final ConfirmationService confirmationService;
+    private final StreamingReplyService streamingReply;
+    private final DeferredReplyService deferredReply;
+    private final CorePrefetchService corePrefetch;
+    private final LlmCircuitBreaker circuitBreaker;
     
     // API services (needed for validate_expense which is complex)
     private final CoreApiService coreApi;
     private final MockCoreApiService mockCoreApi;
     private final boolean useMock;
+    private final boolean llmHumanizerEnabled;
+    private final ReplyDelivery replyDelivery;
+    private final Timer llmHumanizeTimer;
+    private final boolean earlyExecutionEnabled;
+    private final Counter earlyExecutions;
+    private final ExecutorService virtualThreads;
 
     public MessageProcessorService(
             IntentClassifierService intentClassifier,
@@ -55,9 +95,17 @@ public class MessageProcessorService {
             QueryHandlerService queryHandler,
             ResponseFormatterService formatter,
             ConfirmationService confirmationService,
+            StreamingReplyService streamingReply,
+            DeferredReplyService deferredReply,
+            CorePrefetchService corePrefetch,
+            LlmCircuitBreaker circuitBreaker,
             CoreApiService coreApi,
             MockCoreApiService mockCoreApi,
-            @Value("${ms.core.use-mock:false}") boolean useMock) {
+            MeterRegistry meterRegistry,
+            @Value("${ms.core.use-mock:false}") boolean useMock,
+            @Value("${assistant.humanizer.llm.enabled:false}") boolean llmHumanizerEnabled,
+            @Value("${assistant.humanizer.delivery:deferred}") String replyDelivery,
+            @Value("${assistant.early-execution.enabled:true}") boolean earlyExecutionEnabled) {
         this.intentClassifier = intentClassifier;
         this.userMapping = userMapping;
         this.conversationHistory = conversationHistory;
@@ -66,9 +114,25 @@ public class MessageProcessorService {
         this.queryHandler = queryHandler;
         this.formatter = formatter;
         this.confirmationService = confirmationService;
+        this.streamingReply = streamingReply;
+        this.deferredReply = deferredReply;
+        this.corePrefetch = corePrefetch;
+        this.circuitBreaker = circuitBreaker;
         this.coreApi = coreApi;
         this.mockCoreApi = mockCoreApi;
         this.useMock = useMock;
+        this.llmHumanizerEnabled = llmHumanizerEnabled;
+        this.replyDelivery = ReplyDelivery.valueOf(replyDelivery.trim().toUpperCase(Locale.ROOT));
+        this.llmHumanizeTimer = Timer.builder("assistant.humanize.llm.duration")
+            .description("Time spent rewriting data-rich responses with the LLM (opt-in)")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.earlyExecutionEnabled = earlyExecutionEnabled;
+        this.earlyExecutions = Counter.builder("assistant.intent.early-executions")
+            .description("Operations registered while the classifier was still generating the next ones")
+            .register(meterRegistry);
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("early-execution-", 0).factory());
         
         if (useMock) {
             log.info("⚠️ MOCK MODE ENABLED - Using MockCoreApiService instead of real API");
@@ -86,45 +150,120 @@ public class MessageProcessorService {
      * @return The response message to send back to the user
      */
     public String processMessage(Long telegramId, String message) {
+        return process(telegramId, null, message).text();
+    }
+
+    /**
+     * Processes a user message for a Telegram chat.
+     * Data-rich replies that go through AI humanization are sent straight to the chat
+     * (see DeferredReplyService and StreamingReplyService); in that case the reply comes
+     * back as already delivered.
+     *
+     * @param telegramId The Telegram user ID
+     * @param chatId The chat to stream the reply to
+     * @param message The message sent by the user
+     * @return The reply, and whether it still has to be sent
+     */
+    public AssistantReply processMessage(Long telegramId, Long chatId, String message) {
+        return process(telegramId, chatId, message);
+    }
+
+    private AssistantReply process(Long telegramId, Long chatId, String message) {
+        long startedAt = System.nanoTime();
+
         // 1. Get or create the userId for this Telegram user
         String userId = userMapping.getUserId(telegramId);
-        log.info("📨 Processing message from Telegram ID: {} (User ID: {})", telegramId, userId);
+        log.debug("📨 Processing message from Telegram ID: {} (User ID: {})", telegramId, userId);
         
         // 2. Check if user has a pending confirmation
         String confirmationResponse = handlePendingConfirmation(telegramId, message);
         if (confirmationResponse != null) {
             conversationHistory.addUserMessage(telegramId, message);
             conversationHistory.addAssistantMessage(telegramId, confirmationResponse);
-            return confirmationResponse;
+            log.atInfo()
+                .addMarker(LogMarkers.SAMPLED)
+                .addKeyValue("telegramId", telegramId)
+                .addKeyValue("intent", "confirmation")
+                .addKeyValue("totalMs", elapsedMillis(startedAt))
+                .log("✅ Message processed");
+            return AssistantReply.pending(confirmationResponse);
         }
         
-        // 3. Classify the message intent(s) WITH conversation context
-        List<IntentResult> intents = intentClassifier.classifyIntent(message, telegramId);
-        log.debug("🎯 Detected {} intent(s): {}", intents.size(), intents);
-        
-        // 4. Save user message to history
-        conversationHistory.addUserMessage(telegramId, message);
-        
-        // 5. Execute the corresponding action(s)
+        // 3. Classify the message intent(s) WITH conversation context,
+        //    reading the Core data it most likely needs in the meantime
+        Prefetch prefetch = corePrefetch.start(userId, message);
+        EarlyExecution early = new EarlyExecution(userId, telegramId);
+        List<IntentResult> intents;
         String response;
+        long classifyMs;
+        long executeMs;
+        try {
+            long classifyStartedAt = System.nanoTime();
+            intents = intentClassifier.classifyIntent(message, telegramId, early::offer);
+            classifyMs = elapsedMillis(classifyStartedAt);
+            log.debug("🎯 Detected {} intent(s)", intents.size());
+            corePrefetch.retainIfReadOnly(prefetch, intents);
+            
+            // 4. Save user message to history
+            conversationHistory.addUserMessage(telegramId, message);
+            
+            // 5. Execute the corresponding action(s)
+            long executeStartedAt = System.nanoTime();
+            if (intents.size() == 1 && !early.hasStarted()) {
+                // Single operation - pass telegramId for confirmation support
+                response = executeIntent(userId, intents.get(0), telegramId);
+            } else {
+                // Multiple operations - execute each (or collect the early results) and combine responses
+                response = executeMultipleIntents(userId, intents, telegramId, early);
+            }
+            executeMs = elapsedMillis(executeStartedAt);
+        } finally {
+            corePrefetch.finish(prefetch);
+        }
         String mainIntent = intents.get(0).getIntent();
-        if (intents.size() == 1) {
-            // Single operation - pass telegramId for confirmation support
-            response = executeIntent(userId, intents.get(0), telegramId);
+        
+        // 6. Handlers already phrase their responses locally (LocalHumanizerService);
+        //    optionally rewrite data-rich ones with AI. In a chat the structured reply is shown
+        //    first and replaced when the rewrite arrives, or the rewrite is streamed into it.
+        // 7. Save assistant response to history (the deferred rewrite replaces it if shown)
+        long humanizeStartedAt = System.nanoTime();
+        boolean delivered = false;
+        if (!shouldHumanize(response, message, mainIntent)) {
+            conversationHistory.addAssistantMessage(telegramId, response);
+        } else if (chatId != null && replyDelivery == ReplyDelivery.DEFERRED) {
+            String structured = response;
+            conversationHistory.addAssistantMessage(telegramId, structured);
+            deferredReply.deliver(chatId, telegramId, structured, () -> timedHumanize(structured, message, mainIntent));
+            delivered = true;
+        } else if (chatId != null && replyDelivery == ReplyDelivery.STREAMING) {
+            response = streamingReply.stream(chatId,
+                intentClassifier.humanizeResponseStream(response, message, mainIntent), response);
+            llmHumanizeTimer.record(System.nanoTime() - humanizeStartedAt, TimeUnit.NANOSECONDS);
+            conversationHistory.addAssistantMessage(telegramId, response);
+            delivered = true;
         } else {
-            // Multiple operations - execute each and combine responses
-            response = executeMultipleIntents(userId, intents, telegramId);
+            response = timedHumanize(response, message, mainIntent);
+            conversationHistory.addAssistantMessage(telegramId, response);
         }
-        
-        // 6. Humanize the response using AI (for data-rich responses)
-        response = humanizeIfNeeded(response, message, mainIntent);
-        
-        // 7. Save assistant response to history
-        conversationHistory.addAssistantMessage(telegramId, response);
-        
-        log.debug("💬 Conversation history size: {} messages", conversationHistory.getHistorySize(telegramId));
-        
-        return response;
+        long humanizeMs = elapsedMillis(humanizeStartedAt);
+        
+        log.atInfo()
+            .addMarker(LogMarkers.SAMPLED)
+            .addKeyValue("telegramId", telegramId)
+            .addKeyValue("intent", mainIntent)
+            .addKeyValue("intents", intents.size())
+            .addKeyValue("classifyMs", classifyMs)
+            .addKeyValue("executeMs", executeMs)
+            .addKeyValue("humanizeMs", humanizeMs)
+            .addKeyValue("delivered", delivered)
+            .addKeyValue("totalMs", elapsedMillis(startedAt))
+            .log("✅ Message processed");
+        
+        return new AssistantReply(response, delivered);
+    }
+
+    private static long elapsedMillis(long startedAt) {
+        return (System.nanoTime() - startedAt) / 1_000_000;
     }
 
     /**
@@ -140,7 +279,7 @@ public class MessageProcessorService {
             return null;
         }
         
-        log.debug("⏳ User {} has pending confirmation, checking response: '{}'", telegramId, message);
+        log.debug("⏳ User {} has pending confirmation, checking response", telegramId);
         
         // Use hybrid classification (fast regex + AI fallback)
         ConfirmationIntent intent = confirmationService.classifyConfirmationIntent(message);
@@ -238,9 +377,39 @@ public class MessageProcessorService {
     }
     
     /**
-     * Humanizes the response if it's a data-rich response that could benefit from a more conversational tone.
+     * Rewrites a data-rich response with the LLM, recording how long it took.
      */
-    private String humanizeIfNeeded(String response, String userQuery, String intent) {
+    private String timedHumanize(String response, String userQuery, String intent) {
+        long startedAt = System.nanoTime();
+        try {
+            return humanizeWithLlm(response, userQuery, intent);
+        } finally {
+            llmHumanizeTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Rewrites a data-rich response in a more conversational tone with the LLM.
+     */
+    private String humanizeWithLlm(String response, String userQuery, String intent) {
+        try {
+            return intentClassifier.humanizeResponse(response, userQuery, intent);
+        } catch (Exception e) {
+            log.warn("⚠️ Humanization failed, using original response: {}", e.getMessage());
+            return response;
+        }
+    }
+    
+    /**
+     * Whether a response is data-rich enough to benefit from AI humanization.
+     * Off unless assistant.humanizer.llm.enabled is set: the handlers' local phrasing is used instead.
+     * Also off while the OpenAI circuit is open.
+     */
+    private boolean shouldHumanize(String response, String userQuery, String intent) {
+        if (!llmHumanizerEnabled || circuitBreaker.isDegraded()) {
+            return false;
+        }
+        
         List<String> humanizeIntents = List.of(
             "get_balance", 
             "get_summary", 
@@ -262,49 +431,44 @@ public class MessageProcessorService {
         if (isFilteredQuery && ("list_transactions_by_range".equals(intent) || 
                                 "list_transactions".equals(intent))) {
             log.debug("⏭️ Skipping humanization for filtered query: {}", userQuery);
-            return response;
+            return false;
         }
         
         // Only humanize for specific intents and non-error responses
-        if (intent != null && humanizeIntents.contains(intent) && !response.startsWith("❌") && response.length() > 50) {
-            try {
-                return intentClassifier.humanizeResponse(response, userQuery, intent);
-            } catch (Exception e) {
-                log.warn("⚠️ Humanization failed, using original response: {}", e.getMessage());
-                return response;
-            }
-        }
-        
-        return response;
+        return intent != null && humanizeIntents.contains(intent) && !response.startsWith("❌") && response.length() > 50;
     }
     
     /**
      * Executes multiple intents and combines the responses.
      * If any transaction exceeds the confirmation threshold, requests batch confirmation.
      */
-    private String executeMultipleIntents(String userId, List<IntentResult> intents, Long telegramId) {
-        // Filter only transaction intents for batch confirmation check
+    private String executeMultipleIntents(String userId, List<IntentResult> intents, Long telegramId,
+                                          EarlyExecution early) {
+        // Filter only transaction intents for batch confirmation check (already registered ones are done)
         List<IntentResult> transactionIntents = intents.stream()
             .filter(intent -> "create_expense".equals(intent.getIntent()) || 
                              "create_income".equals(intent.getIntent()))
             .filter(intent -> intent.getAmount() != null && intent.getAmount() > 0)
+            .filter(intent -> !early.isStarted(intent))
             .toList();
         
         // Check if any transaction requires confirmation
         if (confirmationService.batchRequiresConfirmation(transactionIntents) && telegramId != null) {
             log.info("⚠️ Batch contains high-value transactions - requesting confirmation");
-            return confirmationService.createPendingBatchAction(transactionIntents, userId, telegramId);
+            String confirmation = confirmationService.createPendingBatchAction(transactionIntents, userId, telegramId);
+            return early.hasStarted() ? early.summary() + "\n\n" + confirmation : confirmation;
         }
         
         // No high-value transactions - execute directly
-        return executeMultipleIntentsDirectly(userId, intents, telegramId);
+        return executeMultipleIntentsDirectly(userId, intents, telegramId, early);
     }
 
     /**
      * Executes multiple intents directly without confirmation.
      * Used when no high-value transactions are present or after confirmation.
      */
-    private String executeMultipleIntentsDirectly(String userId, List<IntentResult> intents, Long telegramId) {
+    private String executeMultipleIntentsDirectly(String userId, List<IntentResult> intents, Long telegramId,
+                                                  EarlyExecution early) {
         StringBuilder combinedResponse = new StringBuilder();
         
         // Count valid operations (those with amount > 0)
@@ -350,7 +514,9 @@ public class MessageProcessorService {
             log.debug("🔄 Executing operation {}/{}: {}", i + 1, intents.size(), intent.getIntent());
             
             try {
-                String result = executeIntentSilent(userId, intent, telegramId);
+                String result = early.isStarted(intent)
+                    ? early.resultOf(intent)
+                    : executeIntentSilent(userId, intent, telegramId);
                 if (result.startsWith("❌")) {
                     failCount++;
                     errors.append("❌ Op ").append(i + 1).append(": ").append(result).append("\n");
@@ -435,7 +601,7 @@ public class MessageProcessorService {
                            "¡Hola! Soy tu asistente financiero. ¿En qué puedo ayudarte?";
             };
         } catch (Exception e) {
-            System.err.println("Error executing intent: " + e.getMessage());
+            log.error("❌ Error executing intent {}: {}", intent.getIntent(), e.getMessage(), e);
             return "Lo siento, hubo un error procesando tu solicitud. Por favor intenta de nuevo.";
         }
     }
@@ -593,4 +759,112 @@ public class MessageProcessorService {
         
         return response.toString() + modeIndicator;
     }
+
+    /**
+     * Operations of a multi-operation message registered while the classifier is still generating
+     * the next ones. Only expenses and incomes below the confirmation threshold qualify, and only
+     * once it is known that more than one intent is coming; they run one after the other, in
+     * message order, on a virtual thread.
+     */
+    private final class EarlyExecution {
+
+        private final String userId;
+        private final Long telegramId;
+        // IntentResult has identity equality: each classified intent is its own key
+        private final Map<IntentResult, CompletableFuture<String>> started = new LinkedHashMap<>();
+        private CompletableFuture<String> previous = CompletableFuture.completedFuture(null);
+
+        EarlyExecution(String userId, Long telegramId) {
+            this.userId = userId;
+            this.telegramId = telegramId;
+        }
+
+        synchronized void offer(StreamedIntent streamed) {
+            // A single intent keeps the regular path (full reply, confirmation)
+            if (!earlyExecutionEnabled || (streamed.index() == 0 && streamed.last()) || !qualifies(streamed.intent())) {
+                return;
+            }
+            IntentResult intent = streamed.intent();
+            previous = previous.exceptionally(error -> null)
+                .thenApplyAsync(ignored -> executeIntentSilent(userId, intent, telegramId), virtualThreads);
+            started.put(intent, previous);
+            earlyExecutions.increment();
+            log.debug("⚡ Registering operation {} while the classification continues", streamed.index() + 1);
+        }
+
+        private boolean qualifies(IntentResult intent) {
+            boolean transaction = "create_expense".equals(intent.getIntent()) || "create_income".equals(intent.getIntent());
+            Double amount = intent.getAmount();
+            return transaction && amount != null && amount > 0 && !confirmationService.requiresConfirmation(amount);
+        }
+
+        synchronized boolean hasStarted() {
+            return !started.isEmpty();
+        }
+
+        synchronized boolean isStarted(IntentResult intent) {
+            return started.containsKey(intent);
+        }
+
+        /**
+         * Waits for the result of an early operation.
+         */
+        String resultOf(IntentResult intent) {
+            CompletableFuture<String> future;
+            synchronized (this) {
+                future = started.get(intent);
+            }
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+            }
+        }
+
+        /**
+         * Lists the operations already registered, for replies that ask to confirm the rest.
+         */
+        String summary() {
+            StringBuilder summary = new StringBuilder("📝 *Ya registré:*\n");
+            for (IntentResult intent : startedIntents()) {
+                String type = "create_expense".equals(intent.getIntent()) ? "Expense" : "Income";
+                String description = intent.getDescription() != null ? intent.getDescription() : intent.getCategory();
+                boolean ok;
+                try {
+                    ok = !resultOf(intent).startsWith("❌");
+                } catch (RuntimeException e) {
+                    ok = false;
+                }
+                summary.append(String.format("%s %s de $%,.0f", formatter.getOperationEmoji(type),
+                    formatter.getOperationTypeText(type), intent.getAmount()));
+                if (description != null && !description.isEmpty()) {
+                    summary.append(" - ").append(description);
+                }
+                summary.append(ok ? " ✓" : " ❌").append("\n");
+            }
+            return summary.toString().trim();
+        }
+
+        private synchronized List<IntentResult> startedIntents() {
+            return List.copyOf(started.keySet());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdownNow();
+    }
+
+    /**
+     * How a reply rewritten by AI is delivered to a chat (assistant.humanizer.delivery).
+     * Replies outside a chat (processMessage without chat ID) are always humanized blocking.
+     */
+    enum ReplyDelivery {
+        /** The structured reply is sent first and edited when the rewrite arrives (DeferredReplyService) */
+        DEFERRED,
+        /** The rewrite is streamed into the chat as it is generated (StreamingReplyService) */
+        STREAMING,
+        /** The rewrite is awaited and sent as the reply */
+        BLOCKING
+    }
 }
@@ -1,5 +1,7 @@
 package com.avaricia.sb_service.assistant.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -14,6 +16,8 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class MockCoreApiService {
 
+    private static final Logger log = LoggerFactory.getLogger(MockCoreApiService.class);
+
     private final Map<String, Map<String, Object>> users = new ConcurrentHashMap<>();
     private final Map<String, List<Map<String, Object>>> userTransactions = new ConcurrentHashMap<>();
     private final Map<String, List<Map<String, Object>>> userRules = new ConcurrentHashMap<>();
@@ -22,7 +26,7 @@ public class MockCoreApiService {
     private final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     public Map<String, Object> createUser(String name, String email, String phoneNumber, Double initialBalance) {
-        System.out.println("=== MOCK: Creating User ===");
+        log.debug("🧪 [MOCK] Creating user");
 
         String userId = UUID.randomUUID().toString();
         Map<String, Object> user = new HashMap<>();
@@ -119,7 +123,7 @@ public class MockCoreApiService {
             userBalances.put(userId, currentBalance + amount);
         }
 
-        System.out.println("🧪 [MOCK] Transaction created: " + type + " $" + amount);
+        log.debug("🧪 [MOCK] Transaction created: {} ${}", type, amount);
         return transaction;
     }
 
@@ -1,21 +1,17 @@
 package com.avaricia.sb_service.assistant.service;
 
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.stereotype.Service;
 
 @Service
 public class OpenAIService {
 
-    private final ChatClient chatClient;
+    private final LlmGateway llmGateway;
 
-    public OpenAIService(ChatClient.Builder chatClientBuilder) {
-        this.chatClient = chatClientBuilder.build();
+    public OpenAIService(LlmGateway llmGateway) {
+        this.llmGateway = llmGateway;
     }
 
     public String chat(String userMessage) {
-        return chatClient.prompt()
-                .user(userMessage)
-                .call()
-                .content();
+        return llmGateway.call(LlmGateway.Operation.CHAT, null, userMessage);
     }
 }
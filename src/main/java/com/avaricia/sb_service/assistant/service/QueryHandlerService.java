@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.LocalHumanizerService.Phrasing;
 
 import java.util.List;
 import java.util.Map;
@@ -17,17 +18,23 @@ public class QueryHandlerService {
 
     private final CoreApiService coreApi;
     private final MockCoreApiService mockCoreApi;
+    private final CorePrefetchService corePrefetch;
     private final ResponseFormatterService formatter;
+    private final LocalHumanizerService humanizer;
     private final boolean useMock;
 
     public QueryHandlerService(
             CoreApiService coreApi,
             MockCoreApiService mockCoreApi,
+            CorePrefetchService corePrefetch,
             ResponseFormatterService formatter,
+            LocalHumanizerService humanizer,
             @Value("${ms.core.use-mock:false}") boolean useMock) {
         this.coreApi = coreApi;
         this.mockCoreApi = mockCoreApi;
+        this.corePrefetch = corePrefetch;
         this.formatter = formatter;
+        this.humanizer = humanizer;
         this.useMock = useMock;
     }
 
@@ -37,10 +44,11 @@ public class QueryHandlerService {
     public String handleGetBalance(String userId) {
         if (useMock) {
             Double balance = mockCoreApi.getBalance(userId);
-            return String.format("💰 *Tu saldo actual:* $%,.0f\n\n🧪 _[Modo prueba]_", balance);
+            return humanizer.balance(0, 0, balance).intro()
+                + String.format("\n\n💰 *Tu saldo actual:* $%,.0f\n\n🧪 _[Modo prueba]_", balance);
         }
         
-        Map<String, Object> result = coreApi.getUserBalance(userId);
+        Map<String, Object> result = corePrefetch.getUserBalance(userId);
         
         if (result.containsKey("error")) {
             return "❌ No pude obtener tu saldo. " + result.get("error");
@@ -56,7 +64,7 @@ public class QueryHandlerService {
         sb.append(String.format("📉 Gastos totales: $%,.0f\n", totalExpenses));
         sb.append(String.format("\n💵 *Saldo actual:* $%,.0f", currentBalance));
         
-        return sb.toString();
+        return humanizer.balance(totalIncome, totalExpenses, currentBalance).around(sb.toString());
     }
 
     /**
@@ -72,7 +80,7 @@ public class QueryHandlerService {
         StringBuilder sb = new StringBuilder();
         
         // 1. Get balance info (total income and expenses)
-        Map<String, Object> balanceResult = coreApi.getUserBalance(userId);
+        Map<String, Object> balanceResult = corePrefetch.getUserBalance(userId);
         Double totalIncome = 0.0;
         Double totalExpenses = 0.0;
         Double currentBalance = 0.0;
@@ -91,7 +99,7 @@ public class QueryHandlerService {
         if (startDate != null && endDate != null) {
             result = coreApi.getTransactionSummaryByCategory(userId, startDate, endDate);
         } else {
-            result = coreApi.getTransactionSummaryByCategory(userId);
+            result = corePrefetch.getTransactionSummaryByCategory(userId);
         }
         
         if (result.containsKey("error")) {
@@ -113,16 +121,8 @@ public class QueryHandlerService {
             String topCatEmoji = formatter.getCategoryEmoji(topCatName);
             
             // Conversational intro based on the top category percentage
-            if (topCatPercentage > 50) {
-                sb.append(String.format("¡Tu mayor gasto está en *%s*! %s Con $%,.0f (%.0f%%), representa la mayor parte de tus gastos.\n\n", 
-                    topCatName, topCatEmoji, topCatAmount, topCatPercentage));
-            } else if (topCatPercentage > 30) {
-                sb.append(String.format("*%s* %s es donde más gastas, con $%,.0f (%.0f%%) de tus gastos totales.\n\n", 
-                    topCatName, topCatEmoji, topCatAmount, topCatPercentage));
-            } else {
-                sb.append(String.format("Tus gastos están bastante distribuidos. *%s* %s lidera con $%,.0f (%.0f%%).\n\n", 
-                    topCatName, topCatEmoji, topCatAmount, topCatPercentage));
-            }
+            Phrasing phrasing = humanizer.summary(topCatName, topCatEmoji, topCatAmount, topCatPercentage);
+            sb.append(phrasing.intro()).append("\n\n");
             
             // Balance summary line
             sb.append("💰 Ingresos: $").append(String.format("%,.0f", totalIncome));
@@ -142,8 +142,8 @@ public class QueryHandlerService {
             }
             
             // Add helpful tip based on spending pattern
-            if (topCatPercentage > 50) {
-                sb.append(String.format("\n💡 *Tip:* Considera revisar tus gastos en %s, ya que representan más de la mitad de tu presupuesto.", topCatName));
+            if (phrasing.tip() != null) {
+                sb.append("\n").append(phrasing.tip());
             }
         } else {
             sb.append("📊 *Tu situación financiera:*\n\n");
@@ -0,0 +1,115 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service that limits how many messages reach the LLM pipeline, per user and globally.
+ *
+ * Every message that goes through classification may trigger several OpenAI calls
+ * (classifyIntent, humanizeResponse, ConfirmationService.classifyWithAI), so one noisy or
+ * scripted user could exhaust the quota for everyone. Messages over the limit get a cheap
+ * local reply instead; the reply itself is limited so a flood does not produce a flood back.
+ *
+ * Exposed metrics:
+ * - assistant.rate-limit.rejected{scope=user|global}: messages rejected by each limit
+ * - assistant.rate-limit.buckets: users with a bucket in memory
+ */
+@Service
+public class RateLimiterService {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiterService.class);
+
+    private static final long GLOBAL_KEY = 0L;
+
+    private final boolean enabled;
+    private final KeyedTokenBuckets userBuckets;
+    private final KeyedTokenBuckets globalBucket;
+    private final KeyedTokenBuckets noticeBuckets;
+    private final Counter userRejectedCounter;
+    private final Counter globalRejectedCounter;
+
+    public RateLimiterService(
+            MeterRegistry meterRegistry,
+            @Value("${assistant.rate-limit.enabled:true}") boolean enabled,
+            @Value("${assistant.rate-limit.user.per-minute:20}") int userPerMinute,
+            @Value("${assistant.rate-limit.user.burst:10}") int userBurst,
+            @Value("${assistant.rate-limit.global.per-minute:600}") int globalPerMinute,
+            @Value("${assistant.rate-limit.global.burst:100}") int globalBurst) {
+        this.enabled = enabled;
+        this.userBuckets = new KeyedTokenBuckets(userPerMinute, userBurst);
+        this.globalBucket = new KeyedTokenBuckets(globalPerMinute, globalBurst);
+        // At most one "slow down" reply per user every 30 seconds
+        this.noticeBuckets = new KeyedTokenBuckets(2, 1);
+
+        this.userRejectedCounter = Counter.builder("assistant.rate-limit.rejected")
+            .tag("scope", "user")
+            .description("Messages rejected by the rate limit")
+            .register(meterRegistry);
+        this.globalRejectedCounter = Counter.builder("assistant.rate-limit.rejected")
+            .tag("scope", "global")
+            .description("Messages rejected by the rate limit")
+            .register(meterRegistry);
+        Gauge.builder("assistant.rate-limit.buckets", userBuckets, KeyedTokenBuckets::size)
+            .description("Users with a rate limit bucket in memory")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Checks whether a user's message may go through the LLM pipeline, consuming a token if so.
+     *
+     * @param telegramId The sender
+     * @return The decision
+     */
+    public Decision tryAcquire(Long telegramId) {
+        if (!enabled) {
+            return Decision.ALLOWED;
+        }
+        if (!userBuckets.tryAcquire(telegramId)) {
+            userRejectedCounter.increment();
+            log.warn("🚦 Rate limit reached for user {}", telegramId);
+            return Decision.USER_LIMITED;
+        }
+        if (!globalBucket.tryAcquire(GLOBAL_KEY)) {
+            // The message never reached the pipeline: it must not count against the user
+            userBuckets.refund(telegramId);
+            globalRejectedCounter.increment();
+            log.warn("🚦 Global rate limit reached, rejecting message from user {}", telegramId);
+            return Decision.GLOBAL_LIMITED;
+        }
+        return Decision.ALLOWED;
+    }
+
+    /**
+     * Whether a rejected user should be told about it (avoids answering every message of a flood).
+     */
+    public boolean shouldNotify(Long telegramId) {
+        return noticeBuckets.tryAcquire(telegramId);
+    }
+
+    /**
+     * Drops buckets of users that have been quiet long enough for them to be full again.
+     */
+    @Scheduled(fixedDelayString = "${assistant.rate-limit.eviction-interval:PT5M}")
+    public void evictIdleBuckets() {
+        int evicted = userBuckets.evictIdle() + noticeBuckets.evictIdle();
+        if (evicted > 0) {
+            log.debug("🧹 Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    /**
+     * Result of a rate limit check.
+     */
+    public enum Decision {
+        ALLOWED,
+        USER_LIMITED,
+        GLOBAL_LIMITED
+    }
+}
@@ -1,5 +1,7 @@
 package com.avaricia.sb_service.assistant.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -15,19 +17,27 @@ import java.util.Map;
 @Service
 public class RuleHandlerService {
 
+    private static final Logger log = LoggerFactory.getLogger(RuleHandlerService.class);
+
     private final CoreApiService coreApi;
     private final MockCoreApiService mockCoreApi;
+    private final CorePrefetchService corePrefetch;
     private final ResponseFormatterService formatter;
+    private final LocalHumanizerService humanizer;
     private final boolean useMock;
 
     public RuleHandlerService(
             CoreApiService coreApi,
             MockCoreApiService mockCoreApi,
+            CorePrefetchService corePrefetch,
             ResponseFormatterService formatter,
+            LocalHumanizerService humanizer,
             @Value("${ms.core.use-mock:false}") boolean useMock) {
         this.coreApi = coreApi;
         this.mockCoreApi = mockCoreApi;
+        this.corePrefetch = corePrefetch;
         this.formatter = formatter;
+        this.humanizer = humanizer;
         this.useMock = useMock;
     }
 
@@ -83,9 +93,9 @@ public class RuleHandlerService {
             if (existingRuleId != null) {
                 Map<String, Object> deleteResult = coreApi.deleteRule(existingRuleId);
                 if (deleteResult.containsKey("error")) {
-                    System.err.println("⚠️ Could not delete existing rule: " + deleteResult.get("error"));
+                    log.warn("⚠️ Could not delete existing rule: {}", deleteResult.get("error"));
                 } else {
-                    System.out.println("🔄 Deleted existing rule " + existingRuleId + " for update");
+                    log.info("🔄 Deleted existing rule {} for update", existingRuleId);
                 }
             }
         }
@@ -129,7 +139,7 @@ public class RuleHandlerService {
     public String handleListRules(String userId) {
         Map<String, Object> result = useMock
             ? mockCoreApi.getRules(userId)
-            : coreApi.getRules(userId);
+            : corePrefetch.getRules(userId);
         
         if (result.containsKey("error")) {
             return "❌ No pude obtener las reglas. " + result.get("error");
@@ -141,7 +151,8 @@ public class RuleHandlerService {
             return "📏 No tienes reglas financieras configuradas." + formatter.getMockIndicator(useMock);
         }
         
-        StringBuilder sb = new StringBuilder("📏 *Tus reglas financieras:*\n\n");
+        StringBuilder sb = new StringBuilder(humanizer.rules(rules.size()) + "\n\n");
+        sb.append("📏 *Tus reglas financieras:*\n\n");
         
         for (Map<String, Object> rule : rules) {
             String categoryRule = (String) rule.get("category");
@@ -166,7 +177,7 @@ public class RuleHandlerService {
     public List<Map<String, Object>> getRulesForUser(String userId) {
         Map<String, Object> result = useMock
             ? mockCoreApi.getRules(userId)
-            : coreApi.getRules(userId);
+            : corePrefetch.getRules(userId);
         
         if (result.containsKey("error") || !result.containsKey("data")) {
             return List.of();
@@ -0,0 +1,469 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deterministic resolution of Spanish amount and date expressions.
+ *
+ * The classification prompt asks OpenAI to copy the user's own words for the amount
+ * ("50k", "2 millones", "un millón y medio") and the period ("ayer", "del 1 al 15",
+ * "mes pasado") into amountText and dateText instead of computing numbers and ISO dates.
+ * This class turns those spans into amount, startDate and endDate, so the prompt no longer
+ * needs the date arithmetic rules and the output is shorter.
+ *
+ * Values the LLM still sends in amount/startDate/endDate are kept when a span is missing
+ * or cannot be resolved.
+ *
+ * Exposed metrics:
+ * - assistant.normalizer.spans{field, result}: spans resolved locally or left to the LLM values
+ */
+@Service
+public class SpanishNormalizer {
+
+    private static final Logger log = LoggerFactory.getLogger(SpanishNormalizer.class);
+
+    private static final String MONTHS =
+        "enero|febrero|marzo|abril|mayo|junio|julio|agosto|septiembre|setiembre|octubre|noviembre|diciembre";
+    private static final List<String> MONTH_NAMES = List.of(
+        "enero", "febrero", "marzo", "abril", "mayo", "junio", "julio", "agosto",
+        "septiembre", "octubre", "noviembre", "diciembre");
+    private static final Map<String, DayOfWeek> WEEKDAYS = Map.of(
+        "lunes", DayOfWeek.MONDAY, "martes", DayOfWeek.TUESDAY, "miercoles", DayOfWeek.WEDNESDAY,
+        "jueves", DayOfWeek.THURSDAY, "viernes", DayOfWeek.FRIDAY, "sabado", DayOfWeek.SATURDAY,
+        "domingo", DayOfWeek.SUNDAY);
+
+    private static final Pattern RANGE = Pattern.compile(
+        "(?:del|desde el|entre el)\\s+(?<d1>\\d{1,2})(?:\\s+de\\s+(?<m1>" + MONTHS + "))?(?:\\s+de\\s+(?<y1>\\d{4}))?"
+        + "\\s+(?:al|hasta el|y el)\\s+(?<d2>\\d{1,2})(?:\\s+de\\s+(?<m2>" + MONTHS + "))?(?:\\s+de\\s+(?<y2>\\d{4}))?");
+    private static final Pattern ISO_DATE = Pattern.compile("(\\d{4})-(\\d{2})-(\\d{2})");
+    private static final Pattern DAY_OF_MONTH = Pattern.compile(
+        "(?<!\\d)(\\d{1,2})\\s+de\\s+(" + MONTHS + ")(?:\\s+(?:de|del)\\s+(\\d{4}))?");
+    private static final Pattern NUMERIC_DATE = Pattern.compile("(?<![\\d/])(\\d{1,2})/(\\d{1,2})(?:/(\\d{4}))?(?![\\d/])");
+    private static final Pattern LAST_UNITS = Pattern.compile(
+        "ultim[oa]s\\s+(\\d{1,3}|\\p{L}+)\\s+(dias|semanas|meses)");
+    private static final Pattern MONTH_NAME = Pattern.compile(
+        "\\b(" + MONTHS + ")\\b(?:\\s+(?:de|del)\\s+(\\d{4}))?");
+    private static final Pattern WEEKDAY = Pattern.compile(
+        "\\b(lunes|martes|miercoles|jueves|viernes|sabado|domingo)\\b(\\s+pasado)?");
+
+    private static final Pattern THIS_WEEK = Pattern.compile("\\b(?:esta semana|ultima semana|semana actual)\\b");
+    private static final Pattern LAST_WEEK = Pattern.compile("\\bsemana (?:pasada|anterior)\\b");
+    private static final Pattern THIS_MONTH = Pattern.compile("\\b(?:este mes|mes actual)\\b");
+    private static final Pattern LAST_MONTH = Pattern.compile("\\bmes (?:pasado|anterior)\\b");
+    private static final Pattern THIS_YEAR = Pattern.compile("\\b(?:este (?:año|ano)|(?:año|ano) actual)\\b");
+    private static final Pattern LAST_YEAR = Pattern.compile("\\b(?:año|ano) (?:pasado|anterior)\\b");
+    private static final Pattern BEFORE_YESTERDAY = Pattern.compile("\\b(?:antier|anteayer|antes de ayer)\\b");
+    private static final Pattern YESTERDAY = Pattern.compile("\\bayer\\b");
+    private static final Pattern TODAY = Pattern.compile("\\bhoy\\b");
+
+    private static final Map<String, Integer> NUMBER_WORDS = numberWords();
+    /** Words an amount span may carry besides the amount itself ("2 millones de pesos") */
+    private static final Set<String> AMOUNT_FILLERS = Set.of(
+        "pesos", "peso", "cop", "de", "y", "mas", "como", "unos", "unas", "casi", "aprox", "aproximadamente");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\d]+");
+
+    private final Counter amountsResolved;
+    private final Counter amountsUnresolved;
+    private final Counter datesResolved;
+    private final Counter datesUnresolved;
+
+    public SpanishNormalizer(MeterRegistry meterRegistry) {
+        this.amountsResolved = spans(meterRegistry, "amount", "resolved");
+        this.amountsUnresolved = spans(meterRegistry, "amount", "unresolved");
+        this.datesResolved = spans(meterRegistry, "date", "resolved");
+        this.datesUnresolved = spans(meterRegistry, "date", "unresolved");
+    }
+
+    private static Counter spans(MeterRegistry meterRegistry, String field, String result) {
+        return Counter.builder("assistant.normalizer.spans")
+            .description("Amount and date spans from the classifier resolved locally or left unresolved")
+            .tag("field", field)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Fills amount, startDate and endDate from the raw spans of a classification.
+     */
+    public IntentResult resolve(IntentResult intent) {
+        return resolve(intent, LocalDate.now());
+    }
+
+    /**
+     * Fills amount, startDate and endDate from the raw spans of a classification.
+     *
+     * @param intent The classification returned by the LLM
+     * @param today The date "hoy", "ayer", "este mes"... are relative to
+     * @return The same instance
+     */
+    public IntentResult resolve(IntentResult intent, LocalDate today) {
+        if (intent.getAmountText() != null && !intent.getAmountText().isBlank()) {
+            OptionalDouble amount = amount(intent.getAmountText());
+            if (amount.isPresent()) {
+                intent.setAmount(amount.getAsDouble());
+                amountsResolved.increment();
+            } else {
+                amountsUnresolved.increment();
+                log.debug("🔢 Amount span not resolved locally: '{}'", intent.getAmountText());
+            }
+        }
+
+        if (intent.getDateText() != null && !intent.getDateText().isBlank()) {
+            Optional<DateRange> range = dates(intent.getDateText(), today);
+            if (range.isPresent()) {
+                applyRange(intent, range.get());
+                datesResolved.increment();
+            } else {
+                datesUnresolved.increment();
+                log.debug("📅 Date span not resolved locally: '{}'", intent.getDateText());
+            }
+        }
+        return intent;
+    }
+
+    private static void applyRange(IntentResult intent, DateRange range) {
+        boolean byDate = "list_transactions_by_date".equals(intent.getIntent());
+        if (byDate && !range.singleDay()) {
+            // "¿Qué compré esta semana?" classified as a single-day query
+            intent.setIntent("list_transactions_by_range");
+            byDate = false;
+        }
+        intent.setStartDate(range.start().toString());
+        intent.setEndDate(byDate ? null : range.end().toString());
+    }
+
+    /**
+     * Resolves an amount expression: "50k", "50 mil", "50.000", "$2,000,000", "2M", "1,5 millones",
+     * "2 millones 500 mil", "2 millones y medio", "un millón y medio", "medio palo", "doscientos mil"...
+     * Every word of the span must be part of the amount (or "pesos", "de"...): a span with words
+     * left over is not resolved, so the value OpenAI sent is kept.
+     *
+     * @return The amount, or empty when there is none, several unrelated ones or words left over
+     */
+    public OptionalDouble amount(String text) {
+        String folded = FastIntentParser.fold(text);
+        List<FastIntentParser.Amount> amounts = FastIntentParser.amounts(folded);
+        if (amounts.isEmpty()) {
+            return onlyWords(folded, true) ? wordAmount(folded) : OptionalDouble.empty();
+        }
+        if (!onlyWords(FastIntentParser.withoutAmounts(folded), false)) {
+            return OptionalDouble.empty();
+        }
+
+        // "2 millones 500 mil": decreasing parts of one amount
+        double total = 0;
+        double previous = Double.MAX_VALUE;
+        for (FastIntentParser.Amount part : amounts) {
+            if (part.ambiguous() || part.value() >= previous) {
+                return OptionalDouble.empty();
+            }
+            total += part.value();
+            previous = part.value();
+        }
+        return total > 0 ? OptionalDouble.of(total) : OptionalDouble.empty();
+    }
+
+    /**
+     * Whether every word of the text is a filler or, if allowed, part of an amount in words.
+     */
+    private static boolean onlyWords(String folded, boolean numberWords) {
+        Matcher word = WORD.matcher(folded);
+        while (word.find()) {
+            String token = word.group();
+            boolean amountWord = NUMBER_WORDS.containsKey(token) || scaleOf(token) > 0
+                || token.equals("medio") || token.equals("media") || token.equals("cuarto");
+            if (!AMOUNT_FILLERS.contains(token) && !(numberWords && amountWord)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Amounts written in words. Only the first run of number words counts, and a lone
+     * "un"/"una" is an article, not an amount.
+     */
+    private static OptionalDouble wordAmount(String folded) {
+        double value = 0;
+        double group = 0;
+        double lastScale = 0;
+        boolean started = false;
+        boolean meaningful = false;
+        for (String token : folded.split("[^\\p{L}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            Integer number = NUMBER_WORDS.get(token);
+            double scale = scaleOf(token);
+            if (number != null) {
+                group += number;
+                meaningful |= number > 1;
+            } else if (scale > 0) {
+                if (scale >= 1_000_000) {
+                    value = (value + (group == 0 ? 1 : group)) * scale;
+                } else {
+                    value += (group == 0 ? 1 : group) * scale;
+                }
+                group = 0;
+                lastScale = scale;
+                meaningful = true;
+            } else if (token.equals("medio") || token.equals("media")) {
+                if (lastScale > 0 && group == 0) {
+                    value += lastScale / 2;
+                } else {
+                    group += 0.5;
+                    meaningful = true;
+                }
+            } else if (token.equals("cuarto") && lastScale > 0 && group == 0) {
+                value += lastScale / 4;
+            } else if (started && token.equals("y")) {
+                continue;
+            } else if (started) {
+                break;
+            } else {
+                continue;
+            }
+            started = true;
+        }
+        double total = value + group;
+        return meaningful && total > 0 ? OptionalDouble.of(total) : OptionalDouble.empty();
+    }
+
+    private static double scaleOf(String token) {
+        return switch (token) {
+            case "mil", "luca", "lucas" -> 1_000;
+            case "millon", "millones", "palo", "palos" -> 1_000_000;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Resolves a date expression to a range (a single day has start == end).
+     *
+     * Follows the conventions the prompt used to spell out: "esta semana" is the last 7 days,
+     * "del 1 al 15" without a month is the current month, and a month or day without a year
+     * that would fall in the future refers to last year.
+     */
+    public Optional<DateRange> dates(String text, LocalDate today) {
+        String folded = FastIntentParser.fold(text).replaceAll("[¿?¡!.,;:\"]", " ").replaceAll("\\s+", " ").trim();
+
+        Matcher range = RANGE.matcher(folded);
+        if (range.find()) {
+            return rangeOf(range, today);
+        }
+        Matcher iso = ISO_DATE.matcher(folded);
+        if (iso.find()) {
+            // A typo like "2025-02-30" is no date at all, not an error
+            Optional<LocalDate> start = isoDate(iso);
+            Optional<LocalDate> end = iso.find() ? isoDate(iso) : start;
+            if (start.isEmpty() || end.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new DateRange(start.get(), end.get()));
+        }
+        Matcher dayOfMonth = DAY_OF_MONTH.matcher(folded);
+        if (dayOfMonth.find()) {
+            return day(Integer.parseInt(dayOfMonth.group(1)), month(dayOfMonth.group(2)), dayOfMonth.group(3), today);
+        }
+        Matcher numeric = NUMERIC_DATE.matcher(folded);
+        if (numeric.find()) {
+            return day(Integer.parseInt(numeric.group(1)), Integer.parseInt(numeric.group(2)), numeric.group(3), today);
+        }
+        Matcher last = LAST_UNITS.matcher(folded);
+        if (last.find()) {
+            return lastUnits(last.group(1), last.group(2), today);
+        }
+        if (LAST_WEEK.matcher(folded).find()) {
+            LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+            return Optional.of(new DateRange(monday, monday.plusDays(6)));
+        }
+        if (THIS_WEEK.matcher(folded).find()) {
+            return Optional.of(new DateRange(today.minusDays(7), today));
+        }
+        if (LAST_MONTH.matcher(folded).find()) {
+            return Optional.of(DateRange.of(YearMonth.from(today).minusMonths(1)));
+        }
+        if (THIS_MONTH.matcher(folded).find()) {
+            return Optional.of(DateRange.of(YearMonth.from(today)));
+        }
+        if (LAST_YEAR.matcher(folded).find()) {
+            Year year = Year.from(today).minusYears(1);
+            return Optional.of(new DateRange(year.atDay(1), year.atMonth(12).atEndOfMonth()));
+        }
+        if (THIS_YEAR.matcher(folded).find()) {
+            Year year = Year.from(today);
+            return Optional.of(new DateRange(year.atDay(1), year.atMonth(12).atEndOfMonth()));
+        }
+        Matcher monthName = MONTH_NAME.matcher(folded);
+        if (monthName.find()) {
+            YearMonth month = YearMonth.of(today.getYear(), month(monthName.group(1)));
+            if (monthName.group(2) != null) {
+                month = month.withYear(Integer.parseInt(monthName.group(2)));
+            } else if (month.isAfter(YearMonth.from(today))) {
+                month = month.minusYears(1);
+            }
+            return Optional.of(DateRange.of(month));
+        }
+        Matcher weekday = WEEKDAY.matcher(folded);
+        if (weekday.find()) {
+            DayOfWeek dayOfWeek = WEEKDAYS.get(weekday.group(1));
+            LocalDate day = weekday.group(2) != null
+                ? today.with(TemporalAdjusters.previous(dayOfWeek))
+                : today.with(TemporalAdjusters.previousOrSame(dayOfWeek));
+            return Optional.of(new DateRange(day, day));
+        }
+        if (BEFORE_YESTERDAY.matcher(folded).find()) {
+            return Optional.of(new DateRange(today.minusDays(2), today.minusDays(2)));
+        }
+        if (YESTERDAY.matcher(folded).find()) {
+            return Optional.of(new DateRange(today.minusDays(1), today.minusDays(1)));
+        }
+        if (TODAY.matcher(folded).find()) {
+            return Optional.of(new DateRange(today, today));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<DateRange> rangeOf(Matcher range, LocalDate today) {
+        String startMonth = range.group("m1") != null ? range.group("m1") : range.group("m2");
+        String endMonth = range.group("m2") != null ? range.group("m2") : startMonth;
+        String startYear = range.group("y1") != null ? range.group("y1") : range.group("y2");
+        String endYear = range.group("y2") != null ? range.group("y2") : startYear;
+
+        // "del 1 al 15" without a month is the current month, even if it has not ended yet
+        YearMonth current = YearMonth.from(today);
+        YearMonth first = startMonth != null ? current.withMonth(month(startMonth)) : current;
+        YearMonth second = endMonth != null ? current.withMonth(month(endMonth)) : current;
+        if (startYear != null) {
+            first = first.withYear(Integer.parseInt(startYear));
+        }
+        if (endYear != null) {
+            second = second.withYear(Integer.parseInt(endYear));
+        }
+        if (second.isBefore(first)) {
+            // "del 20 de diciembre al 5 de enero"
+            second = second.plusYears(1);
+        }
+
+        int startDay = Integer.parseInt(range.group("d1"));
+        int endDay = Integer.parseInt(range.group("d2"));
+        if (!first.isValidDay(startDay) || endDay < 1 || endDay > 31) {
+            return Optional.empty();
+        }
+        if (startMonth != null && startYear == null && first.atDay(startDay).isAfter(today)) {
+            first = first.minusYears(1);
+            second = second.minusYears(1);
+            if (!first.isValidDay(startDay)) {
+                // "del 29 de febrero..." moved to a non-leap year
+                return Optional.empty();
+            }
+        }
+        LocalDate start = first.atDay(startDay);
+        LocalDate end = second.atDay(Math.min(endDay, second.lengthOfMonth()));
+        return end.isBefore(start) ? Optional.empty() : Optional.of(new DateRange(start, end));
+    }
+
+    private static Optional<LocalDate> isoDate(Matcher iso) {
+        int month = Integer.parseInt(iso.group(2));
+        if (month < 1 || month > 12) {
+            return Optional.empty();
+        }
+        YearMonth yearMonth = YearMonth.of(Integer.parseInt(iso.group(1)), month);
+        int dayOfMonth = Integer.parseInt(iso.group(3));
+        return yearMonth.isValidDay(dayOfMonth) ? Optional.of(yearMonth.atDay(dayOfMonth)) : Optional.empty();
+    }
+
+    private static Optional<DateRange> day(int dayOfMonth, int month, String year, LocalDate today) {
+        if (month < 1 || month > 12) {
+            return Optional.empty();
+        }
+        YearMonth yearMonth = YearMonth.of(year != null ? Integer.parseInt(year) : today.getYear(), month);
+        if (!yearMonth.isValidDay(dayOfMonth)) {
+            return Optional.empty();
+        }
+        LocalDate date = yearMonth.atDay(dayOfMonth);
+        if (year == null && date.isAfter(today)) {
+            date = date.minusYears(1);
+        }
+        return Optional.of(new DateRange(date, date));
+    }
+
+    private static Optional<DateRange> lastUnits(String count, String unit, LocalDate today) {
+        Integer amount = count.chars().allMatch(Character::isDigit) ? Integer.valueOf(count) : NUMBER_WORDS.get(count);
+        if (amount == null || amount == 0) {
+            return Optional.empty();
+        }
+        LocalDate start = switch (unit) {
+            case "dias" -> today.minusDays(amount);
+            case "semanas" -> today.minusWeeks(amount);
+            default -> today.minusMonths(amount);
+        };
+        return Optional.of(new DateRange(start, today));
+    }
+
+    private static int month(String name) {
+        return name.equals("setiembre") ? 9 : MONTH_NAMES.indexOf(name) + 1;
+    }
+
+    private static Map<String, Integer> numberWords() {
+        Map<String, Integer> words = new HashMap<>();
+        String[] units = {"cero", "uno", "dos", "tres", "cuatro", "cinco", "seis", "siete", "ocho", "nueve",
+            "diez", "once", "doce", "trece", "catorce", "quince", "dieciseis", "diecisiete", "dieciocho", "diecinueve",
+            "veinte", "veintiuno", "veintidos", "veintitres", "veinticuatro", "veinticinco", "veintiseis",
+            "veintisiete", "veintiocho", "veintinueve"};
+        for (int i = 0; i < units.length; i++) {
+            words.put(units[i], i);
+        }
+        words.put("un", 1);
+        words.put("una", 1);
+        words.put("veintiun", 21);
+        String[] tens = {"treinta", "cuarenta", "cincuenta", "sesenta", "setenta", "ochenta", "noventa"};
+        for (int i = 0; i < tens.length; i++) {
+            words.put(tens[i], (i + 3) * 10);
+        }
+        words.put("cien", 100);
+        words.put("ciento", 100);
+        String[] hundreds = {"doscientos", "trescientos", "cuatrocientos", "quinientos", "seiscientos",
+            "setecientos", "ochocientos", "novecientos"};
+        for (int i = 0; i < hundreds.length; i++) {
+            words.put(hundreds[i], (i + 2) * 100);
+            words.put(hundreds[i].replace("tos", "tas"), (i + 2) * 100);
+        }
+        return Map.copyOf(words);
+    }
+
+    /**
+     * Resolved period; a single day has start == end.
+     */
+    public record DateRange(LocalDate start, LocalDate end) {
+
+        static DateRange of(YearMonth month) {
+            return new DateRange(month.atDay(1), month.atEndOfMonth());
+        }
+
+        public boolean singleDay() {
+            return start.equals(end);
+        }
+    }
+}
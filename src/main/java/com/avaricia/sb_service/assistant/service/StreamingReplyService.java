@@ -0,0 +1,133 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service that delivers a streamed LLM reply to Telegram with progressive message edits.
+ *
+ * The first chunk is sent as a new message as soon as it arrives; the message is then
+ * edited with the accumulated text at most once per assistant.streaming.edit-interval
+ * (Telegram throttles frequent edits of the same chat) and a final time, as Markdown,
+ * when the stream completes. Partial text is sent plain because half-written Markdown
+ * (an unclosed "*") is rejected by Telegram.
+ *
+ * If the stream fails or produces nothing usable, the fallback text is delivered instead.
+ * Runs on the dispatcher's virtual thread, which simply parks while waiting for chunks.
+ *
+ * Exposed metrics:
+ * - assistant.streaming.first-content: time until the first chunk is visible to the user
+ * - assistant.streaming.duration: time until the final text is delivered
+ */
+@Service
+public class StreamingReplyService {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingReplyService.class);
+
+    /** Shown at the end of partial text while the reply is still being written */
+    static final String CURSOR = " ▌";
+
+    /** Replies shorter than this are considered failed generations */
+    private static final int MIN_REPLY_LENGTH = 20;
+
+    private final TelegramService telegramService;
+    private final long editIntervalNanos;
+    private final Duration idleTimeout;
+    private final Timer firstContentTimer;
+    private final Timer durationTimer;
+
+    public StreamingReplyService(
+            TelegramService telegramService,
+            MeterRegistry meterRegistry,
+            @Value("${assistant.streaming.edit-interval:1s}") Duration editInterval,
+            @Value("${assistant.streaming.idle-timeout:15s}") Duration idleTimeout) {
+        this.telegramService = telegramService;
+        this.editIntervalNanos = editInterval.toNanos();
+        this.idleTimeout = idleTimeout;
+        this.firstContentTimer = Timer.builder("assistant.streaming.first-content")
+            .description("Time until the first chunk of a streamed reply is visible")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.durationTimer = Timer.builder("assistant.streaming.duration")
+            .description("Time until the final text of a streamed reply is delivered")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Streams a reply into the chat, blocking until it is complete.
+     *
+     * @param chatId The chat to reply to
+     * @param chunks The reply text as it is generated
+     * @param fallback Text delivered if the stream fails or is unusable
+     * @return The text finally shown to the user
+     */
+    public String stream(Long chatId, Flux<String> chunks, String fallback) {
+        long startedAt = System.nanoTime();
+        telegramService.sendTypingAction(chatId);
+
+        StringBuilder text = new StringBuilder();
+        Long messageId = null;
+        long lastEditAt = 0;
+        String lastShown = null;
+
+        try {
+            for (String chunk : chunks.timeout(idleTimeout).toIterable()) {
+                text.append(chunk);
+                String partial = text.toString().strip();
+                if (partial.isEmpty()) {
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                if (messageId == null) {
+                    messageId = telegramService.sendMessageForEditing(chatId, partial + CURSOR, false);
+                    if (messageId == null) {
+                        // Could not start the message; deliver everything at the end instead
+                        continue;
+                    }
+                    firstContentTimer.record(now - startedAt, TimeUnit.NANOSECONDS);
+                    lastEditAt = now;
+                    lastShown = partial;
+                } else if (now - lastEditAt >= editIntervalNanos && !partial.equals(lastShown)) {
+                    if (telegramService.editMessageText(chatId, messageId, partial + CURSOR, false)) {
+                        lastShown = partial;
+                    }
+                    lastEditAt = now;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("⚠️ Streamed reply failed, delivering the original response: {}", e.getMessage());
+            text.setLength(0);
+        }
+
+        String result = text.toString().strip();
+        if (result.length() <= MIN_REPLY_LENGTH) {
+            result = fallback;
+        }
+        deliver(chatId, messageId, result);
+        durationTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private void deliver(Long chatId, Long messageId, String text) {
+        if (messageId == null) {
+            telegramService.sendMessage(chatId, text);
+            return;
+        }
+        if (!telegramService.editMessageText(chatId, messageId, text, true)
+                && !telegramService.editMessageText(chatId, messageId, text, false)) {
+            // The message cannot be edited (e.g. deleted by the user): send the final text anew
+            telegramService.sendMessage(chatId, text);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+/**
+ * Assembles a system prompt from long static instructions and a short date section.
+ *
+ * The static instructions go first and never change, so the provider can reuse its cached
+ * prefix (OpenAI caches identical prompt prefixes of 1024+ tokens) across every request and
+ * every day; only the trailing date section and the user message are new input. The full
+ * prompt is built once per day instead of on every message.
+ */
+public class SystemPromptAssembler {
+
+    private static final Logger log = LoggerFactory.getLogger(SystemPromptAssembler.class);
+
+    private static final Locale SPANISH = Locale.forLanguageTag("es-ES");
+    private static final DateTimeFormatter DAY_MONTH_YEAR = DateTimeFormatter.ofPattern("d 'de' MMMM 'de' yyyy", SPANISH);
+    private static final DateTimeFormatter MONTH_YEAR = DateTimeFormatter.ofPattern("MMMM yyyy", SPANISH);
+
+    private final String staticInstructions;
+    private final TokenCountEstimator tokenizer;
+    private final Supplier<LocalDate> today;
+    private final int staticTokens;
+    private volatile DailyPrompt current;
+
+    /**
+     * @param staticInstructions Instructions and examples that do not depend on the date
+     * @param tokenizer Estimator used to report the size of each segment
+     */
+    public SystemPromptAssembler(String staticInstructions, TokenCountEstimator tokenizer) {
+        this(staticInstructions, tokenizer, LocalDate::now);
+    }
+
+    SystemPromptAssembler(String staticInstructions, TokenCountEstimator tokenizer, Supplier<LocalDate> today) {
+        this.staticInstructions = staticInstructions.stripTrailing();
+        this.tokenizer = tokenizer;
+        this.today = today;
+        this.staticTokens = tokenizer.estimate(this.staticInstructions);
+    }
+
+    /**
+     * Gets today's system prompt: the static instructions followed by the date section.
+     */
+    public String systemPrompt() {
+        LocalDate date = today.get();
+        DailyPrompt prompt = current;
+        if (prompt == null || !prompt.date().equals(date)) {
+            // Racing rebuilds at midnight produce the same text, so no lock is needed
+            prompt = assemble(date);
+            current = prompt;
+        }
+        return prompt.text();
+    }
+
+    /**
+     * Gets the token count of the static instructions (the cacheable prefix).
+     */
+    public int getStaticTokens() {
+        return staticTokens;
+    }
+
+    /**
+     * Gets the token count of today's date section.
+     */
+    public int getDateTokens() {
+        systemPrompt();
+        return current.dateTokens();
+    }
+
+    private DailyPrompt assemble(LocalDate date) {
+        String dateSection = dateSection(date);
+        int dateTokens = tokenizer.estimate(dateSection);
+        log.info("🧩 System prompt assembled for {} (static: {} tokens, date: {} tokens)",
+            date, staticTokens, dateTokens);
+        return new DailyPrompt(date, staticInstructions + "\n\n" + dateSection, dateTokens);
+    }
+
+    /**
+     * Builds the section the static instructions refer to as FECHA ACTUAL.
+     */
+    static String dateSection(LocalDate date) {
+        return "FECHA ACTUAL:\n"
+            + "- HOY = " + date.format(DAY_MONTH_YEAR) + " (" + date + ")\n"
+            + "- \"ayer\" = " + date.minusDays(1) + "\n"
+            + "- \"este mes\" = " + date.format(MONTH_YEAR) + "\n";
+    }
+
+    private record DailyPrompt(LocalDate date, String text, int dateTokens) {
+    }
+}
@@ -0,0 +1,158 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.avaricia.sb_service.assistant.service.UpdateIngestionService.IngestResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Alternative ingestion mode that fetches updates with getUpdates long polling,
+ * for deployments where Telegram cannot reach a public webhook (e.g. behind NAT).
+ *
+ * Enabled with telegram.ingestion.mode=polling. Each batch goes through the same
+ * path as the webhook (UpdateIngestionService). The offset sent to Telegram (which
+ * confirms the previous updates) only advances past updates that were handed off;
+ * if the dispatcher rejects an update the batch stops there, and the update is
+ * fetched again after a pause.
+ *
+ * Exposed metrics:
+ * - telegram.polling.batch.size: updates received per getUpdates call
+ */
+@Service
+@ConditionalOnProperty(name = "telegram.ingestion.mode", havingValue = "polling")
+public class TelegramPollingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramPollingService.class);
+
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final TelegramService telegramService;
+    private final UpdateIngestionService ingestionService;
+    private final int batchSize;
+    private final int pollTimeoutSeconds;
+    private final Duration busyBackoff;
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile boolean running;
+    private Thread pollerThread;
+    private volatile long offset;
+
+    public TelegramPollingService(
+            TelegramService telegramService,
+            UpdateIngestionService ingestionService,
+            MeterRegistry meterRegistry,
+            @Value("${telegram.polling.batch-size:100}") int batchSize,
+            @Value("${telegram.polling.timeout:25s}") Duration pollTimeout,
+            @Value("${telegram.polling.busy-backoff:1s}") Duration busyBackoff,
+            @Value("${assistant.http.read-timeout:60s}") Duration readTimeout) {
+        this.telegramService = telegramService;
+        this.ingestionService = ingestionService;
+        this.batchSize = Math.max(1, Math.min(100, batchSize));
+        this.pollTimeoutSeconds = (int) pollTimeout.toSeconds();
+        this.busyBackoff = busyBackoff;
+        this.batchSizeSummary = DistributionSummary.builder("telegram.polling.batch.size")
+            .description("Updates received per getUpdates call")
+            .register(meterRegistry);
+
+        if (pollTimeout.compareTo(readTimeout) >= 0) {
+            log.warn("⚠️ telegram.polling.timeout ({}) should be lower than assistant.http.read-timeout ({})",
+                pollTimeout, readTimeout);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        telegramService.deleteWebhook();
+        running = true;
+        pollerThread = Thread.ofPlatform().name("telegram-poller").daemon().start(this::pollLoop);
+        log.info("📡 Telegram long polling started (batch size: {}, timeout: {}s)", batchSize, pollTimeoutSeconds);
+    }
+
+    private void pollLoop() {
+        Duration backoff = Duration.ofSeconds(1);
+
+        while (running) {
+            try {
+                List<TelegramUpdate> updates = telegramService.getUpdates(offset, batchSize, pollTimeoutSeconds);
+                batchSizeSummary.record(updates.size());
+                backoff = Duration.ofSeconds(1);
+
+                if (!handOff(updates)) {
+                    // Dispatcher not accepting: pause before fetching the rest again
+                    sleep(busyBackoff);
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("⚠️ getUpdates failed, retrying in {}s: {}", backoff.toSeconds(), e.getMessage());
+                sleep(backoff);
+                backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    /**
+     * Hands off a batch in order, advancing the offset past each update handed off.
+     *
+     * @return false if the batch stopped early because the dispatcher rejected an update
+     */
+    private boolean handOff(List<TelegramUpdate> updates) {
+        for (TelegramUpdate update : updates) {
+            if (ingestionService.ingest(update) == IngestResult.REJECTED) {
+                log.warn("🚦 Dispatcher not accepting, update {} will be fetched again", update.updateId());
+                return false;
+            }
+            if (update.updateId() != null) {
+                offset = update.updateId() + 1;
+            }
+        }
+        return true;
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * Stops polling. Runs before the dispatcher drains its queue, since this service depends on it.
+     * The offset of the last batch is confirmed so the next instance does not receive it again;
+     * updates not yet handed off stay unconfirmed in Telegram.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (pollerThread != null) {
+            pollerThread.interrupt();
+            try {
+                pollerThread.join(Duration.ofSeconds(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (offset > 0) {
+            try {
+                telegramService.getUpdates(offset, 1, 0);
+            } catch (Exception e) {
+                log.warn("⚠️ Could not confirm polling offset {}: {}", offset, e.getMessage());
+            }
+        }
+        log.info("🛑 Telegram long polling stopped");
+    }
+}
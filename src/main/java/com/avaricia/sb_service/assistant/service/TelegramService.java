@@ -1,21 +1,42 @@
 package com.avaricia.sb_service.assistant.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.avaricia.sb_service.assistant.dto.TelegramMessageResponse;
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.avaricia.sb_service.assistant.dto.TelegramUpdatesResponse;
+import com.avaricia.sb_service.assistant.exception.AssistantException;
+
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class TelegramService {
 
+    private static final Logger log = LoggerFactory.getLogger(TelegramService.class);
+
     private final RestTemplate restTemplate;
     private final String telegramApiUrl;
+    private final long botId;
 
-    public TelegramService(@Value("${telegram.bot.token}") String botToken) {
-        this.restTemplate = new RestTemplate();
+    public TelegramService(RestTemplate restTemplate, @Value("${telegram.bot.token}") String botToken) {
+        this.restTemplate = restTemplate;
         this.telegramApiUrl = "https://api.telegram.org/bot" + botToken;
+        this.botId = parseBotId(botToken);
+    }
+
+    /**
+     * Gets the bot's numeric ID (the token prefix before ':'), or 0 if the token has no such prefix.
+     * Used to keep several bots apart in shared tables.
+     */
+    public long getBotId() {
+        return botId;
     }
 
     public void sendMessage(Long chatId, String text) {
@@ -28,4 +49,128 @@ public class TelegramService {
         
         restTemplate.postForObject(url, body, String.class);
     }
+
+    /**
+     * Sends a message and returns its ID so it can be edited later.
+     *
+     * @param markdown Whether to parse the text as Markdown (partial streamed text should be sent plain)
+     * @return The message_id, or null if Telegram did not accept the message
+     */
+    public Long sendMessageForEditing(Long chatId, String text, boolean markdown) {
+        String url = telegramApiUrl + "/sendMessage";
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("chat_id", chatId);
+        body.put("text", text);
+        if (markdown) {
+            body.put("parse_mode", "Markdown");
+        }
+
+        try {
+            TelegramMessageResponse response = restTemplate.postForObject(url, body, TelegramMessageResponse.class);
+            return response != null && response.ok() && response.result() != null ? response.result().messageId() : null;
+        } catch (RestClientException e) {
+            log.warn("⚠️ Telegram sendMessage failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the text of a message sent by the bot.
+     * Telegram rejects edits that do not change the text and limits how often a chat can be edited.
+     *
+     * @param markdown Whether to parse the text as Markdown
+     * @return true if the message was edited
+     */
+    public boolean editMessageText(Long chatId, Long messageId, String text, boolean markdown) {
+        String url = telegramApiUrl + "/editMessageText";
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("chat_id", chatId);
+        body.put("message_id", messageId);
+        body.put("text", text);
+        if (markdown) {
+            body.put("parse_mode", "Markdown");
+        }
+
+        try {
+            TelegramMessageResponse response = restTemplate.postForObject(url, body, TelegramMessageResponse.class);
+            return response != null && response.ok();
+        } catch (RestClientException e) {
+            log.debug("Telegram editMessageText failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Shows the "typing..." indicator in the chat (cleared by the next message or after 5 seconds).
+     */
+    public void sendTypingAction(Long chatId) {
+        String url = telegramApiUrl + "/sendChatAction";
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("chat_id", chatId);
+        body.put("action", "typing");
+
+        try {
+            restTemplate.postForObject(url, body, String.class);
+        } catch (RestClientException e) {
+            log.debug("Telegram sendChatAction failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches pending updates with long polling (only used when the webhook is disabled).
+     * Passing an offset confirms every update with a lower update_id.
+     *
+     * @param offset First update_id to return
+     * @param limit Maximum number of updates (1-100)
+     * @param timeoutSeconds How long Telegram holds the request open when there are no updates
+     * @return The updates, possibly empty
+     */
+    public List<TelegramUpdate> getUpdates(long offset, int limit, int timeoutSeconds) {
+        String url = telegramApiUrl + "/getUpdates";
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("offset", offset);
+        body.put("limit", limit);
+        body.put("timeout", timeoutSeconds);
+        body.put("allowed_updates", List.of("message"));
+
+        TelegramUpdatesResponse response = restTemplate.postForObject(url, body, TelegramUpdatesResponse.class);
+        if (response == null || !response.ok()) {
+            throw new AssistantException(
+                "Telegram getUpdates failed: " + (response != null ? response.description() : "empty response"),
+                "❌ No se pudo conectar con Telegram.",
+                "TELEGRAM_API_ERROR");
+        }
+        return response.result() != null ? response.result() : List.of();
+    }
+
+    /**
+     * Removes the webhook so updates can be fetched with getUpdates.
+     * Pending updates are kept and delivered to the next getUpdates call.
+     */
+    public void deleteWebhook() {
+        String url = telegramApiUrl + "/deleteWebhook";
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("drop_pending_updates", false);
+
+        restTemplate.postForObject(url, body, String.class);
+    }
+
+    private static long parseBotId(String botToken) {
+        if (botToken != null) {
+            int separator = botToken.indexOf(':');
+            if (separator > 0) {
+                try {
+                    return Long.parseLong(botToken.substring(0, separator));
+                } catch (NumberFormatException ignored) {
+                    // Fall through to the default
+                }
+            }
+        }
+        return 0L;
+    }
 }
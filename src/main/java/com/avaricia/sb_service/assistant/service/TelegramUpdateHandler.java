@@ -0,0 +1,284 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.avaricia.sb_service.assistant.dto.AssistantReply;
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.avaricia.sb_service.assistant.logging.LogContent;
+import com.avaricia.sb_service.assistant.logging.LogMarkers;
+import com.avaricia.sb_service.assistant.service.RateLimiterService.Decision;
+import com.avaricia.sb_service.assistant.service.UserMappingService.LinkResult;
+
+/**
+ * Service that runs the full processing pipeline for a single Telegram message.
+ * Handles account linking commands, voice transcription and delegates regular
+ * messages to MessageProcessorService, sending the reply back through TelegramService.
+ *
+ * Runs on UpdateDispatcher workers, never on the webhook request thread.
+ */
+@Service
+public class TelegramUpdateHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(TelegramUpdateHandler.class);
+
+    private final MessageProcessorService messageProcessor;
+    private final TelegramService telegramService;
+    private final AudioTranscriptionService audioTranscriptionService;
+    private final UserMappingService userMappingService;
+    private final RateLimiterService rateLimiter;
+
+    public TelegramUpdateHandler(
+            MessageProcessorService messageProcessor,
+            TelegramService telegramService,
+            AudioTranscriptionService audioTranscriptionService,
+            UserMappingService userMappingService,
+            RateLimiterService rateLimiter) {
+        this.messageProcessor = messageProcessor;
+        this.telegramService = telegramService;
+        this.audioTranscriptionService = audioTranscriptionService;
+        this.userMappingService = userMappingService;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Processes a Telegram message and sends the response to the user.
+     *
+     * @param message The message of a Telegram update (chat and sender already validated)
+     */
+    public void handleMessage(TelegramUpdate.Message message) {
+        // Get chat_id for response
+        Long chatId = message.chatId();
+
+        // Get telegram user info
+        Long telegramId = message.telegramId();
+        String username = message.from().username();
+        String firstName = message.from().firstName();
+
+        // Rate limit everything that reaches OpenAI (classification, humanization, Whisper).
+        // Commands are handled locally and are never limited.
+        boolean isCommand = message.text() != null && message.text().startsWith("/");
+        if (!isCommand && !checkRateLimit(chatId, telegramId)) {
+            return;
+        }
+
+        // Extract text from message (text or transcribed audio)
+        String text = extractTextFromMessage(message, chatId);
+
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+
+        log.atInfo()
+            .addMarker(LogMarkers.SAMPLED)
+            .addKeyValue("telegramId", telegramId)
+            .addKeyValue("text", LogContent.of(text))
+            .log("📨 Message received");
+
+        try {
+            // Check if it's a link command (/start LINK_xxx)
+            if (text.startsWith("/start LINK_")) {
+                handleLinkCommand(chatId, telegramId, username, firstName, text);
+                return;
+            }
+
+            // Check if it's just /start (welcome message)
+            if (text.equals("/start")) {
+                handleStartCommand(chatId, telegramId, firstName);
+                return;
+            }
+
+            // Check if user is linked
+            String userId = userMappingService.getUserId(telegramId, username, firstName);
+
+            if (userId == null) {
+                // User not linked - send instructions
+                sendNotLinkedMessage(chatId, firstName);
+                return;
+            }
+
+            // Process message and get response (humanized replies are already in the chat)
+            AssistantReply reply = messageProcessor.processMessage(telegramId, chatId, text);
+            if (reply.delivered()) {
+                return;
+            }
+            log.atDebug()
+                .addKeyValue("telegramId", telegramId)
+                .addKeyValue("response", LogContent.of(reply.text()))
+                .log("📤 Sending response");
+
+            // Send response to user on Telegram
+            telegramService.sendMessage(chatId, reply.text());
+        } catch (Exception e) {
+            log.atError()
+                .addKeyValue("telegramId", telegramId)
+                .setCause(e)
+                .log("❌ Error processing message: {}", e.getMessage());
+            telegramService.sendMessage(chatId, "Lo siento, hubo un error procesando tu mensaje.");
+        }
+    }
+
+    /**
+     * Checks the rate limits and answers locally (at most once in a while) when over them.
+     *
+     * @return true if the message may be processed
+     */
+    private boolean checkRateLimit(Long chatId, Long telegramId) {
+        Decision decision = rateLimiter.tryAcquire(telegramId);
+        if (decision == Decision.ALLOWED) {
+            return true;
+        }
+
+        if (rateLimiter.shouldNotify(telegramId)) {
+            telegramService.sendMessage(chatId, decision == Decision.USER_LIMITED
+                ? "⏳ Estás enviando mensajes muy rápido. Espera un momento e intenta de nuevo."
+                : "⏳ Estoy recibiendo muchos mensajes en este momento. Por favor intenta de nuevo en unos segundos.");
+        }
+        return false;
+    }
+
+    /**
+     * Handles the /start LINK_xxx command for account linking.
+     */
+    private void handleLinkCommand(Long chatId, Long telegramId, String username,
+                                    String firstName, String text) {
+        // Extract the link code (everything after "/start LINK_")
+        String linkCode = text.substring(12); // Length of "/start LINK_"
+
+        log.atInfo()
+            .addKeyValue("telegramId", telegramId)
+            .log("🔗 Link attempt");
+
+        // Try to link the account
+        LinkResult result = userMappingService.linkTelegramAccount(
+            linkCode, telegramId, username, firstName
+        );
+
+        if (result.isSuccess()) {
+            String welcomeMsg = String.format(
+                "✅ *¡Cuenta vinculada exitosamente!*\n\n" +
+                "¡Hola %s! 👋\n\n" +
+                "Tu cuenta de Telegram está ahora conectada. Ya puedes usar el asistente financiero.\n\n" +
+                "💡 *Prueba diciendo:*\n" +
+                "• \"Gasté 50k en comida\"\n" +
+                "• \"¿Cuánto dinero tengo?\"\n" +
+                "• \"Recibí mi sueldo de 2M\"",
+                result.getUserName() != null ? result.getUserName() : firstName
+            );
+            telegramService.sendMessage(chatId, welcomeMsg);
+        } else {
+            telegramService.sendMessage(chatId, result.getMessage());
+        }
+    }
+
+    /**
+     * Handles the basic /start command (without link code).
+     */
+    private void handleStartCommand(Long chatId, Long telegramId, String firstName) {
+        // Check if user is already linked
+        String userId = userMappingService.getUserId(telegramId);
+
+        if (userId != null) {
+            // User already linked
+            String welcomeBack = String.format(
+                "¡Hola de nuevo, %s! 👋\n\n" +
+                "Tu cuenta ya está vinculada. ¿En qué puedo ayudarte hoy?\n\n" +
+                "💡 *Comandos útiles:*\n" +
+                "• \"¿Cuánto dinero tengo?\"\n" +
+                "• \"Muéstrame mis gastos\"\n" +
+                "• \"¿En qué gasto más?\"",
+                firstName != null ? firstName : "Usuario"
+            );
+            telegramService.sendMessage(chatId, welcomeBack);
+        } else {
+            // User not linked
+            sendNotLinkedMessage(chatId, firstName);
+        }
+    }
+
+    /**
+     * Sends a message to users who haven't linked their account yet.
+     */
+    private void sendNotLinkedMessage(Long chatId, String firstName) {
+        String notLinkedMsg = String.format(
+            "¡Hola %s! 👋\n\n" +
+            "Soy tu asistente financiero personal.\n\n" +
+            "⚠️ *Para usar el bot, primero debes vincular tu cuenta:*\n\n" +
+            "1️⃣ Ingresa a tu cuenta en el dashboard web\n" +
+            "2️⃣ Ve a Configuración → Conectar Telegram\n" +
+            "3️⃣ Haz clic en el botón y abre el link\n\n" +
+            "Una vez vinculado, podrás:\n" +
+            "💰 Registrar ingresos y gastos\n" +
+            "📊 Ver tu balance y resúmenes\n" +
+            "🎤 Enviar notas de voz\n" +
+            "📏 Establecer límites de gasto",
+            firstName != null ? firstName : "Usuario"
+        );
+        telegramService.sendMessage(chatId, notLinkedMsg);
+    }
+
+    /**
+     * Extracts text from a message, handling both text messages and voice/audio messages.
+     * For voice messages, transcribes the audio using Whisper.
+     */
+    private String extractTextFromMessage(TelegramUpdate.Message message, Long chatId) {
+        // Check for text message
+        String text = message.text();
+        if (text != null && !text.isEmpty()) {
+            return text;
+        }
+
+        // Check for voice message (voice notes)
+        if (message.voice() != null) {
+            return processVoiceMessage(message.voice(), chatId, "nota de voz");
+        }
+
+        // Check for audio message (audio files)
+        if (message.audio() != null) {
+            return processVoiceMessage(message.audio(), chatId, "audio");
+        }
+
+        // Check for video note (circular video messages)
+        if (message.videoNote() != null) {
+            return processVoiceMessage(message.videoNote(), chatId, "video nota");
+        }
+
+        return null;
+    }
+
+    /**
+     * Processes a voice/audio message by transcribing it.
+     */
+    private String processVoiceMessage(TelegramUpdate.Media media, Long chatId, String type) {
+        String fileId = media.fileId();
+        Integer duration = media.duration();
+
+        log.atInfo()
+            .addKeyValue("chatId", chatId)
+            .addKeyValue("type", type)
+            .addKeyValue("durationSec", duration)
+            .log("🎤 Audio received");
+
+        // Notify user that we're processing the audio
+        telegramService.sendMessage(chatId, "🎧 Procesando tu " + type + "...");
+
+        try {
+            String transcription = audioTranscriptionService.transcribeAudio(fileId);
+
+            if (transcription == null || transcription.isEmpty()) {
+                telegramService.sendMessage(chatId, "❌ No pude entender el audio. Por favor intenta de nuevo o escribe tu mensaje.");
+                return null;
+            }
+
+            // Show the user what we understood
+            telegramService.sendMessage(chatId, "📝 Entendí: \"" + transcription + "\"");
+
+            return transcription;
+        } catch (Exception e) {
+            log.warn("⚠️ Error transcribing audio: {}", e.getMessage());
+            telegramService.sendMessage(chatId, "❌ Hubo un error procesando el audio. Por favor intenta de nuevo.");
+            return null;
+        }
+    }
+}
@@ -23,20 +23,26 @@ public class TransactionHandlerService {
 
     private final CoreApiService coreApi;
     private final MockCoreApiService mockCoreApi;
+    private final CorePrefetchService corePrefetch;
     private final ResponseFormatterService formatter;
     private final ConfirmationService confirmationService;
+    private final LocalHumanizerService humanizer;
     private final boolean useMock;
 
     public TransactionHandlerService(
             CoreApiService coreApi,
             MockCoreApiService mockCoreApi,
+            CorePrefetchService corePrefetch,
             ResponseFormatterService formatter,
             ConfirmationService confirmationService,
+            LocalHumanizerService humanizer,
             @Value("${ms.core.use-mock:false}") boolean useMock) {
         this.coreApi = coreApi;
         this.mockCoreApi = mockCoreApi;
+        this.corePrefetch = corePrefetch;
         this.formatter = formatter;
         this.confirmationService = confirmationService;
+        this.humanizer = humanizer;
         this.useMock = useMock;
     }
 
@@ -192,7 +198,7 @@ public class TransactionHandlerService {
                 }
             }
         } else {
-            result = coreApi.getTransactions(userId, filterType);
+            result = corePrefetch.getTransactions(userId, filterType);
         }
         
         if (result.containsKey("error")) {
@@ -259,6 +265,7 @@ public class TransactionHandlerService {
             sb.append("\n🧪 _[Modo prueba]_");
         }
         
+        sb.insert(0, humanizer.transactions(filterType, transactions.size(), totalIncome, totalExpense) + "\n\n");
         return sb.toString();
     }
 
@@ -304,6 +311,7 @@ public class TransactionHandlerService {
         
         sb.append(String.format("\n💵 *Total del día:* $%,.0f", totalAmount));
         
+        sb.insert(0, humanizer.day(transactions.size(), totalAmount) + "\n\n");
         return sb.toString();
     }
 
@@ -385,6 +393,7 @@ public class TransactionHandlerService {
                 totalExpense, transactions.size()));
         }
         
+        sb.insert(0, humanizer.transactions(filterType, transactions.size(), totalIncome, totalExpense) + "\n\n");
         return sb.toString();
     }
 
@@ -452,6 +461,7 @@ public class TransactionHandlerService {
             : String.format("\n\n📊 *Total en \"%s\":* $%,.0f (%d transacciones)", searchTerm, totalAmount, count);
         sb.append(totalLabel);
         
+        sb.insert(0, humanizer.search(searchTerm, count > 0 ? count : transactions.size(), totalAmount) + "\n\n");
         return sb.toString();
     }
 
@@ -616,7 +626,7 @@ public class TransactionHandlerService {
      * Gets transactions for a user (for internal use by other services).
      */
     public Map<String, Object> getTransactionsForUser(String userId) {
-        return useMock ? mockCoreApi.getTransactions(userId) : coreApi.getTransactions(userId);
+        return useMock ? mockCoreApi.getTransactions(userId) : corePrefetch.getTransactions(userId, null);
     }
 
     /**
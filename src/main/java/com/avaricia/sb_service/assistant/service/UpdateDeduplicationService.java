@@ -0,0 +1,128 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.repository.ProcessedUpdateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+/**
+ * Service that drops Telegram updates that were already accepted.
+ *
+ * Telegram redelivers a webhook update when the response is slow or fails, and each
+ * redelivery would otherwise run the full pipeline again (another OpenAI call and,
+ * in the worst case, a duplicate transaction). Updates are checked by update_id
+ * before they are dispatched.
+ *
+ * Stores (telegram.dedup.store):
+ * - memory (default): UpdateIdWindow bitset, enough for a single instance
+ * - postgres: the in-memory window plus the "ProcessedUpdates" table, shared by all replicas
+ *
+ * Exposed metrics:
+ * - telegram.dedup.duplicates: updates dropped because they were already accepted
+ */
+@Service
+public class UpdateDeduplicationService {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateDeduplicationService.class);
+
+    private final ProcessedUpdateRepository processedUpdateRepository;
+    private final UpdateIdWindow window;
+    private final boolean usePostgres;
+    private final long botId;
+    private final Duration retention;
+    private final Counter duplicatesCounter;
+
+    public UpdateDeduplicationService(
+            ProcessedUpdateRepository processedUpdateRepository,
+            MeterRegistry meterRegistry,
+            TelegramService telegramService,
+            @Value("${telegram.dedup.store:memory}") String store,
+            @Value("${telegram.dedup.window-size:65536}") int windowSize,
+            @Value("${telegram.dedup.retention:48h}") Duration retention) {
+        this.processedUpdateRepository = processedUpdateRepository;
+        this.window = new UpdateIdWindow(windowSize);
+        this.usePostgres = "postgres".equalsIgnoreCase(store);
+        this.botId = telegramService.getBotId();
+        this.retention = retention;
+        this.duplicatesCounter = Counter.builder("telegram.dedup.duplicates")
+            .description("Telegram updates dropped because they were already accepted")
+            .register(meterRegistry);
+
+        log.info("🔁 Update deduplication enabled (store: {}, window: {} updates)",
+            usePostgres ? "postgres" : "memory", window.capacity());
+    }
+
+    /**
+     * Records an update and tells whether it should be processed.
+     *
+     * @param updateId The Telegram update_id
+     * @return true if the update is new, false if it is a redelivery
+     */
+    public boolean markIfNew(long updateId) {
+        if (!window.markIfNew(updateId)) {
+            return duplicate(updateId);
+        }
+
+        if (usePostgres) {
+            try {
+                if (processedUpdateRepository.insertIfAbsent(botId, updateId, OffsetDateTime.now()) == 0) {
+                    return duplicate(updateId);
+                }
+            } catch (Exception e) {
+                // Processing twice is better than losing the message
+                log.warn("⚠️ Could not record update {} in database, accepting it: {}", updateId, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets an update that was recorded but could not be handed off for processing,
+     * so that Telegram's redelivery is accepted.
+     *
+     * @param updateId The Telegram update_id
+     */
+    public void forget(long updateId) {
+        window.forget(updateId);
+
+        if (usePostgres) {
+            try {
+                processedUpdateRepository.deleteByBotIdAndUpdateId(botId, updateId);
+            } catch (Exception e) {
+                log.warn("⚠️ Could not forget update {} in database: {}", updateId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes database records older than the retention period.
+     * Telegram gives up redelivering long before, so they can never match again.
+     */
+    @Scheduled(fixedDelayString = "${telegram.dedup.cleanup-interval:PT1H}")
+    public void cleanup() {
+        if (!usePostgres) {
+            return;
+        }
+        try {
+            int deleted = processedUpdateRepository.deleteByReceivedAtBefore(OffsetDateTime.now().minus(retention));
+            if (deleted > 0) {
+                log.info("🧹 Removed {} processed update records", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not clean up processed update records: {}", e.getMessage());
+        }
+    }
+
+    private boolean duplicate(long updateId) {
+        duplicatesCounter.increment();
+        log.info("🔁 Dropping duplicate update {}", updateId);
+        return false;
+    }
+}
@@ -0,0 +1,236 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Service that decouples Telegram webhook acknowledgment from message processing.
+ *
+ * The webhook only validates and enqueues the update. Updates from the same chat
+ * run strictly in order (pending confirmations and conversation history depend on it),
+ * while different chats run in parallel, each on its own virtual thread. Blocking
+ * calls to OpenAI, Core and the database park the virtual thread instead of holding
+ * a platform thread, so thousands of conversations can be in flight at once.
+ *
+ * Admission is controlled by an AdaptiveConcurrencyLimiter driven by processing latency:
+ * when the pipeline slows down (e.g. OpenAI latency spikes) the limit shrinks and extra
+ * updates are shed (the caller answers with a canned "busy" reply) instead of piling up
+ * work in memory. telegram.dispatch.max-pending is the upper bound of the limit. The default
+ * latency threshold (6 s) is below the humanize (8 s) and classify (10 s) deadlines, so an
+ * update that ran into an LLM deadline always counts as slow; set it a little above the
+ * observed telegram.dispatch.processing p95.
+ *
+ * Exposed metrics:
+ * - telegram.dispatch.queue.depth: updates waiting behind an earlier update of the same chat
+ * - telegram.dispatch.active: updates currently being processed
+ * - telegram.dispatch.chats: chats with queued or running updates
+ * - telegram.dispatch.wait: time between enqueue and start of processing
+ * - telegram.dispatch.processing: time spent processing an update (without the coalescer debounce)
+ * - telegram.dispatch.rejected: updates rejected because the dispatcher is shutting down
+ * - telegram.admission.limit: current adaptive concurrency limit
+ * - telegram.admission.shed: updates shed because the adaptive limit was reached
+ */
+@Service
+public class UpdateDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    private final ExecutorService virtualThreads;
+    private final KeyedSerialExecutor<Long> chatExecutor;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Semaphore pendingPermits;
+    private final int maxPending;
+    private final Duration shutdownTimeout;
+    private volatile boolean accepting = true;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final Timer waitTimer;
+    private final Timer processingTimer;
+    private final Counter rejectedCounter;
+    private final Counter shedCounter;
+
+    public UpdateDispatcher(
+            MeterRegistry meterRegistry,
+            @Value("${telegram.dispatch.max-pending:1000}") int maxPending,
+            @Value("${telegram.dispatch.shutdown-timeout:30s}") Duration shutdownTimeout,
+            @Value("${telegram.admission.initial-limit:100}") int initialLimit,
+            @Value("${telegram.admission.min-limit:10}") int minLimit,
+            @Value("${telegram.admission.latency-threshold:6s}") Duration latencyThreshold) {
+        this.virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("telegram-chat-", 0).factory());
+        this.chatExecutor = new KeyedSerialExecutor<>(virtualThreads);
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxPending, latencyThreshold);
+        this.pendingPermits = new Semaphore(maxPending);
+        this.maxPending = maxPending;
+        this.shutdownTimeout = shutdownTimeout;
+
+        Gauge.builder("telegram.dispatch.queue.depth", queued, AtomicInteger::get)
+            .description("Telegram updates waiting behind an earlier update of the same chat")
+            .register(meterRegistry);
+        Gauge.builder("telegram.dispatch.active", active, AtomicInteger::get)
+            .description("Telegram updates currently being processed")
+            .register(meterRegistry);
+        Gauge.builder("telegram.dispatch.chats", chatExecutor, KeyedSerialExecutor::getActiveKeys)
+            .description("Chats with queued or running updates")
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("telegram.dispatch.wait")
+            .description("Time an update spends in the queue before processing starts")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.processingTimer = Timer.builder("telegram.dispatch.processing")
+            .description("Time spent processing an update")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("telegram.dispatch.rejected")
+            .description("Telegram updates rejected because the dispatcher is shutting down")
+            .register(meterRegistry);
+        Gauge.builder("telegram.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current adaptive concurrency limit for Telegram updates")
+            .register(meterRegistry);
+        this.shedCounter = Counter.builder("telegram.admission.shed")
+            .description("Telegram updates shed because the adaptive concurrency limit was reached")
+            .register(meterRegistry);
+
+        log.info("📬 Update dispatcher started on virtual threads (limit: {}, max pending: {})",
+            limiter.getLimit(), maxPending);
+    }
+
+    /**
+     * Enqueues an update for asynchronous processing.
+     * Updates with the same chat ID are processed one at a time, in arrival order.
+     *
+     * @param chatId The chat the update belongs to (ordering key)
+     * @param task The processing work for the update
+     * @return ACCEPTED if queued, SHED if over the adaptive limit, REJECTED if shutting down
+     */
+    public Admission dispatch(Long chatId, Runnable task) {
+        return dispatch(chatId, () -> null, ignored -> task.run());
+    }
+
+    /**
+     * Same as {@link #dispatch(Long, Runnable)} with a preparation step that runs on the chat
+     * thread before the task and is not counted as processing time, e.g. the coalescer
+     * debounce. Only the task feeds the adaptive limit, which should react to slow processing,
+     * not to deliberate waits.
+     *
+     * @param prepare Produces the input of the task
+     * @param task The processing work for the update
+     */
+    public <T> Admission dispatch(Long chatId, Supplier<T> prepare, Consumer<T> task) {
+        if (!accepting || !pendingPermits.tryAcquire()) {
+            rejectedCounter.increment();
+            log.warn("🚦 Dispatcher not accepting, rejecting update for chat {}", chatId);
+            return Admission.REJECTED;
+        }
+        if (!limiter.tryAcquire()) {
+            pendingPermits.release();
+            shedCounter.increment();
+            log.warn("🚦 Concurrency limit {} reached, shedding update for chat {}", limiter.getLimit(), chatId);
+            return Admission.SHED;
+        }
+
+        long enqueuedAt = System.nanoTime();
+        queued.incrementAndGet();
+        chatExecutor.submit(chatId, () -> run(chatId, prepare, task, enqueuedAt))
+            .whenComplete((result, error) -> {
+                if (error != null) {
+                    // Only reached if the task never ran (executor already shut down)
+                    queued.decrementAndGet();
+                    limiter.releaseWithoutSample();
+                    log.error("❌ Update for chat {} was not processed: {}", chatId, error.getMessage());
+                }
+                pendingPermits.release();
+            });
+        return Admission.ACCEPTED;
+    }
+
+    private <T> void run(Long chatId, Supplier<T> prepare, Consumer<T> task, long enqueuedAt) {
+        long startedAt = System.nanoTime();
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+        boolean failed = false;
+        try {
+            T input = prepare.get();
+            startedAt = System.nanoTime();
+            task.accept(input);
+        } catch (Exception e) {
+            failed = true;
+            log.error("❌ Unhandled error processing update for chat {}: {}", chatId, e.getMessage(), e);
+        } finally {
+            long elapsed = System.nanoTime() - startedAt;
+            active.decrementAndGet();
+            processingTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            limiter.release(elapsed, TimeUnit.NANOSECONDS, failed);
+        }
+    }
+
+    /**
+     * Gets how many more updates would be admitted right now under the adaptive limit.
+     * Used by pull-based sources (the update journal) to claim only what can run.
+     */
+    public int getAvailableCapacity() {
+        if (!accepting) {
+            return 0;
+        }
+        return Math.max(0, limiter.getLimit() - limiter.getInFlight());
+    }
+
+    /**
+     * Gets the number of updates admitted but not yet finished (for monitoring).
+     */
+    public int getPendingCount() {
+        return maxPending - pendingPermits.availablePermits();
+    }
+
+    /**
+     * Stops accepting updates and waits for the admitted ones to finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        log.info("🛑 Draining dispatch queue ({} pending)...", getPendingCount());
+        try {
+            if (pendingPermits.tryAcquire(maxPending, shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.info("✅ Dispatch queue drained");
+            } else {
+                log.warn("⚠️ Dispatch queue not drained after {}, {} updates dropped",
+                    shutdownTimeout, getPendingCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            virtualThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * Outcome of {@link #dispatch}.
+     */
+    public enum Admission {
+        /** Queued for processing */
+        ACCEPTED,
+        /** Over the adaptive concurrency limit; the caller should answer with a busy reply */
+        SHED,
+        /** Dispatcher is shutting down; the update must be delivered again later */
+        REJECTED
+    }
+}
@@ -0,0 +1,104 @@
+package com.avaricia.sb_service.assistant.service;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of recently seen Telegram update IDs, stored as a ring-buffered bitset.
+ *
+ * Telegram assigns update IDs sequentially per bot, so a window of the last N IDs
+ * (one bit each) is enough to detect redeliveries: 65,536 IDs cost 8 KB.
+ * IDs older than the window are reported as already seen, since Telegram only
+ * redelivers recent updates. An ID far below the window (more than a few windows back)
+ * cannot be a redelivery: the sequence was reset (e.g. the bot was recreated), so the
+ * window is cleared and re-anchored at that ID instead of dropping every new update.
+ */
+public class UpdateIdWindow {
+
+    /** Backwards jumps of more than this many windows are a reset of the update ID sequence */
+    private static final int RESET_WINDOWS = 4;
+
+    private final long[] words;
+    private final int mask;
+    private long highest = -1;
+
+    /**
+     * @param size Number of update IDs to remember (rounded up to a power of two, minimum 64)
+     */
+    public UpdateIdWindow(int size) {
+        int capacity = Math.max(64, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+        this.words = new long[capacity >>> 6];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Records an update ID.
+     *
+     * @param updateId The Telegram update_id
+     * @return true if the ID had not been seen before, false if it is a duplicate (or too old)
+     */
+    public synchronized boolean markIfNew(long updateId) {
+        if (highest < 0 || updateId > highest) {
+            advanceTo(updateId);
+            set(updateId);
+            return true;
+        }
+
+        if (highest - updateId > (long) RESET_WINDOWS * (mask + 1)) {
+            highest = -1;
+            advanceTo(updateId);
+            set(updateId);
+            return true;
+        }
+
+        if (highest - updateId > mask) {
+            return false;
+        }
+
+        if (isSet(updateId)) {
+            return false;
+        }
+        set(updateId);
+        return true;
+    }
+
+    /**
+     * Forgets an update ID so a later redelivery is accepted again
+     * (used when the update could not be handed off for processing).
+     */
+    public synchronized void forget(long updateId) {
+        if (highest >= 0 && updateId <= highest && highest - updateId <= mask) {
+            int index = (int) (updateId & mask);
+            words[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Gets the capacity of the window in update IDs.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private void advanceTo(long updateId) {
+        if (highest < 0 || updateId - highest > mask) {
+            Arrays.fill(words, 0L);
+        } else {
+            // Clear the slots that are being reused for the new IDs
+            for (long id = highest + 1; id <= updateId; id++) {
+                int index = (int) (id & mask);
+                words[index >>> 6] &= ~(1L << index);
+            }
+        }
+        highest = updateId;
+    }
+
+    private boolean isSet(long updateId) {
+        int index = (int) (updateId & mask);
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void set(long updateId) {
+        int index = (int) (updateId & mask);
+        words[index >>> 6] |= 1L << index;
+    }
+}
@@ -0,0 +1,134 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.avaricia.sb_service.assistant.service.UpdateDispatcher.Admission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single entry point for Telegram updates, shared by the webhook (TelegramController)
+ * and long polling (TelegramPollingService).
+ *
+ * Validates the update, drops redeliveries and hands it off to UpdateDispatcher,
+ * or to the durable UpdateJournalService when the journal is enabled. In memory mode,
+ * text messages that queue up behind each other are merged by MessageCoalescer. Updates shed by the dispatcher's adaptive limit get an immediate canned reply
+ * instead of being queued.
+ */
+@Service
+public class UpdateIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateIngestionService.class);
+
+    private static final String BUSY_MESSAGE =
+        "⏳ Estoy recibiendo muchos mensajes en este momento. Por favor intenta de nuevo en unos segundos.";
+
+    private final UpdateDispatcher updateDispatcher;
+    private final TelegramUpdateHandler updateHandler;
+    private final UpdateDeduplicationService deduplicationService;
+    private final TelegramService telegramService;
+    private final UpdateJournalService journalService;
+    private final MessageCoalescer coalescer;
+
+    public UpdateIngestionService(
+            UpdateDispatcher updateDispatcher,
+            TelegramUpdateHandler updateHandler,
+            UpdateDeduplicationService deduplicationService,
+            TelegramService telegramService,
+            UpdateJournalService journalService,
+            MessageCoalescer coalescer) {
+        this.updateDispatcher = updateDispatcher;
+        this.updateHandler = updateHandler;
+        this.deduplicationService = deduplicationService;
+        this.telegramService = telegramService;
+        this.journalService = journalService;
+        this.coalescer = coalescer;
+    }
+
+    /**
+     * Hands off an update for asynchronous processing.
+     *
+     * @param update The Telegram update
+     * @return What happened to the update
+     */
+    public IngestResult ingest(TelegramUpdate update) {
+        TelegramUpdate.Message message = update.message();
+
+        // Ignore updates without a message and malformed ones instead of making Telegram retry them
+        if (update.updateId() == null || message == null || message.chatId() == null || message.telegramId() == null) {
+            return IngestResult.IGNORED;
+        }
+
+        // Drop redeliveries before any downstream work starts
+        long updateId = update.updateId();
+        if (!deduplicationService.markIfNew(updateId)) {
+            return IngestResult.DUPLICATE;
+        }
+
+        if (journalService.isEnabled()) {
+            return journal(update);
+        }
+
+        MessageCoalescer.Batch batch = coalescer.add(message);
+        if (batch == null) {
+            // Merged into a message of the same chat that is still waiting its turn
+            return IngestResult.ACCEPTED;
+        }
+
+        // The debounce in take() is waiting, not processing: it is kept out of the latency sample
+        Admission admission = updateDispatcher.dispatch(message.chatId(),
+            () -> coalescer.take(batch), updateHandler::handleMessage);
+
+        if (admission == Admission.SHED) {
+            // Answer off the ingestion thread so the webhook/poller is not held by the Telegram call
+            Long chatId = message.chatId();
+            Thread.startVirtualThread(() -> sendBusyReply(chatId));
+            return IngestResult.SHED;
+        }
+
+        if (admission == Admission.REJECTED) {
+            // Not processed, so the redelivery must not be treated as a duplicate
+            deduplicationService.forget(updateId);
+            return IngestResult.REJECTED;
+        }
+
+        coalescer.open(batch);
+        return IngestResult.ACCEPTED;
+    }
+
+    /**
+     * Stores the update durably; journal workers (on any replica) process it.
+     */
+    private IngestResult journal(TelegramUpdate update) {
+        if (journalService.append(update)) {
+            return IngestResult.ACCEPTED;
+        }
+        // Journal unavailable: let Telegram redeliver rather than lose the update
+        deduplicationService.forget(update.updateId());
+        return IngestResult.REJECTED;
+    }
+
+    private void sendBusyReply(Long chatId) {
+        try {
+            telegramService.sendMessage(chatId, BUSY_MESSAGE);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not send busy reply to chat {}: {}", chatId, e.getMessage());
+        }
+    }
+
+    /**
+     * Outcome of handing off an update.
+     */
+    public enum IngestResult {
+        /** Queued for processing */
+        ACCEPTED,
+        /** Already accepted before (redelivery) */
+        DUPLICATE,
+        /** Nothing to process (no message, or malformed) */
+        IGNORED,
+        /** Not processed because of load; the user got a "busy" reply */
+        SHED,
+        /** Dispatcher not accepting (shutting down) or journal unavailable; must be delivered again later */
+        REJECTED
+    }
+}
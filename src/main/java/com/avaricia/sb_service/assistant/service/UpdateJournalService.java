@@ -0,0 +1,277 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.avaricia.sb_service.assistant.entity.InboundUpdateEntity;
+import com.avaricia.sb_service.assistant.repository.InboundUpdateRepository;
+import com.avaricia.sb_service.assistant.service.UpdateDispatcher.Admission;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable journal of accepted Telegram updates in Postgres ("InboundUpdates").
+ *
+ * When enabled (telegram.journal.enabled=true), accepted updates are written to the
+ * journal instead of going straight to the in-memory dispatcher, so a crash or rolling
+ * deploy does not lose them. A worker on every replica claims updates with
+ * FOR UPDATE SKIP LOCKED and hands them to its local UpdateDispatcher:
+ * - Only the oldest update of each chat can be claimed, which keeps per-chat ordering across replicas.
+ * - Workers claim no more than their dispatcher can run right now (adaptive limit).
+ * - Claims of a crashed replica are taken over once the lease expires.
+ * - An update is deleted when processed; on shutdown, running updates finish and the rest are released.
+ *
+ * Exposed metrics:
+ * - telegram.journal.in-flight: updates claimed by this replica and not yet finished
+ * - telegram.journal.processed: updates processed from the journal
+ * - telegram.journal.abandoned: updates dropped after too many attempts
+ */
+@Service
+public class UpdateJournalService {
+
+    private static final Logger log = LoggerFactory.getLogger(UpdateJournalService.class);
+
+    private final InboundUpdateRepository inboundUpdateRepository;
+    private final UpdateDispatcher updateDispatcher;
+    private final TelegramUpdateHandler updateHandler;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long botId;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final Duration shutdownTimeout;
+    private final String owner = "replica-" + UUID.randomUUID();
+
+    private final Semaphore wakeup = new Semaphore(0);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter processedCounter;
+    private final Counter abandonedCounter;
+
+    private volatile boolean running;
+    private Thread workerThread;
+
+    public UpdateJournalService(
+            InboundUpdateRepository inboundUpdateRepository,
+            UpdateDispatcher updateDispatcher,
+            TelegramUpdateHandler updateHandler,
+            TelegramService telegramService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${telegram.journal.enabled:false}") boolean enabled,
+            @Value("${telegram.journal.batch-size:50}") int batchSize,
+            @Value("${telegram.journal.poll-interval:500ms}") Duration pollInterval,
+            @Value("${telegram.journal.lease:5m}") Duration lease,
+            @Value("${telegram.journal.max-attempts:5}") int maxAttempts,
+            @Value("${telegram.dispatch.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        this.inboundUpdateRepository = inboundUpdateRepository;
+        this.updateDispatcher = updateDispatcher;
+        this.updateHandler = updateHandler;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.botId = telegramService.getBotId();
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.shutdownTimeout = shutdownTimeout;
+
+        Gauge.builder("telegram.journal.in-flight", inFlight, AtomicInteger::get)
+            .description("Journaled updates claimed by this replica and not yet finished")
+            .register(meterRegistry);
+        this.processedCounter = Counter.builder("telegram.journal.processed")
+            .description("Updates processed from the journal")
+            .register(meterRegistry);
+        this.abandonedCounter = Counter.builder("telegram.journal.abandoned")
+            .description("Journaled updates dropped after too many attempts")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Whether accepted updates go through the journal instead of straight to the dispatcher.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes an accepted update to the journal.
+     *
+     * @param update The Telegram update (already validated)
+     * @return true if the update is stored (or was already stored), false if the journal is unavailable
+     */
+    public boolean append(TelegramUpdate update) {
+        try {
+            String payload = objectMapper.writeValueAsString(update);
+            inboundUpdateRepository.append(botId, update.updateId(), update.message().chatId(), payload, OffsetDateTime.now());
+            wakeup.release();
+            return true;
+        } catch (Exception e) {
+            log.error("❌ Could not journal update {}: {}", update.updateId(), e.getMessage());
+            return false;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        workerThread = Thread.ofPlatform().name("telegram-journal").daemon().start(this::workLoop);
+        log.info("📒 Update journal worker started ({}, batch size: {}, lease: {})", owner, batchSize, lease);
+    }
+
+    private void workLoop() {
+        while (running) {
+            try {
+                int capacity = Math.min(batchSize, updateDispatcher.getAvailableCapacity());
+                int claimed = 0;
+                if (capacity > 0) {
+                    OffsetDateTime now = OffsetDateTime.now();
+                    List<InboundUpdateEntity> updates =
+                        inboundUpdateRepository.claim(owner, capacity, now, now.minus(lease));
+                    claimed = updates.size();
+                    for (InboundUpdateEntity entry : updates) {
+                        try {
+                            dispatch(entry);
+                        } catch (Exception e) {
+                            // The rest of the batch is already claimed: one bad entry must not strand it
+                            log.error("❌ Could not dispatch journaled update {}: {}", entry.getUpdateId(), e.getMessage());
+                            release(entry);
+                        }
+                    }
+                }
+                if (claimed < capacity || capacity == 0) {
+                    // Nothing more to claim (or no room): wait for new work or the next poll
+                    wakeup.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    wakeup.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("⚠️ Could not claim journaled updates: {}", e.getMessage());
+                sleep(pollInterval);
+            }
+        }
+    }
+
+    private void dispatch(InboundUpdateEntity entry) {
+        if (entry.getAttempts() > maxAttempts) {
+            abandonedCounter.increment();
+            log.error("❌ Dropping journaled update {} after {} attempts", entry.getUpdateId(), entry.getAttempts() - 1);
+            inboundUpdateRepository.complete(entry.getId());
+            return;
+        }
+
+        TelegramUpdate update;
+        try {
+            update = objectMapper.readValue(entry.getPayload(), TelegramUpdate.class);
+        } catch (Exception e) {
+            log.error("❌ Unreadable journaled update {}, dropping it: {}", entry.getUpdateId(), e.getMessage());
+            inboundUpdateRepository.complete(entry.getId());
+            return;
+        }
+
+        inFlight.incrementAndGet();
+        Admission admission;
+        try {
+            admission = updateDispatcher.dispatch(entry.getChatId(), () -> {
+                try {
+                    updateHandler.handleMessage(update.message());
+                } finally {
+                    finish(entry);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+
+        if (admission != Admission.ACCEPTED) {
+            // Over the limit after all: leave it for the next claim
+            inFlight.decrementAndGet();
+            inboundUpdateRepository.release(entry.getId(), owner);
+        }
+    }
+
+    private void release(InboundUpdateEntity entry) {
+        try {
+            inboundUpdateRepository.release(entry.getId(), owner);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release journaled update {}, it will be reclaimed after the lease: {}",
+                entry.getUpdateId(), e.getMessage());
+        }
+    }
+
+    private void finish(InboundUpdateEntity entry) {
+        try {
+            inboundUpdateRepository.complete(entry.getId());
+            processedCounter.increment();
+        } catch (Exception e) {
+            log.error("❌ Could not mark journaled update {} as processed: {}", entry.getUpdateId(), e.getMessage());
+        } finally {
+            inFlight.decrementAndGet();
+            // The next update of this chat is now claimable
+            wakeup.release();
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    /**
+     * Stops claiming, waits for the claimed updates to finish and releases whatever is left
+     * so another replica picks it up immediately instead of waiting for the lease.
+     * Runs before the dispatcher drains, since this service depends on it.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        if (workerThread != null) {
+            workerThread.interrupt();
+        }
+
+        log.info("🛑 Draining journaled updates ({} in flight)...", inFlight.get());
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            sleep(Duration.ofMillis(100));
+        }
+
+        try {
+            int released = inboundUpdateRepository.releaseAll(owner);
+            if (released > 0) {
+                log.warn("⚠️ Released {} unfinished journaled updates", released);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release journaled updates, they will be reclaimed after the lease: {}", e.getMessage());
+        }
+        log.info("✅ Update journal worker stopped");
+    }
+}
@@ -1,8 +1,12 @@
 package com.avaricia.sb_service.assistant.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.avaricia.sb_service.assistant.logging.LogContent;
+
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -14,6 +18,8 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 public class UserMappingService {
     
+    private static final Logger log = LoggerFactory.getLogger(UserMappingService.class);
+
     private final CoreApiService coreApi;
     private final boolean useMock;
     
@@ -39,24 +45,24 @@ public class UserMappingService {
         if (useMock) {
             String newUserId = UUID.randomUUID().toString();
             telegramToUserIdCache.put(telegramId, newUserId);
-            System.out.println("🧪 [MOCK] New user created - Telegram ID: " + telegramId + " -> User ID: " + newUserId);
+            log.info("🧪 [MOCK] New user created - Telegram ID: {} -> User ID: {}", telegramId, newUserId);
             return newUserId;
         }
         
         Map<String, Object> userResult = coreApi.getUserByTelegramId(telegramId);
         
-        System.out.println("🔍 API Response for TelegramId " + telegramId + ": " + userResult);
+        log.debug("🔍 Core lookup for Telegram ID {} returned fields {}", telegramId, userResult.keySet());
         
         if (!userResult.containsKey("error") && (userResult.containsKey("id") || userResult.containsKey("Id"))) {
             String userId = extractUserId(userResult);
             if (userId != null) {
                 telegramToUserIdCache.put(telegramId, userId);
-                System.out.println("🔗 User found by TelegramId - Telegram: " + telegramId + " -> User ID: " + userId);
+                log.info("🔗 User found by Telegram ID - Telegram: {} -> User ID: {}", telegramId, userId);
                 return userId;
             }
         }
         
-        System.out.println("⚠️ User not linked - Telegram ID: " + telegramId);
+        log.info("⚠️ User not linked - Telegram ID: {}", telegramId);
         return null;
     }
     
@@ -65,7 +71,7 @@ public class UserMappingService {
         if (useMock) {
             String mockUserId = UUID.randomUUID().toString();
             telegramToUserIdCache.put(telegramId, mockUserId);
-            System.out.println("🧪 [MOCK] Telegram linked - Code: " + linkCode + " -> User ID: " + mockUserId);
+            log.info("🧪 [MOCK] Telegram linked - Telegram ID: {} -> User ID: {}", telegramId, mockUserId);
             return new LinkResult(true, "¡Cuenta vinculada exitosamente!", mockUserId, "Usuario Mock");
         }
         
@@ -73,7 +79,7 @@ public class UserMappingService {
         
         if (result.containsKey("error")) {
             String error = (String) result.get("error");
-            System.err.println("❌ Link failed: " + error);
+            log.warn("❌ Link failed for Telegram ID {}: {}", telegramId, error);
             return new LinkResult(false, translateError(error), null, null);
         }
         
@@ -90,7 +96,7 @@ public class UserMappingService {
                 ? (String) result.get("message") 
                 : "¡Cuenta vinculada exitosamente!";
             
-            System.out.println("✅ Telegram linked - ID: " + telegramId + " -> User: " + userName);
+            log.info("✅ Telegram linked - Telegram ID: {} -> User ID: {}", telegramId, userId);
             return new LinkResult(true, message, userId, userName);
         }
         
@@ -160,7 +166,7 @@ public class UserMappingService {
         if (useMock) {
             String newUserId = UUID.randomUUID().toString();
             phoneToUserIdCache.put(phoneNumber, newUserId);
-            System.out.println("🧪 [MOCK] New user created - Phone: " + phoneNumber + " -> User ID: " + newUserId);
+            log.info("🧪 [MOCK] New user created - Phone: {} -> User ID: {}", LogContent.of(phoneNumber), newUserId);
             return newUserId;
         }
         
@@ -169,7 +175,7 @@ public class UserMappingService {
         if (!userResult.containsKey("error") && userResult.containsKey("id")) {
             String userId = (String) userResult.get("id");
             phoneToUserIdCache.put(phoneNumber, userId);
-            System.out.println("📱 User found by phone - Phone: " + phoneNumber + " -> User ID: " + userId);
+            log.info("📱 User found by phone - Phone: {} -> User ID: {}", LogContent.of(phoneNumber), userId);
             return userId;
         }
         
@@ -188,7 +194,7 @@ public class UserMappingService {
         
         if (createResult.containsKey("error")) {
             String fallbackId = UUID.randomUUID().toString();
-            System.err.println("⚠️ Failed to create user in Core API, using fallback ID: " + fallbackId);
+            log.warn("⚠️ Failed to create user in Core API, using fallback ID: {}", fallbackId);
             return fallbackId;
         }
         
@@ -197,13 +203,13 @@ public class UserMappingService {
             userId = createResult.containsKey("userId") ? (String) createResult.get("userId") : UUID.randomUUID().toString();
         }
         
-        System.out.println("✅ New user created in Core API - Name: " + name + " -> User ID: " + userId);
+        log.info("✅ New user created in Core API - User ID: {}", userId);
         return userId;
     }
     
     public void registerUser(Long telegramId, String userId) {
         telegramToUserIdCache.put(telegramId, userId);
-        System.out.println("📝 User registered - Telegram ID: " + telegramId + " -> User ID: " + userId);
+        log.info("📝 User registered - Telegram ID: {} -> User ID: {}", telegramId, userId);
     }
     
     public boolean isUserRegistered(Long telegramId) {
@@ -225,7 +231,7 @@ public class UserMappingService {
                 .orElse(null);
         
         if (cachedTelegramId != null) {
-            System.out.println("📱 Found Telegram ID in cache for user " + userId + ": " + cachedTelegramId);
+            log.debug("📱 Found Telegram ID in cache for user {}: {}", userId, cachedTelegramId);
             return cachedTelegramId;
         }
         
@@ -238,13 +244,13 @@ public class UserMappingService {
                 if (telegramId != null) {
                     // Cache the result for future lookups
                     telegramToUserIdCache.put(telegramId, userId);
-                    System.out.println("📱 Found Telegram ID from API for user " + userId + ": " + telegramId);
+                    log.debug("📱 Found Telegram ID from API for user {}: {}", userId, telegramId);
                     return telegramId;
                 }
             }
         }
         
-        System.out.println("⚠️ No Telegram ID found for user: " + userId);
+        log.info("⚠️ No Telegram ID found for user: {}", userId);
         return null;
     }
     
@@ -275,6 +281,6 @@ public class UserMappingService {
     public void clearCache() {
         telegramToUserIdCache.clear();
         phoneToUserIdCache.clear();
-        System.out.println("🧹 User cache cleared");
+        log.info("🧹 User cache cleared");
     }
 }
@@ -52,3 +52,42 @@ CREATE INDEX "IX_Transactions_UserId" ON public."Transactions" USING btree ("Use
 
 ALTER TABLE public."Transactions" ADD CONSTRAINT "FK_Transactions_Users_UserId" FOREIGN KEY ("UserId") REFERENCES public."Users"("Id") ON DELETE CASCADE;
 
+
+
+-- public."ProcessedUpdates" definition
+
+-- Drop table
+
+-- DROP TABLE public."ProcessedUpdates";
+
+CREATE TABLE public."ProcessedUpdates" (
+	"BotId" int8 NOT NULL,
+	"UpdateId" int8 NOT NULL,
+	"ReceivedAt" timestamptz NOT NULL,
+	CONSTRAINT "PK_ProcessedUpdates" PRIMARY KEY ("BotId", "UpdateId")
+);
+CREATE INDEX "IX_ProcessedUpdates_ReceivedAt" ON public."ProcessedUpdates" USING btree ("ReceivedAt");
+
+
+-- public."InboundUpdates" definition
+
+-- Drop table
+
+-- DROP TABLE public."InboundUpdates";
+
+CREATE TABLE public."InboundUpdates" (
+	"Id" bigserial NOT NULL,
+	"BotId" int8 NOT NULL,
+	"UpdateId" int8 NOT NULL,
+	"ChatId" int8 NOT NULL,
+	"Payload" jsonb NOT NULL,
+	"Status" varchar(20) NOT NULL,
+	"ClaimedBy" varchar(100) NULL,
+	"ClaimedAt" timestamptz NULL,
+	"Attempts" int4 NOT NULL DEFAULT 0,
+	"CreatedAt" timestamptz NOT NULL,
+	CONSTRAINT "PK_InboundUpdates" PRIMARY KEY ("Id"),
+	CONSTRAINT "UQ_InboundUpdates_BotId_UpdateId" UNIQUE ("BotId", "UpdateId")
+);
+CREATE INDEX "IX_InboundUpdates_BotId_ChatId_Id" ON public."InboundUpdates" USING btree ("BotId", "ChatId", "Id");
+CREATE INDEX "IX_InboundUpdates_ClaimedBy" ON public."InboundUpdates" USING btree ("ClaimedBy") WHERE "ClaimedBy" IS NOT NULL;
@@ -0,0 +1,46 @@
+package com.avaricia.sb_service.assistant.benchmark;
+
+import com.avaricia.sb_service.assistant.service.IntentVectorIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a nearest-neighbour query against the intent index built from the prompt examples
+ * and the recorded conversations, which replaces an OpenAI classification for the messages it
+ * accepts. The OpenAI side is not measured here: compare with
+ * assistant.llm.duration{operation=classify} from a deployment.
+ *
+ * Run from the IDE or with the test classpath:
+ *   java -cp target/test-classes:target/classes:<test classpath> \
+ *     org.openjdk.jmh.Main IntentVectorIndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntentVectorIndexBenchmark {
+
+    private IntentVectorIndex index;
+
+    @Param({"¿Cuánta plata me queda?", "Quiero ver todos mis movimientos del banco", "¿Cómo hago un presupuesto?"})
+    public String message;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        index = new IntentVectorIndex(new SimpleMeterRegistry(), true, 0.65, 5);
+    }
+
+    @Benchmark
+    public Object classify() {
+        return index.classify(message);
+    }
+
+    @Benchmark
+    public Object predict() {
+        return index.predict(message);
+    }
+}
@@ -0,0 +1,57 @@
+package com.avaricia.sb_service.assistant.benchmark;
+
+import com.avaricia.sb_service.assistant.service.LocalHumanizerService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the local phrasing of data-rich responses, which replaces the second OpenAI
+ * round trip. The OpenAI side is not measured here: compare with
+ * assistant.humanize.llm.duration from a deployment with assistant.humanizer.llm.enabled=true.
+ *
+ * Run from the IDE or with the test classpath:
+ *   java -cp target/test-classes:target/classes:<test classpath> \
+ *     org.openjdk.jmh.Main LocalHumanizerBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocalHumanizerBenchmark {
+
+    private static final String STRUCTURED_BALANCE = """
+        💰 *Tu situación financiera:*
+
+        📈 Ingresos totales: $13,000,000
+        📉 Gastos totales: $2,198,500
+
+        💵 *Saldo actual:* $10,801,500""";
+
+    private final LocalHumanizerService humanizer = new LocalHumanizerService();
+
+    private double balance;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        balance = 10_801_500;
+    }
+
+    @Benchmark
+    public String balance() {
+        return humanizer.balance(13_000_000, 2_198_500, balance).around(STRUCTURED_BALANCE);
+    }
+
+    @Benchmark
+    public void summary(Blackhole bh) {
+        bh.consume(humanizer.summary("Comida", "🍔", 600_000, 62.5));
+    }
+
+    @Benchmark
+    public String transactions() {
+        return humanizer.transactions(null, 12, 2_000_000, balance / 4);
+    }
+}
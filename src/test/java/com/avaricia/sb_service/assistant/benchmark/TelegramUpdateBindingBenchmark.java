@@ -0,0 +1,96 @@
+package com.avaricia.sb_service.assistant.benchmark;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares binding a Telegram webhook payload into HashMap (previous controller)
+ * against the typed TelegramUpdate records.
+ *
+ * Run from the IDE or with the test classpath, adding "-prof gc" to see allocation per call:
+ *   java -cp target/test-classes:target/classes:<test classpath> \
+ *     com.avaricia.sb_service.assistant.benchmark.TelegramUpdateBindingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TelegramUpdateBindingBenchmark {
+
+    // Photo message with caption entities: most fields are not used by the assistant
+    private static final String PHOTO_UPDATE = """
+        {"update_id":815432101,"message":{"message_id":4521,
+        "from":{"id":123456789,"is_bot":false,"first_name":"Laura","last_name":"Gómez","username":"laurag","language_code":"es"},
+        "chat":{"id":123456789,"first_name":"Laura","last_name":"Gómez","username":"laurag","type":"private"},
+        "date":1735689600,
+        "photo":[{"file_id":"AgACAgEAAxkBAAIRW2abc1","file_unique_id":"AQADx1","file_size":1523,"width":90,"height":67},
+                 {"file_id":"AgACAgEAAxkBAAIRW2abc2","file_unique_id":"AQADx2","file_size":21871,"width":320,"height":240},
+                 {"file_id":"AgACAgEAAxkBAAIRW2abc3","file_unique_id":"AQADx3","file_size":98213,"width":800,"height":600},
+                 {"file_id":"AgACAgEAAxkBAAIRW2abc4","file_unique_id":"AQADx4","file_size":201238,"width":1280,"height":960}],
+        "caption":"Factura del mercado #compras @laurag",
+        "caption_entities":[{"offset":20,"length":8,"type":"hashtag"},{"offset":29,"length":7,"type":"mention"}]}}
+        """;
+
+    private static final String TEXT_UPDATE = """
+        {"update_id":815432102,"message":{"message_id":4522,
+        "from":{"id":123456789,"is_bot":false,"first_name":"Laura","last_name":"Gómez","username":"laurag","language_code":"es"},
+        "chat":{"id":123456789,"first_name":"Laura","last_name":"Gómez","username":"laurag","type":"private"},
+        "date":1735689660,"text":"Gasté 50k en comida"}}
+        """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"text", "photo"})
+    public String payload;
+
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        body = ("photo".equals(payload) ? PHOTO_UPDATE : TEXT_UPDATE).getBytes();
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void hashMap(Blackhole bh) throws Exception {
+        HashMap<String, Object> update = objectMapper.readValue(body, HashMap.class);
+        Map<String, Object> message = (Map<String, Object>) update.get("message");
+        Map<String, Object> chat = (Map<String, Object>) message.get("chat");
+        Map<String, Object> from = (Map<String, Object>) message.get("from");
+        bh.consume(((Number) update.get("update_id")).longValue());
+        bh.consume(((Number) chat.get("id")).longValue());
+        bh.consume(((Number) from.get("id")).longValue());
+        bh.consume(from.get("username"));
+        bh.consume(message.get("text"));
+        bh.consume(message.get("voice"));
+    }
+
+    @Benchmark
+    public void typedRecords(Blackhole bh) throws Exception {
+        TelegramUpdate update = objectMapper.readValue(body, TelegramUpdate.class);
+        TelegramUpdate.Message message = update.message();
+        bh.consume(update.updateId());
+        bh.consume(message.chatId());
+        bh.consume(message.telegramId());
+        bh.consume(message.from().username());
+        bh.consume(message.text());
+        bh.consume(message.voice());
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+            .include(TelegramUpdateBindingBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .build()).run();
+    }
+}
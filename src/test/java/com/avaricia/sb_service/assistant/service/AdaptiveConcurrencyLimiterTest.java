@@ -0,0 +1,86 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter.
+ * Verifies admission at the limit and AIMD adaptation to latency.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration THRESHOLD = Duration.ofSeconds(1);
+
+    @Test
+    @DisplayName("At the limit - Further acquisitions are refused")
+    void atLimit_Refuses() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(5, 1, 100, THRESHOLD);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(5, limiter.getInFlight());
+
+        limiter.releaseWithoutSample();
+        assertTrue(limiter.tryAcquire());
+
+        System.out.println("✅ Limit enforced");
+    }
+
+    @Test
+    @DisplayName("Slow completions - Limit decreases down to the minimum")
+    void slowCompletions_DecreaseLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 10, 100, THRESHOLD);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(5, TimeUnit.SECONDS, false);
+        }
+        assertTrue(limiter.getLimit() < 50, "Limit should shrink, was " + limiter.getLimit());
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(0, TimeUnit.MILLISECONDS, true);
+        }
+        assertEquals(10, limiter.getLimit());
+
+        System.out.println("✅ Limit decreased to " + limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Fast completions under load - Limit grows up to the maximum")
+    void fastCompletionsUnderLoad_IncreaseLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 20, THRESHOLD);
+
+        for (int round = 0; round < 500; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(10, TimeUnit.MILLISECONDS, false);
+            }
+        }
+        assertEquals(20, limiter.getLimit());
+
+        System.out.println("✅ Limit increased to " + limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Fast completions while idle - Limit does not grow")
+    void fastCompletionsIdle_KeepLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, THRESHOLD);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(10, TimeUnit.MILLISECONDS, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+}
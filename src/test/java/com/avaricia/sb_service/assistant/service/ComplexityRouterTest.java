@@ -0,0 +1,206 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.service.ComplexityRouter.Route;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ComplexityRouter.
+ * Multi-operation and date-range messages must keep the large model; the rest may use the small one.
+ */
+class ComplexityRouterTest {
+
+    private static final String SMALL_MODEL = "small-model";
+    private static final String LARGE_MODEL = "large-model";
+
+    /** "- "message" -> {json}" example lines of the classification prompt */
+    private static final Pattern PROMPT_EXAMPLE = Pattern.compile("^\\s*-\\s*\"([^\"]+)\"[^{]*->");
+
+    /** The user turn of a recorded conversation, in each of the formats of docs/test-results */
+    private static final Pattern RECORDED_MESSAGE = Pattern.compile(
+        "\\*\\*Usuario:\\*\\*\\s*```\\s*\\n(.*?)\\n```"
+            + "|^Johan R: ([^\\n]+)"
+            + "|Mensaje Enviado[^\\n]*\\n```\\s*\\n(.*?)\\n```"
+            + "|\\*\\*Entrada\\*\\*: `([^`\\n]*)`",
+        Pattern.DOTALL | Pattern.MULTILINE);
+    private static final Path RECORDINGS = Path.of("docs/test-results");
+
+    /** Recordings whose every message is several operations, a date range or long: never the small model */
+    private static final Set<String> LARGE_ONLY_RECORDINGS = Set.of(
+        "test-08-transactions-by-range.md", "test-18-multiple-operations.md", "test-20-9-long-message.md");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JTokkitTokenCountEstimator tokenizer = new JTokkitTokenCountEstimator();
+    private final SpanishNormalizer normalizer = new SpanishNormalizer(meterRegistry);
+    private final ComplexityRouter router = router(true, SMALL_MODEL);
+
+    @Test
+    @DisplayName("Simple messages - One operation or query goes to the small model")
+    void simple_SmallModel() {
+        List<String> messages = List.of(
+            "Gasté 30k en taxi",
+            "Pagué Netflix 30k",
+            "Recibí mi sueldo de 2.000.000",
+            "¿Cuánto dinero tengo?",
+            "¿Cuánto gasté ayer?",
+            "Dame los gastos de Transporte",
+            "¿Puedo gastar 100k en una fiesta?",
+            "Pon un límite de 500k para comida",
+            "Borra la última transacción");
+
+        for (String message : messages) {
+            Route route = router.route(message);
+            assertTrue(route.isSmall(), message + " scored " + route.score());
+            assertEquals(SMALL_MODEL, route.model());
+        }
+
+        System.out.println("✅ " + messages.size() + " simple messages routed to the small model");
+    }
+
+    @Test
+    @DisplayName("Complex messages - Several operations, date ranges and long messages go to the large model")
+    void complex_LargeModel() {
+        List<String> messages = List.of(
+            "Gasté 10k en gaseosa y gané 50k en una apuesta",
+            "Me pagaron 2M y pagué 800k de arriendo",
+            "Pagué 20k de almuerzo, 15k de taxi y 8k de café",
+            "Compré mercado por 150 mil, luego le presté 50 mil a mi hermano",
+            "¿Cuánto gané del 1 al 15?",
+            "Gastos del 1 de octubre al 15 de noviembre",
+            "Gastos de la semana pasada",
+            "Ayer fui al centro comercial con mi familia, compramos ropa, zapatos y algunas cosas para la casa, "
+                + "¿me ayudas a registrar eso?");
+
+        for (String message : messages) {
+            Route route = router.route(message);
+            assertFalse(route.isSmall(), message + " scored " + route.score());
+            assertEquals(LARGE_MODEL, route.model());
+        }
+
+        System.out.println("✅ " + messages.size() + " complex messages kept on the large model");
+    }
+
+    @Test
+    @DisplayName("Prompt examples - Share of the example messages that can use the small model")
+    void promptExamples_SmallShare() {
+        int examples = 0;
+        int small = 0;
+        for (String line : IntentClassifierService.SYSTEM_PROMPT.split("\n")) {
+            Matcher example = PROMPT_EXAMPLE.matcher(line);
+            if (!example.lookingAt()) {
+                continue;
+            }
+            examples++;
+            if (router.route(example.group(1)).isSmall()) {
+                small++;
+            }
+        }
+
+        assertTrue(examples > 15);
+        assertTrue(small * 2 > examples, small + " of " + examples);
+
+        System.out.printf("✅ %d of %d prompt examples routed to the small model (%.0f%%)%n",
+            small, examples, 100.0 * small / examples);
+    }
+
+    @Test
+    @DisplayName("Recorded conversations - Multi-operation, range and long messages never take the small route")
+    void recordedConversations_SmallRoute() throws IOException {
+        List<Path> recordings;
+        try (var files = Files.list(RECORDINGS)) {
+            recordings = files.filter(file -> file.getFileName().toString().startsWith("test-")).sorted().toList();
+        }
+        assertFalse(recordings.isEmpty());
+
+        int messages = 0;
+        int small = 0;
+        List<String> misrouted = new ArrayList<>();
+        for (Path recording : recordings) {
+            String name = recording.getFileName().toString();
+            int fileMessages = 0;
+            int fileSmall = 0;
+            Matcher message = RECORDED_MESSAGE.matcher(Files.readString(recording));
+            while (message.find()) {
+                String text = recordedMessage(message);
+                if (text.isEmpty()) {
+                    continue;
+                }
+                fileMessages++;
+                if (router.route(text).isSmall()) {
+                    fileSmall++;
+                    if (LARGE_ONLY_RECORDINGS.contains(name)) {
+                        misrouted.add(name + ": " + text);
+                    }
+                }
+            }
+            System.out.printf("   %-36s %2d of %2d small%n", name, fileSmall, fileMessages);
+            messages += fileMessages;
+            small += fileSmall;
+        }
+
+        assertTrue(messages > 100, "recorded messages: " + messages);
+        assertTrue(misrouted.isEmpty(), "small route for " + misrouted);
+
+        System.out.printf("✅ %d of %d recorded messages routed to the small model (%.0f%%)%n",
+            small, messages, 100.0 * small / messages);
+    }
+
+    @Test
+    @DisplayName("Disabled - Everything goes to the large model")
+    void disabled_LargeModel() {
+        assertFalse(router(false, SMALL_MODEL).route("¿Cuánto dinero tengo?").isSmall());
+        // Not even scored: a bad date cannot break a message routing does not apply to
+        assertEquals(0, router(false, SMALL_MODEL).route("Gastos del 2025-02-30 y del 2025-13-01").score());
+        assertFalse(router(true, LARGE_MODEL).route("¿Cuánto dinero tengo?").isSmall(), "same model on both routes");
+        assertFalse(router(true, " ").route("¿Cuánto dinero tengo?").isSmall());
+    }
+
+    @Test
+    @DisplayName("Metrics - Latency, tokens and results are recorded per route")
+    void metrics_PerRoute() {
+        Route small = router.route("¿Cuánto dinero tengo?");
+        long startedAt = System.nanoTime();
+        router.completed(small, startedAt, "Eres un asistente financiero.", "¿Cuánto dinero tengo?",
+            "{\"i\":\"get_balance\",\"r\":\"Consultando tu saldo actual...\"}");
+        router.failed(small, startedAt, true);
+        router.failed(router.large(small.score()), startedAt, false);
+
+        assertEquals(2, meterRegistry.get("assistant.intent.route.duration").tag("route", "small").timer().count());
+        assertEquals(1, meterRegistry.get("assistant.intent.route.result")
+            .tag("route", "small").tag("result", "ok").counter().count());
+        assertEquals(1, meterRegistry.get("assistant.intent.route.result")
+            .tag("route", "small").tag("result", "invalid").counter().count());
+        assertEquals(1, meterRegistry.get("assistant.intent.route.result")
+            .tag("route", "large").tag("result", "failed").counter().count());
+        assertTrue(meterRegistry.get("assistant.intent.route.tokens")
+            .tag("route", "small").tag("direction", "input").summary().totalAmount() > 5);
+        assertTrue(meterRegistry.get("assistant.intent.route.tokens")
+            .tag("route", "small").tag("direction", "output").summary().totalAmount() > 5);
+    }
+
+    private static String recordedMessage(Matcher message) {
+        for (int group = 1; group <= message.groupCount(); group++) {
+            if (message.group(group) != null) {
+                return message.group(group).strip();
+            }
+        }
+        return "";
+    }
+
+    private ComplexityRouter router(boolean enabled, String smallModel) {
+        return new ComplexityRouter(normalizer, tokenizer, meterRegistry, enabled, smallModel, LARGE_MODEL, 2);
+    }
+}
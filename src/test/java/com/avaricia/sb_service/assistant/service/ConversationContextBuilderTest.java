@@ -0,0 +1,99 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import com.avaricia.sb_service.assistant.service.ConversationHistoryService.ConversationMessage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConversationContextBuilder.
+ * Verifies the token budget, the gist of data-heavy replies and the tokens saved.
+ */
+class ConversationContextBuilderTest {
+
+    private static final String TRANSACTION_LIST = """
+        📋 *Tus gastos:*
+
+        💸 $30,000 - taxi (Transporte) - 2025-12-01
+        💸 $20,000 - almuerzo (Comida) - 2025-12-02
+        💸 $45,000 - Netflix (Entretenimiento) - 2025-12-03
+        💸 $12,000 - café (Comida) - 2025-12-04
+        💸 $80,000 - mercado (Comida) - 2025-12-05
+        💸 $15,000 - bus (Transporte) - 2025-12-06
+
+        📊 *Total gastos:* $202,000 (6 transacciones)""";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConversationContextBuilder builder =
+        new ConversationContextBuilder(new JTokkitTokenCountEstimator(), meterRegistry, 400, 280, 800);
+
+    @Test
+    @DisplayName("Gist - Data-heavy reply keeps title, item count and totals")
+    void gist_KeepsTitleCountAndTotals() {
+        String gist = builder.gist(TRANSACTION_LIST.replace("*", ""));
+
+        assertTrue(gist.startsWith("📋 Tus gastos:"));
+        assertTrue(gist.contains("Total gastos: $202,000"));
+        assertTrue(gist.contains("[6 elementos listados]"));
+        assertFalse(gist.contains("Netflix"));
+
+        System.out.println("✅ Gist: " + gist);
+    }
+
+    @Test
+    @DisplayName("Latest reply - Kept with its items for follow-up questions")
+    void latestReply_KeepsItems() {
+        ConversationContextBuilder.Context context = builder.build(List.of(
+            message("user", "Muéstrame mis gastos"),
+            message("assistant", TRANSACTION_LIST)));
+
+        assertTrue(context.text().startsWith(ConversationContextBuilder.HEADER));
+        assertTrue(context.text().contains("Netflix"));
+        assertFalse(context.text().contains("*"));
+
+        System.out.println("✅ Latest reply kept: " + context.tokens() + " tokens");
+    }
+
+    @Test
+    @DisplayName("Budget - Long conversations stay under the token budget")
+    void budget_LongConversationCompacted() {
+        List<ConversationMessage> history = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            history.add(message("user", "Muéstrame mis gastos de la semana " + i));
+            history.add(message("assistant", TRANSACTION_LIST));
+        }
+
+        ConversationContextBuilder.Context context = builder.build(history);
+
+        assertTrue(context.tokens() <= 400, "Context has " + context.tokens() + " tokens");
+        assertTrue(context.originalTokens() > context.tokens());
+        assertTrue(context.text().contains("semana 4"));
+        assertEquals(context.originalTokens() - context.tokens(),
+            meterRegistry.get("assistant.context.tokens.saved").counter().count(), 0.001);
+
+        System.out.println("✅ " + context.originalTokens() + " -> " + context.tokens() + " tokens");
+    }
+
+    @Test
+    @DisplayName("Empty history - No context")
+    void emptyHistory_NoContext() {
+        ConversationContextBuilder.Context context = builder.build(List.of());
+
+        assertEquals("", context.text());
+        assertEquals(0, context.tokens());
+
+        System.out.println("✅ No history, no context");
+    }
+
+    private static ConversationMessage message(String role, String content) {
+        return new ConversationMessage(role, content, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,171 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.CorePrefetchService.Prefetch;
+import com.avaricia.sb_service.assistant.service.CorePrefetchService.Read;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CorePrefetchService.
+ * Verifies the predicted reads and the hand-over, waste and miss accounting.
+ */
+class CorePrefetchServiceTest {
+
+    private static final String USER_ID = "user-1";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountingCoreApiService coreApi = new CountingCoreApiService();
+    private final CorePrefetchService prefetcher = new CorePrefetchService(coreApi, meterRegistry, true, false);
+
+    @ParameterizedTest(name = "\"{0}\" -> {1}")
+    @CsvSource(delimiter = '|', value = {
+        "¿Cuánto dinero tengo?                | BALANCE",
+        "¿Cuál es mi saldo?                   | BALANCE",
+        "¿En qué gasto más?                   | BALANCE SUMMARY",
+        "Dame un resumen de este mes          | BALANCE",
+        "Muéstrame mis gastos                 | EXPENSES",
+        "Mis ingresos                         | INCOMES",
+        "Mis movimientos                      | TRANSACTIONS",
+        "¿Cuáles son mis límites?             | RULES",
+        "¿Puedo gastar 200k en ropa?          | TRANSACTIONS RULES",
+        "¿Me alcanza para una cena de 80 mil? | TRANSACTIONS RULES",
+        "Gasté 50k en comida                  | ''",
+        "Pon un límite de 500k para comida    | ''",
+        "Gastos de la semana pasada           | ''",
+        "Hola, ¿cómo estás?                   | ''"
+    })
+    @DisplayName("Predict - Likely Core reads from the message text")
+    void predict_FromMessageText(String message, String expected) {
+        Set<Read> reads = expected.isBlank() ? EnumSet.noneOf(Read.class)
+            : Arrays.stream(expected.split(" ")).map(Read::valueOf).collect(Collectors.toCollection(() -> EnumSet.noneOf(Read.class)));
+
+        assertEquals(reads, CorePrefetchService.predict(message));
+
+        System.out.println("✅ \"" + message + "\" -> " + reads);
+    }
+
+    @Test
+    @DisplayName("Take - Prefetched reads are handed over once, then read again")
+    void take_HandsOverPrefetchedRead() {
+        Prefetch prefetch = prefetcher.start(USER_ID, "¿En qué gasto más?");
+        prefetcher.retainIfReadOnly(prefetch, List.of(intent("get_summary")));
+
+        assertEquals(1, prefetcher.getUserBalance(USER_ID).get("call"));
+        assertEquals(1, prefetcher.getTransactionSummaryByCategory(USER_ID).get("call"));
+        // A second read of the same data goes to Core
+        assertEquals(2, prefetcher.getUserBalance(USER_ID).get("call"));
+        prefetcher.finish(prefetch);
+
+        assertEquals(2, count("hit"));
+        assertEquals(1, count("miss"));
+        assertEquals(0, count("wasted"));
+
+        System.out.println("✅ Prefetched balance and summary used by the handler");
+    }
+
+    @Test
+    @DisplayName("Finish - Unused reads are counted as wasted")
+    void finish_CountsWastedReads() {
+        Prefetch prefetch = prefetcher.start(USER_ID, "¿Puedo gastar 200k en ropa?");
+        prefetcher.retainIfReadOnly(prefetch, List.of(intent("question")));
+        prefetcher.finish(prefetch);
+
+        assertEquals(2, count("wasted"));
+        // Nothing left to hand over after the request ends
+        prefetcher.getRules(USER_ID);
+        assertEquals(0, count("hit"));
+        assertEquals(1, count("miss"));
+
+        System.out.println("✅ Unused transactions and rules counted as wasted");
+    }
+
+    @Test
+    @DisplayName("Retain - Classifications with writes drop the prefetch")
+    void retain_WritesDropPrefetch() {
+        Prefetch prefetch = prefetcher.start(USER_ID, "¿Cuánto me queda?");
+        prefetcher.retainIfReadOnly(prefetch, List.of(intent("create_expense"), intent("get_balance")));
+
+        // The balance is read after the expense, so it must not come from the prefetch
+        prefetcher.getUserBalance(USER_ID);
+        prefetcher.finish(prefetch);
+
+        assertEquals(0, count("hit"));
+        assertEquals(1, count("wasted"));
+        assertEquals(1, count("miss"));
+
+        System.out.println("✅ Prefetched balance discarded when the message also writes");
+    }
+
+    @Test
+    @DisplayName("Start - Nothing is prefetched when disabled or in mock mode")
+    void start_DisabledOrMock() {
+        assertNull(new CorePrefetchService(coreApi, meterRegistry, false, false).start(USER_ID, "¿Cuál es mi saldo?"));
+        assertNull(new CorePrefetchService(coreApi, meterRegistry, true, true).start(USER_ID, "¿Cuál es mi saldo?"));
+        assertNull(prefetcher.start(null, "¿Cuál es mi saldo?"));
+        assertNull(prefetcher.start(USER_ID, "Hola"));
+        assertEquals(0, coreApi.calls.get());
+
+        System.out.println("✅ No speculative reads when disabled, in mock mode or without signals");
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("assistant.prefetch.calls").tag("result", result).counter().count();
+    }
+
+    private static IntentResult intent(String name) {
+        IntentResult intent = new IntentResult();
+        intent.setIntent(name);
+        return intent;
+    }
+
+    /**
+     * CoreApiService that numbers its calls instead of calling Core.
+     */
+    private static class CountingCoreApiService extends CoreApiService {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger balanceCalls = new AtomicInteger();
+        final AtomicInteger summaryCalls = new AtomicInteger();
+
+        CountingCoreApiService() {
+            super(null, "http://core.test", "key");
+        }
+
+        @Override
+        public Map<String, Object> getUserBalance(String userId) {
+            calls.incrementAndGet();
+            return Map.of("call", balanceCalls.incrementAndGet());
+        }
+
+        @Override
+        public Map<String, Object> getTransactionSummaryByCategory(String userId) {
+            calls.incrementAndGet();
+            return Map.of("call", summaryCalls.incrementAndGet());
+        }
+
+        @Override
+        public Map<String, Object> getTransactions(String userId, String type) {
+            return Map.of("call", calls.incrementAndGet());
+        }
+
+        @Override
+        public Map<String, Object> getRules(String userId) {
+            return Map.of("call", calls.incrementAndGet());
+        }
+    }
+}
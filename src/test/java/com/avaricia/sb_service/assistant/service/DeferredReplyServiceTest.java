@@ -0,0 +1,169 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DeferredReplyService.
+ * Uses fakes that record the Telegram calls and history replacements.
+ */
+class DeferredReplyServiceTest {
+
+    private static final Long CHAT_ID = 42L;
+    private static final Long TELEGRAM_ID = 7L;
+    private static final String STRUCTURED = "💰 *Tu situación financiera:*\n\n💵 *Saldo actual:* $2,500,000";
+    private static final String HUMANIZED = "¡Tienes *$2,500,000* disponibles! 💰 Vas muy bien este mes.";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecordingTelegramService telegram = new RecordingTelegramService();
+    private final RecordingHistoryService history = new RecordingHistoryService();
+    private final DeferredReplyService service =
+        new DeferredReplyService(telegram, history, meterRegistry, Duration.ofMillis(300));
+
+    @Test
+    @DisplayName("Deliver - Structured reply is sent first, then replaced by the rewrite")
+    void deliver_ReplacesWithRewrite() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        var shown = service.deliver(CHAT_ID, TELEGRAM_ID, STRUCTURED, () -> {
+            await(release);
+            return HUMANIZED;
+        });
+
+        // The user already has the structured reply while the rewrite is running
+        assertEquals(List.of("send-markdown:" + STRUCTURED), telegram.snapshot());
+        release.countDown();
+
+        assertEquals(HUMANIZED, shown.get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("send-markdown:" + STRUCTURED, "edit-markdown:" + HUMANIZED), telegram.snapshot());
+        assertEquals(List.of(STRUCTURED + " -> " + HUMANIZED), history.replacements);
+        assertEquals(1, count("replaced"));
+
+        System.out.println("✅ Structured reply shown first, rewrite edited in and recorded in history");
+    }
+
+    @Test
+    @DisplayName("Deliver - Late rewrite keeps the structured reply")
+    void deliver_TimeoutKeepsStructured() throws Exception {
+        CountDownLatch never = new CountDownLatch(1);
+
+        var shown = service.deliver(CHAT_ID, TELEGRAM_ID, STRUCTURED, () -> {
+            await(never);
+            return HUMANIZED;
+        });
+
+        assertEquals(STRUCTURED, shown.get(2, TimeUnit.SECONDS));
+        assertEquals(List.of("send-markdown:" + STRUCTURED), telegram.snapshot());
+        assertTrue(history.replacements.isEmpty());
+        assertEquals(1, count("timeout"));
+        never.countDown();
+
+        System.out.println("✅ Rewrite after the timeout dropped");
+    }
+
+    @Test
+    @DisplayName("Deliver - Failed or unchanged rewrites keep the structured reply")
+    void deliver_FailedOrUnchanged() throws Exception {
+        assertEquals(STRUCTURED, service.deliver(CHAT_ID, TELEGRAM_ID, STRUCTURED, () -> {
+            throw new IllegalStateException("OpenAI unavailable");
+        }).get(1, TimeUnit.SECONDS));
+        assertEquals(STRUCTURED, service.deliver(CHAT_ID, TELEGRAM_ID, STRUCTURED, () -> STRUCTURED)
+            .get(1, TimeUnit.SECONDS));
+
+        assertTrue(history.replacements.isEmpty());
+        assertEquals(1, count("failed"));
+        assertEquals(1, count("unchanged"));
+
+        System.out.println("✅ Failed and unchanged rewrites leave the structured reply in place");
+    }
+
+    @Test
+    @DisplayName("Deliver - Rejected Markdown is edited plain; unsendable reply goes through sendMessage")
+    void deliver_Fallbacks() throws Exception {
+        telegram.rejectMarkdown = true;
+        assertEquals(HUMANIZED, service.deliver(CHAT_ID, TELEGRAM_ID, STRUCTURED, () -> HUMANIZED).get(1, TimeUnit.SECONDS));
+        assertEquals(List.of("send-markdown:" + STRUCTURED, "send-plain:" + STRUCTURED,
+            "edit-markdown:" + HUMANIZED, "edit-plain:" + HUMANIZED), telegram.snapshot());
+
+        telegram.calls.clear();
+        telegram.failSend = true;
+        assertEquals(STRUCTURED, service.deliver(CHAT_ID, TELEGRAM_ID, STRUCTURED, () -> HUMANIZED).get(1, TimeUnit.SECONDS));
+        assertEquals("send:" + STRUCTURED, telegram.snapshot().get(2));
+
+        System.out.println("✅ Plain-text fallbacks used when Telegram rejects the message");
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("assistant.humanize.deferred").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * TelegramService that records calls instead of calling the Bot API.
+     * Markdown is rejected for both sends and edits when rejectMarkdown is set.
+     */
+    private static class RecordingTelegramService extends TelegramService {
+
+        final List<String> calls = new ArrayList<>();
+        volatile boolean rejectMarkdown;
+        volatile boolean failSend;
+
+        RecordingTelegramService() {
+            super(null, "1:test");
+        }
+
+        synchronized List<String> snapshot() {
+            return List.copyOf(calls);
+        }
+
+        @Override
+        public synchronized void sendMessage(Long chatId, String text) {
+            calls.add("send:" + text);
+        }
+
+        @Override
+        public synchronized Long sendMessageForEditing(Long chatId, String text, boolean markdown) {
+            calls.add((markdown ? "send-markdown:" : "send-plain:") + text);
+            return failSend || (markdown && rejectMarkdown) ? null : 100L;
+        }
+
+        @Override
+        public synchronized boolean editMessageText(Long chatId, Long messageId, String text, boolean markdown) {
+            calls.add((markdown ? "edit-markdown:" : "edit-plain:") + text);
+            return !(markdown && rejectMarkdown);
+        }
+    }
+
+    /**
+     * ConversationHistoryService that records replacements instead of using the database.
+     */
+    private static class RecordingHistoryService extends ConversationHistoryService {
+
+        final List<String> replacements = new ArrayList<>();
+
+        RecordingHistoryService() {
+            super(null);
+        }
+
+        @Override
+        public synchronized void replaceAssistantMessage(Long telegramId, String original, String replacement) {
+            replacements.add(original + " -> " + replacement);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExpiringLruCache.
+ * Uses a manual clock to verify expiration and LRU eviction.
+ */
+class ExpiringLruCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final ExpiringLruCache<String, String> cache = new ExpiringLruCache<>(2, clock::get);
+
+    @Test
+    @DisplayName("TTL - Entry is served until it expires")
+    void ttl_ExpiresEntry() {
+        cache.put("a", "1", 10, TimeUnit.SECONDS);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals("1", cache.get("a"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+
+        System.out.println("✅ Entry expired after its TTL");
+    }
+
+    @Test
+    @DisplayName("LRU - Least recently used entry is evicted when full")
+    void lru_EvictsLeastRecentlyUsed() {
+        cache.put("a", "1", 1, TimeUnit.MINUTES);
+        cache.put("b", "2", 1, TimeUnit.MINUTES);
+        cache.get("a");
+        cache.put("c", "3", 1, TimeUnit.MINUTES);
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+
+        System.out.println("✅ 'b' evicted, recently read 'a' kept");
+    }
+
+    @Test
+    @DisplayName("Put - Replaces the value and its TTL")
+    void put_ReplacesValue() {
+        cache.put("a", "1", 1, TimeUnit.SECONDS);
+        cache.put("a", "2", 1, TimeUnit.MINUTES);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertEquals("2", cache.get("a"));
+        assertEquals(1, cache.size());
+
+        System.out.println("✅ Value and TTL replaced");
+    }
+}
@@ -0,0 +1,219 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for FastIntentParser.
+ * The corpus is made of the example messages in IntentClassifierService.SYSTEM_PROMPT,
+ * with the fields the LLM is expected to return for them.
+ */
+class FastIntentParserTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 12, 7);
+    private static final double THRESHOLD = 0.9;
+
+    private final FastIntentParser parser = new FastIntentParser();
+
+    static Stream<Arguments> promptExamples() {
+        return Stream.of(
+            // Registrations
+            Arguments.of("Gasté 30k en taxi", expected("create_expense", 30_000.0, "Transporte", "Expense", null, null)),
+            Arguments.of("Gasté 100k en una fiesta", expected("create_expense", 100_000.0, "Entretenimiento", "Expense", null, null)),
+            Arguments.of("Compré comida por 20k", expected("create_expense", 20_000.0, "Comida", "Expense", null, null)),
+            Arguments.of("Pagué Netflix 30k", expected("create_expense", 30_000.0, "Entretenimiento", "Expense", null, null)),
+            Arguments.of("Recibí mi sueldo de 2M", expected("create_income", 2_000_000.0, "Salario", "Income", null, null)),
+            // Spending checks (nothing is registered)
+            Arguments.of("¿Puedo gastar 50k?", expected("validate_expense", 50_000.0, null, null, null, null)),
+            Arguments.of("¿Puedo gastar 100k en una fiesta?", expected("validate_expense", 100_000.0, "Entretenimiento", null, null, null)),
+            Arguments.of("¿Debería gastar 50k en ropa?", expected("validate_expense", 50_000.0, "Ropa", null, null, null)),
+            // Dates and ranges
+            Arguments.of("¿Cuánto gasté ayer?", expected("list_transactions_by_date", null, null, null, "2025-12-06", null)),
+            Arguments.of("Gastos de hoy", expected("list_transactions_by_date", null, null, null, "2025-12-07", null)),
+            Arguments.of("¿Cuánto gasté esta semana?", expected("list_transactions_by_range", null, null, "Expense", "2025-11-30", "2025-12-07")),
+            Arguments.of("Mis ingresos de noviembre", expected("list_transactions_by_range", null, null, "Income", "2025-11-01", "2025-11-30")),
+            Arguments.of("Transacciones de este mes", expected("list_transactions_by_range", null, null, null, "2025-12-01", "2025-12-31")),
+            Arguments.of("Gastos de los últimos 30 días", expected("list_transactions_by_range", null, null, "Expense", "2025-11-07", "2025-12-07")),
+            Arguments.of("Resumen del mes pasado", expected("list_transactions_by_range", null, null, null, "2025-11-01", "2025-11-30")),
+            // Balance
+            Arguments.of("¿Cuánto dinero tengo?", expected("get_balance", null, null, null, null, null)),
+            Arguments.of("¿Cuál es mi saldo?", expected("get_balance", null, null, null, null, null)),
+            Arguments.of("¿Cuánto me queda?", expected("get_balance", null, null, null, null, null)),
+            // Summary
+            Arguments.of("¿A dónde se va mi dinero?", expected("get_summary", null, null, null, null, null)),
+            Arguments.of("¿En qué gasto más?", expected("get_summary", null, null, null, null, null)),
+            Arguments.of("¿En qué se me va la plata?", expected("get_summary", null, null, null, null, null)),
+            Arguments.of("¿Dónde gasto más?", expected("get_summary", null, null, null, null, null)),
+            Arguments.of("Dame un resumen de gastos", expected("get_summary", null, null, null, null, null)),
+            Arguments.of("¿Cuál es el desglose de mis gastos?", expected("get_summary", null, null, null, null, null)),
+            Arguments.of("Dame un resumen", expected("get_summary", null, null, null, null, null)),
+            Arguments.of("¿Cuánto gasto en comida?", expected("get_summary", null, "Comida", null, null, null)),
+            // Listings
+            Arguments.of("Muéstrame mis gastos", expected("list_transactions", null, null, "Expense", null, null)),
+            Arguments.of("Dame mis ingresos", expected("list_transactions", null, null, "Income", null, null)),
+            Arguments.of("¿Qué transacciones tengo?", expected("list_transactions", null, null, null, null, null)),
+            Arguments.of("¿Cuáles son mis límites?", expected("list_rules", null, null, null, null, null)),
+            Arguments.of("Muéstrame mis reglas", expected("list_rules", null, null, null, null, null))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("promptExamples")
+    @DisplayName("Prompt examples - Parsed locally with the fields the LLM would return")
+    void promptExamples_ParsedLocally(String message, IntentResult expected) {
+        Optional<FastIntentParser.Match> match = parser.parse(message, TODAY);
+
+        assertTrue(match.isPresent(), "No match for: " + message);
+        assertTrue(match.get().confidence() >= THRESHOLD, "Low confidence for: " + message);
+        IntentResult actual = match.get().intent();
+        assertEquals(expected.getIntent(), actual.getIntent());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getStartDate(), actual.getStartDate());
+        assertEquals(expected.getEndDate(), actual.getEndDate());
+
+        System.out.println("✅ " + message + " -> " + actual.getIntent());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+        "Hola",
+        "¿Me alcanza para una fiesta?",
+        "¿Cómo ahorro dinero?",
+        "¿Debería invertir?",
+        "Me pagaron 500k",
+        "Gasté 10k en gaseosa y gané 50k en una apuesta",
+        "¿Cuánto pago por Netflix?",
+        "¿Cuánto gané del 1 al 15?",
+        "Pon un límite de 500k para comida",
+        "Límite mensual de 1M en gastos",
+        "Elimina el último gasto",
+        "Edita mi último gasto a 50k",
+        "Transfiere 100k a Juan",
+        "Paga mi Netflix",
+        "Invierte 500k en Bitcoin",
+        "y también 20k en taxi",
+        "/start"
+    })
+    @DisplayName("Ambiguous or out-of-scope messages - Left to the LLM")
+    void ambiguousMessages_LeftToLlm(String message) {
+        Optional<FastIntentParser.Match> match = parser.parse(message, TODAY);
+
+        assertTrue(match.isEmpty() || match.get().confidence() < THRESHOLD,
+            "Unexpected confident match for: " + message);
+
+        System.out.println("✅ Left to the LLM: " + message);
+    }
+
+    @Test
+    @DisplayName("Amount formats - k, mil, M, millones and thousands separators")
+    void amountFormats_AllParsed() {
+        assertAmount(50_000, "Gasté 50k en comida");
+        assertAmount(50_000, "Gasté 50 mil en comida");
+        assertAmount(50_000, "Gasté 50mil en comida");
+        assertAmount(50_000, "Gasté $50.000 en comida");
+        assertAmount(50_000, "Gasté 50,000 en comida");
+        assertAmount(50_000, "Gasté 50000 en comida");
+        assertAmount(2_000_000, "Recibí mi sueldo de 2 millones");
+        assertAmount(2_000_000, "Recibí mi sueldo de 2.000.000");
+        assertAmount(2_000_000, "Recibí mi sueldo de 2,000,000");
+        assertAmount(1_500_000, "Recibí mi sueldo de 1.5M");
+        assertAmount(1_500_000, "Recibí mi sueldo de 1,5 millones");
+
+        System.out.println("✅ All amount formats parsed");
+    }
+
+    @Test
+    @DisplayName("Ambiguous amount - Decimal without suffix lowers the confidence")
+    void ambiguousAmount_LowConfidence() {
+        Optional<FastIntentParser.Match> match = parser.parse("Gasté 1,5 en comida", TODAY);
+
+        assertTrue(match.isPresent());
+        assertTrue(match.get().confidence() < THRESHOLD);
+
+        System.out.println("✅ '1,5' without suffix is not trusted");
+    }
+
+    @Test
+    @DisplayName("Fractions - 'y medio' after millions is parsed, other trailing number words are not trusted")
+    void fractionAndTrailingWords() {
+        assertAmount(2_500_000, "Gasté 2 millones y medio en comida");
+        assertAmount(2_500_000, "Gasté 2M y medio en comida");
+        assertAmount(1_250_000, "Recibí mi sueldo de 1 millón y cuarto");
+
+        for (String message : new String[] {
+            "Gasté 50 mil y medio en comida",
+            "Gasté 2 millones doscientos en comida",
+            "Gasté 2 millones y quinientos en comida"}) {
+            Optional<FastIntentParser.Match> match = parser.parse(message, TODAY);
+            assertTrue(match.isEmpty() || match.get().confidence() < THRESHOLD,
+                "Unexpected confident match for: " + message);
+        }
+
+        System.out.println("✅ '2 millones y medio' -> 2500000, unparsed number words left to the LLM");
+    }
+
+    @Test
+    @DisplayName("Description - Keeps the user's original spelling")
+    void description_OriginalSpelling() {
+        IntentResult result = parser.parse("Pagué Netflix 30k", TODAY).orElseThrow().intent();
+
+        assertEquals("Netflix", result.getDescription());
+
+        System.out.println("✅ Description: " + result.getDescription());
+    }
+
+    @Test
+    @DisplayName("Non-ASCII uppercase - Letters whose lowercase is longer do not shift the description")
+    void description_NonAsciiUppercase() {
+        IntentResult result = parser.parse("İ pagué 20k de uber", TODAY).orElseThrow().intent();
+        assertEquals("uber", result.getDescription());
+        assertEquals(20_000.0, result.getAmount());
+
+        result = parser.parse("İSTANBUL: pagué Netflix 30k", TODAY).orElseThrow().intent();
+        assertEquals("Netflix", result.getDescription());
+    }
+
+    @Test
+    @DisplayName("Month name - A future month refers to last year")
+    void futureMonth_LastYear() {
+        IntentResult result = parser.parse("Mis gastos de diciembre", LocalDate.of(2026, 3, 10)).orElseThrow().intent();
+
+        assertEquals("2025-12-01", result.getStartDate());
+        assertEquals("2025-12-31", result.getEndDate());
+
+        System.out.println("✅ December asked in March -> " + result.getStartDate());
+    }
+
+    private void assertAmount(double expected, String message) {
+        Optional<FastIntentParser.Match> match = parser.parse(message, TODAY);
+        assertTrue(match.isPresent(), "No match for: " + message);
+        assertEquals(expected, match.get().intent().getAmount(), 0.001, message);
+        assertTrue(match.get().confidence() >= THRESHOLD, "Low confidence for: " + message);
+    }
+
+    private static IntentResult expected(String intent, Double amount, String category, String type,
+                                         String startDate, String endDate) {
+        IntentResult result = new IntentResult();
+        result.setIntent(intent);
+        result.setAmount(amount);
+        result.setCategory(category);
+        result.setType(type);
+        result.setStartDate(startDate);
+        result.setEndDate(endDate);
+        return result;
+    }
+}
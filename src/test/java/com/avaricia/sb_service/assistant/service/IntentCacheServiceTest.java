@@ -0,0 +1,81 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.ConversationHistoryService.ConversationMessage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IntentCacheService.
+ * Verifies key normalization, context sensitivity and which intents are cached.
+ */
+class IntentCacheServiceTest {
+
+    private final IntentCacheService cache =
+        new IntentCacheService(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10));
+
+    @Test
+    @DisplayName("Key - Case, accents, punctuation and spaces are folded")
+    void key_FoldsText() {
+        String key = cache.key("¿Cuánto   tengo?", List.of());
+
+        assertEquals(key, cache.key("cuanto tengo", List.of()));
+        assertEquals(key, cache.key("CUÁNTO TENGO.", List.of()));
+        assertNotEquals(key, cache.key("cuanto tengo ahorrado", List.of()));
+
+        System.out.println("✅ Equivalent messages share a key: " + key);
+    }
+
+    @Test
+    @DisplayName("Key - Depends on the last exchange of the conversation")
+    void key_DependsOnContext() {
+        List<ConversationMessage> history = List.of(
+            message("user", "Gasté 20k en taxi"),
+            message("assistant", "✅ Gasto registrado"),
+            message("user", "Muéstrame mis gastos"),
+            message("assistant", "📋 Tus gastos: ..."));
+        List<ConversationMessage> sameLastExchange = history.subList(2, 4);
+
+        assertEquals(cache.key("¿qué días?", history), cache.key("¿qué días?", sameLastExchange));
+        assertNotEquals(cache.key("¿qué días?", history), cache.key("¿qué días?", history.subList(0, 2)));
+        assertNotEquals(cache.key("¿qué días?", history), cache.key("¿qué días?", List.of()));
+
+        System.out.println("✅ Key changes with the last exchange only");
+    }
+
+    @Test
+    @DisplayName("Put - Only read-only queries are cached, as copies")
+    void put_OnlyReadOnlyQueries() {
+        cache.put("balance", List.of(intent("get_balance")));
+        cache.put("expense", List.of(intent("create_expense")));
+        cache.put("mixed", List.of(intent("list_transactions"), intent("delete_transaction")));
+
+        List<IntentResult> cached = cache.get("balance");
+        assertEquals("get_balance", cached.get(0).getIntent());
+        cached.get(0).setIntent("changed");
+        assertEquals("get_balance", cache.get("balance").get(0).getIntent());
+
+        assertNull(cache.get("expense"));
+        assertNull(cache.get("mixed"));
+
+        System.out.println("✅ Only get_balance cached, copies handed out");
+    }
+
+    private static IntentResult intent(String name) {
+        IntentResult result = new IntentResult();
+        result.setIntent(name);
+        return result;
+    }
+
+    private static ConversationMessage message(String role, String content) {
+        return new ConversationMessage(role, content, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,132 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.IntentClassifierService.StreamedIntent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IntentStreamParser.
+ * Responses are fed in small chunks, the way the LLM streams them.
+ */
+class IntentStreamParserTest {
+
+    private static final String MULTIPLE = """
+        ```json
+        [
+          {"i":"create_expense","a":"10k","c":"Comida","d":"gaseosa","t":"Expense","r":"Registrando 2 operaciones"},
+          {"i":"create_income","a":"50k","c":"Otros","d":"apuesta deportiva","t":"Income","r":""}
+        ]
+        ```""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<StreamedIntent> streamed = new ArrayList<>();
+    /** How much of the response had been fed when each intent was reported */
+    private final List<Integer> fedAt = new ArrayList<>();
+    private int fed;
+
+    @Test
+    @DisplayName("Array - Each element is reported before the rest of the array is generated")
+    void array_ElementsReportedEarly() throws IOException {
+        IntentStreamParser parser = parser();
+        feedInChunks(parser, MULTIPLE, 3);
+        List<IntentResult> intents = parser.finish();
+
+        assertEquals(2, intents.size());
+        assertEquals(2, streamed.size());
+        assertEquals(new StreamedIntent(intents.get(0), 0, false), streamed.get(0));
+        assertEquals(new StreamedIntent(intents.get(1), 1, true), streamed.get(1));
+        assertTrue(fedAt.get(0) < MULTIPLE.indexOf("create_income") + 20,
+            "the first operation is reported as soon as the second one starts");
+
+        IntentResult expense = intents.get(0);
+        assertEquals("create_expense", expense.getIntent());
+        assertEquals("10k", expense.getAmountText());
+        assertEquals("Comida", expense.getCategory());
+        assertEquals("gaseosa", expense.getDescription());
+        assertEquals("Expense", expense.getType());
+        assertEquals("apuesta deportiva", intents.get(1).getDescription());
+
+        System.out.println("✅ First operation reported after " + fedAt.get(0) + " of " + MULTIPLE.length() + " chars");
+    }
+
+    @Test
+    @DisplayName("Object - A single intent (compact or full keys) is reported as the last one")
+    void object_SingleIntent() throws IOException {
+        IntentStreamParser compact = parser();
+        feedInChunks(compact, "{\"i\":\"list_transactions_by_date\",\"f\":\"ayer\",\"r\":\"Consultando...\"}", 4);
+        compact.finish();
+
+        IntentStreamParser full = parser();
+        feedInChunks(full, "{\"intent\":\"get_balance\",\"amount\":null,\"startDate\":null,\"response\":\"Saldo\"}", 4);
+        full.finish();
+
+        assertEquals(2, streamed.size());
+        assertEquals("ayer", streamed.get(0).intent().getDateText());
+        assertTrue(streamed.get(0).last());
+        assertEquals("get_balance", streamed.get(1).intent().getIntent());
+        assertEquals(0, streamed.get(1).index());
+
+        System.out.println("✅ Single objects reported once, compact and full schemas alike");
+    }
+
+    @Test
+    @DisplayName("Array - A one-element array is reported like a single intent")
+    void array_OneElement() throws IOException {
+        IntentStreamParser parser = parser();
+        feedInChunks(parser, "[{\"i\":\"get_summary\"}]", 2);
+        parser.finish();
+
+        assertEquals(1, streamed.size());
+        assertEquals(0, streamed.get(0).index());
+        assertTrue(streamed.get(0).last());
+
+        System.out.println("✅ One-element array reported as last");
+    }
+
+    @Test
+    @DisplayName("Errors - Truncated or non-JSON responses fail, completed intents are kept")
+    void errors_TruncatedAndText() throws IOException {
+        IntentStreamParser truncated = parser();
+        String cut = MULTIPLE.substring(0, MULTIPLE.indexOf("apuesta"));
+        feedInChunks(truncated, cut, 5);
+
+        assertThrows(IOException.class, truncated::finish);
+        assertEquals(1, truncated.intents().size());
+        assertEquals("create_expense", truncated.intents().get(0).getIntent());
+
+        IntentStreamParser text = parser();
+        text.feed("Lo siento, no entendí");
+        assertThrows(IOException.class, text::finish);
+
+        IntentStreamParser noObjects = parser();
+        noObjects.feed("```\n");
+        noObjects.feed("[\"get_balance\"]\n```");
+        assertThrows(IOException.class, noObjects::finish);
+
+        System.out.println("✅ Incomplete responses detected, " + truncated.intents().size() + " completed intent kept");
+    }
+
+    private IntentStreamParser parser() throws IOException {
+        return new IntentStreamParser(objectMapper, intent -> {
+            streamed.add(intent);
+            fedAt.add(fed);
+        });
+    }
+
+    private void feedInChunks(IntentStreamParser parser, String response, int size) throws IOException {
+        fed = 0;
+        for (int i = 0; i < response.length(); i += size) {
+            String chunk = response.substring(i, Math.min(response.length(), i + size));
+            fed += chunk.length();
+            parser.feed(chunk);
+        }
+    }
+}
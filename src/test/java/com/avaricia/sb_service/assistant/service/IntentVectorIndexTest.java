@@ -0,0 +1,140 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.IntentVectorIndex.Example;
+import com.avaricia.sb_service.assistant.service.IntentVectorIndex.Prediction;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IntentVectorIndex.
+ * The accuracy report holds out each labelled example in turn and classifies it with an index
+ * built from the others, next to FastIntentParser on the same messages.
+ */
+class IntentVectorIndexTest {
+
+    private static final double THRESHOLD = 0.65;
+
+    private final IntentVectorIndex index = new IntentVectorIndex(new SimpleMeterRegistry(), true, THRESHOLD, 5);
+
+    @Test
+    @DisplayName("Examples - Prompt examples and recorded conversations are loaded")
+    void examples_Loaded() {
+        List<Example> prompt = IntentVectorIndex.promptExamples(IntentClassifierService.SYSTEM_PROMPT);
+        List<Example> recorded = IntentVectorIndex.resourceExamples();
+
+        assertTrue(prompt.contains(new Example("¿Cuánto dinero tengo?", "get_balance")));
+        assertTrue(prompt.contains(new Example("¿A dónde se va mi dinero?", "get_summary")));
+        assertTrue(prompt.contains(new Example("Paga mi Netflix", "question")));
+        assertTrue(prompt.contains(new Example("¿Debería gastar 50k en ropa?", "validate_expense")));
+        assertTrue(prompt.stream().noneMatch(example -> example.intent().equals("usar")));
+        assertTrue(recorded.contains(new Example("¿Cómo estoy de plata?", "get_balance")));
+        assertTrue(recorded.size() >= 100, "recorded: " + recorded.size());
+
+        System.out.println("✅ " + prompt.size() + " prompt examples, " + recorded.size() + " recorded examples");
+    }
+
+    @Test
+    @DisplayName("Classify - Rewordings of parameterless queries are accepted")
+    void classify_Rewordings() {
+        assertEquals("get_balance", intent("¿Cuánta plata me queda?"));
+        assertEquals("list_rules", intent("muestrame mis limites"));
+        assertEquals("get_summary", intent("¿a donde se me va el dinero?"));
+
+        IntentResult incomes = index.classify("Quiero ver mis ingresos").orElseThrow();
+        assertEquals("list_transactions", incomes.getIntent());
+        assertEquals("Income", incomes.getType());
+
+        System.out.println("✅ Rewordings classified without OpenAI");
+    }
+
+    @Test
+    @DisplayName("Classify - Operations, amounts and unrelated messages are passed on")
+    void classify_PassesOn() {
+        assertTrue(index.classify("Gasté 30k en taxi").isEmpty(), "amounts need extraction");
+        assertTrue(index.classify("Elimina el último gasto").isEmpty(), "deletes are never guessed");
+        assertTrue(index.classify("¿Cómo hago un presupuesto?").isEmpty(), "questions need a generated answer");
+        assertTrue(index.classify("¿Cuál es la capital de Francia?").isEmpty());
+        assertTrue(index.classify("Borra mis reglas").isEmpty(), "a delete is not a listing");
+        assertTrue(index.classify("Elimina mis límites").isEmpty(), "a delete is not a listing");
+        assertTrue(index.classify("¿Cuánto me queda para comida?").isEmpty(), "a category is a parameter");
+        assertTrue(new IntentVectorIndex(new SimpleMeterRegistry(), false, THRESHOLD, 5)
+            .classify("¿Cuál es mi saldo?").isEmpty());
+
+        System.out.println("✅ Messages with parameters or low similarity go to the LLM");
+    }
+
+    @Test
+    @DisplayName("Accuracy - Leave-one-out report against FastIntentParser")
+    void accuracy_LeaveOneOut() {
+        List<Example> examples = new ArrayList<>(IntentVectorIndex.promptExamples(IntentClassifierService.SYSTEM_PROMPT));
+        examples.addAll(IntentVectorIndex.resourceExamples());
+        FastIntentParser fastParser = new FastIntentParser();
+
+        int correct = 0;
+        int accepted = 0;
+        int acceptedCorrect = 0;
+        int fastAccepted = 0;
+        int fastCorrect = 0;
+        int combined = 0;
+        for (int i = 0; i < examples.size(); i++) {
+            Example held = examples.get(i);
+            List<Example> rest = new ArrayList<>(examples);
+            rest.remove(i);
+            // Duplicates across the prompt and the recordings would leak the answer
+            rest.removeIf(example -> example.text().equalsIgnoreCase(held.text()));
+            Prediction prediction = new IntentVectorIndex.Index(rest).predict(held.text(), 5);
+
+            boolean right = prediction != null && prediction.intent().equals(held.intent());
+            if (right) {
+                correct++;
+            }
+            boolean indexAccepts = prediction != null && prediction.similarity() >= THRESHOLD
+                && IntentVectorIndex.SLOT_FREE_INTENTS.contains(prediction.intent())
+                && IntentVectorIndex.isSlotFree(held.text()) && prediction.covers(held.text());
+            if (indexAccepts) {
+                accepted++;
+                if (right) {
+                    acceptedCorrect++;
+                } else {
+                    System.out.println("   ✗ " + held.text() + " (" + held.intent() + ") -> " + prediction.intent());
+                }
+            }
+
+            Optional<FastIntentParser.Match> fast = fastParser.parse(held.text());
+            boolean fastAccepts = fast.isPresent() && fast.get().confidence() >= 0.9;
+            if (fastAccepts) {
+                fastAccepted++;
+                if (fast.get().intent().getIntent().equals(held.intent())) {
+                    fastCorrect++;
+                }
+            }
+            if (fastAccepts || indexAccepts) {
+                combined++;
+            }
+        }
+
+        int total = examples.size();
+        double precision = accepted == 0 ? 0 : (double) acceptedCorrect / accepted;
+        System.out.printf("✅ Leave-one-out over %d examples (threshold %.2f)%n", total, THRESHOLD);
+        System.out.printf("   kNN top-1 label accuracy:     %5.1f%%%n", 100.0 * correct / total);
+        System.out.printf("   kNN accepted without OpenAI:  %5.1f%% (precision %.1f%%)%n", 100.0 * accepted / total, 100 * precision);
+        System.out.printf("   Fast path accepted:           %5.1f%% (precision %.1f%%)%n", 100.0 * fastAccepted / total,
+            fastAccepted == 0 ? 0 : 100.0 * fastCorrect / fastAccepted);
+        System.out.printf("   Fast path + kNN:              %5.1f%%%n", 100.0 * combined / total);
+
+        assertTrue(precision >= 0.9, "precision " + precision);
+        assertTrue(combined > fastAccepted, "the index should answer messages the fast path does not");
+    }
+
+    private String intent(String message) {
+        return index.classify(message).map(IntentResult::getIntent).orElse(null);
+    }
+}
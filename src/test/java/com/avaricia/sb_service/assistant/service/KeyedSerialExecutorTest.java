@@ -0,0 +1,112 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KeyedSerialExecutor.
+ * Verifies per-chat ordering and cross-chat parallelism on virtual threads.
+ */
+class KeyedSerialExecutorTest {
+
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+    private final KeyedSerialExecutor<Long> executor = new KeyedSerialExecutor<>(virtualThreads);
+
+    @AfterEach
+    void tearDown() {
+        virtualThreads.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Same key - Tasks run in submission order")
+    void sameKey_RunsInOrder() throws Exception {
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            int n = i;
+            futures.add(executor.submit(1L, () -> {
+                if (n % 10 == 0) {
+                    sleep(1);
+                }
+                executed.add(n);
+            }));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i, executed.get(i), "Task " + i + " ran out of order");
+        }
+    }
+
+    @Test
+    @DisplayName("Different keys - A slow chat does not block other chats")
+    void differentKeys_RunInParallel() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> slowChat = executor.submit(1L, () -> await(release));
+        CompletableFuture<Void> otherChat = executor.submit(2L, () -> { });
+
+        otherChat.get(5, TimeUnit.SECONDS);
+        assertFalse(slowChat.isDone(), "Slow chat should still be running");
+
+        release.countDown();
+        slowChat.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Failure - A failing task does not stop the following ones")
+    void failingTask_DoesNotBreakChain() throws Exception {
+        CompletableFuture<Void> failing = executor.submit(1L, () -> {
+            throw new IllegalStateException("boom");
+        });
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> next = executor.submit(1L, () -> executed.add("next"));
+
+        next.get(5, TimeUnit.SECONDS);
+        assertTrue(failing.isCompletedExceptionally());
+        assertEquals(List.of("next"), executed);
+    }
+
+    @Test
+    @DisplayName("Cleanup - Idle keys are released once their work finishes")
+    void idleKeys_AreReleased() throws Exception {
+        executor.submit(1L, () -> { }).get(5, TimeUnit.SECONDS);
+        executor.submit(2L, () -> { }).get(5, TimeUnit.SECONDS);
+
+        // Removal happens in a completion callback right after the task finishes
+        for (int i = 0; i < 100 && executor.getActiveKeys() > 0; i++) {
+            sleep(10);
+        }
+        assertEquals(0, executor.getActiveKeys());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
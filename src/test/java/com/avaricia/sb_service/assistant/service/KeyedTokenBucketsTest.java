@@ -0,0 +1,114 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KeyedTokenBuckets.
+ * Uses a manual clock to verify burst, refill, key isolation and eviction.
+ */
+class KeyedTokenBucketsTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    // 60 per minute = 1 token per second, burst of 3
+    private final KeyedTokenBuckets buckets = new KeyedTokenBuckets(60, 3, clock::get);
+
+    @Test
+    @DisplayName("Full bucket - Allows the burst, then rejects")
+    void fullBucket_AllowsBurst() {
+        assertTrue(buckets.tryAcquire(1L));
+        assertTrue(buckets.tryAcquire(1L));
+        assertTrue(buckets.tryAcquire(1L));
+        assertFalse(buckets.tryAcquire(1L));
+
+        System.out.println("✅ Burst of 3 allowed, 4th rejected");
+    }
+
+    @Test
+    @DisplayName("Refill - One token per emission interval")
+    void refill_OneTokenPerInterval() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buckets.tryAcquire(1L));
+        }
+        assertFalse(buckets.tryAcquire(1L));
+
+        advance(1000);
+        assertTrue(buckets.tryAcquire(1L));
+        assertFalse(buckets.tryAcquire(1L));
+
+        advance(500);
+        assertFalse(buckets.tryAcquire(1L));
+        advance(500);
+        assertTrue(buckets.tryAcquire(1L));
+
+        // Long idle period refills only up to the burst
+        advance(60_000);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buckets.tryAcquire(1L));
+        }
+        assertFalse(buckets.tryAcquire(1L));
+    }
+
+    @Test
+    @DisplayName("Different keys - Independent buckets")
+    void differentKeys_Independent() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buckets.tryAcquire(1L));
+        }
+        assertFalse(buckets.tryAcquire(1L));
+        assertTrue(buckets.tryAcquire(2L));
+    }
+
+    @Test
+    @DisplayName("Refund - Gives a token back, never beyond the burst")
+    void refund_GivesTokenBack() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buckets.tryAcquire(1L));
+        }
+        assertFalse(buckets.tryAcquire(1L));
+
+        buckets.refund(1L);
+        assertTrue(buckets.tryAcquire(1L));
+        assertFalse(buckets.tryAcquire(1L));
+
+        // Refunds on a full bucket (or one never used) are ignored
+        advance(60_000);
+        buckets.refund(1L);
+        buckets.refund(1L);
+        buckets.refund(2L);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buckets.tryAcquire(1L));
+        }
+        assertFalse(buckets.tryAcquire(1L));
+
+        System.out.println("✅ Refunded token reused, burst still 3");
+    }
+
+    @Test
+    @DisplayName("Evict idle - Only buckets that are full again are removed")
+    void evictIdle_RemovesFullBuckets() {
+        buckets.tryAcquire(1L);
+        buckets.tryAcquire(2L);
+        buckets.tryAcquire(2L);
+        buckets.tryAcquire(2L);
+        assertEquals(2, buckets.size());
+
+        advance(1000);
+        assertEquals(1, buckets.evictIdle());
+        assertEquals(1, buckets.size());
+
+        advance(2000);
+        assertEquals(1, buckets.evictIdle());
+        assertEquals(0, buckets.size());
+    }
+
+    private void advance(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
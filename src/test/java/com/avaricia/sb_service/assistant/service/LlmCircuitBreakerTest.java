@@ -0,0 +1,136 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.service.LlmCircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LlmCircuitBreaker.
+ * Window of 10 calls, opens at 50% failures after 4 calls, 2 half-open probes.
+ */
+class LlmCircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(100);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LlmCircuitBreaker breaker =
+        new LlmCircuitBreaker(meterRegistry, true, 10, 4, 0.5, OPEN_DURATION, 2);
+
+    @Test
+    @DisplayName("Closed - Occasional failures keep the circuit closed")
+    void closed_OccasionalFailures() {
+        for (int i = 0; i < 30; i++) {
+            assertTrue(breaker.tryAcquire());
+            if (i % 3 == 2) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertFalse(breaker.isDegraded());
+
+        System.out.println("✅ One failure in three keeps the circuit closed");
+    }
+
+    @Test
+    @DisplayName("Open - Failure rate over the threshold opens the circuit and rejects calls")
+    void open_RejectsCalls() {
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        assertEquals(State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertTrue(breaker.isDegraded());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, meterRegistry.get("assistant.llm.breaker.state").gauge().value());
+
+        System.out.println("✅ 2 of 4 calls failed: circuit open");
+    }
+
+    @Test
+    @DisplayName("Half-open - Successful probes close the circuit")
+    void halfOpen_ProbesClose() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only the probes are let through");
+        breaker.onSuccess();
+        assertTrue(breaker.isDegraded());
+        breaker.onSuccess();
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertFalse(breaker.isDegraded());
+        assertEquals(1, meterRegistry.get("assistant.llm.breaker.transitions").tag("state", "closed").counter().count());
+
+        System.out.println("✅ Two successful probes closed the circuit");
+    }
+
+    @Test
+    @DisplayName("Half-open - A failed probe opens the circuit again")
+    void halfOpen_FailedProbeReopens() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, meterRegistry.get("assistant.llm.breaker.transitions").tag("state", "open").counter().count());
+
+        System.out.println("✅ Failed probe reopened the circuit");
+    }
+
+    @Test
+    @DisplayName("Half-open - A cancelled probe is given back and does not reopen the circuit")
+    void halfOpen_CancelledProbeIsNeutral() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_DURATION.toMillis() + 20);
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        breaker.onCancel();
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire(), "the cancelled probe was given back");
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        assertEquals(State.CLOSED, breaker.getState());
+
+        System.out.println("✅ Cancelled probe left the circuit half-open");
+    }
+
+    @Test
+    @DisplayName("Disabled - Every call is allowed")
+    void disabled_AllowsEverything() {
+        LlmCircuitBreaker disabled = new LlmCircuitBreaker(new SimpleMeterRegistry(), false, 10, 4, 0.5, OPEN_DURATION, 2);
+        for (int i = 0; i < 10; i++) {
+            disabled.onFailure();
+        }
+
+        assertTrue(disabled.tryAcquire());
+        assertFalse(disabled.isDegraded());
+
+        System.out.println("✅ Disabled breaker never opens");
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure();
+        }
+        assertEquals(State.OPEN, breaker.getState());
+    }
+}
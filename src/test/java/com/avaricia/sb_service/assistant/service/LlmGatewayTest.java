@@ -0,0 +1,384 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.exception.LlmTimeoutException;
+import com.avaricia.sb_service.assistant.exception.LlmUnavailableException;
+import com.avaricia.sb_service.assistant.service.LlmGateway.Operation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LlmGateway.
+ * The models are fakes that answer, fail or sleep by model name.
+ */
+class LlmGatewayTest {
+
+    private static final String PRIMARY = "primary-model";
+    private static final String HEDGE = "hedge-model";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> requestedModels = new CopyOnWriteArrayList<>();
+    private final LlmCircuitBreaker circuitBreaker =
+        new LlmCircuitBreaker(meterRegistry, true, 4, 2, 0.5, Duration.ofMinutes(1), 1);
+    private LlmGateway gateway;
+
+    @AfterEach
+    void tearDown() {
+        if (gateway != null) {
+            gateway.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Call - A fast primary answers without hedging")
+    void call_FastPrimary() {
+        gateway = gateway(Duration.ofMillis(200), Duration.ofSeconds(2));
+
+        assertEquals("primary answer", gateway.execute(Operation.CLASSIFY, this::answerFrom));
+
+        assertEquals(List.of(PRIMARY), requestedModels);
+        assertEquals(1, count("primary"));
+        assertEquals(1, meterRegistry.get("assistant.llm.duration")
+            .tag("operation", "classify").tag("model", PRIMARY).timer().count());
+
+        System.out.println("✅ Primary answered, no hedge sent");
+    }
+
+    @Test
+    @DisplayName("Call - A slow primary is hedged and the hedge model wins")
+    void call_SlowPrimaryIsHedged() {
+        gateway = gateway(Duration.ofMillis(100), Duration.ofSeconds(3));
+
+        long start = System.nanoTime();
+        String answer = gateway.execute(Operation.CLASSIFY, model -> {
+            if (model.equals(PRIMARY)) {
+                sleep(1_500);
+            }
+            return answerFrom(model);
+        });
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("hedge answer", answer);
+        assertTrue(elapsedMs < 1_000, "took " + elapsedMs + " ms");
+        assertEquals(1, count("hedge"));
+        assertEquals(1, meterRegistry.get("assistant.llm.hedges").tag("operation", "classify").counter().count());
+
+        System.out.println("✅ Hedge answered in " + elapsedMs + " ms while the primary was still running");
+    }
+
+    @Test
+    @DisplayName("Call - A call routed to the hedge model falls back to the primary one")
+    void call_RoutedToHedgeModel() {
+        gateway = gateway(Duration.ofSeconds(10), Duration.ofSeconds(2));
+
+        assertEquals("hedge answer", gateway.call(Operation.CLASSIFY, HEDGE, null, "¿Cuánto tengo?"));
+        assertEquals(List.of(HEDGE), requestedModels);
+        assertEquals(1, count("primary"), "the model asked first answered");
+
+        requestedModels.clear();
+        String answer = gateway.execute(Operation.CLASSIFY, HEDGE, model -> {
+            if (model.equals(HEDGE)) {
+                throw new IllegalStateException("429 Too Many Requests");
+            }
+            return answerFrom(model);
+        });
+
+        assertEquals("primary answer", answer);
+        assertEquals(List.of(PRIMARY), requestedModels);
+        assertEquals(1, count("hedge"));
+
+        System.out.println("✅ Small-model call answered, and its failure answered by the primary model");
+    }
+
+    @Test
+    @DisplayName("Call - A failed primary falls back to the hedge model right away")
+    void call_FailedPrimaryFallsBack() {
+        // Hedge delay longer than the deadline: only the failure can start the hedge
+        gateway = gateway(Duration.ofSeconds(10), Duration.ofSeconds(2));
+
+        String answer = gateway.execute(Operation.CONFIRM, model -> {
+            if (model.equals(PRIMARY)) {
+                throw new IllegalStateException("429 Too Many Requests");
+            }
+            return answerFrom(model);
+        });
+
+        assertEquals("hedge answer", answer);
+        assertEquals(List.of(HEDGE), requestedModels);
+
+        System.out.println("✅ Primary failure answered by the fallback model");
+    }
+
+    @Test
+    @DisplayName("Call - Nothing within the deadline throws LlmTimeoutException")
+    void call_DeadlineExceeded() {
+        gateway = gateway(Duration.ofMillis(50), Duration.ofMillis(300));
+
+        long start = System.nanoTime();
+        assertThrows(LlmTimeoutException.class, () -> gateway.execute(Operation.HUMANIZE, model -> {
+            sleep(5_000);
+            return answerFrom(model);
+        }));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 1_000, "took " + elapsedMs + " ms");
+        assertEquals(1, count("timeout", "humanize"));
+
+        System.out.println("✅ Call bounded to " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Call - When every model fails the original error is thrown")
+    void call_AllFail() {
+        gateway = gateway(Duration.ofSeconds(10), Duration.ofSeconds(2));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> gateway.execute(Operation.CLASSIFY, model -> {
+                throw new IllegalStateException(model + " down");
+            }));
+
+        assertEquals(HEDGE + " down", error.getMessage());
+        assertEquals(1, count("failed"));
+
+        System.out.println("✅ Both models failed: " + error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Call - Failures open the circuit and later calls are rejected without a request")
+    void call_OpenCircuitRejects() {
+        gateway = gateway(Duration.ofSeconds(10), Duration.ofSeconds(2));
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> gateway.execute(Operation.CLASSIFY, model -> {
+                requestedModels.add(model);
+                throw new IllegalStateException("503");
+            }));
+        }
+        requestedModels.clear();
+
+        assertThrows(LlmUnavailableException.class, () -> gateway.execute(Operation.CLASSIFY, this::answerFrom));
+
+        assertTrue(requestedModels.isEmpty());
+        assertEquals(1, count("rejected"));
+
+        System.out.println("✅ Open circuit rejected the call without contacting OpenAI");
+    }
+
+    @Test
+    @DisplayName("Hedge delay - Follows the latency percentile once enough calls were seen")
+    void hedgeDelay_FollowsPercentile() {
+        gateway = gateway(Duration.ofSeconds(3), Duration.ofSeconds(10));
+
+        assertEquals(Duration.ofSeconds(3), gateway.hedgeDelay(Operation.CLASSIFY));
+
+        var timer = meterRegistry.get("assistant.llm.duration")
+            .tag("operation", "classify").tag("model", PRIMARY).timer();
+        for (int i = 0; i < 100; i++) {
+            timer.record(i < 90 ? 800 : 2_400, TimeUnit.MILLISECONDS);
+        }
+        Duration delay = gateway.hedgeDelay(Operation.CLASSIFY);
+
+        assertTrue(delay.toMillis() > 2_000 && delay.toMillis() < 2_700, delay.toString());
+        assertEquals(Duration.ofSeconds(3), gateway.hedgeDelay(Operation.CONFIRM));
+
+        System.out.println("✅ Hedge delay after 100 calls: " + delay.toMillis() + " ms");
+    }
+
+    @Test
+    @DisplayName("Call - The model is selected per attempt through the chat options")
+    void call_SelectsModelThroughOptions() {
+        gateway = gateway(Duration.ofSeconds(10), Duration.ofSeconds(2));
+
+        assertEquals("hedge answer", gateway.call(Operation.CHAT, "system", "hola"));
+        assertEquals(List.of(PRIMARY, HEDGE), requestedModels);
+
+        System.out.println("✅ Primary and hedge models requested through ChatClient options");
+    }
+
+    @Test
+    @DisplayName("Stream - Chunks are passed through and the call counts as answered by the primary")
+    void stream_PassesChunks() {
+        gateway = gateway(Duration.ofMillis(50), Duration.ofSeconds(2));
+
+        List<String> chunks = gateway.stream(Operation.CLASSIFY, model -> {
+            requestedModels.add(model);
+            return Flux.just("[{\"i\":", "\"get_balance\"}]");
+        }).collectList().block();
+
+        assertEquals(List.of("[{\"i\":", "\"get_balance\"}]"), chunks);
+        assertEquals(List.of(PRIMARY), requestedModels, "the primary answered before the hedge delay");
+        assertEquals(1, count("primary"));
+
+        System.out.println("✅ Stream delivered " + chunks.size() + " chunks from the primary model");
+    }
+
+    @Test
+    @DisplayName("Stream - A primary without a first chunk after the hedge delay loses to the hedge, which is kept")
+    void stream_SlowPrimaryLosesToHedge() {
+        gateway = gateway(Duration.ofMillis(50), Duration.ofSeconds(2));
+        List<String> cancelled = new CopyOnWriteArrayList<>();
+
+        List<String> chunks = gateway.stream(Operation.CLASSIFY, model -> {
+            requestedModels.add(model);
+            Flux<String> answer = model.equals(PRIMARY)
+                ? Flux.just("primary").delaySubscription(Duration.ofMillis(500))
+                : Flux.just("hedge ", "chunks");
+            return answer.doOnCancel(() -> cancelled.add(model));
+        }).collectList().block();
+
+        assertEquals(List.of("hedge ", "chunks"), chunks);
+        assertEquals(List.of(PRIMARY, HEDGE), requestedModels);
+        assertEquals(List.of(PRIMARY), cancelled, "the losing stream is cancelled");
+        assertEquals(1, count("hedge"));
+        assertEquals(1, meterRegistry.get("assistant.llm.hedges").tag("operation", "classify").counter().count());
+
+        System.out.println("✅ Slow primary stream lost to the hedge model");
+    }
+
+    @Test
+    @DisplayName("Stream - A failed primary stream goes to the hedge model right away")
+    void stream_FailedPrimaryFallsBackToHedge() {
+        gateway = gateway(Duration.ofSeconds(1), Duration.ofSeconds(2));
+
+        long start = System.nanoTime();
+        List<String> chunks = gateway.stream(Operation.CLASSIFY, model -> {
+            requestedModels.add(model);
+            return model.equals(PRIMARY) ? Flux.error(new IllegalStateException("primary down")) : Flux.just("{}");
+        }).collectList().block();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(List.of("{}"), chunks);
+        assertEquals(List.of(PRIMARY, HEDGE), requestedModels);
+        assertTrue(elapsedMs < 500, "took " + elapsedMs + " ms");
+        assertEquals(1, count("hedge"));
+
+        System.out.println("✅ Failed primary stream answered by the hedge in " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Stream - When both attempts fail the error of the last one is kept")
+    void stream_BothFailKeepsError() {
+        gateway = gateway(Duration.ofMillis(50), Duration.ofSeconds(2));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> gateway.stream(Operation.CLASSIFY,
+                model -> Flux.<String>error(new IllegalStateException(model + " down"))).blockLast());
+
+        assertEquals(HEDGE + " down", error.getMessage());
+        assertEquals(1, count("failed"));
+
+        System.out.println("✅ Both streams failed with: " + error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Stream - The deadline bounds the whole stream, not each chunk")
+    void stream_DeadlineBoundsWholeStream() {
+        gateway = gateway(Duration.ofMillis(50), Duration.ofMillis(300));
+
+        // Every chunk arrives well within the deadline, the stream as a whole does not
+        Flux<String> slow = Flux.interval(Duration.ofMillis(100)).map(String::valueOf).take(10);
+        long start = System.nanoTime();
+        assertThrows(LlmTimeoutException.class,
+            () -> gateway.stream(Operation.CLASSIFY, model -> slow).blockLast());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 700, "took " + elapsedMs + " ms");
+        assertEquals(1, count("timeout"));
+
+        System.out.println("✅ Stream bounded to " + elapsedMs + " ms");
+    }
+
+    @Test
+    @DisplayName("Stream - A stream cancelled by its consumer is not counted as a failure")
+    void stream_CancelIsNeutral() {
+        gateway = gateway(Duration.ofSeconds(1), Duration.ofSeconds(2));
+
+        for (int i = 0; i < 4; i++) {
+            String first = gateway.stream(Operation.CLASSIFY, model -> Flux.just("a", "b", "c")).blockFirst();
+            assertEquals("a", first);
+        }
+
+        assertEquals(LlmCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(4, count("cancelled"));
+
+        System.out.println("✅ Four cancelled streams left the circuit closed");
+    }
+
+    @Test
+    @DisplayName("Stream - Rejected without a request while the circuit is open")
+    void stream_OpenCircuitRejects() {
+        gateway = gateway(Duration.ofMillis(50), Duration.ofSeconds(2));
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        assertThrows(LlmUnavailableException.class,
+            () -> gateway.stream(Operation.CLASSIFY, model -> {
+                requestedModels.add(model);
+                return Flux.just("{}");
+            }).blockLast());
+
+        assertTrue(requestedModels.isEmpty());
+        assertEquals(1, count("rejected"));
+
+        System.out.println("✅ Open circuit rejected the stream");
+    }
+
+    private LlmGateway gateway(Duration hedgeInitialDelay, Duration deadline) {
+        return new LlmGateway(ChatClient.builder(new FailingPrimaryChatModel()), circuitBreaker, meterRegistry, PRIMARY,
+            deadline, deadline, deadline, deadline,
+            true, HEDGE, 0.95, 20, hedgeInitialDelay, Duration.ofMillis(100));
+    }
+
+    private String answerFrom(String model) {
+        requestedModels.add(model);
+        return model.equals(PRIMARY) ? "primary answer" : "hedge answer";
+    }
+
+    private double count(String result) {
+        return count(result, "classify");
+    }
+
+    private double count(String result, String operation) {
+        return meterRegistry.get("assistant.llm.calls")
+            .tag("operation", operation).tag("result", result).counter().count();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        }
+    }
+
+    /**
+     * ChatModel whose primary model is unavailable; other models answer immediately.
+     */
+    private class FailingPrimaryChatModel implements ChatModel {
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            String model = prompt.getOptions().getModel();
+            requestedModels.add(model);
+            if (model.equals(PRIMARY)) {
+                throw new IllegalStateException("503 Service Unavailable");
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("hedge answer"))));
+        }
+    }
+}
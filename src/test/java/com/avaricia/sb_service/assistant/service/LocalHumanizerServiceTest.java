@@ -0,0 +1,120 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.avaricia.sb_service.assistant.service.LocalHumanizerService.Phrasing;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LocalHumanizerService.
+ * Verifies the tone rules, that figures are kept exact and the variety of phrasings.
+ */
+class LocalHumanizerServiceTest {
+
+    private final LocalHumanizerService humanizer = new LocalHumanizerService();
+
+    @Test
+    @DisplayName("Balance - Healthy balance is positive and congratulates savings")
+    void balance_Healthy() {
+        Phrasing phrasing = humanizer.balance(13_000_000, 2_198_500, 10_801_500);
+
+        assertTrue(phrasing.intro().contains("*$10,801,500*"), phrasing.intro());
+        assertNotNull(phrasing.tip());
+        assertTrue(phrasing.tip().contains("83%"), phrasing.tip());
+
+        System.out.println("✅ " + phrasing.intro() + " / " + phrasing.tip());
+    }
+
+    @Test
+    @DisplayName("Balance - Tight and negative balances are cautious with a tip")
+    void balance_TightAndNegative() {
+        Phrasing tight = humanizer.balance(2_000_000, 1_800_000, 200_000);
+        Phrasing negative = humanizer.balance(1_000_000, 1_250_000, -250_000);
+
+        assertTrue(tight.intro().contains("90%"), tight.intro());
+        assertTrue(tight.tip().startsWith("💡"));
+        assertTrue(negative.intro().contains("*$-250,000*"), negative.intro());
+        assertTrue(negative.tip().startsWith("💡"));
+
+        System.out.println("✅ Tight: " + tight.intro());
+        System.out.println("✅ Negative: " + negative.intro());
+    }
+
+    @Test
+    @DisplayName("Balance - No savings tip when little is saved")
+    void balance_NoTipWhenLittleSaved() {
+        Phrasing phrasing = humanizer.balance(2_000_000, 1_500_000, 500_000);
+
+        assertNull(phrasing.tip());
+        assertEquals("Intro\n\n💰 Saldo", new Phrasing("Intro", null).around("💰 Saldo"));
+        assertEquals("Intro\n\n💰 Saldo\n\n💡 Tip", new Phrasing("Intro", "💡 Tip").around("💰 Saldo"));
+
+        System.out.println("✅ " + phrasing.intro());
+    }
+
+    @Test
+    @DisplayName("Summary - Tone depends on the share of the top category")
+    void summary_ToneByTopShare() {
+        Phrasing dominant = humanizer.summary("Comida", "🍔", 600_000, 62.5);
+        Phrasing leading = humanizer.summary("Transporte", "🚕", 300_000, 35);
+        Phrasing spread = humanizer.summary("Servicios", "💡", 200_000, 22);
+
+        assertTrue(dominant.intro().contains("*Comida*") && dominant.intro().contains("$600,000"), dominant.intro());
+        assertTrue(dominant.tip().contains("Comida"));
+        assertNull(leading.tip());
+        assertNull(spread.tip());
+        assertTrue(spread.intro().contains("22%"), spread.intro());
+
+        System.out.println("✅ " + dominant.intro());
+        System.out.println("✅ " + leading.intro());
+        System.out.println("✅ " + spread.intro());
+    }
+
+    @Test
+    @DisplayName("Listings - Totals, counts and overspending note")
+    void listings_TotalsAndCounts() {
+        String expenses = humanizer.transactions("Expense", 6, 0, 202_000);
+        String incomes = humanizer.transactions("Income", 1, 2_000_000, 0);
+        String overspent = humanizer.transactions(null, 12, 500_000, 800_000);
+
+        assertTrue(expenses.contains("$202,000") && expenses.contains("6 movimientos"), expenses);
+        assertTrue(incomes.contains("$2,000,000") && incomes.contains("1 ingreso"), incomes);
+        assertTrue(overspent.endsWith("salió más de lo que entró. 👀"), overspent);
+        assertTrue(humanizer.search("Netflix", 3, 135_000).contains("\"Netflix\""));
+        assertTrue(humanizer.day(2, 65_000).contains("$65,000"));
+        assertTrue(humanizer.rules(1).contains("1 límite activo"));
+
+        System.out.println("✅ " + expenses);
+        System.out.println("✅ " + incomes);
+        System.out.println("✅ " + overspent);
+    }
+
+    @Test
+    @DisplayName("Variety - Same data reads the same, different data reads differently")
+    void variety_DeterministicButVaried() {
+        assertEquals(humanizer.balance(3_000_000, 1_000_000, 2_000_000),
+            humanizer.balance(3_000_000, 1_000_000, 2_000_000));
+
+        Set<String> balanceTemplates = new HashSet<>();
+        Set<String> listTemplates = new HashSet<>();
+        int samples = 200;
+        for (int i = 1; i <= samples; i++) {
+            double balance = i * 37_500;
+            // Strip the figures to count phrasings, not amounts
+            balanceTemplates.add(humanizer.balance(balance * 4, balance * 3, balance).intro().replaceAll("[\\d$,.*%-]", ""));
+            listTemplates.add(humanizer.transactions("Expense", i % 20 + 1, 0, balance).replaceAll("[\\d$,.*%-]", "")
+                .replace("movimientos", "movimiento"));
+        }
+
+        assertEquals(4, balanceTemplates.size());
+        assertEquals(3, listTemplates.size());
+
+        System.out.println("✅ " + samples + " balances used " + balanceTemplates.size()
+            + " phrasings, " + samples + " listings used " + listTemplates.size());
+    }
+}
@@ -0,0 +1,130 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MessageCoalescer.
+ * Verifies that queued text messages of the same chat are merged and everything else is not.
+ */
+class MessageCoalescerTest {
+
+    private static final long CHAT_ID = 100L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MessageCoalescer coalescer = new MessageCoalescer(meterRegistry, Duration.ofSeconds(5), 3, Duration.ZERO);
+
+    @Test
+    @DisplayName("Queued batch - Following text messages are merged into it")
+    void queuedBatch_MergesFollowingMessages() {
+        MessageCoalescer.Batch batch = coalescer.add(text(1L, "gasté 20k"));
+        assertNotNull(batch);
+        coalescer.open(batch);
+
+        assertNull(coalescer.add(text(1L, "en comida")));
+
+        TelegramUpdate.Message merged = coalescer.take(batch);
+        assertEquals("gasté 20k\nen comida", merged.text());
+        assertEquals(1.0, meterRegistry.counter("telegram.coalesce.merged").count());
+
+        System.out.println("✅ Merged: " + merged.text().replace("\n", " | "));
+    }
+
+    @Test
+    @DisplayName("Batch already taken - Next message opens a new batch")
+    void takenBatch_NotMerged() {
+        MessageCoalescer.Batch batch = coalescer.add(text(1L, "gasté 20k en comida"));
+        coalescer.open(batch);
+        assertEquals("gasté 20k en comida", coalescer.take(batch).text());
+
+        assertNotNull(coalescer.add(text(1L, "¿cuánto tengo?")));
+    }
+
+    @Test
+    @DisplayName("Batch taken before being opened - Stays closed")
+    void takenBeforeOpen_StaysClosed() {
+        MessageCoalescer.Batch batch = coalescer.add(text(1L, "gasté 20k"));
+        coalescer.take(batch);
+        coalescer.open(batch);
+
+        assertNotNull(coalescer.add(text(1L, "en comida")));
+    }
+
+    @Test
+    @DisplayName("Not mergeable - Commands, voice, other senders and full batches")
+    void notMergeable() {
+        MessageCoalescer.Batch batch = coalescer.add(text(1L, "gasté 20k"));
+        coalescer.open(batch);
+
+        assertNotNull(coalescer.add(text(1L, "/start")));
+        assertNotNull(coalescer.add(voice(1L)));
+        assertNotNull(coalescer.add(text(2L, "en comida")));
+
+        assertNull(coalescer.add(text(1L, "en comida")));
+        assertNull(coalescer.add(text(1L, "del almuerzo")));
+        // max-messages = 3
+        assertNotNull(coalescer.add(text(1L, "de hoy")));
+    }
+
+    @Test
+    @DisplayName("Idle chat with debounce - The next message is merged before processing starts")
+    void idleChat_DebounceMerges() throws Exception {
+        MessageCoalescer debounced = new MessageCoalescer(meterRegistry, Duration.ofSeconds(5), 3, Duration.ofMillis(300));
+        MessageCoalescer.Batch batch = debounced.add(text(1L, "gasté 20k"));
+        debounced.open(batch);
+
+        // The chat lane is idle, so processing starts right away and waits for the debounce
+        long startedAt = System.nanoTime();
+        CompletableFuture<TelegramUpdate.Message> processing = CompletableFuture.supplyAsync(() -> debounced.take(batch));
+        Thread.sleep(50);
+        assertNull(debounced.add(text(1L, "en comida")));
+
+        TelegramUpdate.Message merged = processing.get(2, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        assertEquals("gasté 20k\nen comida", merged.text());
+        assertTrue(elapsedMs >= 300, "waited " + elapsedMs + " ms");
+
+        System.out.println("✅ Idle chat merged after " + elapsedMs + " ms: " + merged.text().replace("\n", " | "));
+    }
+
+    @Test
+    @DisplayName("No debounce - An idle chat takes its batch immediately")
+    void noDebounce_TakenImmediately() {
+        MessageCoalescer.Batch batch = coalescer.add(text(1L, "gasté 20k"));
+        coalescer.open(batch);
+
+        long startedAt = System.nanoTime();
+        assertEquals("gasté 20k", coalescer.take(batch).text());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 100);
+        assertNotNull(coalescer.add(text(1L, "en comida")));
+    }
+
+    @Test
+    @DisplayName("Window disabled - Every message is processed alone")
+    void windowDisabled() {
+        MessageCoalescer disabled = new MessageCoalescer(meterRegistry, Duration.ZERO, 3, Duration.ZERO);
+        MessageCoalescer.Batch batch = disabled.add(text(1L, "gasté 20k"));
+        disabled.open(batch);
+
+        assertNotNull(disabled.add(text(1L, "en comida")));
+    }
+
+    private static TelegramUpdate.Message text(Long telegramId, String text) {
+        return new TelegramUpdate.Message(1L, new TelegramUpdate.Chat(CHAT_ID),
+            new TelegramUpdate.User(telegramId, "user", "User"), text, null, null, null);
+    }
+
+    private static TelegramUpdate.Message voice(Long telegramId) {
+        return new TelegramUpdate.Message(1L, new TelegramUpdate.Chat(CHAT_ID),
+            new TelegramUpdate.User(telegramId, "user", "User"), null,
+            new TelegramUpdate.Media("file", 3), null, null);
+    }
+}
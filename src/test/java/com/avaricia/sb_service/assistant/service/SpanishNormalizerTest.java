@@ -0,0 +1,263 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.IntentResult;
+import com.avaricia.sb_service.assistant.service.SpanishNormalizer.DateRange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SpanishNormalizer.
+ * Dates are resolved against a fixed "today"; the corpus comes from the classification prompt
+ * examples and the recorded conversations in docs/test-results.
+ */
+class SpanishNormalizerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 12, 7); // Sunday
+
+    /** "- "message" -> {json}" example lines of the classification prompt */
+    private static final Pattern PROMPT_EXAMPLE = Pattern.compile("^\\s*-\\s*\"([^\"]+)\"[^{]*->\\s*(\\{.*})\\s*$");
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SpanishNormalizer normalizer = new SpanishNormalizer(meterRegistry);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Amounts - Suffixes, separators and words")
+    void amounts() {
+        Map<String, Double> corpus = new LinkedHashMap<>();
+        corpus.put("50k", 50_000.0);
+        corpus.put("50 mil", 50_000.0);
+        corpus.put("50mil", 50_000.0);
+        corpus.put("50.000", 50_000.0);
+        corpus.put("50,000", 50_000.0);
+        corpus.put("$50.000", 50_000.0);
+        corpus.put("50000", 50_000.0);
+        corpus.put("2M", 2_000_000.0);
+        corpus.put("2 millones", 2_000_000.0);
+        corpus.put("2.000.000", 2_000_000.0);
+        corpus.put("1,5 millones", 1_500_000.0);
+        corpus.put("20 lucas", 20_000.0);
+        corpus.put("2 palos", 2_000_000.0);
+        corpus.put("2 millones 500 mil", 2_500_000.0);
+        corpus.put("un millón", 1_000_000.0);
+        corpus.put("un millón y medio", 1_500_000.0);
+        corpus.put("medio millón", 500_000.0);
+        corpus.put("dos millones", 2_000_000.0);
+        corpus.put("cien mil", 100_000.0);
+        corpus.put("doscientos cincuenta mil pesos", 250_000.0);
+        corpus.put("un millón doscientos mil", 1_200_000.0);
+        corpus.put("treinta y cinco mil", 35_000.0);
+        corpus.put("mil quinientos", 1_500.0);
+        corpus.put("una luca", 1_000.0);
+        corpus.put("2 millones y medio", 2_500_000.0);
+        corpus.put("2M y medio", 2_500_000.0);
+        corpus.put("1 millón y cuarto", 1_250_000.0);
+        corpus.put("un millón y cuarto", 1_250_000.0);
+        corpus.put("2 millones de pesos", 2_000_000.0);
+
+        corpus.forEach((text, expected) ->
+            assertEquals(OptionalDouble.of(expected), normalizer.amount(text), text));
+
+        assertTrue(normalizer.amount("1,5").isEmpty(), "decimal or thousands separator?");
+        assertTrue(normalizer.amount("10k y 50k").isEmpty(), "two amounts are two operations");
+        assertTrue(normalizer.amount("un café").isEmpty(), "an article is not an amount");
+        assertTrue(normalizer.amount("algo").isEmpty());
+
+        // Words left over: the value OpenAI sent is kept
+        assertTrue(normalizer.amount("2 millones doscientos").isEmpty(), "number words after the amount");
+        assertTrue(normalizer.amount("50k en comida").isEmpty(), "not just the amount");
+        assertTrue(normalizer.amount("dos millones en comida").isEmpty(), "not just the amount");
+        assertTrue(normalizer.amount("2M y pico").isEmpty(), "unknown fraction");
+
+        System.out.println("✅ " + corpus.size() + " amount expressions resolved");
+    }
+
+    @Test
+    @DisplayName("Dates - Relative days, weeks, months, ranges and explicit dates")
+    void dates() {
+        assertDates("hoy", "2025-12-07", "2025-12-07");
+        assertDates("ayer", "2025-12-06", "2025-12-06");
+        assertDates("antier", "2025-12-05", "2025-12-05");
+        assertDates("antes de ayer", "2025-12-05", "2025-12-05");
+        assertDates("esta semana", "2025-11-30", "2025-12-07");
+        assertDates("semana pasada", "2025-11-24", "2025-11-30");
+        assertDates("este mes", "2025-12-01", "2025-12-31");
+        assertDates("mes pasado", "2025-11-01", "2025-11-30");
+        assertDates("últimos 30 días", "2025-11-07", "2025-12-07");
+        assertDates("últimas dos semanas", "2025-11-23", "2025-12-07");
+        assertDates("últimos 3 meses", "2025-09-07", "2025-12-07");
+        assertDates("noviembre", "2025-11-01", "2025-11-30");
+        assertDates("marzo", "2025-03-01", "2025-03-31");
+        assertDates("enero de 2024", "2024-01-01", "2024-01-31");
+        assertDates("este año", "2025-01-01", "2025-12-31");
+        assertDates("año pasado", "2024-01-01", "2024-12-31");
+        assertDates("del 1 al 15", "2025-12-01", "2025-12-15");
+        assertDates("del 10 al 20 de noviembre", "2025-11-10", "2025-11-20");
+        assertDates("entre el 1 y el 15 de noviembre", "2025-11-01", "2025-11-15");
+        assertDates("del 1 de octubre al 15 de noviembre", "2025-10-01", "2025-11-15");
+        assertDates("del 20 de diciembre al 5 de enero", "2024-12-20", "2025-01-05");
+        assertDates("15 de noviembre", "2025-11-15", "2025-11-15");
+        assertDates("el 20 de diciembre", "2024-12-20", "2024-12-20");
+        assertDates("5/12", "2025-12-05", "2025-12-05");
+        assertDates("2025-11-15", "2025-11-15", "2025-11-15");
+        assertDates("el viernes", "2025-12-05", "2025-12-05");
+        assertDates("el domingo pasado", "2025-11-30", "2025-11-30");
+
+        assertTrue(normalizer.dates("31 de febrero", TODAY).isEmpty());
+        assertTrue(normalizer.dates("gastos del 2025-02-30", TODAY).isEmpty(), "invalid ISO day");
+        assertTrue(normalizer.dates("2025-13-01", TODAY).isEmpty(), "invalid ISO month");
+        assertTrue(normalizer.dates("del 2025-01-01 al 2025-02-30", TODAY).isEmpty());
+        assertTrue(normalizer.dates("del 29 de febrero al 1 de marzo", LocalDate.of(2028, 1, 10)).isEmpty(),
+            "last year has no 29 de febrero");
+        assertTrue(normalizer.dates("cuando me paguen", TODAY).isEmpty());
+
+        System.out.println("✅ Relative and explicit dates resolved against " + TODAY);
+    }
+
+    @Test
+    @DisplayName("Resolve - Spans fill the fields and the LLM values stay as fallback")
+    void resolve_FillsFields() {
+        IntentResult byDate = new IntentResult();
+        byDate.setIntent("list_transactions_by_date");
+        byDate.setDateText("ayer");
+        normalizer.resolve(byDate, TODAY);
+        assertEquals("2025-12-06", byDate.getStartDate());
+        assertNull(byDate.getEndDate(), "single-day queries only use startDate");
+
+        IntentResult week = new IntentResult();
+        week.setIntent("list_transactions_by_date");
+        week.setDateText("esta semana");
+        normalizer.resolve(week, TODAY);
+        assertEquals("list_transactions_by_range", week.getIntent());
+        assertEquals("2025-11-30", week.getStartDate());
+        assertEquals("2025-12-07", week.getEndDate());
+
+        IntentResult expense = new IntentResult();
+        expense.setIntent("create_expense");
+        expense.setAmountText("un millón y medio");
+        normalizer.resolve(expense, TODAY);
+        assertEquals(1_500_000.0, expense.getAmount());
+
+        IntentResult unresolved = new IntentResult();
+        unresolved.setIntent("create_expense");
+        unresolved.setAmount(1_500.0);
+        unresolved.setAmountText("1,5");
+        normalizer.resolve(unresolved, TODAY);
+        assertEquals(1_500.0, unresolved.getAmount(), "the LLM value is kept when the span is ambiguous");
+
+        assertEquals(1, meterRegistry.get("assistant.normalizer.spans")
+            .tag("field", "amount").tag("result", "unresolved").counter().count());
+        assertEquals(2, meterRegistry.get("assistant.normalizer.spans")
+            .tag("field", "date").tag("result", "resolved").counter().count());
+
+        System.out.println("✅ Spans resolved into amount, startDate and endDate");
+    }
+
+    @Test
+    @DisplayName("Corpus - Prompt examples resolve from their spans, copied from the user message")
+    void corpus_PromptExamples() throws Exception {
+        int amounts = 0;
+        int dates = 0;
+        for (String line : IntentClassifierService.SYSTEM_PROMPT.split("\n")) {
+            Matcher example = PROMPT_EXAMPLE.matcher(line);
+            if (!example.matches()) {
+                continue;
+            }
+            String message = example.group(1);
+            IntentResult intent = objectMapper.readValue(example.group(2), IntentResult.class);
+
+            if (intent.getAmountText() != null) {
+                OptionalDouble fromSpan = normalizer.amount(intent.getAmountText());
+                assertTrue(fromSpan.isPresent(), message);
+                assertTrue(FastIntentParser.fold(message).contains(FastIntentParser.fold(intent.getAmountText())), message);
+                amounts++;
+            }
+            if (intent.getDateText() != null) {
+                Optional<DateRange> fromSpan = normalizer.dates(intent.getDateText(), TODAY);
+                assertTrue(fromSpan.isPresent(), message);
+                assertEquals(fromSpan, normalizer.dates(message, TODAY), message);
+                dates++;
+            }
+        }
+
+        assertTrue(amounts >= 7, "amount examples: " + amounts);
+        assertTrue(dates >= 7, "date examples: " + dates);
+
+        // Phrases from the recorded conversations
+        assertDates("Gastos de la semana pasada", "2025-11-24", "2025-11-30");
+        assertDates("¿Qué gasté antier?", "2025-12-05", "2025-12-05");
+        assertDates("¿Cuánto gasté el 15 de noviembre?", "2025-11-15", "2025-11-15");
+        assertDates("Dame un resumen del 5 de Diciembre", "2025-12-05", "2025-12-05");
+        assertDates("¿Cuánto gané del 1 al 15?", "2025-12-01", "2025-12-15");
+
+        System.out.println("✅ " + amounts + " amount and " + dates + " date prompt examples resolved locally");
+    }
+
+    @Test
+    @DisplayName("Tokens - Compact spans against the previous full schema with resolved values")
+    void tokens_OutputSavings() throws Exception {
+        JTokkitTokenCountEstimator tokenizer = new JTokkitTokenCountEstimator();
+        int compactTokens = 0;
+        int fullTokens = 0;
+        int examples = 0;
+        for (String line : IntentClassifierService.SYSTEM_PROMPT.split("\n")) {
+            Matcher example = PROMPT_EXAMPLE.matcher(line);
+            if (!example.matches()) {
+                continue;
+            }
+            String json = example.group(2);
+            compactTokens += tokenizer.estimate(json);
+            fullTokens += tokenizer.estimate(fullFormat(json));
+            examples++;
+        }
+
+        System.out.printf("✅ %d example outputs: %d tokens compact, %d in the full schema (%.1f%% less)%n",
+            examples, compactTokens, fullTokens, 100.0 * (fullTokens - compactTokens) / fullTokens);
+        assertTrue(compactTokens < fullTokens);
+    }
+
+    /**
+     * The same output in the previous format: every field spelled out, explicit nulls,
+     * numeric amount plus startDate and endDate.
+     */
+    @SuppressWarnings("unchecked")
+    private String fullFormat(String json) throws Exception {
+        Map<String, Object> fields = objectMapper.readValue(json, LinkedHashMap.class);
+        Optional<DateRange> range = fields.get("f") == null ? Optional.empty()
+            : normalizer.dates((String) fields.get("f"), TODAY);
+        boolean singleDay = range.map(DateRange::singleDay).orElse(false);
+
+        Map<String, Object> full = new LinkedHashMap<>();
+        full.put("intent", fields.get("i"));
+        full.put("amount", fields.get("a") == null ? null
+            : (long) normalizer.amount((String) fields.get("a")).getAsDouble());
+        full.put("category", fields.get("c"));
+        full.put("description", fields.get("d"));
+        full.put("type", fields.get("t"));
+        full.put("period", fields.get("p"));
+        full.put("startDate", range.map(r -> r.start().toString()).orElse(null));
+        full.put("endDate", singleDay ? null : range.map(r -> r.end().toString()).orElse(null));
+        full.put("searchQuery", fields.get("q"));
+        full.put("response", fields.get("r"));
+        return objectMapper.writeValueAsString(full);
+    }
+
+    private void assertDates(String text, String start, String end) {
+        DateRange range = normalizer.dates(text, TODAY).orElseThrow(() -> new AssertionError(text));
+        assertEquals(LocalDate.parse(start), range.start(), text);
+        assertEquals(LocalDate.parse(end), range.end(), text);
+    }
+}
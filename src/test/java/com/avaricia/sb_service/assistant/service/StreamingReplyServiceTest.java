@@ -0,0 +1,150 @@
+package com.avaricia.sb_service.assistant.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StreamingReplyService.
+ * Uses a fake TelegramService that records the calls instead of hitting the Bot API.
+ */
+class StreamingReplyServiceTest {
+
+    private static final Long CHAT_ID = 42L;
+    private static final String FALLBACK = "📊 *Resumen de gastos:*\n🍔 Comida: $120,000\n🚕 Transporte: $45,000";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RecordingTelegramService telegram = new RecordingTelegramService();
+    // A long edit interval keeps the number of intermediate edits deterministic
+    private final StreamingReplyService service =
+        new StreamingReplyService(telegram, meterRegistry, Duration.ofHours(1), Duration.ofSeconds(5));
+
+    @Test
+    @DisplayName("Stream - First chunk is sent right away and the final text is set with Markdown")
+    void stream_SendsFirstChunkThenFinalEdit() {
+        String result = service.stream(CHAT_ID,
+            Flux.just("Este mes ", "gastaste *$165,000*, ", "sobre todo en comida 🍔."), FALLBACK);
+
+        assertEquals("Este mes gastaste *$165,000*, sobre todo en comida 🍔.", result);
+        assertEquals(List.of("typing", "send-plain:Este mes" + StreamingReplyService.CURSOR,
+            "edit-markdown:" + result), telegram.calls);
+        assertEquals(1, meterRegistry.get("assistant.streaming.first-content").timer().count());
+
+        System.out.println("✅ First chunk sent immediately, final text edited in as Markdown");
+    }
+
+    @Test
+    @DisplayName("Stream - Partial edits are sent once the edit interval has passed")
+    void stream_EditsPartialTextAfterInterval() {
+        StreamingReplyService eager =
+            new StreamingReplyService(telegram, meterRegistry, Duration.ZERO, Duration.ofSeconds(5));
+
+        String result = eager.stream(CHAT_ID, Flux.just("Tienes ", "$2,500,000 ", "disponibles en tu cuenta."), FALLBACK);
+
+        assertEquals("Tienes $2,500,000 disponibles en tu cuenta.", result);
+        assertEquals(List.of("typing",
+            "send-plain:Tienes" + StreamingReplyService.CURSOR,
+            "edit-plain:Tienes $2,500,000" + StreamingReplyService.CURSOR,
+            "edit-plain:" + result + StreamingReplyService.CURSOR,
+            "edit-markdown:" + result), telegram.calls);
+
+        System.out.println("✅ Partial text edited in plain with a cursor");
+    }
+
+    @Test
+    @DisplayName("Stream - Rejected Markdown falls back to a plain edit")
+    void stream_FallsBackToPlainEdit() {
+        telegram.rejectMarkdown = true;
+
+        String result = service.stream(CHAT_ID, Flux.just("Gastaste *$45,000 en transporte este mes."), FALLBACK);
+
+        assertEquals("edit-plain:" + result, telegram.calls.get(telegram.calls.size() - 1));
+
+        System.out.println("✅ Unbalanced Markdown delivered as plain text");
+    }
+
+    @Test
+    @DisplayName("Stream - Failed stream delivers the original response in the same message")
+    void stream_ErrorDeliversFallback() {
+        // The connection drops after the first chunk has been shown
+        Flux<String> chunks = Flux.concat(Flux.just("Este mes gastaste "),
+            Flux.<String>error(new IllegalStateException("connection reset")).delaySubscription(Duration.ofMillis(50)));
+
+        String result = service.stream(CHAT_ID, chunks, FALLBACK);
+
+        assertEquals(FALLBACK, result);
+        assertEquals("edit-markdown:" + FALLBACK, telegram.calls.get(telegram.calls.size() - 1));
+
+        System.out.println("✅ Stream error replaced by the original response");
+    }
+
+    @Test
+    @DisplayName("Stream - Empty or too short stream sends the original response as a new message")
+    void stream_ShortStreamSendsFallback() {
+        assertEquals(FALLBACK, service.stream(CHAT_ID, Flux.empty(), FALLBACK));
+        assertEquals(List.of("typing", "send:" + FALLBACK), telegram.calls);
+
+        telegram.calls.clear();
+        assertEquals(FALLBACK, service.stream(CHAT_ID, Flux.just("Ok."), FALLBACK));
+        assertEquals("edit-markdown:" + FALLBACK, telegram.calls.get(telegram.calls.size() - 1));
+
+        System.out.println("✅ Unusable streams replaced by the original response");
+    }
+
+    @Test
+    @DisplayName("Stream - Message that cannot be started is delivered at the end")
+    void stream_SendFailureDeliversAtEnd() {
+        telegram.failSend = true;
+
+        String result = service.stream(CHAT_ID, Flux.just("Tu saldo actual ", "es de $2,500,000."), FALLBACK);
+
+        assertEquals(List.of("typing", "send-plain:Tu saldo actual" + StreamingReplyService.CURSOR,
+            "send-plain:Tu saldo actual es de $2,500,000." + StreamingReplyService.CURSOR, "send:" + result), telegram.calls);
+
+        System.out.println("✅ Reply sent as a new message when streaming could not start");
+    }
+
+    /**
+     * TelegramService that records calls instead of calling the Bot API.
+     */
+    private static class RecordingTelegramService extends TelegramService {
+
+        final List<String> calls = new ArrayList<>();
+        boolean rejectMarkdown;
+        boolean failSend;
+
+        RecordingTelegramService() {
+            super(null, "1:test");
+        }
+
+        @Override
+        public void sendMessage(Long chatId, String text) {
+            calls.add("send:" + text);
+        }
+
+        @Override
+        public Long sendMessageForEditing(Long chatId, String text, boolean markdown) {
+            calls.add((markdown ? "send-markdown:" : "send-plain:") + text);
+            return failSend ? null : 100L;
+        }
+
+        @Override
+        public boolean editMessageText(Long chatId, Long messageId, String text, boolean markdown) {
+            calls.add((markdown ? "edit-markdown:" : "edit-plain:") + text);
+            return !(markdown && rejectMarkdown);
+        }
+
+        @Override
+        public void sendTypingAction(Long chatId) {
+            calls.add("typing");
+        }
+    }
+}
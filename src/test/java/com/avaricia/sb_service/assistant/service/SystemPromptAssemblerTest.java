@@ -0,0 +1,62 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SystemPromptAssembler.
+ * Verifies the static prefix stays identical across days and the prompt is built once per day.
+ */
+class SystemPromptAssemblerTest {
+
+    private static final String INSTRUCTIONS = "Eres un asistente financiero.\nUsa la sección FECHA ACTUAL.\n";
+
+    private final AtomicReference<LocalDate> today = new AtomicReference<>(LocalDate.of(2025, 12, 7));
+    private final SystemPromptAssembler assembler =
+        new SystemPromptAssembler(INSTRUCTIONS, new JTokkitTokenCountEstimator(), today::get);
+
+    @Test
+    @DisplayName("Prompt - Static instructions first, date section last")
+    void prompt_DateSectionLast() {
+        String prompt = assembler.systemPrompt();
+
+        assertTrue(prompt.startsWith(INSTRUCTIONS.stripTrailing()));
+        assertTrue(prompt.endsWith(SystemPromptAssembler.dateSection(today.get())));
+        assertTrue(prompt.contains("HOY = 7 de diciembre de 2025 (2025-12-07)"));
+        assertTrue(prompt.contains("\"ayer\" = 2025-12-06"));
+
+        System.out.println("✅ Prompt:\n" + prompt);
+    }
+
+    @Test
+    @DisplayName("Prompt - Built once per day, same prefix on the next day")
+    void prompt_RebuiltOnlyWhenDateChanges() {
+        String first = assembler.systemPrompt();
+        assertSame(first, assembler.systemPrompt());
+
+        today.set(LocalDate.of(2025, 12, 8));
+        String next = assembler.systemPrompt();
+
+        assertNotSame(first, next);
+        int prefix = INSTRUCTIONS.stripTrailing().length();
+        assertEquals(first.substring(0, prefix), next.substring(0, prefix));
+        assertTrue(next.contains("(2025-12-08)"));
+
+        System.out.println("✅ Rebuilt on day change with an identical prefix");
+    }
+
+    @Test
+    @DisplayName("Tokens - Each segment is measured")
+    void tokens_PerSegment() {
+        assertTrue(assembler.getStaticTokens() > 0);
+        assertTrue(assembler.getDateTokens() > 0);
+
+        System.out.println("✅ Static: " + assembler.getStaticTokens() + " tokens, date: " + assembler.getDateTokens() + " tokens");
+    }
+}
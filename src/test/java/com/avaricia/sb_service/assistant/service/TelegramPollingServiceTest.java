@@ -0,0 +1,180 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.avaricia.sb_service.assistant.service.UpdateIngestionService.IngestResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TelegramPollingService.
+ * A fake getUpdates serves scripted batches (and redelivers what was not confirmed by the
+ * offset); a fake ingestion service records the hand-offs and rejects chosen updates once.
+ */
+class TelegramPollingServiceTest {
+
+    private final ScriptedTelegramService telegram = new ScriptedTelegramService();
+    private final RecordingIngestionService ingestion = new RecordingIngestionService();
+    private final TelegramPollingService poller = new TelegramPollingService(telegram, ingestion,
+        new SimpleMeterRegistry(), 100, Duration.ofSeconds(1), Duration.ofMillis(20), Duration.ofSeconds(60));
+
+    @AfterEach
+    void tearDown() {
+        poller.stop();
+    }
+
+    @Test
+    @DisplayName("Offset - Advances past every update handed off and is confirmed on stop")
+    void offset_AdvancesPastHandedOffUpdates() {
+        telegram.serve(1, 2, 3);
+        telegram.serve(4, 5);
+
+        poller.start();
+        awaitUntil(() -> ingestion.ids().size() == 5);
+        awaitUntil(() -> telegram.offsets().size() >= 3);
+        poller.stop();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ingestion.ids());
+        assertEquals(List.of(0L, 4L, 6L), telegram.offsets().subList(0, 3));
+        assertTrue(telegram.webhookDeleted);
+        assertEquals(6L, telegram.confirmedOffset, "stop confirms the last batch");
+
+        System.out.println("✅ Offsets sent to getUpdates: " + telegram.offsets());
+    }
+
+    @Test
+    @DisplayName("Rejected - The batch stops at the rejected update, which is fetched again")
+    void rejected_StopsBatchAndRefetches() {
+        ingestion.rejectOnce(11L);
+        telegram.serve(10, 11, 12);
+
+        poller.start();
+        awaitUntil(() -> ingestion.ids().size() == 4);
+        poller.stop();
+
+        // 12 is not handed off after 11 was rejected: order is kept
+        assertEquals(List.of(10L, 11L, 11L, 12L), ingestion.ids());
+        assertEquals(List.of(0L, 11L), telegram.offsets().subList(0, 2));
+        assertEquals(13L, telegram.confirmedOffset);
+
+        System.out.println("✅ Rejected update fetched again from offset 11");
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static TelegramUpdate update(long updateId) {
+        return new TelegramUpdate(updateId, new TelegramUpdate.Message(updateId, new TelegramUpdate.Chat(42L),
+            new TelegramUpdate.User(7L, "user", "User"), "mensaje " + updateId, null, null, null));
+    }
+
+    /**
+     * TelegramService whose getUpdates behaves like the Bot API: it returns the pending updates
+     * from the requested offset, and an offset confirms (drops) every update below it.
+     */
+    private static class ScriptedTelegramService extends TelegramService {
+
+        private final BlockingQueue<List<TelegramUpdate>> batches = new LinkedBlockingQueue<>();
+        private final List<Long> offsets = new CopyOnWriteArrayList<>();
+        private final List<TelegramUpdate> pending = new ArrayList<>();
+        volatile boolean webhookDeleted;
+        volatile long confirmedOffset;
+
+        ScriptedTelegramService() {
+            super(null, "1:test");
+        }
+
+        void serve(long... updateIds) {
+            List<TelegramUpdate> batch = new ArrayList<>();
+            for (long updateId : updateIds) {
+                batch.add(update(updateId));
+            }
+            batches.add(batch);
+        }
+
+        List<Long> offsets() {
+            return List.copyOf(offsets);
+        }
+
+        @Override
+        public void deleteWebhook() {
+            webhookDeleted = true;
+        }
+
+        @Override
+        public List<TelegramUpdate> getUpdates(long offset, int limit, int timeoutSeconds) {
+            if (timeoutSeconds == 0) {
+                confirmedOffset = offset;
+                return List.of();
+            }
+            offsets.add(offset);
+            synchronized (pending) {
+                pending.removeIf(update -> update.updateId() < offset);
+                if (pending.isEmpty()) {
+                    List<TelegramUpdate> next;
+                    try {
+                        next = batches.poll(20, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("interrupted", e);
+                    }
+                    if (next != null) {
+                        pending.addAll(next);
+                    }
+                }
+                return List.copyOf(pending.subList(0, Math.min(limit, pending.size())));
+            }
+        }
+    }
+
+    /**
+     * UpdateIngestionService that records the hand-offs instead of dispatching them.
+     */
+    private static class RecordingIngestionService extends UpdateIngestionService {
+
+        private final List<Long> ids = new CopyOnWriteArrayList<>();
+        private final Set<Long> rejectOnce = ConcurrentHashMap.newKeySet();
+
+        RecordingIngestionService() {
+            super(null, null, null, null, null, null);
+        }
+
+        void rejectOnce(long updateId) {
+            rejectOnce.add(updateId);
+        }
+
+        List<Long> ids() {
+            return List.copyOf(ids);
+        }
+
+        @Override
+        public IngestResult ingest(TelegramUpdate update) {
+            ids.add(update.updateId());
+            return rejectOnce.remove(update.updateId()) ? IngestResult.REJECTED : IngestResult.ACCEPTED;
+        }
+    }
+}
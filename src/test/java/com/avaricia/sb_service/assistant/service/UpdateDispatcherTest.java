@@ -0,0 +1,65 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.service.UpdateDispatcher.Admission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UpdateDispatcher.
+ */
+class UpdateDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // A 100 ms latency threshold: anything counted as processing above it shrinks the limit
+    private final UpdateDispatcher dispatcher =
+        new UpdateDispatcher(meterRegistry, 100, Duration.ofSeconds(2), 10, 1, Duration.ofMillis(100));
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("Prepare - The preparation wait is not processing time and does not shrink the limit")
+    void prepare_ExcludedFromLatency() {
+        List<String> processed = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            String text = "mensaje " + i;
+            Admission admission = dispatcher.dispatch(42L, () -> {
+                sleep(200);
+                return text;
+            }, processed::add);
+            assertEquals(Admission.ACCEPTED, admission);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcher.getPendingCount() > 0) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            sleep(5);
+        }
+
+        assertEquals(List.of("mensaje 0", "mensaje 1", "mensaje 2"), processed);
+        double maxProcessingMs = meterRegistry.get("telegram.dispatch.processing").timer().max(TimeUnit.MILLISECONDS);
+        assertTrue(maxProcessingMs < 100, "processing took " + maxProcessingMs + " ms");
+        assertEquals(10, meterRegistry.get("telegram.admission.limit").gauge().value(), "the limit shrank");
+
+        System.out.println("✅ Slowest processing sample " + maxProcessingMs + " ms after a 200 ms wait");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
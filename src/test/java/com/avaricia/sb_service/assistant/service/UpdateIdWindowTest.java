@@ -0,0 +1,100 @@
+package com.avaricia.sb_service.assistant.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UpdateIdWindow.
+ * Verifies duplicate detection, out-of-order arrivals and window sliding.
+ */
+class UpdateIdWindowTest {
+
+    @Test
+    @DisplayName("Redelivered update ID - Detected as duplicate")
+    void redelivery_IsDuplicate() {
+        UpdateIdWindow window = new UpdateIdWindow(1024);
+
+        assertTrue(window.markIfNew(1000));
+        assertFalse(window.markIfNew(1000));
+        assertTrue(window.markIfNew(1001));
+        assertFalse(window.markIfNew(1001));
+
+        System.out.println("✅ Redelivered update IDs are dropped");
+    }
+
+    @Test
+    @DisplayName("Out of order IDs inside the window - Accepted once")
+    void outOfOrder_AcceptedOnce() {
+        UpdateIdWindow window = new UpdateIdWindow(1024);
+
+        assertTrue(window.markIfNew(500));
+        assertTrue(window.markIfNew(498));
+        assertTrue(window.markIfNew(499));
+        assertFalse(window.markIfNew(498));
+        assertFalse(window.markIfNew(499));
+
+        System.out.println("✅ Out of order update IDs handled");
+    }
+
+    @Test
+    @DisplayName("Window slides - Reused slots are cleared and old IDs are rejected")
+    void windowSlides() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+        assertEquals(64, window.capacity());
+
+        assertTrue(window.markIfNew(10));
+        // 74 maps to the same slot as 10: it must not be seen as a duplicate
+        assertTrue(window.markIfNew(74));
+        // 10 is now older than the window
+        assertFalse(window.markIfNew(10));
+
+        // A large jump resets the window
+        assertTrue(window.markIfNew(1_000_000));
+        assertTrue(window.markIfNew(999_990));
+
+        System.out.println("✅ Window slides correctly");
+    }
+
+    @Test
+    @DisplayName("Large backwards jump - The window is reset and re-anchored")
+    void backwardsJump_Resets() {
+        UpdateIdWindow window = new UpdateIdWindow(64);
+
+        assertTrue(window.markIfNew(1_000_000));
+        assertTrue(window.markIfNew(1_000_001));
+        // Just outside the window: a stale redelivery
+        assertFalse(window.markIfNew(1_000_001 - 64));
+
+        // The update ID sequence restarted far below
+        assertTrue(window.markIfNew(5));
+        assertFalse(window.markIfNew(5));
+        assertTrue(window.markIfNew(6));
+        assertTrue(window.markIfNew(4));
+        assertFalse(window.markIfNew(6));
+
+        System.out.println("✅ Backwards jump re-anchored the window");
+    }
+
+    @Test
+    @DisplayName("Forget - Redelivery of a rejected update is accepted")
+    void forget_AllowsRedelivery() {
+        UpdateIdWindow window = new UpdateIdWindow(1024);
+
+        assertTrue(window.markIfNew(42));
+        window.forget(42);
+        assertTrue(window.markIfNew(42));
+        assertFalse(window.markIfNew(42));
+
+        System.out.println("✅ Forgotten update accepted again");
+    }
+
+    @Test
+    @DisplayName("Capacity - Rounded up to a power of two")
+    void capacity_RoundedUp() {
+        assertEquals(64, new UpdateIdWindow(1).capacity());
+        assertEquals(128, new UpdateIdWindow(100).capacity());
+        assertEquals(65536, new UpdateIdWindow(65536).capacity());
+    }
+}
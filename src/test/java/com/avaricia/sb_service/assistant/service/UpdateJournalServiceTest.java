@@ -0,0 +1,348 @@
+package com.avaricia.sb_service.assistant.service;
+
+import com.avaricia.sb_service.assistant.dto.TelegramUpdate;
+import com.avaricia.sb_service.assistant.entity.InboundUpdateEntity;
+import com.avaricia.sb_service.assistant.repository.InboundUpdateRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UpdateJournalService.
+ * The repository is an in-memory journal behind a proxy of InboundUpdateRepository that follows
+ * the rules of its SQL (oldest update per chat, pending or stale claims, attempts counted per claim).
+ */
+class UpdateJournalServiceTest {
+
+    private static final long CHAT_A = 100L;
+    private static final long CHAT_B = 200L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InMemoryJournal journal = new InMemoryJournal();
+    private final InboundUpdateRepository repository = journal.repository();
+    private final RecordingUpdateHandler handler = new RecordingUpdateHandler();
+    private final List<UpdateDispatcher> dispatchers = new ArrayList<>();
+    private final List<UpdateJournalService> services = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(UpdateJournalService::shutdown);
+        dispatchers.forEach(UpdateDispatcher::shutdown);
+    }
+
+    @Test
+    @DisplayName("Claim ordering - Updates of a chat run one at a time, in journal order")
+    void claimOrdering_PerChat() {
+        UpdateJournalService service = service(dispatcher(), 3);
+        long[][] updates = {{1, CHAT_A}, {2, CHAT_B}, {3, CHAT_A}, {4, CHAT_A}, {5, CHAT_B}, {6, CHAT_A}};
+        for (long[] update : updates) {
+            assertTrue(service.append(update(update[0], update[1])));
+        }
+        // Redelivery of an update already journaled
+        assertTrue(service.append(update(1, CHAT_A)));
+
+        service.start();
+        awaitUntil(() -> handler.finished.size() == updates.length);
+
+        assertEquals(List.of(1L, 3L, 4L, 6L), handler.finishedIn(CHAT_A));
+        assertEquals(List.of(2L, 5L), handler.finishedIn(CHAT_B));
+        assertEquals(1, handler.maxConcurrentPerChat.get(), "two updates of one chat ran at once");
+        assertTrue(journal.isEmpty(), "processed updates are deleted");
+        assertTrue(journal.claimLimits.stream().allMatch(limit -> limit <= 3), "claims " + journal.claimLimits);
+        assertEquals(updates.length, meterRegistry.get("telegram.journal.processed").counter().count());
+
+        System.out.println("✅ Journal order kept per chat: A " + handler.finishedIn(CHAT_A) + ", B " + handler.finishedIn(CHAT_B));
+    }
+
+    @Test
+    @DisplayName("Retry - A claim failure and a rejected dispatch are retried until processed")
+    void retry_AfterFailures() {
+        RejectingDispatcher dispatcher = new RejectingDispatcher(meterRegistry, 1);
+        dispatchers.add(dispatcher);
+        UpdateJournalService service = service(dispatcher, 50);
+        journal.failClaims.set(1);
+        service.append(update(1, CHAT_A));
+        service.append(update(2, CHAT_A));
+
+        service.start();
+        awaitUntil(() -> handler.finished.size() == 2);
+
+        assertEquals(List.of(1L, 2L), handler.finishedIn(CHAT_A));
+        assertEquals(0, journal.failClaims.get());
+        // Released after the rejection and claimed again, within max-attempts = 2
+        assertEquals(2, journal.attemptsOf(1L));
+        assertEquals(1, journal.attemptsOf(2L));
+        assertEquals(0, meterRegistry.get("telegram.journal.abandoned").counter().count());
+
+        System.out.println("✅ Update 1 processed on attempt " + journal.attemptsOf(1L));
+    }
+
+    @Test
+    @DisplayName("Retry - An update rejected more than max-attempts times is dropped")
+    void retry_AbandonedAfterMaxAttempts() {
+        RejectingDispatcher dispatcher = new RejectingDispatcher(meterRegistry, Integer.MAX_VALUE);
+        dispatchers.add(dispatcher);
+        UpdateJournalService service = service(dispatcher, 50);
+        service.append(update(1, CHAT_A));
+
+        service.start();
+        awaitUntil(journal::isEmpty);
+
+        assertTrue(handler.finished.isEmpty());
+        assertEquals(3, journal.attemptsOf(1L), "max-attempts = 2, dropped on the third claim");
+        assertEquals(1, meterRegistry.get("telegram.journal.abandoned").counter().count());
+    }
+
+    @Test
+    @DisplayName("Retry - A failed dispatch releases its entry and the rest of the batch still runs")
+    void retry_FailedDispatchReleasesEntry() {
+        FailingDispatcher dispatcher = new FailingDispatcher(meterRegistry, CHAT_A);
+        dispatchers.add(dispatcher);
+        UpdateJournalService service = service(dispatcher, 50);
+        service.append(update(1, CHAT_A));
+        service.append(update(2, CHAT_B));
+        service.append(update(3, CHAT_B));
+
+        service.start();
+        // Without the release, update 1 would wait for the 5 minute lease
+        awaitUntil(() -> handler.finished.size() == 3);
+
+        assertEquals(List.of(1L), handler.finishedIn(CHAT_A));
+        assertEquals(List.of(2L, 3L), handler.finishedIn(CHAT_B));
+        assertEquals(2, journal.attemptsOf(1L), "released after the failure and claimed again");
+        assertEquals(1, journal.attemptsOf(2L));
+        assertTrue(journal.isEmpty());
+
+        System.out.println("✅ Update 1 processed on attempt " + journal.attemptsOf(1L) + " after a failed dispatch");
+    }
+
+    private UpdateJournalService service(UpdateDispatcher dispatcher, int batchSize) {
+        UpdateJournalService service = new UpdateJournalService(repository, dispatcher, handler,
+            new TelegramService(null, "1:test"), new ObjectMapper(), meterRegistry,
+            true, batchSize, Duration.ofMillis(20), Duration.ofMinutes(5), 2, Duration.ofSeconds(2));
+        services.add(service);
+        return service;
+    }
+
+    private UpdateDispatcher dispatcher() {
+        UpdateDispatcher dispatcher = new UpdateDispatcher(meterRegistry, 100, Duration.ofSeconds(2), 3, 1, Duration.ofSeconds(20));
+        dispatchers.add(dispatcher);
+        return dispatcher;
+    }
+
+    private static TelegramUpdate update(long updateId, long chatId) {
+        return new TelegramUpdate(updateId, new TelegramUpdate.Message(updateId, new TelegramUpdate.Chat(chatId),
+            new TelegramUpdate.User(7L, "user", "User"), String.valueOf(updateId), null, null, null));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * UpdateDispatcher that rejects the first dispatches, then runs the tasks normally.
+     */
+    private static class RejectingDispatcher extends UpdateDispatcher {
+
+        private final AtomicInteger rejections;
+
+        RejectingDispatcher(SimpleMeterRegistry meterRegistry, int rejections) {
+            super(meterRegistry, 100, Duration.ofSeconds(2), 10, 1, Duration.ofSeconds(20));
+            this.rejections = new AtomicInteger(rejections);
+        }
+
+        @Override
+        public Admission dispatch(Long chatId, Runnable task) {
+            if (rejections.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                return Admission.REJECTED;
+            }
+            return super.dispatch(chatId, task);
+        }
+    }
+
+    /**
+     * UpdateDispatcher that throws on the first dispatch of the given chat.
+     */
+    private static class FailingDispatcher extends UpdateDispatcher {
+
+        private final Set<Long> failOnce = ConcurrentHashMap.newKeySet();
+
+        FailingDispatcher(SimpleMeterRegistry meterRegistry, long chatId) {
+            super(meterRegistry, 100, Duration.ofSeconds(2), 10, 1, Duration.ofSeconds(20));
+            failOnce.add(chatId);
+        }
+
+        @Override
+        public Admission dispatch(Long chatId, Runnable task) {
+            if (failOnce.remove(chatId)) {
+                throw new IllegalStateException("dispatcher failure");
+            }
+            return super.dispatch(chatId, task);
+        }
+    }
+
+    /**
+     * TelegramUpdateHandler that records the updates it processes (the update ID is the text).
+     */
+    private static class RecordingUpdateHandler extends TelegramUpdateHandler {
+
+        final List<long[]> finished = new CopyOnWriteArrayList<>();
+        final AtomicInteger maxConcurrentPerChat = new AtomicInteger();
+        private final Map<Long, AtomicInteger> running = new ConcurrentHashMap<>();
+
+        RecordingUpdateHandler() {
+            super(null, null, null, null, null);
+        }
+
+        List<Long> finishedIn(long chatId) {
+            return finished.stream().filter(update -> update[1] == chatId).map(update -> update[0]).toList();
+        }
+
+        @Override
+        public void handleMessage(TelegramUpdate.Message message) {
+            long updateId = Long.parseLong(message.text());
+            AtomicInteger chatRunning = running.computeIfAbsent(message.chatId(), chat -> new AtomicInteger());
+            maxConcurrentPerChat.accumulateAndGet(chatRunning.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                chatRunning.decrementAndGet();
+                finished.add(new long[] {updateId, message.chatId()});
+            }
+        }
+    }
+
+    /**
+     * In-memory InboundUpdates table following the statements of InboundUpdateRepository.
+     */
+    private static class InMemoryJournal implements InvocationHandler {
+
+        private final TreeMap<Long, InboundUpdateEntity> rows = new TreeMap<>();
+        private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+        private long nextId = 1;
+        final List<Integer> claimLimits = new CopyOnWriteArrayList<>();
+        final AtomicInteger failClaims = new AtomicInteger();
+
+        InboundUpdateRepository repository() {
+            return (InboundUpdateRepository) Proxy.newProxyInstance(InboundUpdateRepository.class.getClassLoader(),
+                new Class<?>[] {InboundUpdateRepository.class}, this);
+        }
+
+        synchronized boolean isEmpty() {
+            return rows.isEmpty();
+        }
+
+        int attemptsOf(long updateId) {
+            return attempts.getOrDefault(updateId, 0);
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) {
+            return switch (method.getName()) {
+                case "append" -> append((Long) args[0], (Long) args[1], (Long) args[2], (String) args[3], (OffsetDateTime) args[4]);
+                case "claim" -> claim((String) args[0], (Integer) args[1], (OffsetDateTime) args[2], (OffsetDateTime) args[3]);
+                case "complete" -> rows.remove((Long) args[0]) != null ? 1 : 0;
+                case "release" -> release((Long) args[0], (String) args[1]);
+                case "releaseAll" -> releaseAll((String) args[0]);
+                case "toString" -> "InMemoryJournal";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        }
+
+        private int append(Long botId, Long updateId, Long chatId, String payload, OffsetDateTime now) {
+            boolean exists = rows.values().stream()
+                .anyMatch(row -> row.getBotId().equals(botId) && row.getUpdateId().equals(updateId));
+            if (exists) {
+                return 0;
+            }
+            long id = nextId++;
+            rows.put(id, InboundUpdateEntity.builder().id(id).botId(botId).updateId(updateId).chatId(chatId)
+                .payload(payload).status("pending").attempts(0).createdAt(now).build());
+            return 1;
+        }
+
+        private List<InboundUpdateEntity> claim(String owner, int limit, OffsetDateTime now, OffsetDateTime staleBefore) {
+            claimLimits.add(limit);
+            if (failClaims.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new IllegalStateException("database unavailable");
+            }
+            List<InboundUpdateEntity> claimed = rows.values().stream()
+                .filter(row -> "pending".equals(row.getStatus())
+                    || (row.getClaimedAt() != null && row.getClaimedAt().isBefore(staleBefore)))
+                .filter(row -> rows.values().stream().noneMatch(earlier -> earlier.getBotId().equals(row.getBotId())
+                    && earlier.getChatId().equals(row.getChatId()) && earlier.getId() < row.getId()))
+                .sorted(Comparator.comparing(InboundUpdateEntity::getId))
+                .limit(limit)
+                .toList();
+            List<InboundUpdateEntity> returned = new ArrayList<>();
+            for (InboundUpdateEntity row : claimed) {
+                row.setStatus("processing");
+                row.setClaimedBy(owner);
+                row.setClaimedAt(now);
+                row.setAttempts(row.getAttempts() + 1);
+                attempts.put(row.getUpdateId(), row.getAttempts());
+                // The caller gets what RETURNING * gives: a copy, not the row
+                returned.add(new InboundUpdateEntity(row.getId(), row.getBotId(), row.getUpdateId(), row.getChatId(),
+                    row.getPayload(), row.getStatus(), row.getClaimedBy(), row.getClaimedAt(), row.getAttempts(),
+                    row.getCreatedAt()));
+            }
+            return returned;
+        }
+
+        private int release(Long id, String owner) {
+            InboundUpdateEntity row = rows.get(id);
+            if (row == null || !owner.equals(row.getClaimedBy())) {
+                return 0;
+            }
+            row.setStatus("pending");
+            row.setClaimedBy(null);
+            row.setClaimedAt(null);
+            return 1;
+        }
+
+        private int releaseAll(String owner) {
+            int released = 0;
+            for (InboundUpdateEntity row : rows.values()) {
+                if (owner.equals(row.getClaimedBy()) && "processing".equals(row.getStatus())) {
+                    release(row.getId(), owner);
+                    released++;
+                }
+            }
+            return released;
+        }
+    }
+}